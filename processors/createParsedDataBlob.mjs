@@ -39,6 +39,8 @@ function createParsedDataBlob(entries, matchId) {
 }
 const entries = [];
 let complete = false;
+// The parser ends the output of a parse aborted over its memory budget with this event
+let aborted = false;
 const matchId = process.argv[2];
 const parseStream = readline.createInterface({
   input: process.stdin,
@@ -49,9 +51,14 @@ parseStream.on('line', (e) => {
   if (e.type === 'epilogue') {
     complete = true;
   }
+  if (e.type === 'parse_aborted') {
+    aborted = true;
+  }
 });
 parseStream.on('close', () => {
-  if (complete) {
+  if (aborted) {
+    process.exit(3);
+  } else if (complete) {
     const parsedData = createParsedDataBlob(entries, matchId);
     process.stdout.write(JSON.stringify(parsedData), null, (err) => {
       process.exit(Number(err));
@@ -6,13 +6,16 @@ import java.util.TimerTask;
 
 import com.sun.net.httpserver.HttpServer;
 
-import tidebound.database.DatabaseInitializer;
 import tidebound.handler.BlobHandler;
+import tidebound.handler.ExtractorsHandler;
 import tidebound.handler.HealthHandler;
 import tidebound.handler.LocalReplayHandler;
+import tidebound.handler.MetadataHandler;
 import tidebound.handler.ParseHandler;
+import tidebound.handler.SnapshotHandler;
 import tidebound.handler.SwaggerSpecHandler;
 import tidebound.handler.SwaggerUIHandler;
+import tidebound.worker.ParseWorkerPool;
 
 /**
  * Main entry point for the replay parser HTTP server.
@@ -24,47 +27,50 @@ public class Main {
     private static final int REGISTRATION_INTERVAL_MS = 5000;
 
     public static void main(String[] args) throws Exception {
-        initializeDatabaseOnStartup();
+        ParserEngine engine = initializeEngineOnStartup();
+        ParseWorkerPool workers = ParseWorkerPool.fromEnvironment();
         HttpServer server = HttpServer.create(new InetSocketAddress(SERVER_PORT), 0);
-        server.createContext("/", new ParseHandler());
-        server.createContext("/healthz", new HealthHandler());
+        server.createContext("/", new ParseHandler(engine, workers));
+        server.createContext("/healthz", new HealthHandler(engine));
         server.createContext("/blob", new BlobHandler());
-        server.createContext("/local", new LocalReplayHandler());
+        server.createContext("/local", new LocalReplayHandler(engine, workers));
+        server.createContext("/metadata", new MetadataHandler(engine));
+        server.createContext("/extractors", new ExtractorsHandler(engine));
+        server.createContext("/snapshot", new SnapshotHandler(workers == null ? new StateSnapshots(engine) : null));
         server.createContext("/swagger/openapi.json", new SwaggerSpecHandler());
         server.createContext("/swagger", new SwaggerUIHandler());
         server.setExecutor(java.util.concurrent.Executors.newCachedThreadPool());
         server.start();
 
-        // Re-register ourselves
+        // Re-register ourselves, once warmed up
         Timer timer = new Timer(); 
-        TimerTask task = new RegisterTask(); 
+        TimerTask task = new RegisterTask(engine); 
         timer.schedule(task, 0, REGISTRATION_INTERVAL_MS);
+
+        if (workers == null) {
+            ReplayWarmUp.fromEnvironment(engine).run();
+        } else if (workers.awaitWorkers()) {
+            // Workers warm up before they report ready, and posted replays only go to them
+            engine.markReady();
+        } else {
+            timer.cancel();
+            server.stop(0);
+            workers.close();
+            throw new IllegalStateException("Parse workers did not start within " + ParseWorkerPool.ENV_START_TIMEOUT_SECONDS);
+        }
     }
 
     /**
-     * Initializes the database on startup if enabled via environment variable.
+     * Bootstraps the parser engine, which initializes the database if enabled via
+     * environment variable.
      * 
      * @throws Exception If database initialization fails
      */
-    private static void initializeDatabaseOnStartup() throws Exception {
-        String dbEnabled = System.getenv("DB_ENABLED");
-        boolean databaseEnabled = "true".equalsIgnoreCase(dbEnabled) || "1".equals(dbEnabled);
-
-        if (!databaseEnabled) {
-            System.err.println("Database integration disabled. Set DB_ENABLED=true to enable.");
-            return;
-        }
-
-        try {
-            DatabaseInitializer.createDatabaseIfNotExists();
-        } catch (Exception e) {
-            System.err.println("Warning: Could not create database: " + e.getMessage());
-        }
-
-        try {
-            DatabaseInitializer.initializeDatabase();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to run database migrations", e);
+    private static ParserEngine initializeEngineOnStartup() throws Exception {
+        ParserEngine engine = ParserEngine.getInstance();
+        if (engine.getBootstrapFailure() != null) {
+            throw new RuntimeException("Failed to run database migrations", engine.getBootstrapFailure());
         }
+        return engine;
     }
 }
\ No newline at end of file
@@ -2,14 +2,11 @@ package tidebound;
 
 import com.google.gson.Gson;
 import com.google.protobuf.GeneratedMessage;
-import skadistats.clarity.io.Util;
 import skadistats.clarity.model.Entity;
 import skadistats.clarity.model.FieldPath;
-import skadistats.clarity.model.StringTable;
 import skadistats.clarity.processor.entities.Entities;
 import skadistats.clarity.processor.entities.OnEntityCreated;
 import skadistats.clarity.processor.entities.OnEntityDeleted;
-import skadistats.clarity.processor.entities.OnEntityEntered;
 import skadistats.clarity.processor.entities.OnEntityUpdated;
 import skadistats.clarity.processor.entities.UsesEntities;
 import skadistats.clarity.processor.gameevents.OnCombatLogEntry;
@@ -17,78 +14,86 @@ import skadistats.clarity.processor.reader.OnMessage;
 import skadistats.clarity.processor.reader.OnTickEnd;
 import skadistats.clarity.processor.reader.OnTickStart;
 import skadistats.clarity.processor.runner.Context;
+import skadistats.clarity.processor.runner.ControllableRunner;
 import skadistats.clarity.processor.runner.SimpleRunner;
 import skadistats.clarity.model.CombatLogEntry;
-import skadistats.clarity.processor.stringtables.StringTables;
-import skadistats.clarity.processor.stringtables.UsesStringTable;
 import skadistats.clarity.source.InputStreamSource;
+import skadistats.clarity.source.MappedFileSource;
 import skadistats.clarity.wire.shared.common.proto.CommonNetworkBaseTypes.CNETMsg_Tick;
 import skadistats.clarity.wire.shared.demo.proto.Demo;
 import skadistats.clarity.wire.shared.demo.proto.Demo.CDemoFileInfo;
-import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.CDOTAUserMsg_ChatEvent;
-import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.CDOTAUserMsg_ChatMessage;
-import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.CDOTAUserMsg_ChatWheel;
-import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.CDOTAUserMsg_LocationPing;
-import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.CDOTAUserMsg_SpectatorPlayerUnitOrders;
 import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.DOTA_COMBATLOG_TYPES;
 import skadistats.clarity.wire.dota.s2.proto.DOTAS2GcMessagesCommon.CMsgDOTAMatch;
-import skadistats.clarity.wire.shared.s1.proto.S1UserMessages.CUserMsg_SayText2;
-import skadistats.clarity.wire.shared.s2.proto.S2UserMessages.CUserMessageSayText2;
 
 import java.util.*;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.sql.SQLException;
 
-import tidebound.combatlogvisitors.TrackVisitor;
-import tidebound.combatlogvisitors.GreevilsGreedVisitor;
-import tidebound.combatlogvisitors.TrackVisitor.TrackStatus;
-import tidebound.database.GameEventDAO;
-import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages;
+import tidebound.database.GameEventSink;
 import tidebound.database.GameInfoDAO;
-import tidebound.database.DatabaseInitializer;
-
-public class Parse {
+import tidebound.entities.EntityClassFilter;
+import tidebound.entities.EntityTracker;
+import tidebound.entities.PropertyAccessors;
+import tidebound.entities.PropertyWatch;
+import tidebound.events.EventConsumer;
+import tidebound.events.EventField;
+import tidebound.events.EventPipeline;
+import tidebound.events.EventProjection;
+import tidebound.events.EventRecord;
+import tidebound.events.EventRecordPool;
+import tidebound.events.EventSpool;
+import tidebound.events.EventWriter;
+import tidebound.events.SymbolTable;
+import tidebound.events.TimeWindow;
+import tidebound.extractors.Extractor;
+import tidebound.extractors.ExtractorContext;
+import tidebound.extractors.ExtractorDispatcher;
+import tidebound.extractors.ExtractorStats;
+import tidebound.extractors.RetainedState;
+import tidebound.extractors.TickState;
+import tidebound.metadata.GameInfo;
+import tidebound.trajectory.Trajectory;
+import tidebound.trajectory.TrajectoryFormat;
+
+public class Parse implements ExtractorContext {
     
     // Constants
     private static final float INTERVAL_SECONDS = 1.0f;
     private static final float CELL_SIZE = 128.0f;
     private static final int NUM_PLAYERS = 10;
     private static final int MAX_PLAYER_SEARCH_INDEX = 30;
-    private static final int DRAFT_HEROES_ARRAY_SIZE = 24;
-    private static final int MAX_ABILITIES = 32;
-    private static final int MAX_INVENTORY_SLOTS = 8;
+    // Buffered events kept in memory before the rest is spilled to a temp file
+    private static final int SPOOL_MEMORY_EVENTS = 4096;
+    // Replay ticks between checks of the memory budget
+    private static final int BUDGET_CHECK_TICKS = 30;
     private static final int INVALID_HANDLE = 0xFFFFFF;
     private static final int TICKS_PER_SECOND = 30;
-    private static final int MAX_PING_COUNT = 10000;
     private static final int DEFAULT_BATCH_SIZE = 1000;
-    private static final long STEAM_ID_OFFSET = 76561197960265728L;
     private static final int RADIANT_TEAM_ID = 2;
     private static final int DIRE_TEAM_ID = 3;
     private static final int WAITING_FOR_DRAFT_TEAM_ID = 14;
     private static final int PLAYER_SLOT_OFFSET = 128;
     private static final int GAME_STATE_POST_GAME = 6;
     private static final int GAME_STATE_PRE_GAME = 5;
-    private static final int DRAFT_STAGE = 2;
     private static final int LIFE_STATE_ALIVE = 0;
     private static final int LIFE_STATE_DEAD = 1;
     private static final int LIFE_STATE_RESPAWNING = 2;
-    private static final int COMBAT_LOG_TYPE_THRESHOLD = 19;
-    private static final int CHAT_CHANNEL_TYPE_ALL_CHAT = 11;
-    private static final int FACET_KEY_HERO_ID_SHIFT = 32;
-    private static final int FACET_KEY_VARIANT_MASK = 0xFF;
     
     // Entity class names
-    private static final String ENTITY_WEARABLE_ITEM = "CDOTAWearableItem";
     private static final String ENTITY_GAMERULES_PROXY = "CDOTAGamerulesProxy";
     private static final String ENTITY_PLAYER_RESOURCE = "CDOTA_PlayerResource";
     private static final String ENTITY_DATA_RADIANT = "CDOTA_DataRadiant";
     private static final String ENTITY_DATA_DIRE = "CDOTA_DataDire";
-    private static final String ENTITY_PREFIX_ITEM = "CDOTA_Item_";
     private static final String ENTITY_PREFIX_HERO = "CDOTA_Unit_Hero_";
     private static final String ENTITY_PREFIX_COMBAT_LOG_HERO = "npc_dota_hero_";
     
+    // Entity classes read by the core; extractors add theirs, hero abilities and items
+    // are added once they were read
+    private static final List<String> CORE_ENTITY_CLASSES = List.of(
+        ENTITY_GAMERULES_PROXY, ENTITY_PLAYER_RESOURCE, ENTITY_DATA_RADIANT, ENTITY_DATA_DIRE, ENTITY_PREFIX_HERO + "*");
+
     // Property names
     private static final String PROPERTY_PLAYER_ID = "m_nPlayerID";
     private static final String PROPERTY_PLAYER_ID_OLD = "m_iPlayerID";
@@ -102,123 +107,16 @@ public class Parse {
     private static final String PROPERTY_TOTAL_PAUSED_TICKS = "m_pGameRules.m_nTotalPausedTicks";
     private static final String PROPERTY_GAME_START_TIME = "m_pGameRules.m_flGameStartTime";
     private static final String PROPERTY_GAME_STATE = "m_pGameRules.m_nGameState";
-    private static final String PROPERTY_PLAYER_IDS_IN_CONTROL = "m_pGameRules.m_iPlayerIDsInControl";
-    private static final String PROPERTY_ACTIVE_TEAM = "m_pGameRules.m_iActiveTeam";
-    private static final String PROPERTY_EXTRA_TIME_REMAINING = "m_pGameRules.m_fExtraTimeRemaining";
-    private static final String PROPERTY_BANNED_HEROES = "m_pGameRules.m_BannedHeroes";
-    private static final String PROPERTY_SELECTED_HEROES = "m_pGameRules.m_SelectedHeroes";
+
+    // Game rules properties re-read only after they changed, ids in gameRulesWatch
+    private static final String[] GAME_RULES_CLOCK_PROPERTIES = {
+        PROPERTY_GAME_TIME, PROPERTY_GAME_PAUSED, PROPERTY_PAUSE_START_TICK,
+        PROPERTY_TOTAL_PAUSED_TICKS, PROPERTY_GAME_START_TIME, PROPERTY_GAME_STATE
+    };
     private static final String PROPERTY_CELL_X = "CBodyComponent.m_cellX";
     private static final String PROPERTY_CELL_Y = "CBodyComponent.m_cellY";
-    private static final String PROPERTY_CELL_Z = "CBodyComponent.m_cellZ";
     private static final String PROPERTY_VEC_X = "CBodyComponent.m_vecX";
     private static final String PROPERTY_VEC_Y = "CBodyComponent.m_vecY";
-    private static final String PROPERTY_VEC_Z = "CBodyComponent.m_vecZ";
-    private static final String PROPERTY_LIFE_STATE = "m_lifeState";
-    private static final String PROPERTY_HERO_FACET_KEY = "m_iHeroFacetKey";
-    private static final String PROPERTY_OWNER_ENTITY = "m_hOwnerEntity";
-    private static final String PROPERTY_ITEMS = "m_hItems";
-    private static final String PROPERTY_ABILITIES = "m_hAbilities";
-    private static final String PROPERTY_ABILITIES_VEC = "m_vecAbilities";
-    private static final String PROPERTY_ENTITY_NAME_INDEX = "m_pEntity.m_nameStringableIndex";
-    private static final String PROPERTY_CURRENT_CHARGES = "m_iCurrentCharges";
-    private static final String PROPERTY_SECONDARY_CHARGES = "m_iSecondaryCharges";
-    private static final String PROPERTY_ABILITY_LEVEL = "m_iLevel";
-    private static final String PROPERTY_ACCOUNT_ID = "m_iAccountID";
-    private static final String PROPERTY_ITEM_DEFINITION_INDEX = "m_iItemDefinitionIndex";
-    private static final String PROPERTY_NEUTRAL_ACTIVE_DROP = "m_bIsNeutralActiveDrop";
-    private static final String PROPERTY_NEUTRAL_PASSIVE_DROP = "m_bIsNeutralPassiveDrop";
-    private static final String PROPERTY_NEUTRAL_DROP_TEAM = "m_nNeutralDropTeam";
-    
-    // String table name
-    private static final String STRING_TABLE_ENTITY_NAMES = "EntityNames";
-
-    public class Entry {
-        public Integer time = 0;
-        public String type;
-        public Integer team;
-        public String unit;
-        public String key;
-        public Integer value;
-        public Integer slot;
-        public Integer player_slot;
-        // chat event fields
-        public Integer player1;
-        public Integer player2;
-        // combat log fields
-        public String attackername;
-        public String targetname;
-        public String sourcename;
-        public String targetsourcename;
-        public Boolean attackerhero;
-        public Boolean targethero;
-        public Boolean attackerillusion;
-        public Boolean targetillusion;
-        public Integer abilitylevel;
-        public String inflictor;
-        public Integer gold_reason;
-        public Integer xp_reason;
-        public String valuename;
-        // public Float stun_duration;
-        // public Float slow_duration;
-        // entity fields
-        public Integer gold;
-        public Integer lh;
-        public Integer xp;
-        public Float x;
-        public Float y;
-        public Float z;
-        public Float stuns;
-        public Integer hero_id;
-        public Integer variant;
-        public Integer facet_hero_id;
-        public transient List<Item> hero_inventory;
-        public Integer itemslot;
-        public Integer charges;
-        public Integer secondary_charges;
-        public Integer life_state;
-        public Integer level;
-        public Integer kills;
-        public Integer deaths;
-        public Integer assists;
-        public Integer denies;
-        public Boolean entityleft;
-        public Integer ehandle;
-        public Boolean isNeutralActiveDrop;
-        public Boolean isNeutralPassiveDrop;
-        public Integer obs_placed;
-        public Integer sen_placed;
-        public Integer creeps_stacked;
-        public Integer camps_stacked;
-        public Integer rune_pickups;
-        public Boolean repicked;
-        public Boolean randomed;
-        public Boolean pred_vict;
-        public Float stun_duration;
-        public Float slow_duration;
-        public Boolean tracked_death;
-        public Integer greevils_greed_stack;
-        public String tracked_sourcename;
-        public Integer firstblood_claimed;
-        public Float teamfight_participation;
-        public Integer towers_killed;
-        public Integer roshans_killed;
-        public Integer observers_placed;
-        public Integer draft_order;
-        public Boolean pick;
-        public Integer draft_active_team;
-        public Integer draft_extime0;
-        public Integer draft_extime1;
-        public Integer networth;
-        public Integer stage;
-
-        public Entry() {
-        }
-
-        public Entry(Integer time) {
-            this.time = time;
-        }
-    }
-
     /**
      * Calculates precise location from cell coordinates and vector offset.
      * 
@@ -233,35 +131,6 @@ public class Parse {
         return (cell * CELL_SIZE + vec) / CELL_SIZE;
     }
 
-    private class Item {
-        String id;
-        // Charges can be used to determine how many items are stacked together on
-        // stackable items
-        Integer slot;
-        Integer num_charges;
-        // item_ward_dispenser uses num_charges for observer wards
-        // and num_secondary_charges for sentry wards count
-        // and is considered not stackable
-        Integer num_secondary_charges;
-    }
-
-    private class Ability {
-        String id;
-        Integer abilityLevel;
-    }
-
-    private class UnknownItemFoundException extends RuntimeException {
-        public UnknownItemFoundException(String message) {
-            super(message);
-        }
-    }
-
-    private class UnknownAbilityFoundException extends RuntimeException {
-        public UnknownAbilityFoundException(String message) {
-            super(message);
-        }
-    }
-
     // Game state tracking
     private float nextInterval = 0;
     private Integer time = 0;
@@ -271,181 +140,582 @@ public class Parse {
     private boolean postGame = false; // true when ancient destroyed
     private boolean epilogue = false;
     private int serverTick = 0;
+    private int gameTick = 0;
     
     // JSON serialization
     private final Gson gson = new Gson();
+
+    // Output records are recycled once written
+    private final EventRecordPool recordPool = new EventRecordPool();
+
+    // Field path resolutions, shared across replays of the same build
+    private final PropertyAccessors properties = new PropertyAccessors();
+
+    // Direct references to singleton entities, wards and heroes
+    private final EntityTracker entityTracker = new EntityTracker();
+
+    // Entity handlers return early for the classes nothing reads
+    private final EntityClassFilter entityClassFilter = new EntityClassFilter(CORE_ENTITY_CLASSES);
+
+    // Changes of the game rules properties used for the clock
+    private final PropertyWatch gameRulesWatch = new PropertyWatch(properties);
+    private Float gameRulesTime;
+    private Boolean gameRulesPaused;
+    private Integer gameRulesPauseStartTick;
+    private Integer gameRulesPausedTicks;
+    private float gameRulesStartTime;
+    private Integer gameRulesState;
     
     // Player and entity mappings
-    private final HashMap<String, Integer> nameToSlot = new HashMap<>();
-    private final Map<String, Integer> abilitiesTracking = new HashMap<>();
-    private List<Ability> abilities;
+    private final SymbolTable symbols = new SymbolTable();
+    // Player slot by combat log hero name id
+    private final Map<Integer, Integer> slotBySymbol = new HashMap<>();
+    // Ids of the two combat log names by hero entity class name id
+    private final Map<Integer, int[]> heroCombatLogNames = new HashMap<>();
+    // Hero entity and combat log name per slot, read at the start of every interval
+    private final Entity[] heroes = new Entity[NUM_PLAYERS];
+    private final String[] heroNames = new String[NUM_PLAYERS];
     private final Map<Integer, Integer> slotToPlayerSlot = new HashMap<>();
     private final Map<Long, Integer> steamIdToPlayerSlot = new HashMap<>();
-    private final Map<Integer, Integer> cosmeticsMap = new HashMap<>();
-    private final Map<Integer, Integer> dotaPlusXpMap = new HashMap<>(); // playerslot, xp
     private final Map<Integer, Integer> wardEhandleToSlot = new HashMap<>();
     
-    // I/O streams
+    // I/O streams, the input is null when parsing a file
     private final InputStream inputStream;
-    private final OutputStream outputStream;
-    
-    // Visitors for combat log processing
-    private final GreevilsGreedVisitor greevilsGreedVisitor;
-    private final TrackVisitor trackVisitor;
+    private final File replayFile;
+    // Part of the replay read by this parse, null for all of it
+    private final SegmentedParse.Segment segment;
+    // Seek index built while reading a replay file or a segment of it, null if it has one
+    private final SeekIndex.Builder seekIndexBuilder;
+    // Writes the NDJSON output, null when the events go to a consumer
+    private final EventWriter eventWriter;
+    // Receives the events of a parse embedded in a service, null when writing the output
+    private final EventConsumer consumer;
+    // Consumer threads of the output, null to write on the parse thread
+    private EventPipeline pipeline;
+
+    // Requested subset of the output, extractors nobody asked for are not run
+    private final EventProjection projection;
+    private final boolean emitsCombatLogDeaths;
+    private final boolean itemTimeline;
+
+    // Processors of the extractors writing requested event types, and what they cost
+    private final List<Object> extractorProcessors = new ArrayList<>();
+    private final List<ExtractorStats> extractorStats = new ArrayList<>();
+    private final ExtractorDispatcher extractorDispatcher;
+    // The game state at tick start shared by the extractors
+    private final TickState tickState = new TickState();
+
+    // Requested game time range, the parse stops once it has passed the end
+    private final TimeWindow window;
+    // The time window has passed, the consumer cancelled the parse or it is over budget
+    private boolean stopped = false;
+
+    // Memory limits of this parse, and why it was aborted, null while within them
+    private final ParseBudget budget = ParseBudget.fromEnvironment();
+    private int ticksSinceBudgetCheck = 0;
+    private String budgetExceeded;
+
+    // Tick level hero paths per slot, null unless trajectories are requested
+    private final TrajectoryFormat trajectoryFormat;
+    private final Trajectory[] trajectories;
+    private final String[] trajectoryUnits = new String[NUM_PLAYERS];
+    private boolean trajectoriesFinished = false;
     
     // Player state tracking
-    private final List<Boolean> isPlayerStartingItemsWritten;
-    private int pingCount = 0;
-    private List<Entry> logBuffer = new ArrayList<>();
-    private final List<Entry> pendingDatabaseEvents = new ArrayList<>();
-    
-    // Ward tracking fields (consolidated from Wards.java)
-    private static final Map<String, String> WARDS_TARGET_NAME_BY_DT_CLASS;
-    private static final Set<String> WARDS_DT_CLASSES;
-    private static final Set<String> WARDS_TARGET_NAMES;
-    
-    static {
-        final String TARGET_NAME_OBSERVER = "npc_dota_observer_wards";
-        final String TARGET_NAME_SENTRY = "npc_dota_sentry_wards";
-        HashMap<String, String> target_by_dtclass = new HashMap<>(4);
-        
-        target_by_dtclass.put("DT_DOTA_NPC_Observer_Ward", TARGET_NAME_OBSERVER);
-        target_by_dtclass.put("CDOTA_NPC_Observer_Ward", TARGET_NAME_OBSERVER);
-        target_by_dtclass.put("DT_DOTA_NPC_Observer_Ward_TrueSight", TARGET_NAME_SENTRY);
-        target_by_dtclass.put("CDOTA_NPC_Observer_Ward_TrueSight", TARGET_NAME_SENTRY);
-        
-        WARDS_TARGET_NAME_BY_DT_CLASS = Collections.unmodifiableMap(target_by_dtclass);
-        WARDS_DT_CLASSES = Collections.unmodifiableSet(target_by_dtclass.keySet());
-        WARDS_TARGET_NAMES = Collections.unmodifiableSet(new HashSet<>(target_by_dtclass.values()));
-    }
-    
-    private final Map<Integer, FieldPath> wardLifeStatePaths = new HashMap<>();
-    private final Map<Integer, Integer> wardCurrentLifeState = new HashMap<>();
-    private final Map<String, Queue<String>> wardKillersByWardClass = new HashMap<>();
-    private Queue<WardProcessEntityCommand> wardToProcess = new ArrayDeque<>();
-    
-    private class WardProcessEntityCommand {
-        private final Entity entity;
-        private final FieldPath fieldPath;
-        
-        public WardProcessEntityCommand(Entity e, FieldPath p) {
-            entity = e;
-            fieldPath = p;
-        }
-    }
+    // Events before the game start time is known, null once they were written
+    private EventSpool logBuffer = new EventSpool(SPOOL_MEMORY_EVENTS);
     
+    private static final String TYPE_TRAJECTORY = "trajectory";
+    // Kept points per trajectory event, bounds the points held per player
+    private static final int TRAJECTORY_CHUNK_POINTS = 256;
+    // Tick and coordinates of a kept point
+    private static final int TRAJECTORY_POINT_BYTES = 12;
+    // Name, map entry and list slot of an interned name
+    private static final int SYMBOL_BYTES = 128;
+
+    private static final String TYPE_PLAYER_SLOT = "player_slot";
+
+    // Match level events written whatever the time window
+    private static final Set<String> WINDOW_INDEPENDENT_EVENT_TYPES = Set.of(TYPE_PLAYER_SLOT, "cosmetics", "dotaplus", "epilogue");
+
+
     // Database integration
-    private GameEventDAO gameEventDAO;
+    private GameEventSink gameEventSink;
     private GameInfoDAO gameInfoDAO;
     private Long matchId;
     private boolean databaseEnabled;
-    private final int batchSize = DEFAULT_BATCH_SIZE;
-    private int currentBatchSize = 0;
-
-    // Draft stage tracking
-    private final boolean[] draftOrderProcessed = new boolean[DRAFT_HEROES_ARRAY_SIZE];
-    private int draftOrder = 1;
-    private boolean isDraftStartTimeProcessed = false;
-
-    // Dota Plus tracking
-    private boolean isDotaPlusProcessed = false;
 
     // Pause timing tracking
     private boolean wasPaused = false;
     private int pauseStartTime = 0;
     private int pauseStartGameTime = 0;
 
-    public Parse(InputStream input, OutputStream output) throws IOException {
+    /**
+     * Used by {@link ParseSession}, the engine has already bootstrapped the database.
+     */
+    Parse(ParserEngine engine, InputStream input, File replay, OutputStream output, ParseOptions options) throws IOException {
+        this(engine, input, replay, output, options, null);
+    }
+
+    /**
+     * Parses one segment of a replay file, see {@link SegmentedParse}, or the game time
+     * up to a snapshot, see {@link StateSnapshots}.
+     *
+     * @param segment The segment, null to parse the whole replay
+     */
+    Parse(ParserEngine engine, InputStream input, File replay, OutputStream output, ParseOptions options,
+          SegmentedParse.Segment segment) throws IOException {
+        this(engine, input, replay, output, null, options, segment);
+    }
+
+    /**
+     * Hands the events to a consumer instead of writing them, see {@link ParseSession#publisher(File)}.
+     *
+     * @param segment Part of the replay file to read, null to parse the whole replay
+     */
+    Parse(ParserEngine engine, InputStream input, File replay, EventConsumer consumer, ParseOptions options,
+          SegmentedParse.Segment segment) throws IOException {
+        this(engine, input, replay, null, consumer, options, segment);
+    }
+
+    private Parse(ParserEngine engine, InputStream input, File replay, OutputStream output, EventConsumer consumer,
+                  ParseOptions options, SegmentedParse.Segment segment) throws IOException {
         this.inputStream = input;
-        this.outputStream = output;
-        
-        greevilsGreedVisitor = new GreevilsGreedVisitor(nameToSlot);
-        trackVisitor = new TrackVisitor();
+        this.replayFile = replay;
+        this.segment = segment;
+        if (segment != null) {
+            this.seekIndexBuilder = segment.getSeekIndexBuilder();
+        } else {
+            this.seekIndexBuilder = recordsSeekIndex(replay, options) ? new SeekIndex.Builder() : null;
+        }
+        this.window = options.getWindow();
+        this.consumer = consumer;
+        int pipelineCapacity = getOutputPipelineCapacity();
+        if (consumer != null) {
+            this.eventWriter = null;
+        } else {
+            // A tailed replay is followed live, so its events are sent as soon as a tick is parsed
+            EventWriter.FlushPolicy flushPolicy = options.isTail() ? EventWriter.FlushPolicy.perTick() : getOutputFlushPolicy();
+            // The writer of a pipeline runs on its own thread, so it gets its own symbol ids
+            SymbolTable writerSymbols = pipelineCapacity > 0 ? new SymbolTable() : symbols;
+            this.eventWriter = new EventWriter(output, flushPolicy, EventWriter.DEFAULT_CHUNK_SIZE,
+                options.isSymbols() ? writerSymbols : null);
+        }
+        this.projection = options.getProjection();
+        this.emitsCombatLogDeaths = projection.includesType(DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_DEATH.name());
+        this.itemTimeline = options.isItemTimeline();
+
+        if (options.getTrajectoryFormat() != null && projection.includesType(TYPE_TRAJECTORY)) {
+            this.trajectoryFormat = options.getTrajectoryFormat();
+            this.trajectories = new Trajectory[NUM_PLAYERS];
+            float tolerance = options.getTrajectoryTolerance() * Trajectory.UNITS_PER_CELL;
+            for (int i = 0; i < NUM_PLAYERS; i++) {
+                if (projection.includesSlot(i)) {
+                    trajectories[i] = new Trajectory(tolerance);
+                }
+            }
+        } else {
+            this.trajectoryFormat = null;
+            this.trajectories = null;
+        }
 
-        isPlayerStartingItemsWritten = new ArrayList<>(Arrays.asList(new Boolean[NUM_PLAYERS]));
-        Collections.fill(isPlayerStartingItemsWritten, Boolean.FALSE);
-        
-        // Initialize ward tracking
-        WARDS_TARGET_NAMES.forEach((cls) -> {
-            wardKillersByWardClass.put(cls, new ArrayDeque<>());
-        });
+
+        // Entities looked up on every tick
+        entityTracker.trackSingleton(ENTITY_GAMERULES_PROXY);
+        entityTracker.trackSingleton(ENTITY_PLAYER_RESOURCE);
+        entityTracker.trackSingleton(ENTITY_DATA_RADIANT);
+        entityTracker.trackSingleton(ENTITY_DATA_DIRE);
+
+        for (String property : GAME_RULES_CLOCK_PROPERTIES) {
+            gameRulesWatch.add(property);
+        }
+
+        extractorDispatcher = new ExtractorDispatcher(entityClassFilter);
+        for (Extractor extractor : engine.getExtractors().select(projection)) {
+            entityClassFilter.addAll(extractor.getEntityClasses());
+            ExtractorStats stats = new ExtractorStats(extractor.getName());
+            Object processor = extractor.createProcessor(this);
+            extractorProcessors.add(processor);
+            extractorStats.add(stats);
+            extractorDispatcher.add(processor, stats);
+        }
         
         // Initialize database connection
-        initializeDatabase();
+        initializeDatabase(engine, options);
+        if (pipelineCapacity > 0) {
+            startPipeline(pipelineCapacity);
+        }
         
         long startTime = System.currentTimeMillis();
-        new SimpleRunner(new InputStreamSource(inputStream)).runWith(this);
-        
-        // Flush any remaining database operations
-        if (databaseEnabled) {
+        try {
             try {
-                if (!pendingDatabaseEvents.isEmpty()) {
-                    flushPendingDatabaseEvents();
+                if (replayFile != null) {
+                    runFile();
+                } else {
+                    runStream();
                 }
-                if (!pendingDatabaseEvents.isEmpty()) {
-                    System.err.println(String.format(
-                        "Unable to persist %d buffered events because no match ID was determined.",
-                        pendingDatabaseEvents.size()
-                    ));
-                    pendingDatabaseEvents.clear();
-                }
-                if (gameEventDAO != null) {
-                    gameEventDAO.executeBatch();
-                    gameEventDAO.close();
+            } finally {
+                // Send whatever was parsed, also when the replay is truncated
+                finishTrajectories();
+                flushOutput();
+                closeSpool(logBuffer);
+            }
+        
+            // Flush any remaining database operations
+            if (databaseEnabled) {
+                try {
+                    gameEventSink.finish();
+                    if (gameInfoDAO != null) {
+                        gameInfoDAO.close();
+                    }
+                    System.err.println("Database operations completed successfully.");
+                } catch (Exception e) {
+                    System.err.println("Error finalizing database operations: " + e.getMessage());
                 }
-                if (gameInfoDAO != null) {
-                    gameInfoDAO.close();
+            }
+        } finally {
+            if (gameEventSink != null) {
+                try {
+                    gameEventSink.close();
+                } catch (IOException ex) {
+                    System.err.println("Error deleting buffered events: " + ex.getMessage());
                 }
-                System.err.println("Database operations completed successfully.");
-            } catch (Exception e) {
-                System.err.println("Error finalizing database operations: " + e.getMessage());
             }
+            engine.getExtractors().record(extractorStats);
         }
         
         long totalTime = System.currentTimeMillis() - startTime;
         System.err.format("total time taken: %s\n", totalTime / 1000.0);
+        for (ExtractorStats stats : extractorStats) {
+            System.err.println("extractor " + stats);
+        }
+        if (budgetExceeded != null) {
+            throw new ParseBudgetExceededException("Parse aborted, it " + budgetExceeded);
+        }
+    }
+
+    private void runStream() throws IOException {
+        try {
+            new SimpleRunner(new InputStreamSource(inputStream)).runWith(createProcessors());
+        } catch (RuntimeException ex) {
+            if (!stopped) {
+                throw ex;
+            }
+            // Stopped at the end of the time window or by the consumer, the rest of the replay is not needed
+            inputStream.close();
+        }
+    }
+
+    private void runFile() throws IOException {
+        int startTick = segment != null ? segment.getSeekTick() : findWindowStartTick();
+        ControllableRunner runner = new ControllableRunner(new MappedFileSource(replayFile.toPath())).runWith(createProcessors());
+        try {
+            if (startTick > 0) {
+                runner.seek(startTick);
+            }
+            while (!stopped && !runner.isAtEnd()) {
+                runner.tick();
+            }
+            // The index of a segmented parse is written once all segments are done, and
+            // none of a parse that stopped early
+            if (seekIndexBuilder != null && segment == null && !stopped && !seekIndexBuilder.isEmpty()) {
+                writeSeekIndex();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing " + replayFile, ex);
+        } finally {
+            runner.halt();
+        }
+    }
+
+    /**
+     * @return true if a parse of the replay with these options writes the {@link SeekIndex}
+     *         beside it: a full parse of a file that has no index yet
+     */
+    static boolean recordsSeekIndex(File replay, ParseOptions options) {
+        return replay != null && !options.isTail() && options.getWindow().isAll() && SeekIndex.read(replay) == null;
+    }
+
+    private void writeSeekIndex() {
+        SeekIndex index = seekIndexBuilder.build();
+        try {
+            index.write(replayFile);
+            System.err.format("Wrote seek index with %d entries for %s\n", index.size(), replayFile);
+        } catch (IOException ex) {
+            // The replay may be in a read-only directory, later parses probe it instead
+            System.err.println("Error writing seek index of " + replayFile + ": " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Finds the first tick of the time window in the seek index of the replay, or
+     * estimates it from the game rules at the end of the replay. Paused ticks only move
+     * the window later than the estimate, so seeking to it never skips a part of the window.
+     *
+     * @return The tick to seek to, 0 to parse from the beginning
+     */
+    private int findWindowStartTick() throws IOException {
+        if (!window.hasStart()) {
+            return 0;
+        }
+        ReplayTimeline timeline = ReplayTimeline.load(replayFile);
+        return timeline != null ? timeline.toTick(window.getStart()) : 0;
+    }
+
+    /**
+     * Only makes the runner maintain the entities, to read the state after a seek.
+     */
+    @UsesEntities
+    public static class EntitiesProbe {
+    }
+
+    /**
+     * @return This parse, the processors of the selected extractors and the handlers
+     *         passing events on to them
+     */
+    private Object[] createProcessors() {
+        List<Object> processors = new ArrayList<>();
+        processors.add(this);
+        processors.addAll(extractorDispatcher.getProcessors());
+        return processors.toArray();
+    }
+
+    /**
+     * Creates an empty entry, reusing a previously written one when possible.
+     * 
+     * @param time Event time, relative to the start of the replay
+     * @return The entry; pass it to {@link #output(EventRecord)} once filled in
+     */
+    @Override
+    public EventRecord newEntry(int time) {
+        return recordPool.acquire(time);
     }
 
     /**
      * Outputs an entry to the output stream and optionally to the database.
+     * The entry must not be used by the caller afterwards.
      * 
      * @param entry The entry to output
      */
-    public void output(Entry entry) {
+    @Override
+    public void output(EventRecord entry) {
+        if (!projection.accepts(entry) || (segment != null && !segment.isFirst() && TYPE_PLAYER_SLOT.equals(entry.getType()))) {
+            // Every segment finds the players, the first one writes them
+            recordPool.release(entry);
+            return;
+        }
+        boolean retained = false;
         try {
             if (!epilogue && gameStartTime == 0 && logBuffer != null) {
-                logBuffer.add(entry);
+                retained = logBuffer.add(entry);
             } else {
-                entry.time -= gameStartTime;
-                outputStream.write((gson.toJson(entry) + "\n").getBytes());
-                
-                // Save to database if enabled
-                if (databaseEnabled) {
-                    try {
-                        enqueueDatabaseEvent(entry);
-                    } catch (Exception ex) {
-                        System.err.println("Error saving event to database: " + ex.getMessage());
-                        pendingDatabaseEvents.add(entry);
-                    }
+                entry.setTime(entry.getTime() - gameStartTime);
+                if (!window.contains(entry.getTime()) && !WINDOW_INDEPENDENT_EVENT_TYPES.contains(entry.getType())) {
+                    return;
                 }
+                if (pipeline != null) {
+                    pipeline.publish(entry);
+                } else if (deliver(entry) && databaseEnabled) {
+                    gameEventSink.accept(entry);
+                }
+            }
+        } catch (IOException ex) {
+            System.err.println("Error writing entry to output stream: " + ex.getMessage());
+        } finally {
+            if (!retained) {
+                recordPool.release(entry);
             }
+        }
+    }
+
+    /**
+     * @return true if the entry was written or consumed, false if that failed
+     */
+    private boolean deliver(EventRecord entry) {
+        if (consumer == null) {
+            return writeEvent(entry);
+        }
+        try {
+            consumer.accept(entry);
+            return true;
+        } catch (Exception ex) {
+            System.err.println("Error handing entry to consumer: " + ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return true if the entry was written, false if writing failed
+     */
+    private boolean writeEvent(EventRecord entry) {
+        try {
+            eventWriter.write(entry);
+            return true;
         } catch (IOException ex) {
             System.err.println("Error writing entry to output stream: " + ex.getMessage());
         } catch (IllegalArgumentException iex) {
             System.err.println("Invalid argument in entry: " + iex.getMessage());
         }
+        return false;
+    }
+
+    /**
+     * Moves encoding and sending the output, and storing the events, to a thread of its
+     * own, so the thread running the parse only decodes the replay. Like on the parse
+     * thread, an event is only stored once it was written or consumed.
+     */
+    private void startPipeline(int capacity) {
+        pipeline = new EventPipeline(capacity, "event-pipeline", List.of(new EventPipeline.Stage() {
+            @Override
+            public void accept(EventRecord record) {
+                if (deliver(record) && databaseEnabled) {
+                    gameEventSink.accept(record);
+                }
+            }
+
+            @Override
+            public void endTick() throws Exception {
+                if (consumer != null) {
+                    consumer.endTick();
+                } else {
+                    eventWriter.endTick();
+                }
+            }
+
+            @Override
+            public void finish() throws Exception {
+                if (consumer != null) {
+                    consumer.finish();
+                } else {
+                    eventWriter.flush();
+                }
+            }
+        }));
+    }
+
+    private static int getOutputPipelineCapacity() {
+        // Number of events between the parse and the output threads, 0 (default) to write on the parse thread
+        String capacity = System.getenv("OUTPUT_PIPELINE_CAPACITY");
+        if (capacity == null || capacity.isBlank()) {
+            return 0;
+        }
+        try {
+            int value = Integer.parseInt(capacity.trim());
+            if (value < 0 || (value > 0 && Integer.bitCount(value) != 1)) {
+                throw new NumberFormatException();
+            }
+            return value;
+        } catch (NumberFormatException ex) {
+            System.err.println("Invalid OUTPUT_PIPELINE_CAPACITY " + capacity + ", expected 0 or a power of two; writing on the parse thread");
+            return 0;
+        }
+    }
+
+    private static EventWriter.FlushPolicy getOutputFlushPolicy() {
+        // end (default), tick or events:<n>
+        String flushPolicy = System.getenv("OUTPUT_FLUSH_POLICY");
+        try {
+            return EventWriter.FlushPolicy.parse(flushPolicy);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage() + ", using end");
+            return EventWriter.FlushPolicy.atEnd();
+        }
+    }
+
+    private void flushOutput() {
+        try {
+            if (pipeline != null) {
+                // Waits for the stages, which flush the writer when they finish
+                pipeline.close();
+            } else if (consumer != null) {
+                consumer.finish();
+            } else {
+                eventWriter.flush();
+            }
+        } catch (IOException ex) {
+            System.err.println("Error writing entry to output stream: " + ex.getMessage());
+        } catch (Exception ex) {
+            System.err.println("Error finishing consumer: " + ex.getMessage());
+        }
     }
 
     public void flushLogBuffer() {
         if (logBuffer == null) {
             return;
         }
-        for (Entry e : logBuffer) {
-            output(e);
-        }
+        EventSpool buffered = logBuffer;
+        // Written with the time rebased to the game start, like any later event
         logBuffer = null;
+        try {
+            buffered.drain(recordPool, this::output);
+        } catch (IOException ex) {
+            System.err.println("Error reading buffered events: " + ex.getMessage());
+        } finally {
+            closeSpool(buffered);
+        }
+    }
+
+    private static void closeSpool(EventSpool spool) {
+        if (spool == null) {
+            return;
+        }
+        try {
+            spool.close();
+        } catch (IOException ex) {
+            System.err.println("Error deleting buffered events: " + ex.getMessage());
+        }
+    }
+
+    @Override
+    public int getTime() {
+        return time;
+    }
+
+    @Override
+    public boolean isPostGame() {
+        return postGame;
+    }
+
+    @Override
+    public EventProjection getProjection() {
+        return projection;
     }
 
+    @Override
+    public EntityTracker getEntityTracker() {
+        return entityTracker;
+    }
+
+    @Override
+    public EntityClassFilter getEntityClassFilter() {
+        return entityClassFilter;
+    }
+
+    @Override
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    @Override
+    public PropertyAccessors getProperties() {
+        return properties;
+    }
+
+    @Override
+    public boolean isItemTimeline() {
+        return itemTimeline;
+    }
+
+    @Override
+    public Map<Integer, Integer> getSlotBySymbol() {
+        return slotBySymbol;
+    }
+
+    @Override
+    public Map<Long, Integer> getSteamIdToPlayerSlot() {
+        return steamIdToPlayerSlot;
+    }
 
     @OnMessage(CMsgDOTAMatch.class)
     public void onDotaMatch(Context ctx, CMsgDOTAMatch message) {
@@ -460,6 +730,7 @@ public class Parse {
      * @param entity Entity to extract slot from
      * @return Player slot or null if not found
      */
+    @Override
     public Integer getPlayerSlotFromEntity(Context ctx, Entity entity) {
         if (entity == null) {
             return null;
@@ -478,109 +749,15 @@ public class Parse {
         return slot;
     }
 
-    @OnMessage(CDOTAUserMsg_SpectatorPlayerUnitOrders.class)
-    public void onSpectatorPlayerUnitOrders(Context ctx, CDOTAUserMsg_SpectatorPlayerUnitOrders message) {
-        Entry entry = new Entry(time);
-        entry.type = "actions";
-        // the entindex points to a CDOTAPlayer. This is probably the player that gave
-        // the order.
-        Entity e = ctx.getProcessor(Entities.class).getByIndex(message.getEntindex());
-        entry.slot = getPlayerSlotFromEntity(ctx, e);
-        // Integer handle = (Integer)getEntityProperty(e, "m_hAssignedHero", null);
-        // Entity h = ctx.getProcessor(Entities.class).getByHandle(handle);
-        // System.err.println(h.getDtClass().getDtName());
-        // break actions into types?
-        entry.key = String.valueOf(message.getOrderType());
-        // System.err.println(message);
-        output(entry);
-    }
-
-    @OnMessage(CDOTAUserMsg_LocationPing.class)
-    public void onPlayerPing(Context ctx, CDOTAUserMsg_LocationPing message) {
-        pingCount++;
-        if (pingCount > MAX_PING_COUNT) {
-            return;
-        }
-
-        Entry entry = new Entry(time);
-        entry.type = "pings";
-        entry.slot = message.getPlayerId();
-        // Could get the ping coordinates/type if needed
-        output(entry);
-    }
-
-    @OnMessage(CDOTAUserMsg_ChatEvent.class)
-    public void onChatEvent(Context ctx, CDOTAUserMsg_ChatEvent message) {
-        Integer player1 = message.getPlayerid1();
-        Integer player2 = message.getPlayerid2();
-        Integer value = message.getValue();
-        String type = String.valueOf(message.getType());
-        Entry entry = new Entry(time);
-        entry.type = type;
-        entry.player1 = player1;
-        entry.player2 = player2;
-        entry.value = value;
-        output(entry);
-    }
-
-    // New chat event
-    @OnMessage(CDOTAUserMsg_ChatMessage.class)
-    public void onAllChatMessage(Context ctx, CDOTAUserMsg_ChatMessage message) {
-        int channelType = message.getChannelType();
-        Entry entry = new Entry(time);
-        entry.slot = message.getSourcePlayerId();
-        entry.type = (channelType == CHAT_CHANNEL_TYPE_ALL_CHAT) ? "chat" : String.valueOf(channelType);
-        entry.key = message.getMessageText();
-        output(entry);
-    }
-
-    @OnMessage(CDOTAUserMsg_ChatWheel.class)
-    public void onChatWheel(Context ctx, CDOTAUserMsg_ChatWheel message) {
-        Entry entry = new Entry(time);
-        entry.type = "chatwheel";
-        entry.slot = message.getPlayerId();
-        entry.key = String.valueOf(message.getChatMessageId());
-        output(entry);
-    }
-
-    @OnMessage(CUserMsg_SayText2.class)
-    public void onAllChatS1(Context ctx, CUserMsg_SayText2 message) {
-        Entry entry = new Entry(time);
-        entry.unit = String.valueOf(message.getPrefix());
-        entry.key = String.valueOf(message.getText());
-        entry.type = "chat";
-        output(entry);
-    }
-
-    @OnMessage(CUserMessageSayText2.class)
-    public void onAllChatS2(Context ctx, CUserMessageSayText2 message) {
-        Entry entry = new Entry(time);
-        entry.unit = String.valueOf(message.getParam1());
-        entry.key = String.valueOf(message.getParam2());
-        Entity e = ctx.getProcessor(Entities.class).getByIndex(message.getEntityindex());
-        entry.slot = getPlayerSlotFromEntity(ctx, e);
-        entry.type = "chat";
-        output(entry);
-    }
-
     @OnMessage(CDemoFileInfo.class)
     public void onFileInfo(Context ctx, CDemoFileInfo message) {
-        // Extracted cosmetics data from CDOTAWearableItem entities
-        Entry cosmeticsEntry = new Entry();
-        cosmeticsEntry.type = "cosmetics";
-        cosmeticsEntry.key = gson.toJson(cosmeticsMap);
-        output(cosmeticsEntry);
-
-        // Dota plus hero levels
-        Entry dotaPlusEntry = new Entry();
-        dotaPlusEntry.type = "dotaplus";
-        dotaPlusEntry.key = gson.toJson(dotaPlusXpMap);
-        output(dotaPlusEntry);
+        extractorDispatcher.onFileInfo(ctx, message);
+        finishTrajectories();
 
         // Emit epilogue event to mark finish
-        Entry epilogueEntry = new Entry();
-        epilogueEntry.type = "epilogue";
-        epilogueEntry.key = gson.toJson(message);
+        EventRecord epilogueEntry = newEntry(0);
+        epilogueEntry.setType("epilogue");
+        epilogueEntry.setString(EventField.KEY, gson.toJson(message));
         output(epilogueEntry);
         
         persistGameInfo(message);
@@ -590,154 +767,70 @@ public class Parse {
         flushLogBuffer();
     }
 
+    /**
+     * Game state changes of the combat log; its entries are written by the combatlog
+     * extractor.
+     */
     @OnCombatLogEntry
     public void onCombatLogEntry(Context ctx, CombatLogEntry cle) {
-        try {
-            time = Math.round(cle.getTimestamp());
-            
-            // Handle ward death tracking (from Wards.java)
-            if (isWardDeath(cle)) {
-                String killer;
-                if ((killer = cle.getDamageSourceName()) != null) {
-                    wardKillersByWardClass.get(cle.getTargetName()).add(killer);
-                }
-            }
-            
-            // create a new entry
-            Entry combatLogEntry = new Entry(time);
-            combatLogEntry.type = cle.getType().name();
-            // translate the fields using string tables if necessary (get*Name methods)
-            combatLogEntry.attackername = cle.getAttackerName();
-            combatLogEntry.targetname = cle.getTargetName();
-            combatLogEntry.sourcename = cle.getDamageSourceName();
-            combatLogEntry.targetsourcename = cle.getTargetSourceName();
-            combatLogEntry.inflictor = cle.getInflictorName();
-            combatLogEntry.attackerhero = cle.isAttackerHero();
-            combatLogEntry.targethero = cle.isTargetHero();
-            combatLogEntry.attackerillusion = cle.isAttackerIllusion();
-            combatLogEntry.targetillusion = cle.isTargetIllusion();
-            combatLogEntry.value = cle.getValue();
-            float stunDuration = cle.getStunDuration();
-            if (stunDuration > 0) {
-                combatLogEntry.stun_duration = stunDuration;
-            }
-            float slowDuration = cle.getSlowDuration();
-            if (slowDuration > 0) {
-                combatLogEntry.slow_duration = slowDuration;
-            }
-            // value may be out of bounds in string table, we can only get valuename if a
-            // purchase (type 11)
-            if (cle.getType() == DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_PURCHASE) {
-                combatLogEntry.valuename = cle.getValueName();
-            } else if (cle.getType() == DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_GOLD) {
-                combatLogEntry.gold_reason = cle.getGoldReason();
-            } else if (cle.getType() == DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_XP) {
-                combatLogEntry.xp_reason = cle.getXpReason();
-            }
-
-            combatLogEntry.greevils_greed_stack = greevilsGreedVisitor.visit(time, cle);
-            TrackStatus trackStatus = trackVisitor.visit(time, cle);
-            if (trackStatus != null) {
-                combatLogEntry.tracked_death = trackStatus.tracked;
-                combatLogEntry.tracked_sourcename = trackStatus.inflictor;
-            }
-            if (combatLogEntry.type.equals("DOTA_COMBATLOG_GAME_STATE")) {
-                if (combatLogEntry.value == GAME_STATE_POST_GAME) {
-                    postGame = true;
-                } else if (combatLogEntry.value == GAME_STATE_PRE_GAME) {
-                    // See alternative gameStartTime from gameRulesProxy
-                    if (gameStartTime == 0) {
-                        gameStartTime = combatLogEntry.time;
-                        flushLogBuffer();
-                    }
-                }
-            }
-            if (cle.getType().ordinal() <= COMBAT_LOG_TYPE_THRESHOLD) {
-                output(combatLogEntry);
+        time = Math.round(cle.getTimestamp());
+        extractorDispatcher.onCombatLogEntry(ctx, cle);
+        if (cle.getType() != DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_GAME_STATE) {
+            return;
+        }
+        if (cle.getValue() == GAME_STATE_POST_GAME) {
+            postGame = true;
+        } else if (cle.getValue() == GAME_STATE_PRE_GAME) {
+            // See alternative gameStartTime from gameRulesProxy
+            if (gameStartTime == 0) {
+                gameStartTime = time;
+                flushLogBuffer();
             }
-        } catch (Exception e) {
-            System.err.println(e);
-            System.err.println(cle);
         }
     }
 
-    @OnEntityEntered
-    public void onEntityEntered(Context ctx, Entity entity) {
-        String entityName = entity.getDtClass().getDtName();
+    @OnMessage(CNETMsg_Tick.class)
+    public void onMessage(CNETMsg_Tick message) {
+        serverTick = message.getTick();
+    }
 
-        if (ENTITY_WEARABLE_ITEM.equals(entityName)) {
-            handleWearableItem(ctx, entity);
-        } else if (entityName.startsWith(ENTITY_PREFIX_ITEM + "Tier") && entityName.endsWith("Token")) {
-            handleNeutralToken(ctx, entity, entityName);
-        } else if (entityName.startsWith(ENTITY_PREFIX_ITEM)) {
-            handleNeutralItem(ctx, entity, entityName);
+    @UsesEntities
+    @OnTickStart
+    public void onTickStart(Context ctx, boolean synthetic) {
+        if (consumer != null && consumer.isCancelled()) {
+            stop();
+            return;
         }
-    }
-    
-    private void handleWearableItem(Context ctx, Entity entity) {
-        Integer accountId = getEntityProperty(entity, PROPERTY_ACCOUNT_ID, null);
-        Integer itemDefinitionIndex = getEntityProperty(entity, PROPERTY_ITEM_DEFINITION_INDEX, null);
-        if (accountId != null && accountId > 0 && itemDefinitionIndex != null) {
-            Long accountId64 = STEAM_ID_OFFSET + (long) accountId;
-            Integer playerSlot = steamIdToPlayerSlot.get(accountId64);
-            if (playerSlot != null) {
-                cosmeticsMap.put(itemDefinitionIndex, playerSlot);
+        if (!budget.isUnlimited() && ++ticksSinceBudgetCheck >= BUDGET_CHECK_TICKS) {
+            ticksSinceBudgetCheck = 0;
+            if (!isWithinBudget()) {
+                System.err.println("Aborting parse, it " + budgetExceeded);
+                stop();
+                return;
             }
         }
-    }
-    
-    private void handleNeutralToken(Context ctx, Entity entity, String entityName) {
-        Entry entry = new Entry(time);
-        entry.type = "neutral_token";
-        entry.slot = getPlayerSlotFromEntity(ctx, entity);
-        entry.key = entityName.substring(ENTITY_PREFIX_ITEM.length());
-        output(entry);
-    }
-    
-    private void handleNeutralItem(Context ctx, Entity entity, String entityName) {
-        Boolean isNeutralActiveDrop = getEntityProperty(entity, PROPERTY_NEUTRAL_ACTIVE_DROP, null);
-        Boolean isNeutralPassiveDrop = getEntityProperty(entity, PROPERTY_NEUTRAL_PASSIVE_DROP, null);
-        Integer neutralDropTeam = getEntityProperty(entity, PROPERTY_NEUTRAL_DROP_TEAM, null);
-        
-        boolean isNeutralDrop = (isNeutralActiveDrop != null && isNeutralActiveDrop) 
-            || (isNeutralPassiveDrop != null && isNeutralPassiveDrop);
-        
-        if (neutralDropTeam != null && neutralDropTeam != 0 && isNeutralDrop) {
-            Entry entry = new Entry(time);
-            entry.type = "neutral_item_history";
-            entry.slot = getPlayerSlotFromEntity(ctx, entity);
-            entry.key = entityName.substring(ENTITY_PREFIX_ITEM.length());
-            entry.isNeutralActiveDrop = isNeutralActiveDrop;
-            entry.isNeutralPassiveDrop = isNeutralPassiveDrop;
-            output(entry);
-        }
-    }
-
-    @OnMessage(CNETMsg_Tick.class)
-    public void onMessage(CNETMsg_Tick message) {
-        serverTick = message.getTick();
-    }
-
-    @UsesStringTable(STRING_TABLE_ENTITY_NAMES)
-    @UsesEntities
-    @OnTickStart
-    public void onTickStart(Context ctx, boolean synthetic) {
-        Entities entities = ctx.getProcessor(Entities.class);
-        Entity gameRulesProxy = entities.getByDtName(ENTITY_GAMERULES_PROXY);
-        Entity playerResource = entities.getByDtName(ENTITY_PLAYER_RESOURCE);
-        Entity dataDire = entities.getByDtName(ENTITY_DATA_DIRE);
-        Entity dataRadiant = entities.getByDtName(ENTITY_DATA_RADIANT);
+        properties.bindBuild(ctx.getBuildNumber());
+        Entity gameRulesProxy = entityTracker.getSingleton(ENTITY_GAMERULES_PROXY);
+        Entity playerResource = entityTracker.getSingleton(ENTITY_PLAYER_RESOURCE);
+        Entity dataDire = entityTracker.getSingleton(ENTITY_DATA_DIRE);
+        Entity dataRadiant = entityTracker.getSingleton(ENTITY_DATA_RADIANT);
 
-        Integer draftStage = getEntityProperty(gameRulesProxy, PROPERTY_GAME_STATE, null);
+        Integer gameState = null;
 
         if (gameRulesProxy != null) {
-            Float oldTime = getEntityProperty(gameRulesProxy, PROPERTY_GAME_TIME, null);
+            if (gameRulesWatch.hasChanged(0, gameRulesWatch.size())) {
+                readGameRulesClock(gameRulesProxy);
+            }
+            gameState = gameRulesState;
+
+            Float oldTime = gameRulesTime;
             if (oldTime == null) {
                 // 7.32e on, need to calculate time manually
-                boolean isPaused = getEntityProperty(gameRulesProxy, PROPERTY_GAME_PAUSED, null);
-                int timeTick = isPaused ? getEntityProperty(gameRulesProxy, PROPERTY_PAUSE_START_TICK, null) : serverTick;
-                int pausedTicks = getEntityProperty(gameRulesProxy, PROPERTY_TOTAL_PAUSED_TICKS, null);
+                boolean isPaused = gameRulesPaused;
+                int timeTick = isPaused ? gameRulesPauseStartTick : serverTick;
+                int pausedTicks = gameRulesPausedTicks;
                 time = Math.round((float) (timeTick - pausedTicks) / TICKS_PER_SECOND);
+                gameTick = timeTick - pausedTicks;
 
                 // Tracking game pauses
                 if (isPaused && !wasPaused) {
@@ -749,37 +842,43 @@ public class Parse {
                     // Game just got unpaused
                     int pauseDuration = Math.round((float) (timeTick - pauseStartTime) / TICKS_PER_SECOND);
                     if (pauseDuration > 0) {
-                        Entry pauseEntry = new Entry(pauseStartGameTime);
-                        pauseEntry.type = "game_paused";
-                        pauseEntry.key = "pause_duration";
-                        pauseEntry.value = pauseDuration;
+                        EventRecord pauseEntry = newEntry(pauseStartGameTime);
+                        pauseEntry.setType("game_paused");
+                        pauseEntry.setString(EventField.KEY, "pause_duration");
+                        pauseEntry.setInt(EventField.VALUE, pauseDuration);
                         output(pauseEntry);
                     }
                     wasPaused = false;
                 }
             } else {
                 time = Math.round(oldTime);
+                gameTick = Math.round(oldTime * TICKS_PER_SECOND);
             }
             
             // Alternate to combat log for getting game zero time
             // Some replays don't have the combat log event for some reason so also do this here
-            int currentGameStartTime = Math.round((float) gameRulesProxy.getProperty(PROPERTY_GAME_START_TIME));
+            int currentGameStartTime = Math.round(gameRulesStartTime);
             if (gameStartTime == 0 && currentGameStartTime != 0) {
                 gameStartTime = currentGameStartTime;
                 flushLogBuffer();
             }
-            
-            if (draftStage == DRAFT_STAGE) {
 
-                handleDraftStage(ctx, gameRulesProxy, draftStage);
+            if (gameStartTime != 0 && window.isPassed(time - gameStartTime)) {
+                stop();
+                return;
+            }
+            if (seekIndexBuilder != null && gameStartTime != 0) {
+                seekIndexBuilder.record(time - gameStartTime, ctx.getTick());
             }
+            gameRulesWatch.clear();
             
             // Initialize nextInterval value
             if (nextInterval == 0) {
                 nextInterval = time;
             }
         }
-        
+        tickState.update(gameRulesProxy, playerResource, dataRadiant, dataDire, gameState, time, gameStartTime);
+
         if (playerResource != null) {
             // Radiant coach shows up in vecPlayerTeamData as position 5
             // all the remaining dire entities are offset by 1 and so we miss reading the
@@ -790,79 +889,129 @@ public class Parse {
                 initializePlayers(ctx, playerResource);
             }
 
-            if (initialized && !postGame && time >= nextInterval) {
-                processIntervalUpdate(ctx, playerResource, dataRadiant, dataDire, draftStage);
-                nextInterval += INTERVAL_SECONDS;
+            if (trajectories != null && initialized && !postGame && !isBeforeWindow()) {
+                recordTrajectories(ctx, playerResource);
             }
 
-            // When the game is over, get dota plus levels
-            if (postGame && !isDotaPlusProcessed) {
-                processDotaPlusLevels(ctx, playerResource);
+            if (initialized && !postGame && time >= nextInterval) {
+                // Denies in the combat log need the hero to slot mapping
+                if (emitsCombatLogDeaths || extractorDispatcher.hasTickListeners()) {
+                    mapHeroNames(ctx, playerResource);
+                    tickState.startInterval(validIndices, heroes, heroNames);
+                }
+                nextInterval += INTERVAL_SECONDS;
             }
         }
+
+        extractorDispatcher.onTick(ctx, tickState);
     }
     
-    private void handleDraftStage(Context ctx, Entity gameRulesProxy, Integer draftStage) {
-        // Determine the time the draftings start
-        if (!isDraftStartTimeProcessed) {
-            Long playerIdsInControl = getEntityProperty(gameRulesProxy, PROPERTY_PLAYER_IDS_IN_CONTROL, null);
-            boolean isDraftStarted = playerIdsInControl != null && playerIdsInControl.compareTo(0L) != 0;
-            if (isDraftStarted) {
-                Entry draftStartEntry = new Entry(time);
-                draftStartEntry.type = "draft_start";
-                output(draftStartEntry);
-                isDraftStartTimeProcessed = true;
+    /**
+     * Ends the parse once the time window has passed or the consumer is cancelled. A file
+     * runner is stopped by its tick loop; the simple runner of a stream has no way to stop,
+     * so it is aborted.
+     */
+    private void stop() {
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+        if (replayFile == null) {
+            throw new ParseStoppedException();
+        }
+    }
+
+    /**
+     * Checks the budget of the parse, moving the events it holds back to disk first if it
+     * retains too much memory.
+     *
+     * @return false if the parse is over budget and has to be aborted
+     */
+    private boolean isWithinBudget() {
+        long retained = estimateRetainedBytes();
+        if (budget.exceedsMemory(retained)) {
+            spillHeldBackEvents();
+            retained = estimateRetainedBytes();
+            if (budget.exceedsMemory(retained)) {
+                budgetExceeded = String.format("retains about %d MiB, more than its budget of %d MiB",
+                    ParseBudget.toMegabytes(retained), ParseBudget.toMegabytes(budget.getMemoryLimit()));
+                return false;
             }
         }
+        if (budget.exceedsAllocation()) {
+            budgetExceeded = String.format("allocated more than its budget of %d MiB",
+                ParseBudget.toMegabytes(budget.getAllocationLimit()));
+            return false;
+        }
+        return true;
+    }
 
-        // Picks and ban are not in order due to draft change rules changes between patches
-        // Need to listen for the picks and ban to change
-        int[] draftHeroes = loadDraftHeroes(gameRulesProxy);
-        
-        // Once a pick or ban happens grab the time and extra time remaining for both teams
-        for (int i = 0; i < draftHeroes.length; i++) {
-            if (draftHeroes[i] > 0 && !draftOrderProcessed[i]) {
-                draftOrderProcessed[i] = true;
-                Entry draftTimingsEntry = new Entry(time);
-                draftTimingsEntry.type = "draft_timings";
-                draftTimingsEntry.draft_order = draftOrder;
-                draftOrder++;
-                draftTimingsEntry.pick = i >= 14; // First 14 are bans, rest are picks
-                draftTimingsEntry.hero_id = draftHeroes[i] / 2;
-                draftTimingsEntry.draft_active_team = getEntityProperty(gameRulesProxy, PROPERTY_ACTIVE_TEAM, null);
-                draftTimingsEntry.draft_extime0 = Math.round((float) getEntityProperty(gameRulesProxy, 
-                    PROPERTY_EXTRA_TIME_REMAINING + ".0000", null));
-                draftTimingsEntry.draft_extime1 = Math.round((float) getEntityProperty(gameRulesProxy, 
-                    PROPERTY_EXTRA_TIME_REMAINING + ".0001", null));
-                output(draftTimingsEntry);
+    /**
+     * @return Approximate memory held by this parse: held back events, the event pipeline,
+     *         trajectory points, the output buffer, the symbols, the hero, ability, item and
+     *         ward mappings and the state of the extractors, see {@link RetainedState}. The
+     *         entities and string tables of the runner are not counted.
+     */
+    private long estimateRetainedBytes() {
+        long records = logBuffer != null ? logBuffer.memorySize() : 0;
+        if (pipeline != null) {
+            records += pipeline.getCapacity();
+        } else if (gameEventSink != null) {
+            // Owned by the pipeline thread when the output is pipelined
+            records += gameEventSink.getMemoryEvents();
+        }
+        long points = 0;
+        if (trajectories != null) {
+            for (Trajectory trajectory : trajectories) {
+                if (trajectory != null) {
+                    points += trajectory.size();
+                }
             }
         }
+        long mapEntries = slotBySymbol.size() + heroCombatLogNames.size()
+            + slotToPlayerSlot.size() + steamIdToPlayerSlot.size() + wardEhandleToSlot.size();
+        long state = mapEntries * RetainedState.MAP_ENTRY_BYTES + (long) symbols.size() * SYMBOL_BYTES;
+        for (Object processor : extractorProcessors) {
+            if (processor instanceof RetainedState) {
+                state += ((RetainedState) processor).estimateRetainedBytes();
+            }
+        }
+        return records * EventRecord.SHALLOW_SIZE + points * TRAJECTORY_POINT_BYTES + EventWriter.DEFAULT_CHUNK_SIZE + state;
     }
-    
-    private int[] loadDraftHeroes(Entity gameRulesProxy) {
-        int[] draftHeroes = new int[DRAFT_HEROES_ARRAY_SIZE];
-        
-        // Load banned heroes (0-13)
-        for (int i = 0; i < 14; i++) {
-            String index = String.format("%04d", i);
-            Integer hero = getEntityProperty(gameRulesProxy, PROPERTY_BANNED_HEROES + "." + index, null);
-            draftHeroes[i] = (hero == null) ? 0 : hero;
+
+    private void spillHeldBackEvents() {
+        try {
+            if (logBuffer != null) {
+                logBuffer.spillMemory(recordPool);
+            }
+            if (pipeline == null && gameEventSink != null) {
+                gameEventSink.spillMemory();
+            }
+        } catch (IOException ex) {
+            System.err.println("Error spilling buffered events: " + ex.getMessage());
         }
-        
-        // Load selected heroes (14-23)
-        for (int i = 0; i < 10; i++) {
-            String index = String.format("%04d", i);
-            draftHeroes[14 + i] = getEntityProperty(gameRulesProxy, PROPERTY_SELECTED_HEROES + "." + index, null);
+    }
+
+    private static class ParseStoppedException extends RuntimeException {
+        ParseStoppedException() {
+            super("Parse stopped", null, false, false);
         }
-        
-        return draftHeroes;
     }
-    
+
+    private void readGameRulesClock(Entity gameRulesProxy) {
+        gameRulesTime = getEntityProperty(gameRulesProxy, PROPERTY_GAME_TIME, null);
+        gameRulesPaused = getEntityProperty(gameRulesProxy, PROPERTY_GAME_PAUSED, null);
+        gameRulesPauseStartTick = getEntityProperty(gameRulesProxy, PROPERTY_PAUSE_START_TICK, null);
+        gameRulesPausedTicks = getEntityProperty(gameRulesProxy, PROPERTY_TOTAL_PAUSED_TICKS, null);
+        gameRulesStartTime = properties.getFloat(gameRulesProxy, PROPERTY_GAME_START_TIME, 0f);
+        gameRulesState = getEntityProperty(gameRulesProxy, PROPERTY_GAME_STATE, null);
+    }
+
     private void initializePlayers(Context ctx, Entity playerResource) {
         int added = 0;
         int index = 0;
         boolean hasWaitingForDraftPlayers = false;
-        List<Entry> playerEntries = new ArrayList<>();
+        List<EventRecord> playerEntries = new ArrayList<>();
         
         // According to @Decoud Valve seems to have fixed this issue and players should
         // be in first 10 slots again. Sanity check of index to prevent infinite loop when <10 players
@@ -873,15 +1022,15 @@ public class Parse {
                 Long steamId = getEntityProperty(playerResource, "m_vecPlayerData.%i.m_iPlayerSteamID", index);
                 
                 if (playerTeam == RADIANT_TEAM_ID || playerTeam == DIRE_TEAM_ID) {
-                    Entry entry = new Entry(time);
-                    entry.type = "player_slot";
-                    entry.key = String.valueOf(added);
-                    entry.value = (playerTeam == RADIANT_TEAM_ID ? 0 : PLAYER_SLOT_OFFSET) + teamSlot;
+                    EventRecord entry = newEntry(time);
+                    entry.setType(TYPE_PLAYER_SLOT);
+                    entry.setString(EventField.KEY, String.valueOf(added));
+                    entry.setInt(EventField.VALUE, (playerTeam == RADIANT_TEAM_ID ? 0 : PLAYER_SLOT_OFFSET) + teamSlot);
                     playerEntries.add(entry);
                     validIndices[added] = index;
                     added++;
-                    slotToPlayerSlot.put(added, entry.value);
-                    steamIdToPlayerSlot.put(steamId, entry.value);
+                    slotToPlayerSlot.put(added, entry.getInt(EventField.VALUE));
+                    steamIdToPlayerSlot.put(steamId, entry.getInt(EventField.VALUE));
                 } else if (playerTeam == WAITING_FOR_DRAFT_TEAM_ID) {
                     // 7.33 player waiting to be drafted onto a team
                     hasWaitingForDraftPlayers = true;
@@ -894,514 +1043,186 @@ public class Parse {
         }
         
         if (!hasWaitingForDraftPlayers) {
-            for (Entry entry : playerEntries) {
+            for (EventRecord entry : playerEntries) {
                 output(entry);
             }
             initialized = true;
         }
     }
     
-    private void processIntervalUpdate(Context ctx, Entity playerResource, Entity dataRadiant, Entity dataDire, Integer draftStage) {
+    /**
+     * Adds the current hero positions to the trajectories, writing the kept points of a
+     * player once they fill a chunk.
+     */
+    private void recordTrajectories(Context ctx, Entity playerResource) {
+        Entities entities = ctx.getProcessor(Entities.class);
         for (int i = 0; i < NUM_PLAYERS; i++) {
-            Integer hero = getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_nSelectedHeroID", validIndices[i]);
-            int handle = getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_hSelectedHero", validIndices[i]);
-            int playerTeam = getEntityProperty(playerResource, "m_vecPlayerData.%i.m_iPlayerTeam", validIndices[i]);
-            int teamSlot = getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_iTeamSlot", validIndices[i]);
-
-            // Facet/variant format and key location changed in 7.39, leaving this as a fallback
-            Integer variant = getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_nSelectedHeroVariant", validIndices[i]);
-            Integer facetHeroId = null;
-
-            Entity dataTeam = (playerTeam == RADIANT_TEAM_ID) ? dataRadiant : dataDire;
-
-            Entry entry = new Entry(time);
-            entry.type = "interval";
-            entry.slot = i;
-            entry.repicked = getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_bHasRepicked", validIndices[i]);
-            entry.randomed = getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_bHasRandomed", validIndices[i]);
-            entry.pred_vict = getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_bHasPredictedVictory", validIndices[i]);
-            entry.firstblood_claimed = getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_iFirstBloodClaimed", validIndices[i]);
-            entry.teamfight_participation = getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_flTeamFightParticipation", validIndices[i]);
-            entry.level = getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_iLevel", validIndices[i]);
-            entry.kills = getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_iKills", validIndices[i]);
-            entry.deaths = getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_iDeaths", validIndices[i]);
-            entry.assists = getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_iAssists", validIndices[i]);
-            entry.denies = getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iDenyCount", teamSlot);
-            entry.obs_placed = getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iObserverWardsPlaced", teamSlot);
-            entry.sen_placed = getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iSentryWardsPlaced", teamSlot);
-            entry.creeps_stacked = getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iCreepsStacked", teamSlot);
-            entry.camps_stacked = getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iCampsStacked", teamSlot);
-            entry.rune_pickups = getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iRunePickups", teamSlot);
-            entry.towers_killed = getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iTowerKills", teamSlot);
-            entry.roshans_killed = getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iRoshanKills", teamSlot);
-            entry.observers_placed = getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iObserverWardsPlaced", teamSlot);
-            entry.networth = getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iNetWorth", teamSlot);
-            entry.stage = draftStage;
-
-            if (teamSlot >= 0) {
-                entry.gold = getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iTotalEarnedGold", teamSlot);
-                entry.lh = getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iLastHitCount", teamSlot);
-                entry.xp = getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iTotalEarnedXP", teamSlot);
-                entry.stuns = getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_fStuns", teamSlot);
+            Trajectory trajectory = trajectories[i];
+            if (trajectory == null) {
+                continue;
             }
-
-            // Get the player's hero entity
-            Entity heroEntity = ctx.getProcessor(Entities.class).getByHandle(handle);
-            if (heroEntity != null) {
-                processHeroEntity(ctx, heroEntity, entry, hero, variant, facetHeroId);
+            int handle = properties.getInt(playerResource, "m_vecPlayerTeamData.%i.m_hSelectedHero", validIndices[i], INVALID_HANDLE);
+            Entity heroEntity = entities.getByHandle(handle);
+            if (heroEntity == null) {
+                continue;
             }
-            
-            output(entry);
-        }
-    }
-    
-    private void processHeroEntity(Context ctx, Entity heroEntity, Entry entry, Integer hero, Integer variant, Integer facetHeroId) {
-        // Get the hero's coordinates
-        Integer cellX = getEntityProperty(heroEntity, PROPERTY_CELL_X, null);
-        Integer cellY = getEntityProperty(heroEntity, PROPERTY_CELL_Y, null);
-        Float vecX = getEntityProperty(heroEntity, PROPERTY_VEC_X, null);
-        Float vecY = getEntityProperty(heroEntity, PROPERTY_VEC_Y, null);
-        
-        if (cellX != null && cellY != null) {
-            entry.x = getPreciseLocation(cellX, vecX);
-            entry.y = getPreciseLocation(cellY, vecY);
-        }
-
-        // Post-7.39 format for facets is a 128bit number, where last 32 bits represent the variant
-        // and the first 32 bits represent the hero id, which acts as the source for the facet
-        // (same as hero_id in all cases, except ability draft)
-        // 0xHHHH00000000VVVV
-        Long facetKey = getEntityProperty(heroEntity, PROPERTY_HERO_FACET_KEY, null);
-        if (facetKey != null) {
-            facetHeroId = (int) (facetKey >> FACET_KEY_HERO_ID_SHIFT);
-            variant = (int) (facetKey & FACET_KEY_VARIANT_MASK);
-        }
-
-        entry.unit = heroEntity.getDtClass().getDtName();
-        entry.hero_id = hero;
-        entry.variant = variant;
-        entry.facet_hero_id = facetHeroId;
-        entry.life_state = getEntityProperty(heroEntity, PROPERTY_LIFE_STATE, null);
-        
-        // Check if hero has been assigned to entity
-        if (hero != null && hero > 0) {
-            String unit = heroEntity.getDtClass().getDtName();
-            String ending = unit.substring(ENTITY_PREFIX_HERO.length());
-            // Valve is inconsistent with combat log names - could involve replacing camelCase with _ or not
-            // Double map it so we can look up both cases
-            String combatLogName = ENTITY_PREFIX_COMBAT_LOG_HERO + ending.toLowerCase();
-            String combatLogName2 = "npc_dota_hero" + ending.replaceAll("([A-Z])", "_$1").toLowerCase();
-            
-            // Populate for combat log mapping
-            nameToSlot.put(combatLogName, entry.slot);
-            nameToSlot.put(combatLogName2, entry.slot);
-
-            abilities = getHeroAbilities(ctx, heroEntity);
-            for (Ability ability : abilities) {
-                // Only push ability updates when the level changes
-                String abilityKey = combatLogName + ability.id;
-                Integer currentLevel = abilitiesTracking.get(abilityKey);
-                if (currentLevel == null || !currentLevel.equals(ability.abilityLevel)) {
-                    Entry abilitiesEntry = new Entry(time);
-                    abilitiesEntry.type = "DOTA_ABILITY_LEVEL";
-                    abilitiesEntry.targetname = combatLogName;
-                    abilitiesEntry.valuename = ability.id;
-                    abilitiesEntry.abilitylevel = ability.abilityLevel;
-                    // We use the combatLogName & the ability id as some ability IDs are the same
-                    abilitiesTracking.put(abilityKey, ability.abilityLevel);
-                    output(abilitiesEntry);
-                }
+            Integer cellX = getEntityProperty(heroEntity, PROPERTY_CELL_X, null);
+            Integer cellY = getEntityProperty(heroEntity, PROPERTY_CELL_Y, null);
+            Float vecX = getEntityProperty(heroEntity, PROPERTY_VEC_X, null);
+            Float vecY = getEntityProperty(heroEntity, PROPERTY_VEC_Y, null);
+            if (cellX == null || cellY == null || vecX == null || vecY == null) {
+                continue;
             }
 
-            entry.hero_inventory = getHeroInventory(ctx, heroEntity);
-            processStartingItems(entry, combatLogName);
-        }
-    }
-    
-    private void processStartingItems(Entry entry, String combatLogName) {
-        if (time - gameStartTime - 1 == 0 && entry.hero_inventory != null) {
-            for (Item item : entry.hero_inventory) {
-                Entry startingItems = new Entry(time);
-                startingItems.type = "STARTING_ITEM";
-                startingItems.targetname = combatLogName;
-                startingItems.valuename = item.id;
-                startingItems.slot = entry.slot;
-                startingItems.value = (entry.slot < 5 ? 0 : PLAYER_SLOT_OFFSET) + entry.slot;
-                startingItems.itemslot = item.slot;
-                startingItems.charges = item.num_charges;
-                startingItems.secondary_charges = item.num_secondary_charges;
-                output(startingItems);
-            }
-        }
-        
-        if (!isPlayerStartingItemsWritten.get(entry.slot) && entry.hero_inventory != null) {
-            // Making something similar to DOTA_COMBATLOG_PURCHASE for each item in the beginning of the game
-            isPlayerStartingItemsWritten.set(entry.slot, true);
-            for (Item item : entry.hero_inventory) {
-                Entry startingItemsEntry = new Entry(time);
-                startingItemsEntry.type = "DOTA_COMBATLOG_PURCHASE";
-                startingItemsEntry.slot = entry.slot;
-                startingItemsEntry.value = (entry.slot < 5 ? 0 : PLAYER_SLOT_OFFSET) + entry.slot;
-                startingItemsEntry.valuename = item.id;
-                startingItemsEntry.targetname = combatLogName;
-                startingItemsEntry.charges = item.num_charges;
-                output(startingItemsEntry);
-            }
-        }
-    }
-    
-    private void processDotaPlusLevels(Context ctx, Entity playerResource) {
-        for (int i = 0; i < NUM_PLAYERS; i++) {
-            Integer xp = getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_unSelectedHeroBadgeXP", i);
-            if (xp == null) {
-                xp = 0;
-            }
-            Long steamId = getEntityProperty(playerResource, "m_vecPlayerData.%i.m_iPlayerSteamID", i);
-            if (steamId != null && steamIdToPlayerSlot.containsKey(steamId)) {
-                int playerSlot = steamIdToPlayerSlot.get(steamId);
-                dotaPlusXpMap.put(playerSlot, xp);
+            trajectoryUnits[i] = heroEntity.getDtClass().getDtName();
+            trajectory.add(
+                gameTick,
+                Trajectory.quantize(getPreciseLocation(cellX, vecX)),
+                Trajectory.quantize(getPreciseLocation(cellY, vecY)));
+            if (trajectory.size() >= TRAJECTORY_CHUNK_POINTS) {
+                outputTrajectory(i);
             }
         }
-        isDotaPlusProcessed = true;
     }
 
-    private List<Item> getHeroInventory(Context ctx, Entity heroEntity) {
-        List<Item> inventoryList = new ArrayList<>(6);
+    /**
+     * @return true while the game time is known to be before the start of the window, when
+     *         a parse read from a full packet before it
+     */
+    private boolean isBeforeWindow() {
+        return window.hasStart() && gameStartTime != 0 && time - gameStartTime < window.getStart();
+    }
 
-        for (int i = 0; i < MAX_INVENTORY_SLOTS; i++) {
-            try {
-                Item item = getHeroItem(ctx, heroEntity, i);
-                if (item != null) {
-                    inventoryList.add(item);
-                }
-            } catch (Exception e) {
-                // Silently skip invalid item slots
+    private void finishTrajectories() {
+        if (trajectories == null || trajectoriesFinished) {
+            return;
+        }
+        trajectoriesFinished = true;
+        for (int i = 0; i < NUM_PLAYERS; i++) {
+            if (trajectories[i] != null) {
+                trajectories[i].finish();
+                outputTrajectory(i);
             }
         }
-
-        return inventoryList;
     }
 
-    private List<Ability> getHeroAbilities(Context ctx, Entity heroEntity) {
-        List<Ability> abilityList = new ArrayList<>(MAX_ABILITIES);
-        for (int i = 0; i < MAX_ABILITIES; i++) {
-            try {
-                Ability ability = getHeroAbility(ctx, heroEntity, i);
-                if (ability != null) {
-                    abilityList.add(ability);
-                }
-            } catch (Exception e) {
-                // Silently skip invalid ability slots
-            }
+    /**
+     * Writes the kept points of a player's trajectory as one event.
+     */
+    private void outputTrajectory(int slot) {
+        Trajectory trajectory = trajectories[slot];
+        if (trajectory.size() == 0) {
+            return;
         }
-        return abilityList;
+        // Event time is the second of the first point, points are in ticks relative to it
+        int baseTime = Math.floorDiv(trajectory.getTick(0), TICKS_PER_SECOND);
+        EventRecord entry = newEntry(baseTime);
+        entry.setType(TYPE_TRAJECTORY);
+        entry.setInt(EventField.SLOT, slot);
+        entry.setString(EventField.UNIT, trajectoryUnits[slot]);
+        entry.setInt(EventField.VALUE, trajectory.size());
+        entry.setString(EventField.FORMAT, trajectoryFormat.getName());
+        entry.setString(EventField.KEY, trajectoryFormat.encode(trajectory, baseTime * TICKS_PER_SECOND));
+        trajectory.clear();
+        output(entry);
     }
 
     /**
-     * Uses "EntityNames" string table and Entities processor
+     * Populates the combat log name to slot mapping for a hero.
      * 
-     * @param ctx        Context
-     * @param heroEntity Hero entity
-     * @param idx        0-5 - inventory, 6-8 - backpack, 9-16 - stash
-     * @return {@code null} - empty slot. Throws {@link UnknownItemFoundException}
-     *         if item information can't be extracted
+     * @return The symbol of the combat log name of the hero
      */
-    private Item getHeroItem(Context ctx, Entity heroEntity, int idx) throws UnknownItemFoundException {
-        StringTable entityNamesTable = ctx.getProcessor(StringTables.class).forName(STRING_TABLE_ENTITY_NAMES);
-        Entities entities = ctx.getProcessor(Entities.class);
-
-        Integer itemHandle = heroEntity.getProperty(PROPERTY_ITEMS + "." + Util.arrayIdxToString(idx));
-        if (itemHandle == null || itemHandle == INVALID_HANDLE) {
-            return null;
-        }
-        
-        Entity itemEntity = entities.getByHandle(itemHandle);
-        if (itemEntity == null) {
-            throw new UnknownItemFoundException(String.format("Can't find item by its handle (%d)", itemHandle));
-        }
-        
-        String itemName = entityNamesTable.getNameByIndex(itemEntity.getProperty(PROPERTY_ENTITY_NAME_INDEX));
-        if (itemName == null) {
-            throw new UnknownItemFoundException("Can't get item name from EntityName string table");
-        }
-
-        Item item = new Item();
-        item.id = itemName;
-        item.slot = idx;
-        int numCharges = itemEntity.getProperty(PROPERTY_CURRENT_CHARGES);
-        if (numCharges != 0) {
-            item.num_charges = numCharges;
-        }
-        int numSecondaryCharges = itemEntity.getProperty(PROPERTY_SECONDARY_CHARGES);
-        if (numSecondaryCharges != 0) {
-            item.num_secondary_charges = numSecondaryCharges;
+    private int mapHeroName(Entity heroEntity, int slot) {
+        int unit = symbols.intern(heroEntity.getDtClass().getDtName());
+        int[] combatLogNames = heroCombatLogNames.get(unit);
+        if (combatLogNames == null) {
+            String ending = symbols.get(unit).substring(ENTITY_PREFIX_HERO.length());
+            // Valve is inconsistent with combat log names - could involve replacing camelCase with _ or not
+            // Double map it so we can look up both cases
+            String combatLogName = ENTITY_PREFIX_COMBAT_LOG_HERO + ending.toLowerCase();
+            String combatLogName2 = "npc_dota_hero" + ending.replaceAll("([A-Z])", "_$1").toLowerCase();
+            combatLogNames = new int[] {symbols.intern(combatLogName), symbols.intern(combatLogName2)};
+            heroCombatLogNames.put(unit, combatLogNames);
         }
-        return item;
+        slotBySymbol.put(combatLogNames[0], slot);
+        slotBySymbol.put(combatLogNames[1], slot);
+        return combatLogNames[0];
     }
 
     /**
-     * Uses "EntityNames" string table and Entities processor
-     * 
-     * @param ctx        Context
-     * @param heroEntity Hero entity
-     * @param idx        0-31 = Hero abilities including talents and special event items
-     * @return {@code null} - empty slot. Throws {@link UnknownAbilityFoundException}
-     *         if ability information can't be extracted
+     * Reads the hero entity of every slot and maps the combat log names of the picked
+     * heroes to their slots.
      */
-    private Ability getHeroAbility(Context ctx, Entity heroEntity, int idx) throws UnknownAbilityFoundException {
-        StringTable entityNamesTable = ctx.getProcessor(StringTables.class).forName(STRING_TABLE_ENTITY_NAMES);
-        Entities entities = ctx.getProcessor(Entities.class);
-
-        Integer abilityHandle;
-        String arrayIndex = Util.arrayIdxToString(idx);
-        if (heroEntity.hasProperty(PROPERTY_ABILITIES + "." + arrayIndex)) {
-            abilityHandle = heroEntity.getProperty(PROPERTY_ABILITIES + "." + arrayIndex);
-        } else if (heroEntity.hasProperty(PROPERTY_ABILITIES_VEC + "." + arrayIndex)) {
-            abilityHandle = heroEntity.getProperty(PROPERTY_ABILITIES_VEC + "." + arrayIndex);
-        } else {
-            abilityHandle = INVALID_HANDLE;
-        }
-        
-        if (abilityHandle == null || abilityHandle == INVALID_HANDLE) {
-            return null;
-        }
-        
-        Entity abilityEntity = entities.getByHandle(abilityHandle);
-        if (abilityEntity == null) {
-            throw new UnknownAbilityFoundException(String.format("Can't find ability by its handle (%d)", abilityHandle));
-        }
-        
-        String abilityName = entityNamesTable.getNameByIndex(abilityEntity.getProperty(PROPERTY_ENTITY_NAME_INDEX));
-        if (abilityName == null) {
-            throw new UnknownAbilityFoundException("Can't get ability name from EntityName string table");
+    private void mapHeroNames(Context ctx, Entity playerResource) {
+        for (int i = 0; i < NUM_PLAYERS; i++) {
+            Integer hero = getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_nSelectedHeroID", validIndices[i]);
+            int handle = properties.getInt(playerResource, "m_vecPlayerTeamData.%i.m_hSelectedHero", validIndices[i], INVALID_HANDLE);
+            Entity heroEntity = ctx.getProcessor(Entities.class).getByHandle(handle);
+            heroes[i] = heroEntity;
+            heroNames[i] = heroEntity != null && hero != null && hero > 0 ? symbols.get(mapHeroName(heroEntity, i)) : null;
         }
-
-        Ability ability = new Ability();
-        ability.id = abilityName;
-        ability.abilityLevel = abilityEntity.getProperty(PROPERTY_ABILITY_LEVEL);
-
-        return ability;
     }
 
     /**
-     * Gets a property value from an entity.
+     * Gets a property value from an entity. Field paths are resolved once per DtClass
+     * through {@link PropertyAccessors} and reused on every following call.
      * 
      * @param <T>      The type of the property value
      * @param entity   The entity to get the property from
      * @param property The property name (may contain %i placeholder for array index)
      * @param idx      Optional array index to replace %i placeholder
-     * @return The property value or null if not found or on error
+     * @return The property value or null if the property does not exist in this game version
      */
+    @Override
     public <T> T getEntityProperty(Entity entity, String property, Integer idx) {
-        try {
-            if (entity == null) {
-                return null;
-            }
-            if (idx != null) {
-                property = property.replace("%i", Util.arrayIdxToString(idx));
-            }
-            FieldPath fieldPath = entity.getDtClass().getFieldPathForName(property);
-            if (fieldPath == null) {
-                return null;
-            }
-            return entity.getPropertyForFieldPath(fieldPath);
-        } catch (Exception ex) {
-            // Silently return null on error - entity properties may not exist in all game versions
+        if (entity == null) {
             return null;
         }
+        return idx != null ? properties.get(entity, property, idx) : properties.get(entity, property);
     }
 
-    // Ward tracking handlers (consolidated from Wards.java)
     @OnEntityCreated
-    public void onWardCreated(Context ctx, Entity e) {
-        if (!isWard(e)) return;
-        
-        FieldPath lifeStatePath;
-        
-        clearWardCachedState(e);
-        ensureWardFieldPathForEntityInitialized(e);
-        if ((lifeStatePath = getWardFieldPathForEntity(e)) != null) {
-            processWardLifeStateChange(ctx, e, lifeStatePath);
-        }
-    }
-    
-    @OnEntityUpdated
-    public void onWardUpdated(Context ctx, Entity e, FieldPath[] fieldPaths, int num) {
-        if (!isWard(e)) return;
-        
-        FieldPath p;
-        if ((p = getWardFieldPathForEntity(e)) != null) {
-            for (int i = 0; i < num; i++) {
-                if (fieldPaths[i].equals(p)) {
-                    wardToProcess.add(new WardProcessEntityCommand(e, p));
-                    break;
-                }
-            }
-        }
+    public void onEntityCreated(Context ctx, Entity e) {
+        if (!entityClassFilter.accepts(e)) return;
+        entityTracker.onCreated(e);
+        extractorDispatcher.onEntityCreated(ctx, e);
     }
     
     @OnEntityDeleted
-    public void onWardDeleted(Context ctx, Entity e) {
-        if (!isWard(e)) return;
-        clearWardCachedState(e);
-    }
-    
-    @OnTickEnd
-    public void onWardTickEnd(Context ctx, boolean synthetic) {
-        if (!synthetic) return;
-        
-        WardProcessEntityCommand cmd;
-        while ((cmd = wardToProcess.poll()) != null) {
-            processWardLifeStateChange(ctx, cmd.entity, cmd.fieldPath);
-        }
-    }
-    
-    private void onWardKilled(Context ctx, Entity e, String killerHeroName) {
-        Entry wardEntry = buildWardEntry(ctx, e);
-        wardEntry.attackername = killerHeroName;
-        output(wardEntry);
-    }
-
-    private void onWardExistenceChanged(Context ctx, Entity e) {
-        output(buildWardEntry(ctx, e));
+    public void onEntityDeleted(Context ctx, Entity e) {
+        if (!entityClassFilter.accepts(e)) return;
+        extractorDispatcher.onEntityDeleted(ctx, e);
+        entityTracker.onDeleted(e);
     }
 
-    // Ward tracking helper methods (consolidated from Wards.java)
-    private FieldPath getWardFieldPathForEntity(Entity e) {
-        return wardLifeStatePaths.get(e.getDtClass().getClassId());
+    @OnEntityCreated(classPattern = ENTITY_GAMERULES_PROXY)
+    public void onGameRulesCreated(Context ctx, Entity e) {
+        gameRulesWatch.markAll();
     }
 
-    private void clearWardCachedState(Entity e) {
-        wardCurrentLifeState.remove(e.getIndex());
-    }
-    
-    private void ensureWardFieldPathForEntityInitialized(Entity e) {
-        Integer cid = e.getDtClass().getClassId();
-        if (!wardLifeStatePaths.containsKey(cid)) {
-            wardLifeStatePaths.put(cid, e.getDtClass().getFieldPathForName("m_lifeState"));
-        }
-    }
-    
-    private boolean isWard(Entity e) {
-        return WARDS_DT_CLASSES.contains(e.getDtClass().getDtName());
-    }
-    
-    private boolean isWardDeath(CombatLogEntry e) {
-        return e.getType().equals(DOTAUserMessages.DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_DEATH)
-                && WARDS_TARGET_NAMES.contains(e.getTargetName());
+    @OnEntityUpdated(classPattern = ENTITY_GAMERULES_PROXY)
+    public void onGameRulesUpdated(Context ctx, Entity e, FieldPath[] fieldPaths, int num) {
+        gameRulesWatch.collect(e, fieldPaths, num);
     }
     
-    private void processWardLifeStateChange(Context ctx, Entity e, FieldPath p) {
-        int oldState = wardCurrentLifeState.containsKey(e.getIndex()) ? wardCurrentLifeState.get(e.getIndex()) : 2;
-        int newState = e.getPropertyForFieldPath(p);
-        if (oldState != newState) {
-            switch(newState) {
-                case 0:
-                    onWardExistenceChanged(ctx, e);
-                    break;
-                case 1:
-                    String killer;
-                    if ((killer = wardKillersByWardClass.get(getWardTargetName(e.getDtClass().getDtName())).poll()) != null) {
-                        onWardKilled(ctx, e, killer);
-                    } else {
-                        onWardExistenceChanged(ctx, e);
-                    }
-                    break;
+    @OnTickEnd
+    public void onOutputTickEnd(Context ctx, boolean synthetic) {
+        extractorDispatcher.onTickEnd(ctx, synthetic);
+        try {
+            if (pipeline != null) {
+                pipeline.endTick();
+            } else if (consumer != null) {
+                consumer.endTick();
+            } else {
+                eventWriter.endTick();
             }
+        } catch (IOException ex) {
+            System.err.println("Error writing entry to output stream: " + ex.getMessage());
+        } catch (Exception ex) {
+            System.err.println("Error ending tick of consumer: " + ex.getMessage());
         }
-        
-        wardCurrentLifeState.put(e.getIndex(), newState);
     }
-    
-    private String getWardTargetName(String ward_dtclass_name) {
-        return WARDS_TARGET_NAME_BY_DT_CLASS.get(ward_dtclass_name);
-    }
-    
-    private Entry buildWardEntry(Context ctx, Entity wardEntity) {
-        Entry entry = new Entry(time);
-        boolean isObserver = !wardEntity.getDtClass().getDtName().contains("TrueSight");
-
-        Integer cellX = getEntityProperty(wardEntity, PROPERTY_CELL_X, null);
-        Integer cellY = getEntityProperty(wardEntity, PROPERTY_CELL_Y, null);
-        Integer cellZ = getEntityProperty(wardEntity, PROPERTY_CELL_Z, null);
-
-        Float vecX = getEntityProperty(wardEntity, PROPERTY_VEC_X, null);
-        Float vecY = getEntityProperty(wardEntity, PROPERTY_VEC_Y, null);
-        Float vecZ = getEntityProperty(wardEntity, PROPERTY_VEC_Z, null);
-
-        Integer lifeState = getEntityProperty(wardEntity, PROPERTY_LIFE_STATE, null);
-
-        if (cellX != null && cellY != null && cellZ != null) {
-            entry.x = getPreciseLocation(cellX, vecX);
-            entry.y = getPreciseLocation(cellY, vecY);
-            entry.z = getPreciseLocation(cellZ, vecZ);
-        }
-
-        entry.type = isObserver ? "obs" : "sen";
-        entry.entityleft = (lifeState != null && lifeState == LIFE_STATE_DEAD);
-        entry.ehandle = wardEntity.getHandle();
-
-        if (entry.entityleft) {
-            entry.type += "_left";
-        }
-
-        Integer ownerHandle = getEntityProperty(wardEntity, PROPERTY_OWNER_ENTITY, null);
-        Entity ownerEntity = ctx.getProcessor(Entities.class).getByHandle(ownerHandle);
-        entry.slot = getPlayerSlotFromEntity(ctx, ownerEntity);
 
-        return entry;
-    }
-    
-    private void ensureGameEventDaoInitialized() throws SQLException {
-        if (gameEventDAO == null && matchId != null) {
-            gameEventDAO = new GameEventDAO(matchId);
-        }
-    }
-    
-    private void insertDatabaseEvent(Entry entry) throws SQLException {
-        ensureGameEventDaoInitialized();
-        if (gameEventDAO == null) {
-            pendingDatabaseEvents.add(entry);
-            return;
-        }
-        gameEventDAO.insertEvent(entry);
-        currentBatchSize++;
-        if (currentBatchSize >= batchSize) {
-            gameEventDAO.executeBatch();
-            currentBatchSize = 0;
-        }
-    }
-    
-    private void flushPendingDatabaseEvents() throws SQLException {
-        if (pendingDatabaseEvents.isEmpty()) {
-            return;
-        }
-        ensureGameEventDaoInitialized();
-        if (gameEventDAO == null) {
-            return;
-        }
-        for (Entry pendingEvent : pendingDatabaseEvents) {
-            gameEventDAO.insertEvent(pendingEvent);
-            currentBatchSize++;
-            if (currentBatchSize >= batchSize) {
-                gameEventDAO.executeBatch();
-                currentBatchSize = 0;
-            }
-        }
-        pendingDatabaseEvents.clear();
-    }
-    
-    private void enqueueDatabaseEvent(Entry entry) throws SQLException {
-        if (matchId == null) {
-            pendingDatabaseEvents.add(entry);
-            return;
-        }
-        if (!pendingDatabaseEvents.isEmpty()) {
-            flushPendingDatabaseEvents();
-        }
-        insertDatabaseEvent(entry);
-    }
-    
     private void handleDiscoveredMatchId(Long discoveredMatchId) {
         if (discoveredMatchId == null) {
             return;
@@ -1418,282 +1239,60 @@ public class Parse {
             matchId = discoveredMatchId;
             System.err.println("Replay match ID detected: " + matchId);
             if (databaseEnabled) {
-                try {
-                    flushPendingDatabaseEvents();
-                } catch (SQLException e) {
-                    System.err.println("Error flushing pending database events: " + e.getMessage());
-                }
+                // Held back events are written with the next event or when the parse ends
+                gameEventSink.setMatchId(matchId);
             }
         }
     }
     
     private void persistGameInfo(CDemoFileInfo message) {
-        if (!databaseEnabled || gameInfoDAO == null) {
+        if (!databaseEnabled) {
             return;
         }
         
         try {
-            GameInfoPayload payload = buildGameInfoPayload(message);
-            handleDiscoveredMatchId(payload.sourceMatchId);
+            GameInfo gameInfo = GameInfo.from(message, steamIdToPlayerSlot);
+            handleDiscoveredMatchId(gameInfo.getMatchId());
             if (matchId == null) {
                 System.err.println("Replay match ID not available; skipping game info persistence.");
                 return;
             }
-            gameInfoDAO.upsertGameInfo(
-                matchId,
-                payload.playbackTime,
-                payload.playbackTicks,
-                payload.playbackFrames,
-                payload.gameMode,
-                payload.gameWinner,
-                payload.leagueId,
-                payload.radiantTeamId,
-                payload.direTeamId,
-                payload.radiantTeamTag,
-                payload.direTeamTag,
-                payload.endTime,
-                payload.playersJson,
-                payload.picksBansJson,
-                payload.rawFileInfoJson
-            );
-            
-            // Insert normalized players data
-            if (payload.playersList != null && !payload.playersList.isEmpty()) {
-                gameInfoDAO.insertPlayers(matchId, payload.playersList);
-            }
-            
-            // Insert normalized picks_bans data
-            if (payload.picksBansList != null && !payload.picksBansList.isEmpty()) {
-                gameInfoDAO.insertPicksBans(matchId, payload.picksBansList);
+            if (gameInfoDAO == null) {
+                // Dry run, the events still need the match id
+                return;
             }
+            gameInfo.persist(gameInfoDAO, matchId);
         } catch (Exception e) {
             System.err.println("Error saving game info to database: " + e.getMessage());
         }
     }
     
-    private GameInfoPayload buildGameInfoPayload(CDemoFileInfo message) {
-        GameInfoPayload payload = new GameInfoPayload();
-        Map<String, Object> rawInfo = new LinkedHashMap<>();
-        
-        if (message.hasPlaybackTime()) {
-            payload.playbackTime = message.getPlaybackTime();
-            rawInfo.put("playback_time", payload.playbackTime);
-        }
-        if (message.hasPlaybackTicks()) {
-            payload.playbackTicks = message.getPlaybackTicks();
-            rawInfo.put("playback_ticks", payload.playbackTicks);
-        }
-        if (message.hasPlaybackFrames()) {
-            payload.playbackFrames = message.getPlaybackFrames();
-            rawInfo.put("playback_frames", payload.playbackFrames);
-        }
-        
-        if (message.hasGameInfo()) {
-            Map<String, Object> gameInfoMap = new LinkedHashMap<>();
-            Demo.CGameInfo gameInfo = message.getGameInfo();
-            if (gameInfo.hasDota()) {
-                Map<String, Object> dotaMap = new LinkedHashMap<>();
-                Demo.CGameInfo.CDotaGameInfo dotaInfo = gameInfo.getDota();
-                if (dotaInfo.hasMatchId()) {
-                    payload.sourceMatchId = dotaInfo.getMatchId();
-                    dotaMap.put("match_id", payload.sourceMatchId);
-                }
-                if (dotaInfo.hasGameMode()) {
-                    payload.gameMode = dotaInfo.getGameMode();
-                    dotaMap.put("game_mode", payload.gameMode);
-                }
-                if (dotaInfo.hasGameWinner()) {
-                    payload.gameWinner = dotaInfo.getGameWinner();
-                    dotaMap.put("game_winner", payload.gameWinner);
-                }
-                if (dotaInfo.hasLeagueid()) {
-                    payload.leagueId = dotaInfo.getLeagueid();
-                    dotaMap.put("league_id", payload.leagueId);
-                }
-                if (dotaInfo.hasRadiantTeamId()) {
-                    payload.radiantTeamId = dotaInfo.getRadiantTeamId();
-                    dotaMap.put("radiant_team_id", payload.radiantTeamId);
-                }
-                if (dotaInfo.hasDireTeamId()) {
-                    payload.direTeamId = dotaInfo.getDireTeamId();
-                    dotaMap.put("dire_team_id", payload.direTeamId);
-                }
-                if (dotaInfo.hasRadiantTeamTag()) {
-                    payload.radiantTeamTag = dotaInfo.getRadiantTeamTag();
-                    dotaMap.put("radiant_team_tag", payload.radiantTeamTag);
-                }
-                if (dotaInfo.hasDireTeamTag()) {
-                    payload.direTeamTag = dotaInfo.getDireTeamTag();
-                    dotaMap.put("dire_team_tag", payload.direTeamTag);
-                }
-                if (dotaInfo.hasEndTime()) {
-                    payload.endTime = dotaInfo.getEndTime();
-                    dotaMap.put("end_time", payload.endTime);
-                }
-                
-                List<Map<String, Object>> playerEntries = new ArrayList<>();
-                List<GameInfoDAO.PlayerInfo> playersList = new ArrayList<>();
-                for (Demo.CGameInfo.CDotaGameInfo.CPlayerInfo playerInfo : dotaInfo.getPlayerInfoList()) {
-                    Map<String, Object> playerData = new LinkedHashMap<>();
-                    GameInfoDAO.PlayerInfo normalizedPlayer = new GameInfoDAO.PlayerInfo();
-                    
-                    if (playerInfo.hasSteamid()) {
-                        playerData.put("steam_id", playerInfo.getSteamid());
-                        normalizedPlayer.steamId = playerInfo.getSteamid();
-                        // Use steamId to get the correct player_slot from the mapping created during initialization
-                        Integer mappedPlayerSlot = steamIdToPlayerSlot.get(playerInfo.getSteamid());
-                        if (mappedPlayerSlot != null) {
-                            normalizedPlayer.playerSlot = mappedPlayerSlot;
-                        }
-                    }
-                    if (playerInfo.hasPlayerName()) {
-                        playerData.put("player_name", playerInfo.getPlayerName());
-                        normalizedPlayer.playerName = playerInfo.getPlayerName();
-                    }
-                    if (playerInfo.hasHeroName()) {
-                        playerData.put("hero_name", playerInfo.getHeroName());
-                        normalizedPlayer.heroName = playerInfo.getHeroName();
-                    }
-                    if (playerInfo.hasGameTeam()) {
-                        playerData.put("game_team", playerInfo.getGameTeam());
-                        normalizedPlayer.gameTeam = playerInfo.getGameTeam();
-                        
-                        // If player_slot wasn't set from steamId mapping, calculate based on team
-                        // This is a fallback - ideally steamId matching should work
-                        if (normalizedPlayer.playerSlot == null) {
-                            // Use a simple counter-based approach as fallback
-                            // Note: This may not match slot order perfectly, but it's better than null
-                            int[] radiantCount = {0};
-                            int[] direCount = {0};
-                            for (GameInfoDAO.PlayerInfo p : playersList) {
-                                if (p.gameTeam != null) {
-                                    if (p.gameTeam == RADIANT_TEAM_ID) {
-                                        radiantCount[0]++;
-                                    } else if (p.gameTeam == DIRE_TEAM_ID) {
-                                        direCount[0]++;
-                                    }
-                                }
-                            }
-                            if (normalizedPlayer.gameTeam == RADIANT_TEAM_ID) {
-                                normalizedPlayer.playerSlot = radiantCount[0];
-                            } else if (normalizedPlayer.gameTeam == DIRE_TEAM_ID) {
-                                normalizedPlayer.playerSlot = PLAYER_SLOT_OFFSET + direCount[0];
-                            }
-                        }
-                    }
-                    if (playerInfo.hasIsFakeClient()) {
-                        playerData.put("is_fake_client", playerInfo.getIsFakeClient());
-                        normalizedPlayer.isFakeClient = playerInfo.getIsFakeClient();
-                    }
-                    
-                    if (!playerData.isEmpty()) {
-                        playerEntries.add(playerData);
-                        playersList.add(normalizedPlayer);
-                    }
-                }
-                if (!playerEntries.isEmpty()) {
-                    payload.playersJson = gson.toJson(playerEntries);
-                    payload.playersList = playersList;
-                    dotaMap.put("players", playerEntries);
-                }
-                
-                List<Map<String, Object>> picksBansEntries = new ArrayList<>();
-                List<GameInfoDAO.PickBanInfo> picksBansList = new ArrayList<>();
-                for (Demo.CGameInfo.CDotaGameInfo.CHeroSelectEvent event : dotaInfo.getPicksBansList()) {
-                    Map<String, Object> pickBanData = new LinkedHashMap<>();
-                    GameInfoDAO.PickBanInfo normalizedPickBan = new GameInfoDAO.PickBanInfo();
-                    
-                    if (event.hasIsPick()) {
-                        pickBanData.put("is_pick", event.getIsPick());
-                        normalizedPickBan.isPick = event.getIsPick();
-                    }
-                    if (event.hasTeam()) {
-                        pickBanData.put("team", event.getTeam());
-                        normalizedPickBan.team = event.getTeam();
-                    }
-                    if (event.hasHeroId()) {
-                        pickBanData.put("hero_id", event.getHeroId());
-                        normalizedPickBan.heroId = event.getHeroId();
-                    }
-                    if (!pickBanData.isEmpty()) {
-                        picksBansEntries.add(pickBanData);
-                        picksBansList.add(normalizedPickBan);
-                    }
-                }
-                if (!picksBansEntries.isEmpty()) {
-                    payload.picksBansJson = gson.toJson(picksBansEntries);
-                    payload.picksBansList = picksBansList;
-                    dotaMap.put("picks_bans", picksBansEntries);
-                }
-                
-                if (!dotaMap.isEmpty()) {
-                    gameInfoMap.put("dota", dotaMap);
-                }
-            }
-            if (!gameInfoMap.isEmpty()) {
-                rawInfo.put("game_info", gameInfoMap);
-            }
-        }
-        
-        rawInfo.put("raw_text", message.toString());
-        payload.rawFileInfoJson = gson.toJson(rawInfo);
-        
-        return payload;
-    }
-    
-    private static class GameInfoPayload {
-        Long sourceMatchId;
-        Float playbackTime;
-        Integer playbackTicks;
-        Integer playbackFrames;
-        Integer gameMode;
-        Integer gameWinner;
-        Integer leagueId;
-        Integer radiantTeamId;
-        Integer direTeamId;
-        String radiantTeamTag;
-        String direTeamTag;
-        Integer endTime;
-        String playersJson;
-        String picksBansJson;
-        String rawFileInfoJson;
-        List<GameInfoDAO.PlayerInfo> playersList;
-        List<GameInfoDAO.PickBanInfo> picksBansList;
-    }
-    
-    private void initializeDatabase() {
+    /**
+     * Opens the database sinks, unless the options keep the parse out of the database. A
+     * dry run rolls back the stored events and skips the game info.
+     */
+    private void initializeDatabase(ParserEngine engine, ParseOptions options) {
         try {
-            // Check if database is enabled via environment variable
-            String dbEnabled = System.getenv("DB_ENABLED");
-            databaseEnabled = "true".equalsIgnoreCase(dbEnabled) || "1".equals(dbEnabled);
-            
+            // The schema is initialized once by the engine
+            databaseEnabled = engine.isDatabaseEnabled() && options.isDatabase();
             if (!databaseEnabled) {
-                System.err.println("Database integration disabled. Set DB_ENABLED=true to enable.");
                 return;
             }
-            
-            // Initialize database if it doesn't exist
-            try {
-                DatabaseInitializer.createDatabaseIfNotExists();
-            } catch (Exception e) {
-                System.err.println("Warning: Could not create database: " + e.getMessage());
+            if (!projection.isAll() || !window.isAll()) {
+                // The tables of a match hold all of its events, not the part a request asked for
+                System.err.println("Not storing events of a parse with a projection or time window in the database.");
+                databaseEnabled = false;
+                return;
             }
             
-            // Initialize database tables
-            DatabaseInitializer.initializeDatabase();
-            
-            gameInfoDAO = new GameInfoDAO();
+            if (!options.isDryRun()) {
+                gameInfoDAO = new GameInfoDAO();
+            }
+            gameEventSink = new GameEventSink(SPOOL_MEMORY_EVENTS, DEFAULT_BATCH_SIZE, options.isDryRun());
             
         } catch (Exception e) {
             System.err.println("Error initializing database: " + e.getMessage());
             databaseEnabled = false;
-            if (gameEventDAO != null) {
-                try {
-                    gameEventDAO.close();
-                } catch (Exception ignored) {
-                }
-                gameEventDAO = null;
-            }
             if (gameInfoDAO != null) {
                 try {
                     gameInfoDAO.close();
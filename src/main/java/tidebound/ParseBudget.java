@@ -0,0 +1,108 @@
+package tidebound;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Memory limits of a single parse, so a pathological replay (a huge lobby, a corrupted
+ * stream that loops) is aborted instead of exhausting the heap shared by every parse of
+ * the process.
+ *
+ * Two figures are checked, both unlimited by default:
+ * - the memory the parse retains, estimated from the events it holds back, its event
+ *   pipeline, trajectory points, output buffer, symbols, entity mappings and the state of
+ *   its extractors ({@value #ENV_MEMORY_BUDGET_MB}). The entities of the runner are not
+ *   counted, a stream that loops is caught by the allocation.
+ * - the bytes allocated by the thread running the parse, as reported by the JVM where
+ *   supported ({@value #ENV_ALLOCATION_BUDGET_MB})
+ *
+ * The allocation is counted from the first check, on the thread calling it.
+ */
+final class ParseBudget {
+
+    static final String ENV_MEMORY_BUDGET_MB = "PARSE_MEMORY_BUDGET_MB";
+    static final String ENV_ALLOCATION_BUDGET_MB = "PARSE_ALLOCATION_BUDGET_MB";
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    private final long memoryLimit;
+    private final long allocationLimit;
+    private final com.sun.management.ThreadMXBean threads;
+    private long allocationBaseline = -1;
+
+    /**
+     * @param memoryLimit     Retained bytes, 0 for unlimited
+     * @param allocationLimit Allocated bytes, 0 for unlimited
+     */
+    ParseBudget(long memoryLimit, long allocationLimit) {
+        this.memoryLimit = memoryLimit;
+        this.threads = allocationLimit > 0 ? allocationCounter() : null;
+        this.allocationLimit = threads != null ? allocationLimit : 0;
+    }
+
+    static ParseBudget fromEnvironment() {
+        return new ParseBudget(readMegabytes(ENV_MEMORY_BUDGET_MB), readMegabytes(ENV_ALLOCATION_BUDGET_MB));
+    }
+
+    boolean isUnlimited() {
+        return memoryLimit == 0 && allocationLimit == 0;
+    }
+
+    boolean exceedsMemory(long retainedBytes) {
+        return memoryLimit > 0 && retainedBytes > memoryLimit;
+    }
+
+    /**
+     * @return true if the current thread allocated more than the limit since the first call
+     */
+    boolean exceedsAllocation() {
+        if (allocationLimit == 0) {
+            return false;
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        if (allocationBaseline < 0) {
+            allocationBaseline = allocated;
+            return false;
+        }
+        return allocated - allocationBaseline > allocationLimit;
+    }
+
+    long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    long getAllocationLimit() {
+        return allocationLimit;
+    }
+
+    static long toMegabytes(long bytes) {
+        return bytes / BYTES_PER_MB;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+            if (!allocations.isThreadAllocatedMemoryEnabled()) {
+                allocations.setThreadAllocatedMemoryEnabled(true);
+            }
+            return allocations;
+        }
+        System.err.println("Thread allocation is not measured by this JVM, ignoring " + ENV_ALLOCATION_BUDGET_MB);
+        return null;
+    }
+
+    private static long readMegabytes(String name) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim())) * BYTES_PER_MB;
+        } catch (NumberFormatException ex) {
+            System.err.println("Invalid " + name + ": " + value + ", not limiting parses");
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package tidebound;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Thrown by a parse aborted for exceeding its {@link ParseBudget}. The events parsed
+ * until then were written.
+ *
+ * The status of a streamed response is sent before the parse starts, so the NDJSON output
+ * of an aborted parse ends with a {@value #EVENT_TYPE} event instead, see
+ * {@link #toEventLine()}. {@code processors/createParsedDataBlob.mjs} exits with
+ * {@value #BLOB_EXIT_CODE} when it reads one.
+ */
+public class ParseBudgetExceededException extends IOException {
+
+    public static final String EVENT_TYPE = "parse_aborted";
+    public static final int BLOB_EXIT_CODE = 3;
+
+    public ParseBudgetExceededException(String message) {
+        super(message);
+    }
+
+    /**
+     * @return The NDJSON line ending the output of the aborted parse, with the reason as key
+     */
+    public String toEventLine() {
+        JsonObject event = new JsonObject();
+        event.addProperty("time", 0);
+        event.addProperty("type", EVENT_TYPE);
+        event.addProperty("key", getMessage());
+        return event + "\n";
+    }
+
+    /**
+     * @return true if the NDJSON output ends with the event of an aborted parse
+     */
+    public static boolean endsAborted(byte[] ndjson) {
+        String output = new String(ndjson, StandardCharsets.UTF_8).stripTrailing();
+        String lastLine = output.substring(output.lastIndexOf('\n') + 1);
+        return lastLine.contains("\"type\":\"" + EVENT_TYPE + "\"");
+    }
+}
@@ -0,0 +1,291 @@
+package tidebound;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+import tidebound.events.EventProjection;
+import tidebound.events.TimeWindow;
+import tidebound.trajectory.TrajectoryFormat;
+
+/**
+ * Per-request settings of a {@link Parse}. Instances are immutable; use
+ * {@link #defaults()} and the {@code with*} methods to derive new ones.
+ */
+public final class ParseOptions {
+
+    public static final String PARAM_TYPES = "types";
+    public static final String PARAM_SLOTS = "slots";
+    public static final String PARAM_TRAJECTORY = "trajectory";
+    public static final String PARAM_TRAJECTORY_TOLERANCE = "trajectory_tolerance";
+    public static final String PARAM_SYMBOLS = "symbols";
+    public static final String PARAM_ITEM_TIMELINE = "item_timeline";
+    public static final String PARAM_START_TIME = "start_time";
+    public static final String PARAM_END_TIME = "end_time";
+    public static final String PARAM_TAIL = "tail";
+
+    // In map cells, like the x and y of interval events
+    public static final float DEFAULT_TRAJECTORY_TOLERANCE = 0.25f;
+
+    private static final ParseOptions DEFAULTS = new ParseOptions(EventProjection.all(), null, DEFAULT_TRAJECTORY_TOLERANCE, false, false,
+        TimeWindow.all(), false, true, false);
+
+    private final EventProjection projection;
+    private final TrajectoryFormat trajectoryFormat;
+    private final float trajectoryTolerance;
+    private final boolean symbols;
+    private final boolean itemTimeline;
+    private final TimeWindow window;
+    private final boolean tail;
+    private final boolean database;
+    private final boolean dryRun;
+
+    private ParseOptions(EventProjection projection, TrajectoryFormat trajectoryFormat, float trajectoryTolerance,
+                         boolean symbols, boolean itemTimeline, TimeWindow window, boolean tail, boolean database,
+                         boolean dryRun) {
+        this.projection = projection;
+        this.trajectoryFormat = trajectoryFormat;
+        this.trajectoryTolerance = trajectoryTolerance;
+        this.symbols = symbols;
+        this.itemTimeline = itemTimeline;
+        this.window = window;
+        this.tail = tail;
+        this.database = database;
+        this.dryRun = dryRun;
+    }
+
+    /**
+     * @return Options emitting every event, used by a session created without options
+     */
+    public static ParseOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Reads options from request parameters.
+     *
+     * @param parameters Lookup of a request parameter by name, returning null if absent
+     * @return The options
+     * @throws IllegalArgumentException if a parameter is invalid
+     */
+    public static ParseOptions fromParameters(Function<String, String> parameters) {
+        EventProjection projection = EventProjection.parse(parameters.apply(PARAM_TYPES), parameters.apply(PARAM_SLOTS));
+        TrajectoryFormat trajectoryFormat = TrajectoryFormat.parse(parameters.apply(PARAM_TRAJECTORY));
+        float trajectoryTolerance = parseFloat(PARAM_TRAJECTORY_TOLERANCE, parameters.apply(PARAM_TRAJECTORY_TOLERANCE), DEFAULT_TRAJECTORY_TOLERANCE);
+        boolean symbols = parseBoolean(PARAM_SYMBOLS, parameters.apply(PARAM_SYMBOLS));
+        boolean itemTimeline = parseBoolean(PARAM_ITEM_TIMELINE, parameters.apply(PARAM_ITEM_TIMELINE));
+        TimeWindow window = TimeWindow.of(
+            parseInteger(PARAM_START_TIME, parameters.apply(PARAM_START_TIME)),
+            parseInteger(PARAM_END_TIME, parameters.apply(PARAM_END_TIME)));
+        boolean tail = parseBoolean(PARAM_TAIL, parameters.apply(PARAM_TAIL));
+        return defaults()
+            .withProjection(projection)
+            .withTrajectory(trajectoryFormat, trajectoryTolerance)
+            .withSymbols(symbols)
+            .withItemTimeline(itemTimeline)
+            .withWindow(window)
+            .withTail(tail);
+    }
+
+    public ParseOptions withProjection(EventProjection projection) {
+        return new ParseOptions(projection != null ? projection : EventProjection.all(), trajectoryFormat, trajectoryTolerance, symbols, itemTimeline, window, tail, database, dryRun);
+    }
+
+    /**
+     * @param format    Encoding of the hero trajectories, null to not record them
+     * @param tolerance Maximum error of the simplified trajectories, in map cells
+     * @throws IllegalArgumentException if the tolerance is negative
+     */
+    public ParseOptions withTrajectory(TrajectoryFormat format, float tolerance) {
+        if (tolerance < 0 || Float.isNaN(tolerance) || Float.isInfinite(tolerance)) {
+            throw new IllegalArgumentException("Trajectory tolerance must be a non-negative number: " + tolerance);
+        }
+        return new ParseOptions(projection, format, tolerance, symbols, itemTimeline, window, tail, database, dryRun);
+    }
+
+    /**
+     * @param symbols true to write unit, hero, item and ability names as ids of a streamed
+     *                dictionary (see {@link tidebound.events.EventWriter})
+     */
+    public ParseOptions withSymbols(boolean symbols) {
+        return new ParseOptions(projection, trajectoryFormat, trajectoryTolerance, symbols, itemTimeline, window, tail, database, dryRun);
+    }
+
+    /**
+     * @param itemTimeline true to write an {@code item_timeline} event whenever the items
+     *                     or charges in a hero's inventory change
+     */
+    public ParseOptions withItemTimeline(boolean itemTimeline) {
+        return new ParseOptions(projection, trajectoryFormat, trajectoryTolerance, symbols, itemTimeline, window, tail, database, dryRun);
+    }
+
+    /**
+     * @param window Game time range whose events are written. The parse stops once it has
+     *               passed the end, and seeks close to the start when reading a file.
+     */
+    public ParseOptions withWindow(TimeWindow window) {
+        return new ParseOptions(projection, trajectoryFormat, trajectoryTolerance, symbols, itemTimeline,
+            window != null ? window : TimeWindow.all(), tail, database, dryRun);
+    }
+
+    /**
+     * @param tail true to follow a local replay that is still being recorded, writing the
+     *             events of every tick as soon as it was parsed
+     */
+    public ParseOptions withTail(boolean tail) {
+        return new ParseOptions(projection, trajectoryFormat, trajectoryTolerance, symbols, itemTimeline, window, tail, database, dryRun);
+    }
+
+    /**
+     * @param database false to not store the events and game info even with
+     *                 {@code DB_ENABLED}, for parses of part of a replay that are not
+     *                 requested by a client. Not passed in query strings.
+     */
+    ParseOptions withDatabase(boolean database) {
+        return new ParseOptions(projection, trajectoryFormat, trajectoryTolerance, symbols, itemTimeline, window, tail, database, dryRun);
+    }
+
+    /**
+     * @param dryRun true to roll back the events stored in the database and not store the
+     *               game info, for parses of a sample replay. Not passed in query strings.
+     */
+    ParseOptions withDryRun(boolean dryRun) {
+        return new ParseOptions(projection, trajectoryFormat, trajectoryTolerance, symbols, itemTimeline, window, tail, database, dryRun);
+    }
+
+    public EventProjection getProjection() {
+        return projection;
+    }
+
+    /**
+     * @return Encoding of the hero trajectories, null if they are not recorded
+     */
+    public TrajectoryFormat getTrajectoryFormat() {
+        return trajectoryFormat;
+    }
+
+    public float getTrajectoryTolerance() {
+        return trajectoryTolerance;
+    }
+
+    public boolean isSymbols() {
+        return symbols;
+    }
+
+    public boolean isItemTimeline() {
+        return itemTimeline;
+    }
+
+    public TimeWindow getWindow() {
+        return window;
+    }
+
+    public boolean isTail() {
+        return tail;
+    }
+
+    /**
+     * @return true if the parse writes all events of the whole game up to the
+     *         {@code epilogue}, as the blob aggregation needs. A parse with a time window
+     *         leaves out events, and stops before the epilogue once the window has ended;
+     *         a projection may leave out the epilogue or the events the blob is built from.
+     */
+    public boolean isWholeGame() {
+        return window.isAll() && projection.isAll();
+    }
+
+    boolean isDatabase() {
+        return database;
+    }
+
+    boolean isDryRun() {
+        return dryRun;
+    }
+
+    /**
+     * @return The query string ({@code ?types=...}) passing these options to the parse
+     *         endpoint, or an empty string for the defaults
+     */
+    public String toQueryString() {
+        StringBuilder query = new StringBuilder();
+        appendParameter(query, PARAM_TYPES, projection.getTypesParameter());
+        appendParameter(query, PARAM_SLOTS, projection.getSlotsParameter());
+        if (trajectoryFormat != null) {
+            appendParameter(query, PARAM_TRAJECTORY, trajectoryFormat.getName());
+            if (trajectoryTolerance != DEFAULT_TRAJECTORY_TOLERANCE) {
+                appendParameter(query, PARAM_TRAJECTORY_TOLERANCE, String.valueOf(trajectoryTolerance));
+            }
+        }
+        if (symbols) {
+            appendParameter(query, PARAM_SYMBOLS, "true");
+        }
+        if (itemTimeline) {
+            appendParameter(query, PARAM_ITEM_TIMELINE, "true");
+        }
+        if (window.hasStart()) {
+            appendParameter(query, PARAM_START_TIME, String.valueOf(window.getStart()));
+        }
+        if (window.hasEnd()) {
+            appendParameter(query, PARAM_END_TIME, String.valueOf(window.getEnd()));
+        }
+        if (tail) {
+            appendParameter(query, PARAM_TAIL, "true");
+        }
+        return query.toString();
+    }
+
+    private static float parseFloat(String name, String value, float defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Float.parseFloat(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value, ex);
+        }
+    }
+
+    private static Integer parseInteger(String name, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value, ex);
+        }
+    }
+
+    private static boolean parseBoolean(String name, String value) {
+        if (value == null || value.isBlank() || value.equalsIgnoreCase("false") || value.equals("0")) {
+            return false;
+        }
+        if (value.equalsIgnoreCase("true") || value.equals("1")) {
+            return true;
+        }
+        throw new IllegalArgumentException("Invalid " + name + ": " + value);
+    }
+
+    private static void appendParameter(StringBuilder query, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        query.append(query.length() == 0 ? '?' : '&')
+            .append(name)
+            .append('=')
+            .append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String toString() {
+        return "ParseOptions{projection=" + projection
+            + ", trajectory=" + (trajectoryFormat != null ? trajectoryFormat.getName() + "/" + trajectoryTolerance : "off")
+            + ", symbols=" + symbols
+            + ", itemTimeline=" + itemTimeline
+            + ", window=" + window
+            + ", tail=" + tail
+            + (database ? "" : ", noDatabase")
+            + (dryRun ? ", dryRun" : "")
+            + "}";
+    }
+}
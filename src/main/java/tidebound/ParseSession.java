@@ -0,0 +1,101 @@
+package tidebound;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import tidebound.events.EventConsumer;
+
+/**
+ * Parse of a single replay with the shared state of a {@link ParserEngine}.
+ *
+ * Creating a session is cheap; a parse slot of the engine is only held while
+ * {@code parse} runs, waiting for one if the limit of concurrent parses is reached.
+ */
+public final class ParseSession {
+
+    private final ParserEngine engine;
+    private final ParseOptions options;
+
+    ParseSession(ParserEngine engine, ParseOptions options) {
+        this.engine = engine;
+        this.options = options;
+    }
+
+    /**
+     * Parses a replay stream into the output.
+     */
+    public void parse(InputStream input, OutputStream output) throws IOException {
+        engine.acquireParseSlot();
+        try {
+            new Parse(engine, input, null, output, options);
+        } finally {
+            engine.releaseParseSlot();
+        }
+    }
+
+    /**
+     * Parses a replay file into the output. Unlike a stream, the file is seekable, so a
+     * parse with a time window starts from the full packet before the window, and long
+     * replays can be parsed in segments on several threads (see {@link SegmentedParse}).
+     * Each segment after the first takes another parse slot, as far as slots are free.
+     */
+    public void parse(File replay, OutputStream output) throws IOException {
+        engine.acquireParseSlot();
+        try {
+            if (!SegmentedParse.parse(engine, replay, output, options)) {
+                new Parse(engine, null, replay, output, options);
+            }
+        } finally {
+            engine.releaseParseSlot();
+        }
+    }
+
+    /**
+     * @return The events of a replay file as they are parsed, without NDJSON encoding;
+     *         the parse starts once subscribed to
+     */
+    public ReplayEventPublisher publisher(File replay) {
+        return new ReplayEventPublisher(consumer -> parse(replay, null, consumer));
+    }
+
+    /**
+     * @return The events of a replay stream as they are parsed, without NDJSON encoding;
+     *         the parse starts once subscribed to
+     */
+    public ReplayEventPublisher publisher(InputStream input) {
+        return new ReplayEventPublisher(consumer -> parse(null, input, consumer));
+    }
+
+    /**
+     * @return An iterator over the events of a replay file, parsing ahead of the caller
+     */
+    public ReplayEventIterator iterator(File replay) {
+        return new ReplayEventIterator(publisher(replay), ReplayEventIterator.DEFAULT_PREFETCH);
+    }
+
+    /**
+     * @return An iterator over the events of a replay stream, parsing ahead of the caller
+     */
+    public ReplayEventIterator iterator(InputStream input) {
+        return new ReplayEventIterator(publisher(input), ReplayEventIterator.DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Parses a replay file or stream into a consumer, on the calling thread. A file is
+     * parsed in one piece, segments are only merged as NDJSON.
+     */
+    void parse(File replay, InputStream input, EventConsumer consumer) throws IOException {
+        engine.acquireParseSlot();
+        try {
+            new Parse(engine, input, replay, consumer, options, null);
+        } finally {
+            engine.releaseParseSlot();
+        }
+    }
+
+    public ParseOptions getOptions() {
+        return options;
+    }
+}
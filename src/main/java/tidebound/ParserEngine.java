@@ -0,0 +1,218 @@
+package tidebound;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import tidebound.database.DatabaseInitializer;
+import tidebound.extractors.Extractor;
+import tidebound.extractors.ExtractorRegistry;
+
+/**
+ * Process-wide state shared by every parse: the database schema bootstrap, the
+ * extractors, the limit on concurrent parses and whether the parser is warmed up (see
+ * {@link ReplayWarmUp}).
+ *
+ * All of it happens once, in {@link #getInstance()}. Replays are parsed through
+ * lightweight {@link ParseSession}s handed out by {@link #newSession(ParseOptions)}.
+ *
+ * The Clarity runner is not part of it: Clarity 3.0.5 builds the execution model of a
+ * runner, reading the handler annotations of its processors, inside {@code runWith} and
+ * has no way to build it ahead or reuse it, so every parse still pays for that scan.
+ */
+public final class ParserEngine {
+
+    public static final String ENV_MAX_CONCURRENT_PARSES = "MAX_CONCURRENT_PARSES";
+
+    private static final Object INSTANCE_LOCK = new Object();
+    private static volatile ParserEngine instance;
+
+    private final boolean databaseRequested;
+    private final int maxConcurrentParses;
+    private final Semaphore parseSlots;
+    private final ExtractorRegistry extractors;
+    private final AtomicBoolean warmUpStarted = new AtomicBoolean();
+    private volatile boolean ready;
+    private volatile boolean databaseEnabled;
+    private volatile Exception bootstrapFailure;
+
+    ParserEngine(boolean databaseRequested, int maxConcurrentParses) {
+        this(databaseRequested, maxConcurrentParses, ExtractorRegistry.load());
+    }
+
+    ParserEngine(boolean databaseRequested, int maxConcurrentParses, ExtractorRegistry extractors) {
+        if (maxConcurrentParses < 1) {
+            throw new IllegalArgumentException("At least one concurrent parse is required: " + maxConcurrentParses);
+        }
+        this.databaseRequested = databaseRequested;
+        this.maxConcurrentParses = maxConcurrentParses;
+        this.parseSlots = new Semaphore(maxConcurrentParses, true);
+        this.extractors = extractors;
+    }
+
+    /**
+     * @return The engine of this process, bootstrapping it on first use
+     */
+    public static ParserEngine getInstance() {
+        ParserEngine engine = instance;
+        if (engine == null) {
+            synchronized (INSTANCE_LOCK) {
+                engine = instance;
+                if (engine == null) {
+                    engine = new ParserEngine(isDatabaseRequested(), readMaxConcurrentParses());
+                    engine.bootstrap();
+                    instance = engine;
+                }
+            }
+        }
+        return engine;
+    }
+
+    /**
+     * @param options Settings of the parse
+     * @return A session parsing one replay with these options
+     */
+    public ParseSession newSession(ParseOptions options) {
+        return new ParseSession(this, options != null ? options : ParseOptions.defaults());
+    }
+
+    /**
+     * @return true if {@code DB_ENABLED} is set and the schema was initialized
+     */
+    public boolean isDatabaseEnabled() {
+        return databaseEnabled;
+    }
+
+    /**
+     * @return The reason the database was disabled although {@code DB_ENABLED} is set,
+     *         null if the bootstrap succeeded
+     */
+    public Exception getBootstrapFailure() {
+        return bootstrapFailure;
+    }
+
+    public int getMaxConcurrentParses() {
+        return maxConcurrentParses;
+    }
+
+    /**
+     * @return Number of parses that can start without waiting
+     */
+    public int getAvailableParseSlots() {
+        return parseSlots.availablePermits();
+    }
+
+    /**
+     * @return The extractors of this deployment and their cost over all parses
+     */
+    public ExtractorRegistry getExtractors() {
+        return extractors;
+    }
+
+    /**
+     * @return true once the warm-up finished, the node then takes traffic from the
+     *         service registry and reports healthy
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @return true for the first caller, which runs the warm-up of this process
+     */
+    boolean startWarmUp() {
+        return warmUpStarted.compareAndSet(false, true);
+    }
+
+    void markReady() {
+        ready = true;
+    }
+
+    void bootstrap() {
+        logExtractors();
+        if (!databaseRequested) {
+            System.err.println("Database integration disabled. Set DB_ENABLED=true to enable.");
+            return;
+        }
+
+        try {
+            DatabaseInitializer.createDatabaseIfNotExists();
+        } catch (Exception e) {
+            System.err.println("Warning: Could not create database: " + e.getMessage());
+        }
+
+        try {
+            DatabaseInitializer.initializeDatabase();
+            databaseEnabled = true;
+        } catch (Exception e) {
+            System.err.println("Error initializing database: " + e.getMessage());
+            bootstrapFailure = e;
+        }
+    }
+
+    /**
+     * Waits until fewer than {@link #getMaxConcurrentParses()} parses are running.
+     */
+    void acquireParseSlot() throws IOException {
+        try {
+            parseSlots.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a parse slot", ex);
+        }
+    }
+
+    void releaseParseSlot() {
+        parseSlots.release();
+    }
+
+    /**
+     * Takes up to {@code count} more parse slots if they are free right away, for the
+     * extra threads of a parse. Parses waiting for a slot go first.
+     *
+     * @return Number of slots taken
+     */
+    int tryAcquireParseSlots(int count) {
+        int acquired = 0;
+        try {
+            while (acquired < count && parseSlots.tryAcquire(0, TimeUnit.SECONDS)) {
+                acquired++;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return acquired;
+    }
+
+    void releaseParseSlots(int count) {
+        if (count > 0) {
+            parseSlots.release(count);
+        }
+    }
+
+    private void logExtractors() {
+        for (Extractor extractor : extractors.getExtractors()) {
+            System.err.format("Extractor %s%s\n", extractor.getName(), extractors.isEnabled(extractor) ? "" : " (disabled)");
+        }
+    }
+
+    private static boolean isDatabaseRequested() {
+        String dbEnabled = System.getenv("DB_ENABLED");
+        return "true".equalsIgnoreCase(dbEnabled) || "1".equals(dbEnabled);
+    }
+
+    private static int readMaxConcurrentParses() {
+        String value = System.getenv(ENV_MAX_CONCURRENT_PARSES);
+        int defaultValue = Runtime.getRuntime().availableProcessors();
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid " + ENV_MAX_CONCURRENT_PARSES + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+}
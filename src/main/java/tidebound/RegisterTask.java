@@ -6,8 +6,26 @@ import java.io.InputStreamReader;
 import java.util.TimerTask;
 
 public class RegisterTask extends TimerTask {
+
+   private final ParserEngine engine;
+
+   public RegisterTask() {
+        this(null);
+   }
+
+   /**
+    * @param engine Registration is skipped until it is ready, null to always register
+    */
+   public RegisterTask(ParserEngine engine) {
+        this.engine = engine;
+   }
+
    public void run()
    {
+        if (engine != null && !engine.isReady()) {
+            // Still warming up, take no traffic yet
+            return;
+        }
         if (System.getenv().containsKey("SERVICE_REGISTRY_HOST")) {
             try {
                 String ip = "";
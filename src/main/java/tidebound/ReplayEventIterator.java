@@ -0,0 +1,144 @@
+package tidebound;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+
+import tidebound.events.EventRecord;
+
+/**
+ * Pull based variant of {@link ReplayEventPublisher}: iterates over the events of a
+ * replay while it is parsed on another thread.
+ *
+ * At most {@code prefetch} events are parsed ahead of the caller, so the parse waits
+ * while the caller is busy. A parse failure is thrown by {@link #hasNext()}. Closing the
+ * iterator before the end stops the parse.
+ */
+public final class ReplayEventIterator implements Iterator<EventRecord>, AutoCloseable {
+
+    static final int DEFAULT_PREFETCH = 256;
+
+    // Marks the end of the events in the queue
+    private static final Object END = new Object();
+
+    // Events, then END or the failure of the parse
+    private final BlockingQueue<Object> queue;
+    private final int batch;
+    private volatile Flow.Subscription subscription;
+    private volatile boolean closed;
+
+    // Caller state
+    private EventRecord next;
+    private boolean done;
+    private int consumed;
+
+    ReplayEventIterator(Flow.Publisher<EventRecord> publisher, int prefetch) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("Prefetch must be positive: " + prefetch);
+        }
+        this.queue = new ArrayBlockingQueue<>(prefetch + 1);
+        // Requested again once half of the prefetched events are taken
+        this.batch = Math.max(1, prefetch / 2);
+        publisher.subscribe(new Flow.Subscriber<EventRecord>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription = s;
+                if (closed) {
+                    s.cancel();
+                } else {
+                    s.request(prefetch);
+                }
+            }
+
+            @Override
+            public void onNext(EventRecord record) {
+                queue.add(record);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                queue.add(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                queue.add(END);
+            }
+        });
+    }
+
+    /**
+     * Waits for the next event or the end of the parse.
+     *
+     * @throws UncheckedIOException if the parse failed or the thread was interrupted
+     */
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (done) {
+            return false;
+        }
+        Object item;
+        try {
+            item = queue.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new UncheckedIOException(new IOException("Interrupted while waiting for replay events", ex));
+        }
+        if (item == END) {
+            done = true;
+            return false;
+        }
+        if (item instanceof Throwable) {
+            done = true;
+            Throwable failure = (Throwable) item;
+            if (failure instanceof IOException) {
+                throw new UncheckedIOException((IOException) failure);
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            throw new IllegalStateException("Replay parse failed: " + failure.getMessage(), failure);
+        }
+        next = (EventRecord) item;
+        if (++consumed == batch) {
+            consumed = 0;
+            subscription.request(batch);
+        }
+        return true;
+    }
+
+    @Override
+    public EventRecord next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        EventRecord record = next;
+        next = null;
+        return record;
+    }
+
+    /**
+     * Stops the parse if it has not ended yet.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        done = true;
+        next = null;
+        Flow.Subscription s = subscription;
+        if (s != null) {
+            s.cancel();
+        }
+    }
+}
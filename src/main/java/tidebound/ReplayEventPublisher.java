@@ -0,0 +1,161 @@
+package tidebound;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import tidebound.events.EventConsumer;
+import tidebound.events.EventRecord;
+
+/**
+ * A parse of one replay as a {@link Flow.Publisher} of its events, for services that
+ * embed the parser instead of reading its NDJSON output.
+ *
+ * The parse starts when a subscriber subscribes and runs on a thread of its own, which
+ * also signals the subscriber. Every event is a copy the subscriber may keep, with the
+ * time relative to the game start like in the output. Events are only parsed as fast as
+ * they are requested: while there is no demand the parse thread waits, holding its parse
+ * slot, so a slow subscriber slows down the parse instead of events piling up.
+ * Cancelling stops the parse at the next replay tick.
+ *
+ * The replay is read once, so a publisher accepts a single subscriber.
+ */
+public final class ReplayEventPublisher implements Flow.Publisher<EventRecord> {
+
+    private static final String THREAD_NAME = "replay-events";
+
+    /**
+     * Parse of the replay into a consumer, on the calling thread.
+     */
+    interface ParseTask {
+        void run(EventConsumer consumer) throws Exception;
+    }
+
+    private final ParseTask task;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    ReplayEventPublisher(ParseTask task) {
+        this.task = task;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super EventRecord> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("The replay is already parsed for another subscriber"));
+            return;
+        }
+        Thread thread = new Thread(new ParseSubscription(subscriber), THREAD_NAME);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Runs the parse and hands its events to the subscriber as they are requested.
+     */
+    private final class ParseSubscription implements Flow.Subscription, EventConsumer, Runnable {
+
+        private final Flow.Subscriber<? super EventRecord> subscriber;
+        private final Object lock = new Object();
+        // Events requested and not delivered yet, Long.MAX_VALUE for unbounded
+        private long demand;
+        private volatile boolean cancelled;
+        // A request for a non-positive number of events, reported once the parse stopped
+        private Throwable invalidRequest;
+
+        ParseSubscription(Flow.Subscriber<? super EventRecord> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (lock) {
+                if (n <= 0) {
+                    if (invalidRequest == null && !cancelled) {
+                        invalidRequest = new IllegalArgumentException("Requested " + n + " events, expected a positive number");
+                    }
+                    cancelled = true;
+                } else {
+                    long total = demand + n;
+                    demand = total < 0 ? Long.MAX_VALUE : total;
+                }
+                lock.notifyAll();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (lock) {
+                cancelled = true;
+                lock.notifyAll();
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Called by the parse, waits until the subscriber requested the event.
+         */
+        @Override
+        public void accept(EventRecord record) {
+            synchronized (lock) {
+                try {
+                    while (demand == 0 && !cancelled) {
+                        lock.wait();
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    cancelled = true;
+                }
+                if (cancelled) {
+                    return;
+                }
+                if (demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+            }
+            try {
+                subscriber.onNext(record.copy());
+            } catch (Throwable t) {
+                // A failing subscriber is treated as cancelled and gets no further signals
+                System.err.println("Stopping parse after subscriber failure: " + t.getMessage());
+                cancel();
+            }
+        }
+
+        @Override
+        public void run() {
+            subscriber.onSubscribe(this);
+            Throwable failure = null;
+            try {
+                task.run(this);
+            } catch (Throwable t) {
+                failure = t;
+            }
+            synchronized (lock) {
+                if (invalidRequest != null) {
+                    failure = invalidRequest;
+                } else if (cancelled) {
+                    return;
+                }
+            }
+            if (failure != null) {
+                subscriber.onError(failure);
+            } else {
+                subscriber.onComplete();
+            }
+        }
+    }
+}
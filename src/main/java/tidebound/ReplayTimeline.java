@@ -0,0 +1,108 @@
+package tidebound;
+
+import java.io.File;
+import java.io.IOException;
+
+import skadistats.clarity.model.Entity;
+import skadistats.clarity.processor.entities.Entities;
+import skadistats.clarity.processor.runner.ControllableRunner;
+import skadistats.clarity.source.MappedFileSource;
+import tidebound.entities.PropertyAccessors;
+
+/**
+ * Maps game time to replay ticks of a replay file, from its {@link SeekIndex} or else
+ * read from the game rules at the end of the replay.
+ *
+ * Without an index, it is only available for replays from 7.32e on, whose game time is
+ * derived from ticks; paused ticks are not known then, so a tick computed from a game time
+ * is never later than the tick the game actually reached that time.
+ */
+final class ReplayTimeline {
+
+    static final int TICKS_PER_SECOND = 30;
+
+    private static final String ENTITY_GAMERULES_PROXY = "CDOTAGamerulesProxy";
+    private static final String PROPERTY_GAME_TIME = "m_pGameRules.m_fGameTime";
+    private static final String PROPERTY_GAME_START_TIME = "m_pGameRules.m_flGameStartTime";
+
+    // Replay seconds of the horn
+    private final float gameStart;
+    private final int lastTick;
+    // null to estimate the ticks from the game start
+    private final SeekIndex index;
+
+    ReplayTimeline(float gameStart, int lastTick) {
+        this.gameStart = gameStart;
+        this.lastTick = lastTick;
+        this.index = null;
+    }
+
+    ReplayTimeline(SeekIndex index) {
+        this.gameStart = 0f;
+        this.lastTick = 0;
+        this.index = index;
+    }
+
+    /**
+     * @return The timeline from the seek index of the replay if there is one, else probed
+     *         from the replay; null if neither is available
+     */
+    static ReplayTimeline load(File replay) throws IOException {
+        SeekIndex index = SeekIndex.read(replay);
+        if (index != null && index.size() > 0) {
+            return new ReplayTimeline(index);
+        }
+        return probe(replay);
+    }
+
+    boolean isIndexed() {
+        return index != null;
+    }
+
+    /**
+     * @return The timeline, null if the replay has no tick based game time or no game start
+     */
+    static ReplayTimeline probe(File replay) throws IOException {
+        ControllableRunner probe = new ControllableRunner(new MappedFileSource(replay.toPath())).runWith(new Parse.EntitiesProbe());
+        try {
+            int lastTick = probe.getLastTick();
+            probe.seek(lastTick);
+            PropertyAccessors properties = new PropertyAccessors();
+            properties.bindBuild(probe.getContext().getBuildNumber());
+            Entity gameRulesProxy = probe.getContext().getProcessor(Entities.class).getByDtName(ENTITY_GAMERULES_PROXY);
+            if (gameRulesProxy == null || properties.get(gameRulesProxy, PROPERTY_GAME_TIME) != null) {
+                // Before 7.32e the game time is not derived from ticks
+                return null;
+            }
+            float gameStart = properties.getFloat(gameRulesProxy, PROPERTY_GAME_START_TIME, 0f);
+            if (gameStart == 0f) {
+                return null;
+            }
+            return new ReplayTimeline(gameStart, lastTick);
+        } finally {
+            probe.halt();
+        }
+    }
+
+    /**
+     * @param gameTime Seconds relative to the game start, like the event time
+     * @return A tick at which the game time is not reached yet, the tick it is reached at
+     *         without pauses if the replay has no index; at least 0
+     */
+    int toTick(int gameTime) {
+        if (index != null) {
+            return index.findTick(gameTime);
+        }
+        return Math.max(0, Math.round((gameStart + gameTime) * TICKS_PER_SECOND));
+    }
+
+    /**
+     * @return Game time of the last tick, an upper bound of the game time reached
+     */
+    int getLastGameTime() {
+        if (index != null) {
+            return index.getLastGameTime();
+        }
+        return (int) Math.ceil(lastTick / (float) TICKS_PER_SECOND - gameStart);
+    }
+}
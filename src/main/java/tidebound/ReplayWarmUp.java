@@ -0,0 +1,116 @@
+package tidebound;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Warm-up of a freshly started parser: parses a sample replay a few times, so the JIT has
+ * compiled the decoding, extractor, NDJSON and database code before the node registers
+ * with the service registry. Until then the engine is not {@link ParserEngine#isReady()
+ * ready}.
+ *
+ * The sample replay is read from {@value #ENV_REPLAY} and parsed like a posted replay,
+ * {@value #ENV_ITERATIONS} times. The output is discarded; with {@code DB_ENABLED} the
+ * events go through the database code in a transaction that is rolled back. Without a
+ * sample replay, the engine is ready right away.
+ */
+public final class ReplayWarmUp {
+
+    public static final String ENV_REPLAY = "WARMUP_REPLAY";
+    public static final String ENV_ITERATIONS = "WARMUP_ITERATIONS";
+
+    static final int DEFAULT_ITERATIONS = 3;
+
+    /**
+     * One parse of the sample replay.
+     */
+    interface WarmUpParse {
+        void run() throws IOException;
+    }
+
+    private final ParserEngine engine;
+    private final int iterations;
+    private final WarmUpParse parse;
+
+    /**
+     * @param parse The parse of the sample replay, null if there is none
+     */
+    ReplayWarmUp(ParserEngine engine, int iterations, WarmUpParse parse) {
+        this.engine = engine;
+        this.iterations = iterations;
+        this.parse = parse;
+    }
+
+    /**
+     * @return The warm-up configured for this process
+     */
+    public static ReplayWarmUp fromEnvironment(ParserEngine engine) {
+        String path = System.getenv(ENV_REPLAY);
+        if (path == null || path.isBlank()) {
+            return new ReplayWarmUp(engine, 0, null);
+        }
+        File replay = new File(path.trim());
+        ParseOptions options = ParseOptions.defaults().withDryRun(true);
+        return new ReplayWarmUp(engine, readIterations(), () -> {
+            try (InputStream input = new BufferedInputStream(new FileInputStream(replay))) {
+                engine.newSession(options).parse(input, OutputStream.nullOutputStream());
+            }
+        });
+    }
+
+    /**
+     * Runs the warm-up, unless it already ran in this process, and marks the engine ready.
+     * A failed parse ends the warm-up early; the node still becomes ready.
+     */
+    public void run() {
+        if (!engine.startWarmUp()) {
+            return;
+        }
+        try {
+            if (parse == null) {
+                System.err.println("No warm-up replay set in " + ENV_REPLAY + ", skipping warm-up");
+                return;
+            }
+            long start = System.currentTimeMillis();
+            for (int i = 1; i <= iterations; i++) {
+                long parseStart = System.currentTimeMillis();
+                try {
+                    parse.run();
+                } catch (Exception e) {
+                    System.err.println("Error in warm-up parse: " + e.getMessage());
+                    break;
+                }
+                System.err.format("Warm-up parse %d/%d took %d ms\n", i, iterations, System.currentTimeMillis() - parseStart);
+            }
+            System.err.format("Warm-up finished in %d ms\n", System.currentTimeMillis() - start);
+        } finally {
+            engine.markReady();
+        }
+    }
+
+    /**
+     * Runs the warm-up on a thread of its own.
+     */
+    public void runInBackground() {
+        Thread thread = new Thread(this::run, "replay-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static int readIterations() {
+        String value = System.getenv(ENV_ITERATIONS);
+        if (value == null || value.isBlank()) {
+            return DEFAULT_ITERATIONS;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid " + ENV_ITERATIONS + ": " + value + ", using " + DEFAULT_ITERATIONS);
+            return DEFAULT_ITERATIONS;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package tidebound;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Game time to replay tick mapping of a replay file, built by the first full parse of the
+ * file and stored beside it, so later parses seek to a game time without probing the
+ * replay or guessing around pauses.
+ *
+ * There is an entry every {@link #INTERVAL_SECONDS} of game time, holding the first tick
+ * at which the game time was reached; paused ticks are part of the mapping. The file
+ * records the size and modification time of the replay and is ignored once they change.
+ */
+final class SeekIndex {
+
+    static final String FILE_SUFFIX = ".seekindex";
+    static final int INTERVAL_SECONDS = 30;
+
+    private static final int MAGIC = 0x54425349;
+    private static final int VERSION = 1;
+
+    private final int[] gameTimes;
+    private final int[] ticks;
+    private final int lastGameTime;
+
+    SeekIndex(int[] gameTimes, int[] ticks, int lastGameTime) {
+        this.gameTimes = gameTimes;
+        this.ticks = ticks;
+        this.lastGameTime = lastGameTime;
+    }
+
+    /**
+     * @param gameTime Seconds relative to the game start, like the event time
+     * @return A tick at which the game time was not reached yet, as late as the index
+     *         allows; 0 if the time is before the first entry
+     */
+    int findTick(int gameTime) {
+        int i = Arrays.binarySearch(gameTimes, gameTime);
+        if (i < 0) {
+            // Last entry before the game time
+            i = -i - 2;
+        }
+        return i >= 0 ? ticks[i] : 0;
+    }
+
+    /**
+     * @return Game time of the last tick of the replay
+     */
+    int getLastGameTime() {
+        return lastGameTime;
+    }
+
+    int size() {
+        return gameTimes.length;
+    }
+
+    static File fileFor(File replay) {
+        return new File(replay.getPath() + FILE_SUFFIX);
+    }
+
+    /**
+     * @return The index of the replay, null if there is none or it belongs to another
+     *         version of the file
+     */
+    static SeekIndex read(File replay) {
+        File file = fileFor(replay);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                || in.readLong() != replay.length() || in.readLong() != replay.lastModified()) {
+                return null;
+            }
+            int lastGameTime = in.readInt();
+            int size = in.readInt();
+            int[] gameTimes = new int[size];
+            int[] ticks = new int[size];
+            for (int i = 0; i < size; i++) {
+                gameTimes[i] = in.readInt();
+                ticks[i] = in.readInt();
+            }
+            return new SeekIndex(gameTimes, ticks, lastGameTime);
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException ex) {
+            System.err.println("Ignoring unreadable seek index " + file + ": " + ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stores the index beside the replay, replacing an older one.
+     */
+    void write(File replay) throws IOException {
+        Path target = fileFor(replay).toPath();
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(replay.length());
+                out.writeLong(replay.lastModified());
+                out.writeInt(lastGameTime);
+                out.writeInt(gameTimes.length);
+                for (int i = 0; i < gameTimes.length; i++) {
+                    out.writeInt(gameTimes[i]);
+                    out.writeInt(ticks[i]);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Collects the entries while a replay is parsed from its first to its last tick.
+     */
+    static final class Builder {
+
+        private int[] gameTimes = new int[256];
+        private int[] ticks = new int[256];
+        private int size;
+        private int lastGameTime = Integer.MIN_VALUE;
+
+        /**
+         * Called on every tick once the game start time is known.
+         *
+         * @param gameTime Seconds relative to the game start
+         * @param tick     Replay tick
+         */
+        void record(int gameTime, int tick) {
+            // Only a tick the game time advanced at is known to be the first of its second,
+            // which the first tick after a seek may not be
+            boolean reached = lastGameTime != Integer.MIN_VALUE && gameTime > lastGameTime;
+            if (gameTime > lastGameTime) {
+                lastGameTime = gameTime;
+            }
+            if (reached) {
+                append(gameTime, tick);
+            }
+        }
+
+        /**
+         * Appends the entries of a builder that continued where this one stopped, like the
+         * next segment of a {@link SegmentedParse}. Entries overlapping this one are skipped.
+         */
+        void addAll(Builder other) {
+            for (int i = 0; i < other.size; i++) {
+                append(other.gameTimes[i], other.ticks[i]);
+            }
+            if (other.lastGameTime > lastGameTime) {
+                lastGameTime = other.lastGameTime;
+            }
+        }
+
+        private void append(int gameTime, int tick) {
+            if (size > 0 && gameTime < gameTimes[size - 1] + INTERVAL_SECONDS) {
+                return;
+            }
+            if (size == gameTimes.length) {
+                gameTimes = Arrays.copyOf(gameTimes, size * 2);
+                ticks = Arrays.copyOf(ticks, size * 2);
+            }
+            gameTimes[size] = gameTime;
+            ticks[size] = tick;
+            size++;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        SeekIndex build() {
+            return new SeekIndex(Arrays.copyOf(gameTimes, size), Arrays.copyOf(ticks, size), lastGameTime);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package tidebound;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import tidebound.events.TimeWindow;
+
+/**
+ * Parses a replay file on several threads, each reading one segment of game time.
+ *
+ * Every segment is a parse with a time window that seeks to the full packet before its
+ * start, so the entities come from the restored state. What the parser derives from
+ * changes (ability levels, item timelines, ward lifetimes, the combat log visitors) needs
+ * it to have seen the game for a while, so a segment starts reading
+ * {@link #WARMUP_SECONDS} before its window; the window drops the events of the warm-up.
+ * Player slots are only written by the first segment and the events of the file info
+ * only by the last one, the only segment reading to the end. The outputs are joined in
+ * segment order, which keeps the events in time order. A replay without a
+ * {@link SeekIndex} gets one from the entries collected by the segments.
+ */
+final class SegmentedParse {
+
+    static final String ENV_PARSE_SEGMENTS = "PARSE_SEGMENTS";
+
+    // Game time read before the window of a segment to rebuild the parser state
+    static final int WARMUP_SECONDS = 60;
+    // Shorter segments don't make up for the seek and the warm-up
+    static final int MIN_SEGMENT_SECONDS = 600;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /**
+     * Game time range of one segment and where its parse starts reading.
+     */
+    static final class Segment {
+
+        private final int index;
+        private final TimeWindow window;
+        private final int seekTick;
+        private final SeekIndex.Builder seekIndexBuilder;
+
+        Segment(int index, TimeWindow window, int seekTick, SeekIndex.Builder seekIndexBuilder) {
+            this.index = index;
+            this.window = window;
+            this.seekTick = seekTick;
+            this.seekIndexBuilder = seekIndexBuilder;
+        }
+
+        boolean isFirst() {
+            return index == 0;
+        }
+
+        TimeWindow getWindow() {
+            return window;
+        }
+
+        /**
+         * @return Tick to seek to, 0 to parse from the beginning
+         */
+        int getSeekTick() {
+            return seekTick;
+        }
+
+        /**
+         * @return Collects the seek index entries of the segment, null if the replay has an index
+         */
+        SeekIndex.Builder getSeekIndexBuilder() {
+            return seekIndexBuilder;
+        }
+
+        @Override
+        public String toString() {
+            return "segment " + index + " " + window + " from tick " + seekTick;
+        }
+    }
+
+    private final ParserEngine engine;
+    private final File replay;
+    private final ParseOptions options;
+    private final List<Segment> segments;
+
+    private SegmentedParse(ParserEngine engine, File replay, ParseOptions options, List<Segment> segments) {
+        this.engine = engine;
+        this.replay = replay;
+        this.options = options;
+        this.segments = segments;
+    }
+
+    /**
+     * Parses the replay in segments if {@code PARSE_SEGMENTS} allows more than one, the
+     * replay is long enough and parse slots are free for the extra segments. The caller
+     * holds the slot of the first segment.
+     *
+     * Symbol ids, tail mode and the database need a single parse (ids and the match id
+     * are only known to the parse that saw them), as do replays from before 7.32e, whose
+     * game time can't be mapped to ticks.
+     *
+     * @return true if the replay was parsed, false if it has to be parsed sequentially
+     */
+    static boolean parse(ParserEngine engine, File replay, OutputStream output, ParseOptions options) throws IOException {
+        int maxSegments = readMaxSegments();
+        if (maxSegments < 2 || options.isTail() || options.isSymbols() || engine.isDatabaseEnabled()) {
+            return false;
+        }
+        ReplayTimeline timeline = ReplayTimeline.load(replay);
+        if (timeline == null) {
+            return false;
+        }
+        // Every segment after the first runs on a thread of its own and takes a parse slot
+        int extraSlots = engine.tryAcquireParseSlots(maxSegments - 1);
+        List<Segment> segments = split(options.getWindow(), timeline, 1 + extraSlots);
+        int usedSlots = Math.max(0, segments.size() - 1);
+        engine.releaseParseSlots(extraSlots - usedSlots);
+        if (segments.size() < 2) {
+            return false;
+        }
+        try {
+            new SegmentedParse(engine, replay, options, segments).run(output);
+        } finally {
+            engine.releaseParseSlots(usedSlots);
+        }
+        return true;
+    }
+
+    /**
+     * Splits a time window into segments of at least {@link #MIN_SEGMENT_SECONDS}.
+     *
+     * @return The segments, fewer than two if the window is too short to split
+     */
+    static List<Segment> split(TimeWindow window, ReplayTimeline timeline, int maxSegments) {
+        int from = window.hasStart() ? window.getStart() : 0;
+        int to = window.hasEnd() ? Math.min(window.getEnd(), timeline.getLastGameTime()) : timeline.getLastGameTime();
+        int count = Math.min(maxSegments, (to - from) / MIN_SEGMENT_SECONDS);
+        List<Segment> segments = new ArrayList<>();
+        if (count < 2) {
+            return segments;
+        }
+        int[] starts = new int[count];
+        for (int i = 0; i < count; i++) {
+            starts[i] = from + (int) ((long) (to - from) * i / count);
+        }
+        for (int i = 0; i < count; i++) {
+            // The first and last segment keep the open bounds of the window: the draft, the
+            // pre-game and the file info
+            Integer start = i == 0 ? window.getStart() : Integer.valueOf(starts[i]);
+            Integer end = i == count - 1 ? window.getEnd() : Integer.valueOf(starts[i + 1] - 1);
+            int seekTick = start != null ? timeline.toTick(start - WARMUP_SECONDS) : 0;
+            segments.add(new Segment(i, TimeWindow.of(start, end), seekTick,
+                timeline.isIndexed() ? null : new SeekIndex.Builder()));
+        }
+        return segments;
+    }
+
+    /**
+     * Writes the first segment straight to the output while the others are parsed into
+     * temp files, which are appended once their turn comes.
+     */
+    private void run(OutputStream output) throws IOException {
+        System.err.println("Parsing " + replay + " in " + segments.size() + " segments");
+        ExecutorService executor = Executors.newFixedThreadPool(segments.size() - 1, runnable -> {
+            Thread thread = new Thread(runnable, "replay-segment-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Path> files = new ArrayList<>();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Segment segment : segments.subList(1, segments.size())) {
+                Path file = Files.createTempFile("tidebound-segment-", ".ndjson");
+                files.add(file);
+                futures.add(executor.submit(() -> {
+                    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                        parseSegment(segment, out);
+                    }
+                    return null;
+                }));
+            }
+
+            parseSegment(segments.get(0), output);
+            for (int i = 0; i < futures.size(); i++) {
+                await(futures.get(i));
+                Files.copy(files.get(i), output);
+            }
+            output.flush();
+            if (!options.getWindow().hasEnd()) {
+                writeSeekIndex();
+            }
+        } finally {
+            executor.shutdownNow();
+            for (Path file : files) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ex) {
+                    System.err.println("Error deleting segment output " + file + ": " + ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private void writeSeekIndex() {
+        if (segments.get(0).getSeekIndexBuilder() == null || options.getWindow().hasStart()) {
+            return;
+        }
+        SeekIndex.Builder merged = new SeekIndex.Builder();
+        for (Segment segment : segments) {
+            merged.addAll(segment.getSeekIndexBuilder());
+        }
+        if (merged.isEmpty()) {
+            return;
+        }
+        try {
+            merged.build().write(replay);
+        } catch (IOException ex) {
+            System.err.println("Error writing seek index of " + replay + ": " + ex.getMessage());
+        }
+    }
+
+    private void parseSegment(Segment segment, OutputStream out) throws IOException {
+        new Parse(engine, null, replay, out, options.withWindow(segment.getWindow()), segment);
+    }
+
+    private void await(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing " + replay, ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException("Error parsing a segment of " + replay + ": " + ex.getCause().getMessage(), ex.getCause());
+        }
+    }
+
+    private static int readMaxSegments() {
+        // 1 (default) parses every replay on one thread
+        String value = System.getenv(ENV_PARSE_SEGMENTS);
+        if (value == null || value.isBlank()) {
+            return 1;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid " + ENV_PARSE_SEGMENTS + ": " + value + ", using 1");
+            return 1;
+        }
+    }
+}
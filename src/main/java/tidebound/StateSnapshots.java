@@ -0,0 +1,182 @@
+package tidebound;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import tidebound.events.EventConsumer;
+import tidebound.events.EventField;
+import tidebound.events.EventProjection;
+import tidebound.events.EventRecord;
+import tidebound.events.EventRecordTypeAdapter;
+import tidebound.events.TimeWindow;
+
+/**
+ * State of the game at one moment of a replay file: the interval values, position and
+ * items of every hero and the wards in place.
+ *
+ * A snapshot is taken by a parse that seeks right before the moment (see
+ * {@link ReplayTimeline}) and stops once it is reached, so it costs a few seconds of
+ * replay instead of everything before. The heroes are read by the interval update and
+ * the item timeline of the parse, the wards by the wards extractor, which reports the
+ * wards of the restored state as placed. The parse hands its events over directly,
+ * without NDJSON in between. Recent snapshots are kept in an LRU cache.
+ */
+public final class StateSnapshots {
+
+    public static final String ENV_SNAPSHOT_CACHE_SIZE = "SNAPSHOT_CACHE_SIZE";
+
+    static final int DEFAULT_CACHE_SIZE = 256;
+    // Game time read before the moment, every hero gets an interval and item timeline in it
+    static final int WARMUP_SECONDS = 2;
+
+    private static final EventProjection PROJECTION = EventProjection.of(
+        List.of("interval", "item_timeline", "obs", "sen", "obs_left", "sen_left"), null);
+
+    private final ParserEngine engine;
+    private final Map<String, String> cache;
+
+    public StateSnapshots(ParserEngine engine) {
+        this(engine, readCacheSize());
+    }
+
+    StateSnapshots(ParserEngine engine, int cacheSize) {
+        this.engine = engine;
+        this.cache = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * @param replay   Uncompressed replay file
+     * @param gameTime Seconds relative to the game start, like the event time
+     * @return The snapshot as JSON: {@code time}, {@code players} (the interval event of
+     *         every hero with its {@code items}) and {@code wards} (the placement events
+     *         of the wards in place)
+     */
+    public String getSnapshot(File replay, int gameTime) throws IOException {
+        // A replaced replay gets new snapshots
+        String key = replay.getCanonicalPath() + ":" + replay.length() + ":" + replay.lastModified() + ":" + gameTime;
+        synchronized (cache) {
+            String snapshot = cache.get(key);
+            if (snapshot != null) {
+                return snapshot;
+            }
+        }
+        String snapshot = take(replay, gameTime);
+        synchronized (cache) {
+            cache.put(key, snapshot);
+        }
+        return snapshot;
+    }
+
+    private String take(File replay, int gameTime) throws IOException {
+        ReplayTimeline timeline = ReplayTimeline.load(replay);
+        int seekTick = timeline != null ? timeline.toTick(gameTime - WARMUP_SECONDS) : 0;
+        TimeWindow window = TimeWindow.of(null, gameTime);
+        ParseOptions options = options(window);
+
+        State state = new State();
+        engine.acquireParseSlot();
+        try {
+            new Parse(engine, null, replay, state, options, new SegmentedParse.Segment(0, window, seekTick, null));
+        } finally {
+            engine.releaseParseSlot();
+        }
+        return state.toJson(gameTime);
+    }
+
+    /**
+     * A snapshot parse is served, never stored: it opens no database connection.
+     */
+    static ParseOptions options(TimeWindow window) {
+        return ParseOptions.defaults()
+            .withProjection(PROJECTION)
+            .withItemTimeline(true)
+            .withWindow(window)
+            .withDatabase(false);
+    }
+
+    /**
+     * Keeps the last interval and item timeline of every hero and the wards placed and
+     * not removed until the moment, from the events of the parse in time order.
+     */
+    static final class State implements EventConsumer {
+
+        private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(EventRecord.class, new EventRecordTypeAdapter())
+            .create();
+
+        private final Map<Integer, EventRecord> players = new TreeMap<>();
+        private final Map<Integer, String> items = new TreeMap<>();
+        private final Map<Integer, EventRecord> wards = new LinkedHashMap<>();
+
+        @Override
+        public void accept(EventRecord event) {
+            switch (event.getType()) {
+                case "interval":
+                    players.put(event.getInt(EventField.SLOT), event.copy());
+                    break;
+                case "item_timeline":
+                    items.put(event.getInt(EventField.SLOT), event.getString(EventField.KEY));
+                    break;
+                case "obs":
+                case "sen":
+                    wards.put(event.getInt(EventField.EHANDLE), event.copy());
+                    break;
+                case "obs_left":
+                case "sen_left":
+                    wards.remove(event.getInt(EventField.EHANDLE));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /**
+         * @return The snapshot as JSON, see {@link StateSnapshots#getSnapshot(File, int)}
+         */
+        String toJson(int gameTime) {
+            JsonObject snapshot = new JsonObject();
+            snapshot.addProperty("time", gameTime);
+            JsonArray playerArray = new JsonArray();
+            for (Map.Entry<Integer, EventRecord> player : players.entrySet()) {
+                JsonObject state = GSON.toJsonTree(player.getValue(), EventRecord.class).getAsJsonObject();
+                state.remove("type");
+                state.addProperty("items", items.getOrDefault(player.getKey(), ""));
+                playerArray.add(state);
+            }
+            snapshot.add("players", playerArray);
+            JsonArray wardArray = new JsonArray();
+            for (EventRecord ward : wards.values()) {
+                wardArray.add(GSON.toJsonTree(ward, EventRecord.class));
+            }
+            snapshot.add("wards", wardArray);
+            return snapshot.toString();
+        }
+    }
+
+    private static int readCacheSize() {
+        String value = System.getenv(ENV_SNAPSHOT_CACHE_SIZE);
+        if (value == null || value.isBlank()) {
+            return DEFAULT_CACHE_SIZE;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid " + ENV_SNAPSHOT_CACHE_SIZE + ": " + value + ", using " + DEFAULT_CACHE_SIZE);
+            return DEFAULT_CACHE_SIZE;
+        }
+    }
+}
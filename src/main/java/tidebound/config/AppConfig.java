@@ -2,6 +2,7 @@ package tidebound.config;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import tidebound.ParserEngine;
 import tidebound.S3Service;
 import org.flywaydb.core.Flyway;
 import org.slf4j.Logger;
@@ -22,6 +23,15 @@ public class AppConfig {
         return new S3Service();
     }
 
+    /**
+     * The parser engine of this process, shared with the replay handlers of {@code Main}
+     * when both servers run in one JVM.
+     */
+    @Bean
+    public ParserEngine parserEngine() {
+        return ParserEngine.getInstance();
+    }
+
     /**
      * DataSource bean for Spring Boot auto-configuration.
      * This allows Flyway to automatically run migrations on startup.
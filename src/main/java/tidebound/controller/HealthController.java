@@ -1,15 +1,28 @@
 package tidebound.controller;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
+import tidebound.ParserEngine;
 
 @RestController
 public class HealthController {
 
+    private final ParserEngine parserEngine;
+
+    public HealthController(ParserEngine parserEngine) {
+        this.parserEngine = parserEngine;
+    }
+
+    /**
+     * Reports 503 until the parser is warmed up, see {@link tidebound.ReplayWarmUp}.
+     */
     @GetMapping("/healthz")
     public ResponseEntity<String> health() {
+        if (!parserEngine.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("warming up");
+        }
         return ResponseEntity.ok("ok");
     }
 }
-
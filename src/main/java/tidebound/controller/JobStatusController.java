@@ -53,6 +53,7 @@ public class JobStatusController {
                 .status-RUNNING { color: #1a73e8; }
                 .status-SUCCEEDED { color: #0b8043; }
                 .status-FAILED { color: #c5221f; }
+                .status-ABORTED { color: #e37400; }
                 .empty { margin-top: 1rem; font-style: italic; }
                 </style>
                 </head>
@@ -8,19 +8,34 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
-import tidebound.Parse;
+import tidebound.ParseOptions;
+import tidebound.ParserEngine;
 
 @RestController
 public class ParseController {
 
+    private final ParserEngine parserEngine;
+
+    public ParseController(ParserEngine parserEngine) {
+        this.parserEngine = parserEngine;
+    }
+
     @PostMapping(
             path = "/",
             consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<StreamingResponseBody> parse(HttpServletRequest request) {
+        ParseOptions options;
+        try {
+            // Optional ?types=...&slots=... projection of the output
+            options = ParseOptions.fromParameters(request::getParameter);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().build();
+        }
+
         StreamingResponseBody responseBody = outputStream -> {
             try (InputStream inputStream = request.getInputStream()) {
-                new Parse(inputStream, outputStream);
+                parserEngine.newSession(options).parse(inputStream, outputStream);
             } catch (IOException ex) {
                 throw new RuntimeException("Failed to parse replay", ex);
             }
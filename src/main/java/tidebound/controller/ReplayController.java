@@ -3,7 +3,12 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
+import tidebound.ParseOptions;
+import tidebound.events.EventProjection;
+import tidebound.events.TimeWindow;
+import tidebound.trajectory.TrajectoryFormat;
 import tidebound.service.ReplayJobService;
 import tidebound.service.ReplayJobService.JobStatus;
 import tidebound.service.ReplayJobService.JobType;
@@ -41,9 +46,43 @@ public class ReplayController {
                     "Exactly one of replay_url or file_path must be provided.");
         }
 
-        ReplayJobSnapshot snapshot = hasReplayUrl
-                ? replayJobService.submitRemoteJob(request.replayUrl())
-                : replayJobService.submitLocalJob(request.filePath());
+        ReplayJobSnapshot snapshot;
+        if (Boolean.TRUE.equals(request.metadataOnly())) {
+            // The file info packet can only be located in a local, uncompressed replay
+            if (!hasFilePath || request.hasParseOptions()) {
+                throw new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST,
+                        "metadata_only needs file_path and no parse options.");
+            }
+            snapshot = replayJobService.submitMetadataJob(request.filePath());
+        } else if (Boolean.TRUE.equals(request.tail()) && !hasFilePath) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "tail needs file_path.");
+        } else if (!request.hasParseOptions()) {
+            snapshot = hasReplayUrl
+                    ? replayJobService.submitRemoteJob(request.replayUrl())
+                    : replayJobService.submitLocalJob(request.filePath());
+        } else {
+            ParseOptions options;
+            try {
+                options = ParseOptions.defaults()
+                        .withProjection(EventProjection.of(request.eventTypes(), request.playerSlots()))
+                        .withTrajectory(
+                                TrajectoryFormat.parse(request.trajectory()),
+                                request.trajectoryTolerance() != null
+                                        ? request.trajectoryTolerance()
+                                        : ParseOptions.DEFAULT_TRAJECTORY_TOLERANCE)
+                        .withItemTimeline(Boolean.TRUE.equals(request.itemTimeline()))
+                        .withWindow(TimeWindow.of(request.startTime(), request.endTime()))
+                        .withTail(Boolean.TRUE.equals(request.tail()));
+            } catch (IllegalArgumentException ex) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+            }
+            snapshot = hasReplayUrl
+                    ? replayJobService.submitRemoteJob(request.replayUrl(), options)
+                    : replayJobService.submitLocalJob(request.filePath(), options);
+        }
 
         return ResponseEntity
                 .accepted()
@@ -61,7 +100,21 @@ public class ReplayController {
 
     public record ReplayJobRequest(
             @JsonProperty("replay_url") String replayUrl,
-            @JsonProperty("file_path") String filePath) {
+            @JsonProperty("file_path") String filePath,
+            @JsonProperty("event_types") List<String> eventTypes,
+            @JsonProperty("player_slots") List<Integer> playerSlots,
+            @JsonProperty("trajectory") String trajectory,
+            @JsonProperty("trajectory_tolerance") Float trajectoryTolerance,
+            @JsonProperty("item_timeline") Boolean itemTimeline,
+            @JsonProperty("start_time") Integer startTime,
+            @JsonProperty("end_time") Integer endTime,
+            @JsonProperty("metadata_only") Boolean metadataOnly,
+            @JsonProperty("tail") Boolean tail) {
+
+        boolean hasParseOptions() {
+            return eventTypes != null || playerSlots != null || trajectory != null
+                    || itemTimeline != null || startTime != null || endTime != null || tail != null;
+        }
     }
 
     @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -1,10 +1,12 @@
 package tidebound.database;
 
-import tidebound.Parse;
+import tidebound.events.EventField;
+import tidebound.events.EventRecord;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.Date;
 
 public class GameEventDAO {
@@ -13,6 +15,7 @@ public class GameEventDAO {
     
     private Connection connection;
     private Long matchId;
+    private final boolean rollback;
     
     // Prepared statements for each event type
     private PreparedStatement combatLogStmt;
@@ -34,10 +37,24 @@ public class GameEventDAO {
     private PreparedStatement startingItemStmt;
     private PreparedStatement gamePausedStmt;
     private PreparedStatement wardStmt;
+    private PreparedStatement trajectoryStmt;
+    private PreparedStatement itemTimelineStmt;
     
     public GameEventDAO(Long matchId) throws SQLException {
+        this(matchId, false);
+    }
+
+    /**
+     * @param rollback true to insert the events in a transaction that is rolled back on
+     *                 {@link #close()}, so nothing is stored
+     */
+    public GameEventDAO(Long matchId, boolean rollback) throws SQLException {
         this.matchId = matchId;
+        this.rollback = rollback;
         this.connection = DatabaseConfig.getConnection();
+        if (rollback) {
+            connection.setAutoCommit(false);
+        }
         initializePreparedStatements();
     }
     
@@ -166,21 +183,34 @@ public class GameEventDAO {
             "attackername, created_at) " +
             "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         wardStmt = connection.prepareStatement(wardSql);
+        
+        // Trajectory events
+        String trajectorySql =
+            "INSERT INTO " + qualifiedTable("trajectory_events") + " (match_id, time, slot, unit, point_count, format, data, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        trajectoryStmt = connection.prepareStatement(trajectorySql);
+        
+        // Item timeline events
+        String itemTimelineSql =
+            "INSERT INTO " + qualifiedTable("item_timeline_events") + " (match_id, time, slot, targetname, items, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+        itemTimelineStmt = connection.prepareStatement(itemTimelineSql);
     }
     
-    public void insertEvent(Parse.Entry entry) throws SQLException {
-        if (entry.type == null) {
+    public void insertEvent(EventRecord entry) throws SQLException {
+        String type = entry.getType();
+        if (type == null) {
             return;
         }
         
         Timestamp timestamp = new Timestamp(new Date().getTime());
-        int time = entry.time != null ? entry.time : 0;
+        int time = entry.getTime();
         
         // Route to appropriate table based on event type
-        if (entry.type.startsWith("DOTA_COMBATLOG_")) {
+        if (type.startsWith("DOTA_COMBATLOG_")) {
             insertCombatLogEvent(entry, timestamp, time);
         } else {
-            switch (entry.type) {
+            switch (type) {
                 case "actions":
                     insertActionEvent(entry, timestamp, time);
                     break;
@@ -235,13 +265,19 @@ public class GameEventDAO {
                 case "sen_left":
                     insertWardEvent(entry, timestamp, time);
                     break;
+                case "trajectory":
+                    insertTrajectoryEvent(entry, timestamp, time);
+                    break;
+                case "item_timeline":
+                    insertItemTimelineEvent(entry, timestamp, time);
+                    break;
                 default:
                     // Handle chat event types that are numeric strings
-                    if (isNumericChatType(entry.type)) {
+                    if (isNumericChatType(type)) {
                         insertChatTypeEvent(entry, timestamp, time);
                     }
                     // Unknown event type - log and skip
-                    System.err.println("Unknown event type: " + entry.type);
+                    System.err.println("Unknown event type: " + type);
                     break;
             }
         }
@@ -260,240 +296,290 @@ public class GameEventDAO {
         return RAW_SCHEMA + "." + tableName;
     }
     
-    private void insertCombatLogEvent(Parse.Entry entry, Timestamp timestamp, int time) throws SQLException {
+    private static void setNullableInt(PreparedStatement stmt, int index, EventRecord entry, EventField field) throws SQLException {
+        if (entry.has(field)) {
+            stmt.setInt(index, entry.getInt(field));
+        } else {
+            stmt.setNull(index, Types.INTEGER);
+        }
+    }
+    
+    private static void setNullableFloat(PreparedStatement stmt, int index, EventRecord entry, EventField field) throws SQLException {
+        if (entry.has(field)) {
+            stmt.setFloat(index, entry.getFloat(field));
+        } else {
+            stmt.setNull(index, Types.REAL);
+        }
+    }
+    
+    private static void setNullableBoolean(PreparedStatement stmt, int index, EventRecord entry, EventField field) throws SQLException {
+        if (entry.has(field)) {
+            stmt.setBoolean(index, entry.getBoolean(field));
+        } else {
+            stmt.setNull(index, Types.BOOLEAN);
+        }
+    }
+    
+    private void insertCombatLogEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
         combatLogStmt.setLong(1, matchId);
         combatLogStmt.setInt(2, time);
-        combatLogStmt.setString(3, entry.type);
-        combatLogStmt.setString(4, entry.attackername);
-        combatLogStmt.setString(5, entry.targetname);
-        combatLogStmt.setString(6, entry.sourcename);
-        combatLogStmt.setString(7, entry.targetsourcename);
-        combatLogStmt.setObject(8, entry.attackerhero);
-        combatLogStmt.setObject(9, entry.targethero);
-        combatLogStmt.setObject(10, entry.attackerillusion);
-        combatLogStmt.setObject(11, entry.targetillusion);
-        combatLogStmt.setString(12, entry.inflictor);
-        combatLogStmt.setObject(13, entry.value);
-        combatLogStmt.setString(14, entry.valuename);
-        combatLogStmt.setObject(15, entry.gold_reason);
-        combatLogStmt.setObject(16, entry.xp_reason);
-        combatLogStmt.setObject(17, entry.stun_duration);
-        combatLogStmt.setObject(18, entry.slow_duration);
-        combatLogStmt.setObject(19, entry.greevils_greed_stack);
-        combatLogStmt.setObject(20, entry.tracked_death);
-        combatLogStmt.setString(21, entry.tracked_sourcename);
+        combatLogStmt.setString(3, entry.getType());
+        combatLogStmt.setString(4, entry.getString(EventField.ATTACKERNAME));
+        combatLogStmt.setString(5, entry.getString(EventField.TARGETNAME));
+        combatLogStmt.setString(6, entry.getString(EventField.SOURCENAME));
+        combatLogStmt.setString(7, entry.getString(EventField.TARGETSOURCENAME));
+        setNullableBoolean(combatLogStmt, 8, entry, EventField.ATTACKERHERO);
+        setNullableBoolean(combatLogStmt, 9, entry, EventField.TARGETHERO);
+        setNullableBoolean(combatLogStmt, 10, entry, EventField.ATTACKERILLUSION);
+        setNullableBoolean(combatLogStmt, 11, entry, EventField.TARGETILLUSION);
+        combatLogStmt.setString(12, entry.getString(EventField.INFLICTOR));
+        setNullableInt(combatLogStmt, 13, entry, EventField.VALUE);
+        combatLogStmt.setString(14, entry.getString(EventField.VALUENAME));
+        setNullableInt(combatLogStmt, 15, entry, EventField.GOLD_REASON);
+        setNullableInt(combatLogStmt, 16, entry, EventField.XP_REASON);
+        setNullableFloat(combatLogStmt, 17, entry, EventField.STUN_DURATION);
+        setNullableFloat(combatLogStmt, 18, entry, EventField.SLOW_DURATION);
+        setNullableInt(combatLogStmt, 19, entry, EventField.GREEVILS_GREED_STACK);
+        setNullableBoolean(combatLogStmt, 20, entry, EventField.TRACKED_DEATH);
+        combatLogStmt.setString(21, entry.getString(EventField.TRACKED_SOURCENAME));
         combatLogStmt.setTimestamp(22, timestamp);
         combatLogStmt.addBatch();
     }
     
-    private void insertActionEvent(Parse.Entry entry, Timestamp timestamp, int time) throws SQLException {
+    private void insertActionEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
         actionStmt.setLong(1, matchId);
         actionStmt.setInt(2, time);
-        actionStmt.setObject(3, entry.slot);
-        actionStmt.setString(4, entry.key);
+        setNullableInt(actionStmt, 3, entry, EventField.SLOT);
+        actionStmt.setString(4, entry.getString(EventField.KEY));
         actionStmt.setTimestamp(5, timestamp);
         actionStmt.addBatch();
     }
     
-    private void insertPingEvent(Parse.Entry entry, Timestamp timestamp, int time) throws SQLException {
+    private void insertPingEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
         pingStmt.setLong(1, matchId);
         pingStmt.setInt(2, time);
-        pingStmt.setObject(3, entry.slot);
+        setNullableInt(pingStmt, 3, entry, EventField.SLOT);
         pingStmt.setTimestamp(4, timestamp);
         pingStmt.addBatch();
     }
     
-    private void insertChatTypeEvent(Parse.Entry entry, Timestamp timestamp, int time) throws SQLException {
+    private void insertChatTypeEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
         chatTypeStmt.setLong(1, matchId);
         chatTypeStmt.setInt(2, time);
-        chatTypeStmt.setString(3, entry.type);
-        chatTypeStmt.setObject(4, entry.player1);
-        chatTypeStmt.setObject(5, entry.player2);
-        chatTypeStmt.setObject(6, entry.value);
+        chatTypeStmt.setString(3, entry.getType());
+        setNullableInt(chatTypeStmt, 4, entry, EventField.PLAYER1);
+        setNullableInt(chatTypeStmt, 5, entry, EventField.PLAYER2);
+        setNullableInt(chatTypeStmt, 6, entry, EventField.VALUE);
         chatTypeStmt.setTimestamp(7, timestamp);
         chatTypeStmt.addBatch();
     }
     
-    private void insertChatEvent(Parse.Entry entry, Timestamp timestamp, int time) throws SQLException {
+    private void insertChatEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
         chatStmt.setLong(1, matchId);
         chatStmt.setInt(2, time);
-        chatStmt.setObject(3, entry.slot);
-        chatStmt.setString(4, entry.unit);
-        chatStmt.setString(5, entry.key);
+        setNullableInt(chatStmt, 3, entry, EventField.SLOT);
+        chatStmt.setString(4, entry.getString(EventField.UNIT));
+        chatStmt.setString(5, entry.getString(EventField.KEY));
         chatStmt.setTimestamp(6, timestamp);
         chatStmt.addBatch();
     }
     
-    private void insertChatwheelEvent(Parse.Entry entry, Timestamp timestamp, int time) throws SQLException {
+    private void insertChatwheelEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
         chatwheelStmt.setLong(1, matchId);
         chatwheelStmt.setInt(2, time);
-        chatwheelStmt.setObject(3, entry.slot);
-        chatwheelStmt.setString(4, entry.key);
+        setNullableInt(chatwheelStmt, 3, entry, EventField.SLOT);
+        chatwheelStmt.setString(4, entry.getString(EventField.KEY));
         chatwheelStmt.setTimestamp(5, timestamp);
         chatwheelStmt.addBatch();
     }
     
-    private void insertCosmeticsEvent(Parse.Entry entry, Timestamp timestamp, int time) throws SQLException {
+    private void insertCosmeticsEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
         cosmeticsStmt.setLong(1, matchId);
         cosmeticsStmt.setInt(2, time);
-        cosmeticsStmt.setString(3, entry.key);
+        cosmeticsStmt.setString(3, entry.getString(EventField.KEY));
         cosmeticsStmt.setTimestamp(4, timestamp);
         cosmeticsStmt.addBatch();
     }
     
-    private void insertDotaplusEvent(Parse.Entry entry, Timestamp timestamp, int time) throws SQLException {
+    private void insertDotaplusEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
         dotaplusStmt.setLong(1, matchId);
         dotaplusStmt.setInt(2, time);
-        dotaplusStmt.setString(3, entry.key);
+        dotaplusStmt.setString(3, entry.getString(EventField.KEY));
         dotaplusStmt.setTimestamp(4, timestamp);
         dotaplusStmt.addBatch();
     }
     
-    private void insertEpilogueEvent(Parse.Entry entry, Timestamp timestamp, int time) throws SQLException {
+    private void insertEpilogueEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
         epilogueStmt.setLong(1, matchId);
         epilogueStmt.setInt(2, time);
-        epilogueStmt.setString(3, entry.key);
+        epilogueStmt.setString(3, entry.getString(EventField.KEY));
         epilogueStmt.setTimestamp(4, timestamp);
         epilogueStmt.addBatch();
     }
     
-    private void insertNeutralTokenEvent(Parse.Entry entry, Timestamp timestamp, int time) throws SQLException {
+    private void insertNeutralTokenEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
         neutralTokenStmt.setLong(1, matchId);
         neutralTokenStmt.setInt(2, time);
-        neutralTokenStmt.setObject(3, entry.slot);
-        neutralTokenStmt.setString(4, entry.key);
+        setNullableInt(neutralTokenStmt, 3, entry, EventField.SLOT);
+        neutralTokenStmt.setString(4, entry.getString(EventField.KEY));
         neutralTokenStmt.setTimestamp(5, timestamp);
         neutralTokenStmt.addBatch();
     }
     
-    private void insertNeutralItemHistoryEvent(Parse.Entry entry, Timestamp timestamp, int time) throws SQLException {
+    private void insertNeutralItemHistoryEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
         neutralItemHistoryStmt.setLong(1, matchId);
         neutralItemHistoryStmt.setInt(2, time);
-        neutralItemHistoryStmt.setObject(3, entry.slot);
-        neutralItemHistoryStmt.setString(4, entry.key);
-        neutralItemHistoryStmt.setObject(5, entry.isNeutralActiveDrop);
-        neutralItemHistoryStmt.setObject(6, entry.isNeutralPassiveDrop);
+        setNullableInt(neutralItemHistoryStmt, 3, entry, EventField.SLOT);
+        neutralItemHistoryStmt.setString(4, entry.getString(EventField.KEY));
+        setNullableBoolean(neutralItemHistoryStmt, 5, entry, EventField.IS_NEUTRAL_ACTIVE_DROP);
+        setNullableBoolean(neutralItemHistoryStmt, 6, entry, EventField.IS_NEUTRAL_PASSIVE_DROP);
         neutralItemHistoryStmt.setTimestamp(7, timestamp);
         neutralItemHistoryStmt.addBatch();
     }
     
-    private void insertPlayerSlotEvent(Parse.Entry entry, Timestamp timestamp, int time) throws SQLException {
+    private void insertPlayerSlotEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
         playerSlotStmt.setLong(1, matchId);
         playerSlotStmt.setInt(2, time);
-        playerSlotStmt.setString(3, entry.key);
-        playerSlotStmt.setObject(4, entry.value);
+        playerSlotStmt.setString(3, entry.getString(EventField.KEY));
+        setNullableInt(playerSlotStmt, 4, entry, EventField.VALUE);
         playerSlotStmt.setTimestamp(5, timestamp);
         playerSlotStmt.addBatch();
     }
     
-    private void insertDraftStartEvent(Parse.Entry entry, Timestamp timestamp, int time) throws SQLException {
+    private void insertDraftStartEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
         draftStartStmt.setLong(1, matchId);
         draftStartStmt.setInt(2, time);
         draftStartStmt.setTimestamp(3, timestamp);
         draftStartStmt.addBatch();
     }
     
-    private void insertDraftTimingEvent(Parse.Entry entry, Timestamp timestamp, int time) throws SQLException {
+    private void insertDraftTimingEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
         draftTimingStmt.setLong(1, matchId);
         draftTimingStmt.setInt(2, time);
-        draftTimingStmt.setObject(3, entry.draft_order);
-        draftTimingStmt.setObject(4, entry.pick);
-        draftTimingStmt.setObject(5, entry.hero_id);
-        draftTimingStmt.setObject(6, entry.draft_active_team);
-        draftTimingStmt.setObject(7, entry.draft_extime0);
-        draftTimingStmt.setObject(8, entry.draft_extime1);
+        setNullableInt(draftTimingStmt, 3, entry, EventField.DRAFT_ORDER);
+        setNullableBoolean(draftTimingStmt, 4, entry, EventField.PICK);
+        setNullableInt(draftTimingStmt, 5, entry, EventField.HERO_ID);
+        setNullableInt(draftTimingStmt, 6, entry, EventField.DRAFT_ACTIVE_TEAM);
+        setNullableInt(draftTimingStmt, 7, entry, EventField.DRAFT_EXTIME0);
+        setNullableInt(draftTimingStmt, 8, entry, EventField.DRAFT_EXTIME1);
         draftTimingStmt.setTimestamp(9, timestamp);
         draftTimingStmt.addBatch();
     }
     
-    private void insertIntervalEvent(Parse.Entry entry, Timestamp timestamp, int time) throws SQLException {
+    private void insertIntervalEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
         intervalStmt.setLong(1, matchId);
         intervalStmt.setInt(2, time);
-        intervalStmt.setObject(3, entry.slot);
-        intervalStmt.setString(4, entry.unit);
+        setNullableInt(intervalStmt, 3, entry, EventField.SLOT);
+        intervalStmt.setString(4, entry.getString(EventField.UNIT));
         // hero_id in interval_events needs to be divided by 2 to get the correct hero_id
-        intervalStmt.setObject(5, entry.hero_id != null ? entry.hero_id / 2 : null);
-        intervalStmt.setObject(6, entry.variant);
-        intervalStmt.setObject(7, entry.facet_hero_id);
-        intervalStmt.setObject(8, entry.level);
-        intervalStmt.setObject(9, entry.x);
-        intervalStmt.setObject(10, entry.y);
-        intervalStmt.setObject(11, entry.life_state);
-        intervalStmt.setObject(12, entry.gold);
-        intervalStmt.setObject(13, entry.lh);
-        intervalStmt.setObject(14, entry.xp);
-        intervalStmt.setObject(15, entry.stuns);
-        intervalStmt.setObject(16, entry.kills);
-        intervalStmt.setObject(17, entry.deaths);
-        intervalStmt.setObject(18, entry.assists);
-        intervalStmt.setObject(19, entry.denies);
-        intervalStmt.setObject(20, entry.obs_placed);
-        intervalStmt.setObject(21, entry.sen_placed);
-        intervalStmt.setObject(22, entry.creeps_stacked);
-        intervalStmt.setObject(23, entry.camps_stacked);
-        intervalStmt.setObject(24, entry.rune_pickups);
-        intervalStmt.setObject(25, entry.towers_killed);
-        intervalStmt.setObject(26, entry.roshans_killed);
-        intervalStmt.setObject(27, entry.observers_placed);
-        intervalStmt.setObject(28, entry.networth);
-        intervalStmt.setObject(29, entry.repicked);
-        intervalStmt.setObject(30, entry.randomed);
-        intervalStmt.setObject(31, entry.pred_vict);
-        intervalStmt.setObject(32, entry.firstblood_claimed);
-        intervalStmt.setObject(33, entry.teamfight_participation);
-        intervalStmt.setObject(34, entry.stage);
+        if (entry.has(EventField.HERO_ID)) {
+            intervalStmt.setInt(5, entry.getInt(EventField.HERO_ID) / 2);
+        } else {
+            intervalStmt.setNull(5, Types.INTEGER);
+        }
+        setNullableInt(intervalStmt, 6, entry, EventField.VARIANT);
+        setNullableInt(intervalStmt, 7, entry, EventField.FACET_HERO_ID);
+        setNullableInt(intervalStmt, 8, entry, EventField.LEVEL);
+        setNullableFloat(intervalStmt, 9, entry, EventField.X);
+        setNullableFloat(intervalStmt, 10, entry, EventField.Y);
+        setNullableInt(intervalStmt, 11, entry, EventField.LIFE_STATE);
+        setNullableInt(intervalStmt, 12, entry, EventField.GOLD);
+        setNullableInt(intervalStmt, 13, entry, EventField.LH);
+        setNullableInt(intervalStmt, 14, entry, EventField.XP);
+        setNullableFloat(intervalStmt, 15, entry, EventField.STUNS);
+        setNullableInt(intervalStmt, 16, entry, EventField.KILLS);
+        setNullableInt(intervalStmt, 17, entry, EventField.DEATHS);
+        setNullableInt(intervalStmt, 18, entry, EventField.ASSISTS);
+        setNullableInt(intervalStmt, 19, entry, EventField.DENIES);
+        setNullableInt(intervalStmt, 20, entry, EventField.OBS_PLACED);
+        setNullableInt(intervalStmt, 21, entry, EventField.SEN_PLACED);
+        setNullableInt(intervalStmt, 22, entry, EventField.CREEPS_STACKED);
+        setNullableInt(intervalStmt, 23, entry, EventField.CAMPS_STACKED);
+        setNullableInt(intervalStmt, 24, entry, EventField.RUNE_PICKUPS);
+        setNullableInt(intervalStmt, 25, entry, EventField.TOWERS_KILLED);
+        setNullableInt(intervalStmt, 26, entry, EventField.ROSHANS_KILLED);
+        setNullableInt(intervalStmt, 27, entry, EventField.OBSERVERS_PLACED);
+        setNullableInt(intervalStmt, 28, entry, EventField.NETWORTH);
+        setNullableBoolean(intervalStmt, 29, entry, EventField.REPICKED);
+        setNullableBoolean(intervalStmt, 30, entry, EventField.RANDOMED);
+        setNullableBoolean(intervalStmt, 31, entry, EventField.PRED_VICT);
+        setNullableInt(intervalStmt, 32, entry, EventField.FIRSTBLOOD_CLAIMED);
+        setNullableFloat(intervalStmt, 33, entry, EventField.TEAMFIGHT_PARTICIPATION);
+        setNullableInt(intervalStmt, 34, entry, EventField.STAGE);
         intervalStmt.setTimestamp(35, timestamp);
         intervalStmt.addBatch();
     }
     
-    private void insertAbilityLevelEvent(Parse.Entry entry, Timestamp timestamp, int time) throws SQLException {
+    private void insertAbilityLevelEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
         abilityLevelStmt.setLong(1, matchId);
         abilityLevelStmt.setInt(2, time);
-        abilityLevelStmt.setString(3, entry.targetname);
-        abilityLevelStmt.setString(4, entry.valuename);
-        abilityLevelStmt.setObject(5, entry.abilitylevel);
+        abilityLevelStmt.setString(3, entry.getString(EventField.TARGETNAME));
+        abilityLevelStmt.setString(4, entry.getString(EventField.VALUENAME));
+        setNullableInt(abilityLevelStmt, 5, entry, EventField.ABILITYLEVEL);
         abilityLevelStmt.setTimestamp(6, timestamp);
         abilityLevelStmt.addBatch();
     }
     
-    private void insertStartingItemEvent(Parse.Entry entry, Timestamp timestamp, int time) throws SQLException {
+    private void insertStartingItemEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
         startingItemStmt.setLong(1, matchId);
         startingItemStmt.setInt(2, time);
-        startingItemStmt.setObject(3, entry.slot);
-        startingItemStmt.setString(4, entry.targetname);
-        startingItemStmt.setString(5, entry.valuename);
-        startingItemStmt.setObject(6, entry.value);
-        startingItemStmt.setObject(7, entry.itemslot);
-        startingItemStmt.setObject(8, entry.charges);
-        startingItemStmt.setObject(9, entry.secondary_charges);
+        setNullableInt(startingItemStmt, 3, entry, EventField.SLOT);
+        startingItemStmt.setString(4, entry.getString(EventField.TARGETNAME));
+        startingItemStmt.setString(5, entry.getString(EventField.VALUENAME));
+        setNullableInt(startingItemStmt, 6, entry, EventField.VALUE);
+        setNullableInt(startingItemStmt, 7, entry, EventField.ITEMSLOT);
+        setNullableInt(startingItemStmt, 8, entry, EventField.CHARGES);
+        setNullableInt(startingItemStmt, 9, entry, EventField.SECONDARY_CHARGES);
         startingItemStmt.setTimestamp(10, timestamp);
         startingItemStmt.addBatch();
     }
     
-    private void insertGamePausedEvent(Parse.Entry entry, Timestamp timestamp, int time) throws SQLException {
+    private void insertGamePausedEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
         gamePausedStmt.setLong(1, matchId);
         gamePausedStmt.setInt(2, time);
-        gamePausedStmt.setString(3, entry.key);
-        gamePausedStmt.setObject(4, entry.value);
+        gamePausedStmt.setString(3, entry.getString(EventField.KEY));
+        setNullableInt(gamePausedStmt, 4, entry, EventField.VALUE);
         gamePausedStmt.setTimestamp(5, timestamp);
         gamePausedStmt.addBatch();
     }
     
-    private void insertWardEvent(Parse.Entry entry, Timestamp timestamp, int time) throws SQLException {
+    private void insertWardEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
         wardStmt.setLong(1, matchId);
         wardStmt.setInt(2, time);
-        wardStmt.setString(3, entry.type);
-        wardStmt.setObject(4, entry.slot);
-        wardStmt.setObject(5, entry.x);
-        wardStmt.setObject(6, entry.y);
-        wardStmt.setObject(7, entry.z);
-        wardStmt.setObject(8, entry.entityleft);
-        wardStmt.setObject(9, entry.ehandle);
-        wardStmt.setString(10, entry.attackername);
+        wardStmt.setString(3, entry.getType());
+        setNullableInt(wardStmt, 4, entry, EventField.SLOT);
+        setNullableFloat(wardStmt, 5, entry, EventField.X);
+        setNullableFloat(wardStmt, 6, entry, EventField.Y);
+        setNullableFloat(wardStmt, 7, entry, EventField.Z);
+        setNullableBoolean(wardStmt, 8, entry, EventField.ENTITYLEFT);
+        setNullableInt(wardStmt, 9, entry, EventField.EHANDLE);
+        wardStmt.setString(10, entry.getString(EventField.ATTACKERNAME));
         wardStmt.setTimestamp(11, timestamp);
         wardStmt.addBatch();
     }
     
+    private void insertTrajectoryEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
+        trajectoryStmt.setLong(1, matchId);
+        trajectoryStmt.setInt(2, time);
+        setNullableInt(trajectoryStmt, 3, entry, EventField.SLOT);
+        trajectoryStmt.setString(4, entry.getString(EventField.UNIT));
+        setNullableInt(trajectoryStmt, 5, entry, EventField.VALUE);
+        trajectoryStmt.setString(6, entry.getString(EventField.FORMAT));
+        trajectoryStmt.setString(7, entry.getString(EventField.KEY));
+        trajectoryStmt.setTimestamp(8, timestamp);
+        trajectoryStmt.addBatch();
+    }
+    
+    private void insertItemTimelineEvent(EventRecord entry, Timestamp timestamp, int time) throws SQLException {
+        itemTimelineStmt.setLong(1, matchId);
+        itemTimelineStmt.setInt(2, time);
+        setNullableInt(itemTimelineStmt, 3, entry, EventField.SLOT);
+        itemTimelineStmt.setString(4, entry.getString(EventField.TARGETNAME));
+        itemTimelineStmt.setString(5, entry.getString(EventField.KEY));
+        itemTimelineStmt.setTimestamp(6, timestamp);
+        itemTimelineStmt.addBatch();
+    }
+    
     public void executeBatch() throws SQLException {
         // Execute all batches
         combatLogStmt.executeBatch();
@@ -515,6 +601,8 @@ public class GameEventDAO {
         startingItemStmt.executeBatch();
         gamePausedStmt.executeBatch();
         wardStmt.executeBatch();
+        trajectoryStmt.executeBatch();
+        itemTimelineStmt.executeBatch();
     }
     
     public void close() throws SQLException {
@@ -538,8 +626,14 @@ public class GameEventDAO {
         if (startingItemStmt != null) startingItemStmt.close();
         if (gamePausedStmt != null) gamePausedStmt.close();
         if (wardStmt != null) wardStmt.close();
+        if (trajectoryStmt != null) trajectoryStmt.close();
+        if (itemTimelineStmt != null) itemTimelineStmt.close();
         
         if (connection != null) {
+            if (rollback) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
             connection.close();
         }
     }
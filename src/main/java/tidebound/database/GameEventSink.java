@@ -0,0 +1,153 @@
+package tidebound.database;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.SQLException;
+
+import tidebound.events.EventRecord;
+import tidebound.events.EventRecordPool;
+import tidebound.events.EventSpool;
+
+/**
+ * Stores the events of a parse in game_events, in batches.
+ *
+ * The match id is only known once the file info at the end of a replay was read, so
+ * events are held back (spilling to disk) until then. The match id can be set from any
+ * thread; the events must all be passed from the same thread, the parse or its
+ * {@link tidebound.events.EventPipeline} stage.
+ */
+public class GameEventSink implements Closeable {
+
+    private final EventRecordPool recordPool = new EventRecordPool();
+    // Events before the match id is known
+    private final EventSpool pendingEvents;
+    private final int batchSize;
+    private final boolean rollback;
+    private volatile Long matchId;
+    private GameEventDAO gameEventDAO;
+    private int currentBatchSize = 0;
+
+    /**
+     * @param memoryEvents Pending events kept in memory before the rest is spilled to a temp file
+     * @param batchSize    Events per executed batch
+     */
+    public GameEventSink(int memoryEvents, int batchSize) {
+        this(memoryEvents, batchSize, false);
+    }
+
+    /**
+     * @param rollback true to roll back the stored events when finished, see
+     *                 {@link GameEventDAO#GameEventDAO(Long, boolean)}
+     */
+    public GameEventSink(int memoryEvents, int batchSize, boolean rollback) {
+        this.pendingEvents = new EventSpool(memoryEvents);
+        this.batchSize = batchSize;
+        this.rollback = rollback;
+    }
+
+    public void setMatchId(long matchId) {
+        this.matchId = matchId;
+    }
+
+    /**
+     * Adds an event to the batch, or holds it back while the match id is unknown. Errors
+     * are logged; the event is kept to be retried with the next one.
+     *
+     * @param entry The event, not retained after the call
+     */
+    public void accept(EventRecord entry) {
+        try {
+            if (matchId == null) {
+                addPendingEvent(entry);
+                return;
+            }
+            flushPendingEvents();
+            insertEvent(entry);
+        } catch (Exception ex) {
+            System.err.println("Error saving event to database: " + ex.getMessage());
+            addPendingEvent(entry);
+        }
+    }
+
+    /**
+     * Writes the held back events if the match id is known now and executes the last batch.
+     */
+    public void finish() throws SQLException {
+        if (matchId != null) {
+            flushPendingEvents();
+        }
+        if (!pendingEvents.isEmpty()) {
+            System.err.println(String.format(
+                "Unable to persist %d buffered events because no match ID was determined.",
+                pendingEvents.size()
+            ));
+        }
+        if (gameEventDAO != null) {
+            gameEventDAO.executeBatch();
+            gameEventDAO.close();
+            gameEventDAO = null;
+        }
+    }
+
+    /**
+     * @return Number of held back events kept in memory
+     */
+    public int getMemoryEvents() {
+        return pendingEvents.memorySize();
+    }
+
+    /**
+     * Moves the held back events kept in memory to disk, see {@link EventSpool#spillMemory}.
+     */
+    public void spillMemory() throws IOException {
+        pendingEvents.spillMemory(recordPool);
+    }
+
+    /**
+     * Deletes the spill file of events that could not be stored.
+     */
+    @Override
+    public void close() throws IOException {
+        pendingEvents.close();
+    }
+
+    private void insertEvent(EventRecord entry) throws SQLException {
+        if (gameEventDAO == null) {
+            gameEventDAO = new GameEventDAO(matchId, rollback);
+        }
+        gameEventDAO.insertEvent(entry);
+        currentBatchSize++;
+        if (currentBatchSize >= batchSize) {
+            gameEventDAO.executeBatch();
+            currentBatchSize = 0;
+        }
+    }
+
+    private void flushPendingEvents() throws SQLException {
+        if (pendingEvents.isEmpty()) {
+            return;
+        }
+        try {
+            pendingEvents.drain(recordPool, pendingEvent -> {
+                insertEvent(pendingEvent);
+                // Parameters are copied into the batch, so the record can be reused
+                recordPool.release(pendingEvent);
+            });
+        } catch (IOException ex) {
+            throw new SQLException("Error reading buffered database events", ex);
+        }
+    }
+
+    private void addPendingEvent(EventRecord entry) {
+        EventRecord copy = recordPool.acquire(entry.getTime());
+        copy.copyFrom(entry);
+        try {
+            if (!pendingEvents.add(copy)) {
+                recordPool.release(copy);
+            }
+        } catch (IOException ex) {
+            System.err.println("Error buffering database event: " + ex.getMessage());
+            recordPool.release(copy);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package tidebound.entities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import skadistats.clarity.model.DTClass;
+import skadistats.clarity.model.Entity;
+
+/**
+ * Allowlist of the entity classes a parse reads, so entity handlers can return early for
+ * every other class (creeps, particles, modifiers...) after one array lookup. It does not
+ * keep Clarity from decoding those entities, only our handlers skip them.
+ *
+ * Classes are matched by DtClass name, exactly ({@code CDOTA_PlayerResource}) or by
+ * prefix with a trailing {@code *} ({@code CDOTA_Unit_Hero_*}). The result is cached by
+ * class id, which is only stable within a replay, so each parse needs its own filter.
+ * Classes only known at runtime, like the abilities of a hero, can be added with
+ * {@link #allow(DTClass)}.
+ */
+public class EntityClassFilter {
+
+    private static final String WILDCARD = "*";
+    private static final byte UNKNOWN = 0;
+    private static final byte ACCEPTED = 1;
+    private static final byte REJECTED = 2;
+
+    private final Set<String> names = new HashSet<>();
+    private final List<String> prefixes = new ArrayList<>();
+    private byte[] decisions = new byte[1024];
+
+    /**
+     * @param patterns Class names, with a trailing {@code *} for a prefix
+     */
+    public EntityClassFilter(Collection<String> patterns) {
+        addAll(patterns);
+    }
+
+    /**
+     * Adds class name patterns. Must be called before the first entity is checked.
+     */
+    public void addAll(Collection<String> patterns) {
+        for (String pattern : patterns) {
+            if (pattern.endsWith(WILDCARD)) {
+                prefixes.add(pattern.substring(0, pattern.length() - 1));
+            } else {
+                names.add(pattern);
+            }
+        }
+    }
+
+    /**
+     * Accepts a class in addition to the patterns.
+     */
+    public void allow(DTClass dtClass) {
+        ensureCapacity(dtClass.getClassId());
+        decisions[dtClass.getClassId()] = ACCEPTED;
+    }
+
+    public boolean accepts(Entity entity) {
+        return accepts(entity.getDtClass());
+    }
+
+    public boolean accepts(DTClass dtClass) {
+        int classId = dtClass.getClassId();
+        if (classId < 0) {
+            return matches(dtClass.getDtName());
+        }
+        ensureCapacity(classId);
+        byte decision = decisions[classId];
+        if (decision == UNKNOWN) {
+            decision = matches(dtClass.getDtName()) ? ACCEPTED : REJECTED;
+            decisions[classId] = decision;
+        }
+        return decision == ACCEPTED;
+    }
+
+    /**
+     * @return true if the class name matches one of the patterns
+     */
+    public boolean matches(String dtName) {
+        if (names.contains(dtName)) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (dtName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void ensureCapacity(int classId) {
+        if (classId >= decisions.length) {
+            decisions = Arrays.copyOf(decisions, Math.max(classId + 1, decisions.length * 2));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package tidebound.entities;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import skadistats.clarity.model.DTClass;
+import skadistats.clarity.model.Entity;
+
+/**
+ * Follows entities of registered classes through {@code @OnEntityCreated} and
+ * {@code @OnEntityDeleted} so per-tick code can use direct references instead of
+ * searching the entity list with {@code Entities.getByDtName}.
+ *
+ * Singletons (game rules proxy, player resource, team data) are tracked by exact
+ * class name. Groups (wards) are tracked by a class name matcher, so handlers can
+ * check the membership of an entity without matching its class name every time.
+ */
+public class EntityTracker {
+
+    private final Map<String, Entity> singletons = new HashMap<>();
+    private final Map<String, Predicate<String>> groupMatchers = new LinkedHashMap<>();
+    private final Map<DTClass, Membership> memberships = new IdentityHashMap<>();
+
+    /**
+     * Tracks the single entity of the given class.
+     *
+     * @param dtName DtClass name, e.g. {@code CDOTAGamerulesProxy}
+     */
+    public void trackSingleton(String dtName) {
+        singletons.putIfAbsent(dtName, null);
+        memberships.clear();
+    }
+
+    /**
+     * Tracks all entities whose DtClass name matches the given predicate.
+     *
+     * @param group   Group name used for lookups
+     * @param matcher Predicate on the DtClass name
+     */
+    public void trackGroup(String group, Predicate<String> matcher) {
+        groupMatchers.put(group, matcher);
+        memberships.clear();
+    }
+
+    public void onCreated(Entity entity) {
+        if (membershipFor(entity.getDtClass()).singleton) {
+            singletons.put(entity.getDtClass().getDtName(), entity);
+        }
+    }
+
+    public void onDeleted(Entity entity) {
+        if (membershipFor(entity.getDtClass()).singleton) {
+            // A replacement may have been created before the old entity was deleted
+            singletons.replace(entity.getDtClass().getDtName(), entity, null);
+        }
+    }
+
+    /**
+     * @param dtName DtClass name registered with {@link #trackSingleton(String)}
+     * @return The live entity of that class or null if none exists yet
+     */
+    public Entity getSingleton(String dtName) {
+        return singletons.get(dtName);
+    }
+
+    /**
+     * @return true if the entity's class belongs to the given group
+     */
+    public boolean isInGroup(Entity entity, String group) {
+        return membershipFor(entity.getDtClass()).groups.contains(group);
+    }
+
+    private Membership membershipFor(DTClass dtClass) {
+        Membership membership = memberships.get(dtClass);
+        if (membership == null) {
+            String dtName = dtClass.getDtName();
+            List<String> matchingGroups = new ArrayList<>(1);
+            for (Map.Entry<String, Predicate<String>> entry : groupMatchers.entrySet()) {
+                if (entry.getValue().test(dtName)) {
+                    matchingGroups.add(entry.getKey());
+                }
+            }
+            membership = new Membership(singletons.containsKey(dtName), matchingGroups);
+            memberships.put(dtClass, membership);
+        }
+        return membership;
+    }
+
+    private static final class Membership {
+        private final boolean singleton;
+        private final List<String> groups;
+
+        private Membership(boolean singleton, List<String> groups) {
+            this.singleton = singleton;
+            this.groups = groups;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package tidebound.entities;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import skadistats.clarity.io.Util;
+import skadistats.clarity.model.DTClass;
+import skadistats.clarity.model.Entity;
+import skadistats.clarity.model.FieldPath;
+
+/**
+ * Resolves entity property names to {@link FieldPath}s once per DtClass and reuses
+ * the resolution on every following tick.
+ *
+ * Property names may contain a {@code %i} placeholder which is replaced by the
+ * Clarity array index string ({@code 0000}, {@code 0001}, ...) only when the
+ * (template, index) pair is resolved for the first time.
+ *
+ * Resolutions are shared between replays of the same game build, since the
+ * send tables (and therefore the field paths) only change between builds.
+ * One instance is meant to be used by a single parse.
+ */
+public class PropertyAccessors {
+
+    private static final String INDEX_PLACEHOLDER = "%i";
+    private static final int MAX_CACHED_INDEX = 64;
+    private static final int MAX_SHARED_BUILDS = 8;
+    private static final int UNKNOWN_BUILD = -1;
+    private static final Object MISSING = new Object();
+
+    // build number -> (dt class name -> resolved field paths)
+    private static final Map<Integer, ConcurrentMap<String, ClassAccessors>> SHARED_BY_BUILD =
+        new LinkedHashMap<Integer, ConcurrentMap<String, ClassAccessors>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, ConcurrentMap<String, ClassAccessors>> eldest) {
+                return size() > MAX_SHARED_BUILDS;
+            }
+        };
+
+    private final Map<DTClass, ClassAccessors> byClass = new IdentityHashMap<>();
+    private ConcurrentMap<String, ClassAccessors> buildCache;
+    private int buildNumber = UNKNOWN_BUILD;
+
+    /**
+     * Binds this instance to the game build of the replay being parsed so resolutions
+     * can be shared with other replays of the same build. Builds that are not known
+     * (zero or negative) keep resolutions private to this instance.
+     *
+     * @param buildNumber Game build number reported by the replay
+     */
+    public void bindBuild(int buildNumber) {
+        if (this.buildNumber == buildNumber || buildNumber <= 0) {
+            return;
+        }
+        this.buildNumber = buildNumber;
+        this.buildCache = sharedCacheForBuild(buildNumber);
+        // Classes resolved before the build was known stay private to this replay
+    }
+
+    public int getBuildNumber() {
+        return buildNumber;
+    }
+
+    /**
+     * Resolves a property name to a field path.
+     *
+     * @param entity   Entity whose class is used for the resolution
+     * @param property Property name
+     * @return The field path or null if the class does not have the property
+     */
+    public FieldPath resolve(Entity entity, String property) {
+        return accessorsFor(entity.getDtClass()).resolve(property);
+    }
+
+    /**
+     * Resolves a property name template to a field path.
+     *
+     * @param entity   Entity whose class is used for the resolution
+     * @param template Property name containing a %i placeholder
+     * @param idx      Array index replacing the placeholder
+     * @return The field path or null if the class does not have the property
+     */
+    public FieldPath resolve(Entity entity, String template, int idx) {
+        return accessorsFor(entity.getDtClass()).resolve(template, idx);
+    }
+
+    public <T> T get(Entity entity, String property) {
+        if (entity == null) {
+            return null;
+        }
+        FieldPath fieldPath = resolve(entity, property);
+        return fieldPath != null ? entity.getPropertyForFieldPath(fieldPath) : null;
+    }
+
+    public <T> T get(Entity entity, String template, int idx) {
+        if (entity == null) {
+            return null;
+        }
+        FieldPath fieldPath = resolve(entity, template, idx);
+        return fieldPath != null ? entity.getPropertyForFieldPath(fieldPath) : null;
+    }
+
+    public int getInt(Entity entity, String property, int defaultValue) {
+        Object value = get(entity, property);
+        return value instanceof Number ? ((Number) value).intValue() : defaultValue;
+    }
+
+    public int getInt(Entity entity, String template, int idx, int defaultValue) {
+        Object value = get(entity, template, idx);
+        return value instanceof Number ? ((Number) value).intValue() : defaultValue;
+    }
+
+    public long getLong(Entity entity, String property, long defaultValue) {
+        Object value = get(entity, property);
+        return value instanceof Number ? ((Number) value).longValue() : defaultValue;
+    }
+
+    public long getLong(Entity entity, String template, int idx, long defaultValue) {
+        Object value = get(entity, template, idx);
+        return value instanceof Number ? ((Number) value).longValue() : defaultValue;
+    }
+
+    public float getFloat(Entity entity, String property, float defaultValue) {
+        Object value = get(entity, property);
+        return value instanceof Number ? ((Number) value).floatValue() : defaultValue;
+    }
+
+    public float getFloat(Entity entity, String template, int idx, float defaultValue) {
+        Object value = get(entity, template, idx);
+        return value instanceof Number ? ((Number) value).floatValue() : defaultValue;
+    }
+
+    public boolean getBoolean(Entity entity, String property, boolean defaultValue) {
+        Object value = get(entity, property);
+        return value instanceof Boolean ? (Boolean) value : defaultValue;
+    }
+
+    private ClassAccessors accessorsFor(DTClass dtClass) {
+        ClassAccessors accessors = byClass.get(dtClass);
+        if (accessors == null) {
+            if (buildCache != null) {
+                accessors = buildCache.computeIfAbsent(dtClass.getDtName(), name -> new ClassAccessors(dtClass));
+            } else {
+                accessors = new ClassAccessors(dtClass);
+            }
+            byClass.put(dtClass, accessors);
+        }
+        return accessors;
+    }
+
+    private static ConcurrentMap<String, ClassAccessors> sharedCacheForBuild(int buildNumber) {
+        synchronized (SHARED_BY_BUILD) {
+            return SHARED_BY_BUILD.computeIfAbsent(buildNumber, build -> new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Field path resolutions of a single DtClass. Safe to share between concurrent parses.
+     */
+    private static final class ClassAccessors {
+
+        private final DTClass dtClass;
+        private final ConcurrentMap<String, Object> byName = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, AtomicReferenceArray<Object>> byTemplate = new ConcurrentHashMap<>();
+
+        private ClassAccessors(DTClass dtClass) {
+            this.dtClass = dtClass;
+        }
+
+        private FieldPath resolve(String property) {
+            Object fieldPath = byName.get(property);
+            if (fieldPath == null) {
+                fieldPath = lookup(property);
+                byName.putIfAbsent(property, fieldPath);
+            }
+            return fieldPath != MISSING ? (FieldPath) fieldPath : null;
+        }
+
+        private FieldPath resolve(String template, int idx) {
+            if (idx < 0 || idx >= MAX_CACHED_INDEX) {
+                Object fieldPath = lookup(template.replace(INDEX_PLACEHOLDER, Util.arrayIdxToString(idx)));
+                return fieldPath != MISSING ? (FieldPath) fieldPath : null;
+            }
+            AtomicReferenceArray<Object> slots = byTemplate.get(template);
+            if (slots == null) {
+                slots = byTemplate.computeIfAbsent(template, t -> new AtomicReferenceArray<>(MAX_CACHED_INDEX));
+            }
+            Object fieldPath = slots.get(idx);
+            if (fieldPath == null) {
+                fieldPath = lookup(template.replace(INDEX_PLACEHOLDER, Util.arrayIdxToString(idx)));
+                slots.compareAndSet(idx, null, fieldPath);
+            }
+            return fieldPath != MISSING ? (FieldPath) fieldPath : null;
+        }
+
+        private Object lookup(String property) {
+            try {
+                FieldPath fieldPath = dtClass.getFieldPathForName(property);
+                return fieldPath != null ? fieldPath : MISSING;
+            } catch (RuntimeException ex) {
+                // Property does not exist in this game version
+                return MISSING;
+            }
+        }
+    }
+}
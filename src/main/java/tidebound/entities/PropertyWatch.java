@@ -0,0 +1,131 @@
+package tidebound.entities;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import skadistats.clarity.model.DTClass;
+import skadistats.clarity.model.Entity;
+import skadistats.clarity.model.FieldPath;
+
+/**
+ * A fixed set of properties of one entity class whose changes are collected from
+ * {@code @OnEntityUpdated} events, so extractors only re-read them when they changed.
+ *
+ * Every watched property gets an id in the order it was added. The field paths are
+ * resolved through {@link PropertyAccessors} once per DtClass, so one watch can serve
+ * several classes sharing the property names (e.g. all heroes).
+ */
+public class PropertyWatch {
+
+    private final PropertyAccessors properties;
+    private final List<String> names = new ArrayList<>();
+    private final List<Integer> indices = new ArrayList<>();
+    private final BitSet changed = new BitSet();
+
+    private final Map<DTClass, Map<FieldPath, Integer>> idsByClass = new HashMap<>();
+
+    public PropertyWatch(PropertyAccessors properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @return The id of the property
+     */
+    public int add(String property) {
+        return add(property, -1);
+    }
+
+    /**
+     * @param template Property name containing a %i placeholder
+     * @param idx      Array index replacing the placeholder
+     * @return The id of the property
+     */
+    public int add(String template, int idx) {
+        names.add(template);
+        indices.add(idx);
+        idsByClass.clear();
+        return names.size() - 1;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Marks every property as changed, e.g. when the entity was created.
+     */
+    public void markAll() {
+        changed.set(0, names.size());
+    }
+
+    /**
+     * Marks the watched properties among the updated field paths as changed.
+     *
+     * @param entity     Updated entity
+     * @param fieldPaths Updated field paths
+     * @param num        Number of valid entries in fieldPaths
+     */
+    public void collect(Entity entity, FieldPath[] fieldPaths, int num) {
+        Map<FieldPath, Integer> ids = idsFor(entity);
+        for (int i = 0; i < num; i++) {
+            Integer id = ids.get(fieldPaths[i]);
+            if (id != null) {
+                changed.set(id);
+            }
+        }
+    }
+
+    /**
+     * Checks the updated field paths without marking anything, for callers keeping their
+     * own per-entity state.
+     *
+     * @return true if any watched property is among the updated field paths
+     */
+    public boolean matches(Entity entity, FieldPath[] fieldPaths, int num) {
+        Map<FieldPath, Integer> ids = idsFor(entity);
+        for (int i = 0; i < num; i++) {
+            if (ids.containsKey(fieldPaths[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if a property with an id in [fromId, toId) changed since the last {@link #clear()}
+     */
+    public boolean hasChanged(int fromId, int toId) {
+        int next = changed.nextSetBit(fromId);
+        return next >= 0 && next < toId;
+    }
+
+    public boolean hasChanged(int id) {
+        return changed.get(id);
+    }
+
+    public void clear() {
+        changed.clear();
+    }
+
+    private Map<FieldPath, Integer> idsFor(Entity entity) {
+        DTClass dtClass = entity.getDtClass();
+        Map<FieldPath, Integer> ids = idsByClass.get(dtClass);
+        if (ids == null) {
+            ids = new HashMap<>();
+            for (int id = 0; id < names.size(); id++) {
+                int idx = indices.get(id);
+                FieldPath fieldPath = idx < 0
+                    ? properties.resolve(entity, names.get(id))
+                    : properties.resolve(entity, names.get(id), idx);
+                if (fieldPath != null) {
+                    ids.put(fieldPath, id);
+                }
+            }
+            idsByClass.put(dtClass, ids);
+        }
+        return ids;
+    }
+}
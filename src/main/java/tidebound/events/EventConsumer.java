@@ -0,0 +1,21 @@
+package tidebound.events;
+
+/**
+ * Receives the events of a parse running in this process instead of their NDJSON
+ * output, see {@link tidebound.ParseSession#publisher(java.io.File)}.
+ *
+ * The consumer is called on the thread writing the output: the parse thread, or a
+ * pipeline thread if the output is pipelined. A consumer that blocks in
+ * {@link #accept(EventRecord)} pauses the parse.
+ */
+public interface EventConsumer extends EventPipeline.Stage {
+
+    /**
+     * Checked on every replay tick.
+     *
+     * @return true once no more events are wanted, the parse then stops
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+}
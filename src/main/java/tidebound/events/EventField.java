@@ -0,0 +1,157 @@
+package tidebound.events;
+
+/**
+ * Fields of an {@link EventRecord}, in the order they appear in the NDJSON output.
+ *
+ * The JSON names and their order are part of the output format consumed by
+ * createParsedDataBlob.mjs and must not change.
+ */
+public enum EventField {
+    TIME("time", Kind.INT),
+    TYPE("type", Kind.STRING),
+    TEAM("team", Kind.INT),
+    UNIT("unit", Kind.STRING, true),
+    KEY("key", Kind.STRING),
+    VALUE("value", Kind.INT),
+    SLOT("slot", Kind.INT),
+    PLAYER_SLOT("player_slot", Kind.INT),
+    PLAYER1("player1", Kind.INT),
+    PLAYER2("player2", Kind.INT),
+    ATTACKERNAME("attackername", Kind.STRING, true),
+    TARGETNAME("targetname", Kind.STRING, true),
+    SOURCENAME("sourcename", Kind.STRING, true),
+    TARGETSOURCENAME("targetsourcename", Kind.STRING, true),
+    ATTACKERHERO("attackerhero", Kind.BOOLEAN),
+    TARGETHERO("targethero", Kind.BOOLEAN),
+    ATTACKERILLUSION("attackerillusion", Kind.BOOLEAN),
+    TARGETILLUSION("targetillusion", Kind.BOOLEAN),
+    ABILITYLEVEL("abilitylevel", Kind.INT),
+    INFLICTOR("inflictor", Kind.STRING, true),
+    GOLD_REASON("gold_reason", Kind.INT),
+    XP_REASON("xp_reason", Kind.INT),
+    VALUENAME("valuename", Kind.STRING, true),
+    GOLD("gold", Kind.INT),
+    LH("lh", Kind.INT),
+    XP("xp", Kind.INT),
+    X("x", Kind.FLOAT),
+    Y("y", Kind.FLOAT),
+    Z("z", Kind.FLOAT),
+    STUNS("stuns", Kind.FLOAT),
+    HERO_ID("hero_id", Kind.INT),
+    VARIANT("variant", Kind.INT),
+    FACET_HERO_ID("facet_hero_id", Kind.INT),
+    ITEMSLOT("itemslot", Kind.INT),
+    CHARGES("charges", Kind.INT),
+    SECONDARY_CHARGES("secondary_charges", Kind.INT),
+    LIFE_STATE("life_state", Kind.INT),
+    LEVEL("level", Kind.INT),
+    KILLS("kills", Kind.INT),
+    DEATHS("deaths", Kind.INT),
+    ASSISTS("assists", Kind.INT),
+    DENIES("denies", Kind.INT),
+    ENTITYLEFT("entityleft", Kind.BOOLEAN),
+    EHANDLE("ehandle", Kind.INT),
+    IS_NEUTRAL_ACTIVE_DROP("isNeutralActiveDrop", Kind.BOOLEAN),
+    IS_NEUTRAL_PASSIVE_DROP("isNeutralPassiveDrop", Kind.BOOLEAN),
+    OBS_PLACED("obs_placed", Kind.INT),
+    SEN_PLACED("sen_placed", Kind.INT),
+    CREEPS_STACKED("creeps_stacked", Kind.INT),
+    CAMPS_STACKED("camps_stacked", Kind.INT),
+    RUNE_PICKUPS("rune_pickups", Kind.INT),
+    REPICKED("repicked", Kind.BOOLEAN),
+    RANDOMED("randomed", Kind.BOOLEAN),
+    PRED_VICT("pred_vict", Kind.BOOLEAN),
+    STUN_DURATION("stun_duration", Kind.FLOAT),
+    SLOW_DURATION("slow_duration", Kind.FLOAT),
+    TRACKED_DEATH("tracked_death", Kind.BOOLEAN),
+    GREEVILS_GREED_STACK("greevils_greed_stack", Kind.INT),
+    TRACKED_SOURCENAME("tracked_sourcename", Kind.STRING, true),
+    FIRSTBLOOD_CLAIMED("firstblood_claimed", Kind.INT),
+    TEAMFIGHT_PARTICIPATION("teamfight_participation", Kind.FLOAT),
+    TOWERS_KILLED("towers_killed", Kind.INT),
+    ROSHANS_KILLED("roshans_killed", Kind.INT),
+    OBSERVERS_PLACED("observers_placed", Kind.INT),
+    DRAFT_ORDER("draft_order", Kind.INT),
+    PICK("pick", Kind.BOOLEAN),
+    DRAFT_ACTIVE_TEAM("draft_active_team", Kind.INT),
+    DRAFT_EXTIME0("draft_extime0", Kind.INT),
+    DRAFT_EXTIME1("draft_extime1", Kind.INT),
+    NETWORTH("networth", Kind.INT),
+    STAGE("stage", Kind.INT),
+    FORMAT("format", Kind.STRING);
+
+    public enum Kind {
+        INT,
+        FLOAT,
+        BOOLEAN,
+        STRING
+    }
+
+    private static final EventField[] VALUES = values();
+    private static final int[] KIND_COUNTS = new int[Kind.values().length];
+
+    static {
+        for (EventField field : VALUES) {
+            field.slot = KIND_COUNTS[field.kind.ordinal()]++;
+        }
+    }
+
+    private final String jsonName;
+    private final Kind kind;
+    // holds unit, hero, item or ability names, written as ids when symbols are enabled
+    private final boolean symbol;
+    // index of this field within the storage array of its kind
+    private int slot;
+
+    EventField(String jsonName, Kind kind) {
+        this(jsonName, kind, false);
+    }
+
+    EventField(String jsonName, Kind kind, boolean symbol) {
+        this.jsonName = jsonName;
+        this.kind = kind;
+        this.symbol = symbol;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return true if the field holds a name that can be replaced by a {@link SymbolTable} id
+     */
+    public boolean isSymbol() {
+        return symbol;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    static int countOf(Kind kind) {
+        return KIND_COUNTS[kind.ordinal()];
+    }
+
+    /**
+     * @return The field with the given JSON name or null if there is none
+     */
+    public static EventField forJsonName(String jsonName) {
+        for (EventField field : VALUES) {
+            if (field.jsonName.equals(jsonName)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return All fields in output order. The returned array must not be modified.
+     */
+    static EventField[] all() {
+        return VALUES;
+    }
+}
@@ -0,0 +1,291 @@
+package tidebound.events;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands the events of a parse from the thread decoding the replay to consumer threads
+ * that encode, send and store them.
+ *
+ * The events go through a bounded ring of preallocated {@link EventRecord}s. There is a
+ * single producer and one thread per {@link Stage}; every stage sees all events in the
+ * order they were published. Slots are claimed and released through sequence counters,
+ * without locks. When the slowest stage is a full ring behind, the producer waits, so a
+ * slow client or database slows down the parse instead of buffering the whole replay.
+ * A waiting thread spins briefly and then parks until the other side unparks it, which
+ * the other side only does after seeing its waiting flag.
+ *
+ * A stage that throws gets no further events; its first failure is rethrown by
+ * {@link #close()}. The other stages keep running.
+ */
+public final class EventPipeline implements Closeable {
+
+    /**
+     * Consumer of the events, called on its own thread.
+     */
+    public interface Stage {
+
+        /**
+         * @param record The event; only valid during the call, the slot is reused afterwards
+         */
+        void accept(EventRecord record) throws Exception;
+
+        /**
+         * Called after the events of a replay tick.
+         */
+        default void endTick() throws Exception {
+        }
+
+        /**
+         * Called after the last event, before {@link #close()} returns.
+         */
+        default void finish() throws Exception {
+        }
+    }
+
+    private static final byte KIND_EVENT = 0;
+    private static final byte KIND_TICK_END = 1;
+    private static final byte KIND_END = 2;
+    // Busy waits before a waiting thread parks
+    private static final int SPIN_LIMIT = 128;
+
+    private final EventRecord[] records;
+    private final byte[] kinds;
+    private final int mask;
+    // Sequence of the last published slot
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final StageRunner[] runners;
+
+    // Producer state
+    private long next;
+    private long cachedMinimum = -1;
+    private boolean closed;
+    // Set by the producer before it parks on a full ring, cleared by the stage waking it
+    private volatile Thread waitingProducer;
+
+    /**
+     * Starts one thread per stage.
+     *
+     * @param capacity Number of slots, a power of two
+     * @param name     Prefix of the thread names
+     * @param stages   Consumers of the events
+     */
+    public EventPipeline(int capacity, String name, List<? extends Stage> stages) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("At least one stage is required");
+        }
+        this.records = new EventRecord[capacity];
+        for (int i = 0; i < capacity; i++) {
+            records[i] = new EventRecord();
+        }
+        this.kinds = new byte[capacity];
+        this.mask = capacity - 1;
+        this.runners = new StageRunner[stages.size()];
+        for (int i = 0; i < runners.length; i++) {
+            runners[i] = new StageRunner(stages.get(i));
+            Thread thread = new Thread(runners[i], name + "-" + i);
+            thread.setDaemon(true);
+            runners[i].thread = thread;
+        }
+        for (StageRunner runner : runners) {
+            runner.thread.start();
+        }
+    }
+
+    /**
+     * Publishes a copy of the record; the caller can reuse the record right away. Waits
+     * while the ring is full.
+     */
+    public void publish(EventRecord record) throws IOException {
+        long sequence = claim();
+        int index = (int) (sequence & mask);
+        records[index].copyFrom(record);
+        kinds[index] = KIND_EVENT;
+        publishSequence(sequence);
+    }
+
+    /**
+     * @return Number of events in the ring
+     */
+    public int getCapacity() {
+        return records.length;
+    }
+
+    /**
+     * Marks the end of a replay tick, see {@link Stage#endTick()}.
+     */
+    public void endTick() throws IOException {
+        publishMarker(KIND_TICK_END);
+    }
+
+    /**
+     * Waits until all stages processed every published event and finished.
+     *
+     * @throws IOException with the first failure of a stage as the cause
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        publishMarker(KIND_END);
+        closed = true;
+        try {
+            for (StageRunner runner : runners) {
+                runner.thread.join();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the event pipeline", ex);
+        }
+        for (StageRunner runner : runners) {
+            if (runner.failure != null) {
+                throw new IOException("Event pipeline stage failed: " + runner.failure.getMessage(), runner.failure);
+            }
+        }
+    }
+
+    private void publishMarker(byte kind) throws IOException {
+        long sequence = claim();
+        int index = (int) (sequence & mask);
+        records[index].clear();
+        kinds[index] = kind;
+        publishSequence(sequence);
+    }
+
+    /**
+     * Makes the slot visible to the stages and wakes those parked waiting for it. The
+     * volatile write orders the cursor before the read of the waiting flags, so a stage
+     * that set its flag either sees the new cursor or is unparked.
+     */
+    private void publishSequence(long sequence) {
+        cursor.set(sequence);
+        for (StageRunner runner : runners) {
+            if (runner.waiting) {
+                runner.waiting = false;
+                LockSupport.unpark(runner.thread);
+            }
+        }
+    }
+
+    /**
+     * @return Sequence of the next free slot, waiting for the slowest stage to release it
+     */
+    private long claim() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Event pipeline is closed");
+        }
+        long sequence = next;
+        long wrapPoint = sequence - records.length;
+        if (wrapPoint > cachedMinimum) {
+            int spins = 0;
+            while (wrapPoint > (cachedMinimum = minimumSequence())) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IOException("Interrupted while waiting for the event pipeline");
+                }
+                if (spins < SPIN_LIMIT) {
+                    Thread.onSpinWait();
+                    spins++;
+                    continue;
+                }
+                waitingProducer = Thread.currentThread();
+                if (wrapPoint > minimumSequence()) {
+                    LockSupport.park(this);
+                }
+                waitingProducer = null;
+            }
+        }
+        next = sequence + 1;
+        return sequence;
+    }
+
+    private long minimumSequence() {
+        long minimum = Long.MAX_VALUE;
+        for (StageRunner runner : runners) {
+            minimum = Math.min(minimum, runner.sequence.get());
+        }
+        return minimum;
+    }
+
+    private final class StageRunner implements Runnable {
+
+        private final Stage stage;
+        // Sequence of the last slot this stage is done with
+        private final AtomicLong sequence = new AtomicLong(-1);
+        private Thread thread;
+        private volatile Throwable failure;
+        // Set before the stage parks on an empty ring, cleared by the producer waking it
+        private volatile boolean waiting;
+
+        StageRunner(Stage stage) {
+            this.stage = stage;
+        }
+
+        @Override
+        public void run() {
+            long nextSequence = 0;
+            while (true) {
+                long available;
+                int spins = 0;
+                while ((available = cursor.get()) < nextSequence) {
+                    if (spins < SPIN_LIMIT) {
+                        Thread.onSpinWait();
+                        spins++;
+                        continue;
+                    }
+                    waiting = true;
+                    if (cursor.get() < nextSequence) {
+                        LockSupport.park(this);
+                    }
+                    waiting = false;
+                }
+                for (; nextSequence <= available; nextSequence++) {
+                    int index = (int) (nextSequence & mask);
+                    byte kind = kinds[index];
+                    if (kind == KIND_END) {
+                        if (failure == null) {
+                            try {
+                                stage.finish();
+                            } catch (Throwable t) {
+                                failure = t;
+                            }
+                        }
+                        release(nextSequence);
+                        return;
+                    }
+                    if (failure == null) {
+                        try {
+                            if (kind == KIND_EVENT) {
+                                stage.accept(records[index]);
+                            } else {
+                                stage.endTick();
+                            }
+                        } catch (Throwable t) {
+                            failure = t;
+                        }
+                    }
+                }
+                release(available);
+            }
+        }
+
+        /**
+         * Hands the slots up to the sequence back to the producer, waking it if it parked
+         * on a full ring; ordered like {@link #publishSequence(long)}.
+         */
+        private void release(long done) {
+            sequence.set(done);
+            Thread producer = waitingProducer;
+            if (producer != null) {
+                waitingProducer = null;
+                LockSupport.unpark(producer);
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package tidebound.events;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Subset of the parser output requested by a client: the event types to emit and,
+ * optionally, the player slots (0-9) whose events are kept.
+ *
+ * Types are matched exactly ({@code interval}, {@code obs_left}) or by prefix with a
+ * trailing {@code *} ({@code DOTA_COMBATLOG_*}); a single {@code *} matches everything.
+ * The slot filter only applies to events that carry a {@code slot}; events without
+ * one (combat log, draft, epilogue...) are kept.
+ */
+public final class EventProjection {
+
+    private static final String WILDCARD = "*";
+    private static final int MAX_SLOT = 9;
+    private static final EventProjection ALL = new EventProjection(null, null, null);
+
+    // null means all types
+    private final Set<String> types;
+    private final List<String> typePrefixes;
+    // null means all slots
+    private final Set<Integer> slots;
+
+    private EventProjection(Set<String> types, List<String> typePrefixes, Set<Integer> slots) {
+        this.types = types;
+        this.typePrefixes = typePrefixes;
+        this.slots = slots;
+    }
+
+    /**
+     * @return A projection keeping every event
+     */
+    public static EventProjection all() {
+        return ALL;
+    }
+
+    /**
+     * @param types Event types or prefix patterns, null or empty for all types
+     * @param slots Player slots, null or empty for all slots
+     * @return The projection
+     * @throws IllegalArgumentException if a slot is outside 0-9 or a type is blank
+     */
+    public static EventProjection of(Collection<String> types, Collection<Integer> slots) {
+        Set<String> exactTypes = null;
+        List<String> prefixes = null;
+        if (types != null && !types.isEmpty() && !types.contains(WILDCARD)) {
+            exactTypes = new LinkedHashSet<>();
+            prefixes = new ArrayList<>();
+            for (String type : types) {
+                if (type == null || type.isBlank()) {
+                    throw new IllegalArgumentException("Event type must not be blank");
+                }
+                String trimmed = type.trim();
+                if (trimmed.endsWith(WILDCARD)) {
+                    prefixes.add(trimmed.substring(0, trimmed.length() - 1));
+                } else {
+                    exactTypes.add(trimmed);
+                }
+            }
+            exactTypes = Collections.unmodifiableSet(exactTypes);
+            prefixes = Collections.unmodifiableList(prefixes);
+        }
+
+        Set<Integer> slotSet = null;
+        if (slots != null && !slots.isEmpty()) {
+            slotSet = new TreeSet<>();
+            for (Integer slot : slots) {
+                if (slot == null || slot < 0 || slot > MAX_SLOT) {
+                    throw new IllegalArgumentException("Player slot must be between 0 and " + MAX_SLOT + ": " + slot);
+                }
+                slotSet.add(slot);
+            }
+            slotSet = Collections.unmodifiableSet(slotSet);
+        }
+
+        if (exactTypes == null && slotSet == null) {
+            return ALL;
+        }
+        return new EventProjection(exactTypes, prefixes, slotSet);
+    }
+
+    /**
+     * Parses the comma separated {@code types} and {@code slots} request parameters.
+     *
+     * @param types e.g. {@code interval,DOTA_COMBATLOG_*}, null or blank for all types
+     * @param slots e.g. {@code 0,5}, null or blank for all slots
+     * @return The projection
+     * @throws IllegalArgumentException if a parameter cannot be parsed
+     */
+    public static EventProjection parse(String types, String slots) {
+        List<String> typeList = splitList(types);
+        List<Integer> slotList = new ArrayList<>();
+        for (String slot : splitList(slots)) {
+            try {
+                slotList.add(Integer.parseInt(slot));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid player slot: " + slot, ex);
+            }
+        }
+        return of(typeList, slotList);
+    }
+
+    private static List<String> splitList(String value) {
+        if (value == null || value.isBlank()) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(value.split(","))
+            .map(String::trim)
+            .filter(item -> !item.isEmpty())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @return true if no event is filtered out
+     */
+    public boolean isAll() {
+        return types == null && slots == null;
+    }
+
+    public boolean includesType(String type) {
+        if (types == null) {
+            return true;
+        }
+        if (type == null) {
+            return false;
+        }
+        if (types.contains(type)) {
+            return true;
+        }
+        for (String prefix : typePrefixes) {
+            if (type.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean includesAnyType(String... candidates) {
+        for (String type : candidates) {
+            if (includesType(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if some event type starting with the given prefix may be included
+     */
+    public boolean includesTypePrefix(String prefix) {
+        if (types == null) {
+            return true;
+        }
+        for (String type : types) {
+            if (type.startsWith(prefix)) {
+                return true;
+            }
+        }
+        for (String typePrefix : typePrefixes) {
+            if (typePrefix.startsWith(prefix) || prefix.startsWith(typePrefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean includesSlot(int slot) {
+        return slots == null || slots.contains(slot);
+    }
+
+    /**
+     * @return true if the record belongs to the projection
+     */
+    public boolean accepts(EventRecord record) {
+        if (!includesType(record.getType())) {
+            return false;
+        }
+        return slots == null || !record.has(EventField.SLOT) || slots.contains(record.getInt(EventField.SLOT));
+    }
+
+    /**
+     * @return The types request parameter for this projection, null if all types are included
+     */
+    public String getTypesParameter() {
+        if (types == null) {
+            return null;
+        }
+        List<String> patterns = new ArrayList<>(types);
+        for (String prefix : typePrefixes) {
+            patterns.add(prefix + WILDCARD);
+        }
+        return String.join(",", patterns);
+    }
+
+    /**
+     * @return The slots request parameter for this projection, null if all slots are included
+     */
+    public String getSlotsParameter() {
+        if (slots == null) {
+            return null;
+        }
+        return slots.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    @Override
+    public String toString() {
+        if (isAll()) {
+            return "all";
+        }
+        return "types=" + (types == null ? WILDCARD : getTypesParameter())
+            + " slots=" + (slots == null ? WILDCARD : getSlotsParameter());
+    }
+}
@@ -0,0 +1,205 @@
+package tidebound.events;
+
+import java.util.Arrays;
+
+import tidebound.events.EventField.Kind;
+
+/**
+ * A single parser output event stored in primitive columns with a presence bitmap.
+ *
+ * Fields that were never set (or were set to null) are absent: they are omitted from
+ * the NDJSON output and written as NULL to the database. {@link EventField#TIME} is
+ * always present.
+ *
+ * Records are mutable and meant to be reused through an {@link EventRecordPool}.
+ */
+public final class EventRecord {
+
+    private static final int BITS_PER_WORD = 64;
+
+    /**
+     * Approximate heap size of a record and its arrays, without the string values, for
+     * estimating the memory of a parse.
+     */
+    public static final int SHALLOW_SIZE = 48
+        + 16 + 4 * EventField.countOf(Kind.INT)
+        + 16 + 4 * EventField.countOf(Kind.FLOAT)
+        + 16 + 8 * EventField.countOf(Kind.STRING);
+
+    private final int[] ints = new int[EventField.countOf(Kind.INT)];
+    private final float[] floats = new float[EventField.countOf(Kind.FLOAT)];
+    private final String[] strings = new String[EventField.countOf(Kind.STRING)];
+    private long booleans;
+    private long presentLow;
+    private long presentHigh;
+
+    public EventRecord() {
+        clear();
+    }
+
+    public EventRecord(int time) {
+        clear();
+        setTime(time);
+    }
+
+    /**
+     * Resets the record to an empty event at time 0.
+     */
+    public void clear() {
+        Arrays.fill(strings, null);
+        booleans = 0L;
+        presentLow = 0L;
+        presentHigh = 0L;
+        setInt(EventField.TIME, 0);
+    }
+
+    public void copyFrom(EventRecord other) {
+        System.arraycopy(other.ints, 0, ints, 0, ints.length);
+        System.arraycopy(other.floats, 0, floats, 0, floats.length);
+        System.arraycopy(other.strings, 0, strings, 0, strings.length);
+        booleans = other.booleans;
+        presentLow = other.presentLow;
+        presentHigh = other.presentHigh;
+    }
+
+    public EventRecord copy() {
+        EventRecord copy = new EventRecord();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    public boolean has(EventField field) {
+        int ordinal = field.ordinal();
+        return ordinal < BITS_PER_WORD
+            ? (presentLow & (1L << ordinal)) != 0
+            : (presentHigh & (1L << (ordinal - BITS_PER_WORD))) != 0;
+    }
+
+    public int getTime() {
+        return ints[EventField.TIME.getSlot()];
+    }
+
+    public void setTime(int time) {
+        setInt(EventField.TIME, time);
+    }
+
+    public String getType() {
+        return strings[EventField.TYPE.getSlot()];
+    }
+
+    public void setType(String type) {
+        setString(EventField.TYPE, type);
+    }
+
+    public int getInt(EventField field) {
+        checkKind(field, Kind.INT);
+        return ints[field.getSlot()];
+    }
+
+    public float getFloat(EventField field) {
+        checkKind(field, Kind.FLOAT);
+        return floats[field.getSlot()];
+    }
+
+    public boolean getBoolean(EventField field) {
+        checkKind(field, Kind.BOOLEAN);
+        return (booleans & (1L << field.getSlot())) != 0;
+    }
+
+    public String getString(EventField field) {
+        checkKind(field, Kind.STRING);
+        return strings[field.getSlot()];
+    }
+
+    /**
+     * @return The value of an int field, or null if it is absent
+     */
+    public Integer getNullableInt(EventField field) {
+        return has(field) ? getInt(field) : null;
+    }
+
+    public void setInt(EventField field, int value) {
+        checkKind(field, Kind.INT);
+        ints[field.getSlot()] = value;
+        markPresent(field);
+    }
+
+    public void setInt(EventField field, Integer value) {
+        if (value == null) {
+            remove(field);
+        } else {
+            setInt(field, value.intValue());
+        }
+    }
+
+    public void setFloat(EventField field, float value) {
+        checkKind(field, Kind.FLOAT);
+        floats[field.getSlot()] = value;
+        markPresent(field);
+    }
+
+    public void setFloat(EventField field, Float value) {
+        if (value == null) {
+            remove(field);
+        } else {
+            setFloat(field, value.floatValue());
+        }
+    }
+
+    public void setBoolean(EventField field, boolean value) {
+        checkKind(field, Kind.BOOLEAN);
+        long mask = 1L << field.getSlot();
+        booleans = value ? (booleans | mask) : (booleans & ~mask);
+        markPresent(field);
+    }
+
+    public void setBoolean(EventField field, Boolean value) {
+        if (value == null) {
+            remove(field);
+        } else {
+            setBoolean(field, value.booleanValue());
+        }
+    }
+
+    public void setString(EventField field, String value) {
+        checkKind(field, Kind.STRING);
+        strings[field.getSlot()] = value;
+        if (value == null) {
+            remove(field);
+        } else {
+            markPresent(field);
+        }
+    }
+
+    public void remove(EventField field) {
+        if (field == EventField.TIME) {
+            // time is always emitted
+            setInt(EventField.TIME, 0);
+            return;
+        }
+        if (field.getKind() == Kind.STRING) {
+            strings[field.getSlot()] = null;
+        }
+        int ordinal = field.ordinal();
+        if (ordinal < BITS_PER_WORD) {
+            presentLow &= ~(1L << ordinal);
+        } else {
+            presentHigh &= ~(1L << (ordinal - BITS_PER_WORD));
+        }
+    }
+
+    private void markPresent(EventField field) {
+        int ordinal = field.ordinal();
+        if (ordinal < BITS_PER_WORD) {
+            presentLow |= 1L << ordinal;
+        } else {
+            presentHigh |= 1L << (ordinal - BITS_PER_WORD);
+        }
+    }
+
+    private static void checkKind(EventField field, Kind kind) {
+        if (field.getKind() != kind) {
+            throw new IllegalArgumentException(field.getJsonName() + " is not a " + kind + " field");
+        }
+    }
+}
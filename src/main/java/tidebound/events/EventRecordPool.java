@@ -0,0 +1,50 @@
+package tidebound.events;
+
+import java.util.ArrayDeque;
+
+/**
+ * Recycles {@link EventRecord}s of a single parse so the per-event hot path does not
+ * allocate. Not thread safe; each parse owns its own pool.
+ */
+public class EventRecordPool {
+
+    private static final int DEFAULT_MAX_IDLE = 64;
+
+    private final ArrayDeque<EventRecord> idle = new ArrayDeque<>();
+    private final int maxIdle;
+
+    public EventRecordPool() {
+        this(DEFAULT_MAX_IDLE);
+    }
+
+    /**
+     * @param maxIdle Maximum number of released records kept for reuse
+     */
+    public EventRecordPool(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * @param time Event time
+     * @return An empty record at the given time
+     */
+    public EventRecord acquire(int time) {
+        EventRecord record = idle.pollFirst();
+        if (record == null) {
+            return new EventRecord(time);
+        }
+        record.setTime(time);
+        return record;
+    }
+
+    /**
+     * Returns a record to the pool. The caller must not use the record afterwards.
+     */
+    public void release(EventRecord record) {
+        if (record == null || idle.size() >= maxIdle) {
+            return;
+        }
+        record.clear();
+        idle.addFirst(record);
+    }
+}
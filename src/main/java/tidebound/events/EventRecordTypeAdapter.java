@@ -0,0 +1,85 @@
+package tidebound.events;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Gson adapter writing only the present fields of an {@link EventRecord}, in
+ * {@link EventField} order, formatted the way Gson formats boxed fields of a plain
+ * object (nulls omitted, floats via {@link Float#toString(float)}).
+ */
+public class EventRecordTypeAdapter extends TypeAdapter<EventRecord> {
+
+    @Override
+    public void write(JsonWriter out, EventRecord record) throws IOException {
+        if (record == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        for (EventField field : EventField.all()) {
+            if (!record.has(field)) {
+                continue;
+            }
+            out.name(field.getJsonName());
+            switch (field.getKind()) {
+                case INT:
+                    out.value(record.getInt(field));
+                    break;
+                case FLOAT:
+                    float value = record.getFloat(field);
+                    if (Float.isNaN(value) || Float.isInfinite(value)) {
+                        throw new IllegalArgumentException(value
+                            + " is not a valid double value as per JSON specification.");
+                    }
+                    // Boxed so the number is written with Float.toString, like Gson did for Float fields
+                    out.value((Number) value);
+                    break;
+                case BOOLEAN:
+                    out.value(record.getBoolean(field));
+                    break;
+                case STRING:
+                    out.value(record.getString(field));
+                    break;
+            }
+        }
+        out.endObject();
+    }
+
+    @Override
+    public EventRecord read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        EventRecord record = new EventRecord();
+        in.beginObject();
+        while (in.hasNext()) {
+            EventField field = EventField.forJsonName(in.nextName());
+            if (field == null) {
+                in.skipValue();
+                continue;
+            }
+            switch (field.getKind()) {
+                case INT:
+                    record.setInt(field, in.nextInt());
+                    break;
+                case FLOAT:
+                    record.setFloat(field, (float) in.nextDouble());
+                    break;
+                case BOOLEAN:
+                    record.setBoolean(field, in.nextBoolean());
+                    break;
+                case STRING:
+                    record.setString(field, in.nextString());
+                    break;
+            }
+        }
+        in.endObject();
+        return record;
+    }
+}
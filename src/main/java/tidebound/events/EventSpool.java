@@ -0,0 +1,252 @@
+package tidebound.events;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+
+/**
+ * FIFO buffer of {@link EventRecord}s that keeps a bounded number of records in memory
+ * and spills the rest to a temp file, for events held back until something is known
+ * (the game start time, the match id).
+ *
+ * Spilled records are stored as the ordinals and values of their present fields. Not
+ * thread safe; each parse owns its own spools.
+ */
+public final class EventSpool implements Closeable {
+
+    /**
+     * Receives the records of {@link #drain(EventRecordPool, Consumer)}.
+     */
+    public interface Consumer<E extends Exception> {
+        /**
+         * @param record The record, owned by the consumer from now on
+         */
+        void accept(EventRecord record) throws E;
+    }
+
+    private static final int END_OF_RECORD = 0xff;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int memoryLimit;
+    private final ArrayDeque<EventRecord> records = new ArrayDeque<>();
+
+    private Path spillFile;
+    private DataOutputStream spillOutput;
+    private int spilled;
+
+    /**
+     * @param memoryLimit Number of records kept in memory before spilling to disk
+     */
+    public EventSpool(int memoryLimit) {
+        if (memoryLimit < 0) {
+            throw new IllegalArgumentException("Memory limit must not be negative: " + memoryLimit);
+        }
+        this.memoryLimit = memoryLimit;
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @return true if the record is kept in memory and must not be reused by the caller,
+     *         false if it was written to disk and can be reused
+     */
+    public boolean add(EventRecord record) throws IOException {
+        if (spillOutput == null && records.size() < memoryLimit) {
+            records.addLast(record);
+            return true;
+        }
+        if (spillOutput == null) {
+            spillFile = Files.createTempFile("tidebound-spool-", ".bin");
+            spillOutput = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spillFile), BUFFER_SIZE));
+        }
+        write(spillOutput, record);
+        spilled++;
+        return false;
+    }
+
+    public int size() {
+        return records.size() + spilled;
+    }
+
+    /**
+     * @return Number of records kept in memory
+     */
+    public int memorySize() {
+        return records.size();
+    }
+
+    /**
+     * Writes the records kept in memory to disk and returns them to the pool, to free
+     * memory when a parse is over its budget. Once the spool spills, the records in memory
+     * precede the spilled ones and are kept.
+     */
+    public void spillMemory(EventRecordPool pool) throws IOException {
+        if (spillOutput != null || records.isEmpty()) {
+            return;
+        }
+        spillFile = Files.createTempFile("tidebound-spool-", ".bin");
+        spillOutput = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spillFile), BUFFER_SIZE));
+        while (!records.isEmpty()) {
+            EventRecord record = records.pollFirst();
+            write(spillOutput, record);
+            spilled++;
+            pool.release(record);
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return true if records were written to disk since the last drain
+     */
+    public boolean hasSpilled() {
+        return spilled > 0;
+    }
+
+    /**
+     * Passes all records to the consumer in the order they were added and empties the
+     * spool. Records read back from disk are taken from the pool.
+     *
+     * If the consumer throws, the record it was passed and all later ones stay in the
+     * spool, to be drained again; the consumer must not keep that record.
+     */
+    public <E extends Exception> void drain(EventRecordPool pool, Consumer<E> consumer) throws IOException, E {
+        while (!records.isEmpty()) {
+            // Only removed once accepted
+            consumer.accept(records.peekFirst());
+            records.pollFirst();
+        }
+        if (spillOutput == null) {
+            return;
+        }
+        spillOutput.close();
+        spillOutput = null;
+        Path file = spillFile;
+        int count = spilled;
+        spillFile = null;
+        spilled = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+            for (int i = 0; i < count; i++) {
+                EventRecord record = pool.acquire(0);
+                read(in, record);
+                try {
+                    consumer.accept(record);
+                } catch (Exception ex) {
+                    respill(pool, record, in, count - i - 1);
+                    throw ex;
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Writes a record that was not accepted and the unread rest of the spill file to a
+     * new spill file.
+     */
+    private void respill(EventRecordPool pool, EventRecord failed, DataInputStream in, int remaining) throws IOException {
+        spillFile = Files.createTempFile("tidebound-spool-", ".bin");
+        spillOutput = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spillFile), BUFFER_SIZE));
+        write(spillOutput, failed);
+        spilled++;
+        for (int i = 0; i < remaining; i++) {
+            failed.clear();
+            read(in, failed);
+            write(spillOutput, failed);
+            spilled++;
+        }
+        pool.release(failed);
+    }
+
+    /**
+     * Drops all records, returning the ones in memory to the pool.
+     */
+    public void discard(EventRecordPool pool) throws IOException {
+        while (!records.isEmpty()) {
+            pool.release(records.pollFirst());
+        }
+        deleteSpillFile();
+    }
+
+    @Override
+    public void close() throws IOException {
+        records.clear();
+        deleteSpillFile();
+    }
+
+    private void deleteSpillFile() throws IOException {
+        spilled = 0;
+        try {
+            if (spillOutput != null) {
+                spillOutput.close();
+                spillOutput = null;
+            }
+        } finally {
+            if (spillFile != null) {
+                Files.deleteIfExists(spillFile);
+                spillFile = null;
+            }
+        }
+    }
+
+    static void write(DataOutputStream out, EventRecord record) throws IOException {
+        for (EventField field : EventField.all()) {
+            if (!record.has(field)) {
+                continue;
+            }
+            out.writeByte(field.ordinal());
+            switch (field.getKind()) {
+                case INT:
+                    out.writeInt(record.getInt(field));
+                    break;
+                case FLOAT:
+                    out.writeFloat(record.getFloat(field));
+                    break;
+                case BOOLEAN:
+                    out.writeBoolean(record.getBoolean(field));
+                    break;
+                case STRING:
+                    // Not writeUTF, which is limited to 64 KiB (trajectory keys can be longer)
+                    byte[] bytes = record.getString(field).getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                    break;
+            }
+        }
+        out.writeByte(END_OF_RECORD);
+    }
+
+    static void read(DataInputStream in, EventRecord record) throws IOException {
+        EventField[] fields = EventField.all();
+        int ordinal;
+        while ((ordinal = in.readUnsignedByte()) != END_OF_RECORD) {
+            EventField field = fields[ordinal];
+            switch (field.getKind()) {
+                case INT:
+                    record.setInt(field, in.readInt());
+                    break;
+                case FLOAT:
+                    record.setFloat(field, in.readFloat());
+                    break;
+                case BOOLEAN:
+                    record.setBoolean(field, in.readBoolean());
+                    break;
+                case STRING:
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    record.setString(field, new String(bytes, StandardCharsets.UTF_8));
+                    break;
+            }
+        }
+    }
+}
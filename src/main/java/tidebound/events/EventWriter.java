@@ -0,0 +1,384 @@
+package tidebound.events;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Writes {@link EventRecord}s as NDJSON straight into a reusable UTF-8 byte buffer.
+ *
+ * The bytes are identical to {@code gson.toJson(record) + "\n"} with the default
+ * (HTML-safe) Gson and {@link EventRecordTypeAdapter}, without reflection, intermediate
+ * Strings or per-event writes to the underlying stream. Buffered bytes are written
+ * whenever the buffer reaches the chunk size; the {@link FlushPolicy} decides when the
+ * underlying stream is additionally flushed.
+ *
+ * With a {@link SymbolTable}, name fields ({@link EventField#isSymbol()}) are written as
+ * integer ids instead. The first line referencing an id is preceded by its definition,
+ * {@code {"time":0,"type":"symbol","key":"<name>","value":<id>}}, so the dictionary is
+ * streamed along with the events.
+ *
+ * Not thread safe; each parse owns its own writer.
+ */
+public class EventWriter implements Flushable {
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private static final byte[][] FIELD_PREFIXES;
+    private static final EventField[] SYMBOL_FIELDS;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    // Escape sequences for ASCII characters, null if the character is written as is
+    private static final byte[][] ASCII_ESCAPES = new byte[128][];
+    // Longest encoding of a single UTF-16 char: \\uXXXX
+    private static final int MAX_BYTES_PER_CHAR = 6;
+    // Longest Integer.toString / Float.toString output plus the field separator
+    private static final int MAX_NUMBER_BYTES = 24;
+
+    static {
+        EventField[] fields = EventField.all();
+        FIELD_PREFIXES = new byte[fields.length][];
+        for (EventField field : fields) {
+            FIELD_PREFIXES[field.ordinal()] = (",\"" + field.getJsonName() + "\":").getBytes(StandardCharsets.UTF_8);
+        }
+        SYMBOL_FIELDS = Arrays.stream(fields).filter(EventField::isSymbol).toArray(EventField[]::new);
+
+        for (int c = 0; c < 0x20; c++) {
+            ASCII_ESCAPES[c] = String.format("\\u%04x", c).getBytes(StandardCharsets.US_ASCII);
+        }
+        ASCII_ESCAPES['"'] = "\\\"".getBytes(StandardCharsets.US_ASCII);
+        ASCII_ESCAPES['\\'] = "\\\\".getBytes(StandardCharsets.US_ASCII);
+        ASCII_ESCAPES['\t'] = "\\t".getBytes(StandardCharsets.US_ASCII);
+        ASCII_ESCAPES['\b'] = "\\b".getBytes(StandardCharsets.US_ASCII);
+        ASCII_ESCAPES['\n'] = "\\n".getBytes(StandardCharsets.US_ASCII);
+        ASCII_ESCAPES['\r'] = "\\r".getBytes(StandardCharsets.US_ASCII);
+        ASCII_ESCAPES['\f'] = "\\f".getBytes(StandardCharsets.US_ASCII);
+        // Gson escapes these by default (HTML-safe output)
+        ASCII_ESCAPES['<'] = "\\u003c".getBytes(StandardCharsets.US_ASCII);
+        ASCII_ESCAPES['>'] = "\\u003e".getBytes(StandardCharsets.US_ASCII);
+        ASCII_ESCAPES['&'] = "\\u0026".getBytes(StandardCharsets.US_ASCII);
+        ASCII_ESCAPES['='] = "\\u003d".getBytes(StandardCharsets.US_ASCII);
+        ASCII_ESCAPES['\''] = "\\u0027".getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private final OutputStream out;
+    private final FlushPolicy flushPolicy;
+    private final int chunkSize;
+    // null to write names as text
+    private final SymbolTable symbols;
+    private final BitSet definedSymbols = new BitSet();
+    private final EventRecord symbolDefinition = new EventRecord(0);
+    private byte[] buffer;
+    private int position;
+    private int eventsSinceFlush;
+
+    public EventWriter(OutputStream out) {
+        this(out, FlushPolicy.atEnd());
+    }
+
+    public EventWriter(OutputStream out, FlushPolicy flushPolicy) {
+        this(out, flushPolicy, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param out         Stream receiving the NDJSON lines
+     * @param flushPolicy When to flush the stream
+     * @param chunkSize   Number of buffered bytes after which they are written to the stream
+     */
+    public EventWriter(OutputStream out, FlushPolicy flushPolicy, int chunkSize) {
+        this(out, flushPolicy, chunkSize, null);
+    }
+
+    /**
+     * @param out         Stream receiving the NDJSON lines
+     * @param flushPolicy When to flush the stream
+     * @param chunkSize   Number of buffered bytes after which they are written to the stream
+     * @param symbols     Table assigning the ids of name fields, null to write names as text
+     */
+    public EventWriter(OutputStream out, FlushPolicy flushPolicy, int chunkSize, SymbolTable symbols) {
+        this.out = out;
+        this.flushPolicy = flushPolicy;
+        this.chunkSize = chunkSize;
+        this.symbols = symbols;
+        this.buffer = new byte[chunkSize + 1024];
+        this.symbolDefinition.setType("symbol");
+    }
+
+    /**
+     * Encodes a record as one NDJSON line.
+     *
+     * @throws IllegalArgumentException if a float field is NaN or infinite; nothing is written then
+     * @throws IOException              if writing buffered bytes to the stream fails
+     */
+    public void write(EventRecord record) throws IOException {
+        if (symbols != null) {
+            defineSymbols(record);
+        }
+        int lineStart = position;
+        try {
+            encode(record);
+        } catch (IllegalArgumentException ex) {
+            position = lineStart;
+            throw ex;
+        }
+        eventsSinceFlush++;
+        if (flushPolicy.mode == FlushPolicy.Mode.EVERY_N_EVENTS && eventsSinceFlush >= flushPolicy.events) {
+            flush();
+        } else if (position >= chunkSize) {
+            writeBuffer();
+        }
+    }
+
+    /**
+     * Called at the end of every replay tick; flushes if the policy asks for it.
+     */
+    public void endTick() throws IOException {
+        if (flushPolicy.mode == FlushPolicy.Mode.PER_TICK && eventsSinceFlush > 0) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes all buffered lines and flushes the underlying stream.
+     */
+    @Override
+    public void flush() throws IOException {
+        writeBuffer();
+        eventsSinceFlush = 0;
+        out.flush();
+    }
+
+    private void writeBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private void encode(EventRecord record) {
+        ensureCapacity(1);
+        buffer[position++] = '{';
+        boolean first = true;
+        for (EventField field : EventField.all()) {
+            if (!record.has(field)) {
+                continue;
+            }
+            byte[] prefix = FIELD_PREFIXES[field.ordinal()];
+            int offset = first ? 1 : 0;
+            ensureCapacity(prefix.length + MAX_NUMBER_BYTES);
+            System.arraycopy(prefix, offset, buffer, position, prefix.length - offset);
+            position += prefix.length - offset;
+            first = false;
+            switch (field.getKind()) {
+                case INT:
+                    writeInt(record.getInt(field));
+                    break;
+                case FLOAT:
+                    writeFloat(record.getFloat(field));
+                    break;
+                case BOOLEAN:
+                    writeAscii(record.getBoolean(field) ? "true" : "false");
+                    break;
+                case STRING:
+                    if (symbols != null && field.isSymbol()) {
+                        writeInt(symbols.intern(record.getString(field)));
+                    } else {
+                        writeString(record.getString(field));
+                    }
+                    break;
+            }
+        }
+        ensureCapacity(2);
+        buffer[position++] = '}';
+        buffer[position++] = '\n';
+    }
+
+    /**
+     * Writes the definitions of the ids the record references for the first time.
+     */
+    private void defineSymbols(EventRecord record) {
+        for (EventField field : SYMBOL_FIELDS) {
+            if (!record.has(field)) {
+                continue;
+            }
+            int id = symbols.intern(record.getString(field));
+            if (!definedSymbols.get(id)) {
+                definedSymbols.set(id);
+                symbolDefinition.setString(EventField.KEY, symbols.get(id));
+                symbolDefinition.setInt(EventField.VALUE, id);
+                encode(symbolDefinition);
+            }
+        }
+    }
+
+    private void writeInt(int value) {
+        if (value == Integer.MIN_VALUE) {
+            writeAscii(Integer.toString(value));
+            return;
+        }
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+    }
+
+    private void writeFloat(float value) {
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            throw new IllegalArgumentException(value + " is not a valid double value as per JSON specification.");
+        }
+        writeAscii(Float.toString(value));
+    }
+
+    private void writeAscii(String value) {
+        ensureCapacity(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer[position++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void writeString(String value) {
+        int length = value.length();
+        ensureCapacity(length * MAX_BYTES_PER_CHAR + 2);
+        byte[] buf = buffer;
+        int pos = position;
+        buf[pos++] = '"';
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                byte[] escape = ASCII_ESCAPES[c];
+                if (escape == null) {
+                    buf[pos++] = (byte) c;
+                } else {
+                    System.arraycopy(escape, 0, buf, pos, escape.length);
+                    pos += escape.length;
+                }
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xc0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if (c == 0x2028 || c == 0x2029) {
+                buf[pos++] = '\\';
+                buf[pos++] = 'u';
+                buf[pos++] = HEX[(c >> 12) & 0xf];
+                buf[pos++] = HEX[(c >> 8) & 0xf];
+                buf[pos++] = HEX[(c >> 4) & 0xf];
+                buf[pos++] = HEX[c & 0xf];
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buf[pos++] = (byte) (0xf0 | (codePoint >> 18));
+                buf[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buf[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate, replaced like String.getBytes(UTF_8) does
+                buf[pos++] = '?';
+            } else {
+                buf[pos++] = (byte) (0xe0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        buf[pos++] = '"';
+        position = pos;
+    }
+
+    private void ensureCapacity(int additional) {
+        int required = position + additional;
+        if (required > buffer.length) {
+            byte[] grown = new byte[Math.max(required, buffer.length * 2)];
+            System.arraycopy(buffer, 0, grown, 0, position);
+            buffer = grown;
+        }
+    }
+
+    /**
+     * When the writer flushes the underlying stream, in addition to writing full chunks.
+     */
+    public static final class FlushPolicy {
+
+        public enum Mode {
+            EVERY_N_EVENTS,
+            PER_TICK,
+            AT_END
+        }
+
+        private final Mode mode;
+        private final int events;
+
+        private FlushPolicy(Mode mode, int events) {
+            this.mode = mode;
+            this.events = events;
+        }
+
+        /**
+         * Flushes after every {@code events} events.
+         */
+        public static FlushPolicy everyEvents(int events) {
+            if (events <= 0) {
+                throw new IllegalArgumentException("events must be positive: " + events);
+            }
+            return new FlushPolicy(Mode.EVERY_N_EVENTS, events);
+        }
+
+        /**
+         * Flushes at the end of every tick that produced events.
+         */
+        public static FlushPolicy perTick() {
+            return new FlushPolicy(Mode.PER_TICK, 0);
+        }
+
+        /**
+         * Only writes full chunks and flushes when the parse is finished.
+         */
+        public static FlushPolicy atEnd() {
+            return new FlushPolicy(Mode.AT_END, 0);
+        }
+
+        /**
+         * Parses a policy from configuration: {@code end}, {@code tick} or {@code events:<n>}.
+         *
+         * @param value Configured value, null or empty for the default
+         * @return The policy, {@link #atEnd()} by default
+         */
+        public static FlushPolicy parse(String value) {
+            if (value == null || value.isBlank() || value.equalsIgnoreCase("end")) {
+                return atEnd();
+            }
+            if (value.equalsIgnoreCase("tick")) {
+                return perTick();
+            }
+            if (value.regionMatches(true, 0, "events:", 0, "events:".length())) {
+                try {
+                    return everyEvents(Integer.parseInt(value.substring("events:".length()).trim()));
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("Invalid flush policy: " + value, ex);
+                }
+            }
+            throw new IllegalArgumentException("Invalid flush policy: " + value);
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public int getEvents() {
+            return events;
+        }
+
+        @Override
+        public String toString() {
+            return mode == Mode.EVERY_N_EVENTS ? "events:" + events : (mode == Mode.PER_TICK ? "tick" : "end");
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package tidebound.events;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interned unit, hero, item and ability names of a single parse.
+ *
+ * Every distinct name gets a small integer id, assigned in order of first use. Ids are
+ * only meaningful within the parse (and the output) they were created for.
+ */
+public final class SymbolTable {
+
+    /**
+     * Id of a null name.
+     */
+    public static final int NONE = -1;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * @return The id of the name, assigning a new one if it was not seen before
+     */
+    public int intern(String name) {
+        if (name == null) {
+            return NONE;
+        }
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            names.add(name);
+            ids.put(name, id);
+        }
+        return id;
+    }
+
+    /**
+     * @return The id of the name, {@link #NONE} if it was never interned
+     */
+    public int find(String name) {
+        if (name == null) {
+            return NONE;
+        }
+        return ids.getOrDefault(name, NONE);
+    }
+
+    /**
+     * @return The name of an id, null for {@link #NONE}
+     */
+    public String get(int id) {
+        return id == NONE ? null : names.get(id);
+    }
+
+    public int size() {
+        return names.size();
+    }
+}
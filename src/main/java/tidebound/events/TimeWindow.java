@@ -0,0 +1,91 @@
+package tidebound.events;
+
+/**
+ * Range of game time, in seconds relative to the game start like the {@code time} of
+ * the written events, that a client is interested in. Either bound may be open.
+ *
+ * Draft and pre-game events have negative times, so {@code [..., 0]} selects the draft
+ * and {@code [0, 600]} the first ten minutes.
+ */
+public final class TimeWindow {
+
+    private static final TimeWindow ALL = new TimeWindow(null, null);
+
+    // null means open
+    private final Integer start;
+    private final Integer end;
+
+    private TimeWindow(Integer start, Integer end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * @return A window covering the whole replay
+     */
+    public static TimeWindow all() {
+        return ALL;
+    }
+
+    /**
+     * @param start First second of the window, null for the start of the replay
+     * @param end   Last second of the window, null for the end of the replay
+     * @return The window
+     * @throws IllegalArgumentException if the end is before the start
+     */
+    public static TimeWindow of(Integer start, Integer end) {
+        if (start == null && end == null) {
+            return ALL;
+        }
+        if (start != null && end != null && end < start) {
+            throw new IllegalArgumentException("Time window ends before it starts: " + start + " > " + end);
+        }
+        return new TimeWindow(start, end);
+    }
+
+    public boolean isAll() {
+        return this == ALL;
+    }
+
+    public boolean hasStart() {
+        return start != null;
+    }
+
+    public boolean hasEnd() {
+        return end != null;
+    }
+
+    /**
+     * @return First second of the window, null if open
+     */
+    public Integer getStart() {
+        return start;
+    }
+
+    /**
+     * @return Last second of the window, null if open
+     */
+    public Integer getEnd() {
+        return end;
+    }
+
+    /**
+     * @param time Seconds relative to the game start
+     */
+    public boolean contains(int time) {
+        return (start == null || time >= start) && (end == null || time <= end);
+    }
+
+    /**
+     * @param time Seconds relative to the game start
+     * @return true if every later second is outside the window
+     */
+    public boolean isPassed(int time) {
+        return end != null && time > end;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + (start != null ? start : "") + ", " + (end != null ? end : "") + "]";
+    }
+}
@@ -0,0 +1,13 @@
+package tidebound.extractors;
+
+import skadistats.clarity.model.CombatLogEntry;
+import skadistats.clarity.processor.runner.Context;
+
+/**
+ * Implemented by extractor processors reading the combat log. The parse calls them after
+ * it updated the time from the entry.
+ */
+public interface CombatLogListener {
+
+    void onCombatLogEntry(Context ctx, CombatLogEntry cle);
+}
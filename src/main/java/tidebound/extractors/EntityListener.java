@@ -0,0 +1,32 @@
+package tidebound.extractors;
+
+import skadistats.clarity.model.Entity;
+import skadistats.clarity.model.FieldPath;
+import skadistats.clarity.processor.runner.Context;
+
+/**
+ * Implemented by extractor processors reading entities. Only entities of the classes in
+ * the allowlist of the parse are passed on, see {@link ExtractorContext#getEntityClassFilter()}.
+ * Implement only the events needed: the dispatcher only adds handlers for updates and
+ * entries to the runner when a selected extractor overrides them.
+ */
+public interface EntityListener {
+
+    default void onEntityCreated(Context ctx, Entity e) {
+    }
+
+    /**
+     * @param fieldPaths Updated field paths, only the first {@code num} are valid
+     */
+    default void onEntityUpdated(Context ctx, Entity e, FieldPath[] fieldPaths, int num) {
+    }
+
+    default void onEntityDeleted(Context ctx, Entity e) {
+    }
+
+    /**
+     * An entity entered the PVS of the replay, e.g. an item that was picked up.
+     */
+    default void onEntityEntered(Context ctx, Entity e) {
+    }
+}
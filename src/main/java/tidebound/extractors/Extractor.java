@@ -0,0 +1,56 @@
+package tidebound.extractors;
+
+import java.util.Set;
+
+import tidebound.events.EventProjection;
+
+/**
+ * Produces one group of events from a replay, e.g. wards or chat.
+ *
+ * Extractors are found with {@link java.util.ServiceLoader}: an implementation is listed
+ * in {@code META-INF/services/tidebound.extractors.Extractor} and needs a public no-arg
+ * constructor. The events an extractor needs are the listener interfaces its
+ * {@link #getProcessorClass() processor class} implements, see {@link ExtractorDispatcher};
+ * the processor is only created for a parse whose projection includes one of its event
+ * types.
+ *
+ * The entity classes an extractor reads are added to the allowlist of the parse, its
+ * entity listeners are not called for any other class.
+ */
+public interface Extractor {
+
+    /**
+     * @return Unique name, used to disable the extractor and in its cost statistics
+     */
+    String getName();
+
+    /**
+     * @param projection Requested subset of the output
+     * @return true if the extractor writes at least one of the requested event types
+     */
+    boolean isRequiredBy(EventProjection projection);
+
+    /**
+     * @return Class of the objects returned by {@link #createProcessor}, implementing
+     *         {@link TickListener}, {@link CombatLogListener}, {@link EntityListener} or
+     *         {@link MessageListener}; it may use Clarity annotations such as
+     *         {@code @UsesStringTable}, but handlers annotated there are not accounted
+     */
+    Class<?> getProcessorClass();
+
+    /**
+     * @return DtClass names of the entities the processor reads, with a trailing
+     *         {@code *} for a prefix, see {@link tidebound.entities.EntityClassFilter}
+     */
+    default Set<String> getEntityClasses() {
+        return Set.of();
+    }
+
+    /**
+     * Creates the processor for one parse. The engine counts and times the calls to its
+     * listeners in the {@link ExtractorStats} of the extractor.
+     *
+     * @param context State of the parse shared by all extractors
+     */
+    Object createProcessor(ExtractorContext context);
+}
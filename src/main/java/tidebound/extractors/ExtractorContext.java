@@ -0,0 +1,90 @@
+package tidebound.extractors;
+
+import java.util.Map;
+
+import skadistats.clarity.model.Entity;
+import skadistats.clarity.processor.runner.Context;
+import tidebound.entities.EntityClassFilter;
+import tidebound.entities.EntityTracker;
+import tidebound.entities.PropertyAccessors;
+import tidebound.events.EventProjection;
+import tidebound.events.EventRecord;
+import tidebound.events.SymbolTable;
+
+/**
+ * State of a parse that extractors read and the output they write to. Implemented by the
+ * parse; only valid on the thread running it.
+ */
+public interface ExtractorContext {
+
+    /**
+     * Creates an empty entry, reusing a previously written one when possible.
+     *
+     * @param time Event time, relative to the start of the replay
+     * @return The entry; pass it to {@link #output(EventRecord)} once filled in
+     */
+    EventRecord newEntry(int time);
+
+    /**
+     * Writes an entry. The entry must not be used by the caller afterwards.
+     */
+    void output(EventRecord entry);
+
+    /**
+     * @return Current replay time in seconds, updated at tick start and by the combat log
+     */
+    int getTime();
+
+    /**
+     * @return true once the ancient was destroyed
+     */
+    boolean isPostGame();
+
+    EventProjection getProjection();
+
+    /**
+     * @return Tracked entities; groups are registered when the processor is created
+     */
+    EntityTracker getEntityTracker();
+
+    /**
+     * @return The entity classes read by the parse, entity handlers return early for any
+     *         other class
+     */
+    EntityClassFilter getEntityClassFilter();
+
+    SymbolTable getSymbols();
+
+    /**
+     * @return Field path resolutions of the parse, also for the
+     *         {@link tidebound.entities.PropertyWatch}es of a processor
+     */
+    PropertyAccessors getProperties();
+
+    /**
+     * @return true if the inventories of the players were requested as item_timeline
+     *         events, see {@link tidebound.ParseOptions#isItemTimeline()}
+     */
+    boolean isItemTimeline();
+
+    /**
+     * @return Player slot by combat log hero name id, filled in as heroes are seen
+     */
+    Map<Integer, Integer> getSlotBySymbol();
+
+    /**
+     * @return Player slot by 64 bit steam id, filled in once the players are known
+     */
+    Map<Long, Integer> getSteamIdToPlayerSlot();
+
+    /**
+     * @return Player slot of the entity or null if it has none
+     */
+    Integer getPlayerSlotFromEntity(Context ctx, Entity entity);
+
+    /**
+     * @param idx Index for properties containing {@code %i}, null otherwise
+     * @return The property value or null if the entity or the property does not exist
+     */
+    <T> T getEntityProperty(Entity entity, String property, Integer idx);
+}
@@ -0,0 +1,391 @@
+package tidebound.extractors;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.google.protobuf.GeneratedMessage;
+
+import skadistats.clarity.model.CombatLogEntry;
+import skadistats.clarity.model.Entity;
+import skadistats.clarity.model.FieldPath;
+import skadistats.clarity.processor.entities.OnEntityEntered;
+import skadistats.clarity.processor.entities.OnEntityUpdated;
+import skadistats.clarity.processor.reader.OnMessage;
+import skadistats.clarity.processor.runner.Context;
+import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.CDOTAUserMsg_ChatEvent;
+import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.CDOTAUserMsg_ChatMessage;
+import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.CDOTAUserMsg_ChatWheel;
+import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.CDOTAUserMsg_LocationPing;
+import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.CDOTAUserMsg_SpectatorPlayerUnitOrders;
+import skadistats.clarity.wire.shared.demo.proto.Demo.CDemoFileInfo;
+import skadistats.clarity.wire.shared.s1.proto.S1UserMessages.CUserMsg_SayText2;
+import skadistats.clarity.wire.shared.s2.proto.S2UserMessages.CUserMessageSayText2;
+import tidebound.entities.EntityClassFilter;
+
+/**
+ * Passes the events of a parse to the processors of its extractors and accounts every
+ * call in the {@link ExtractorStats} of the extractor, so the extractors do not time
+ * themselves.
+ *
+ * Clarity calls the annotated handlers of a processor directly, without a way to wrap
+ * them, so extractors receive their events through the listener interfaces of this
+ * package instead. The parse calls the dispatcher for the events it handles itself; the
+ * Clarity handlers for entity updates, entity entries and user messages are only added
+ * to the runner, by {@link #getProcessors()}, when a selected extractor needs them. Only
+ * used on the thread running the parse.
+ */
+public final class ExtractorDispatcher {
+
+    private static final Map<Class<? extends GeneratedMessage>, Function<List<Target<MessageListener>>, Object>> MESSAGE_HANDLERS = new HashMap<>();
+
+    static {
+        MESSAGE_HANDLERS.put(CDOTAUserMsg_ChatEvent.class, ChatEventHandler::new);
+        MESSAGE_HANDLERS.put(CDOTAUserMsg_ChatMessage.class, ChatMessageHandler::new);
+        MESSAGE_HANDLERS.put(CDOTAUserMsg_ChatWheel.class, ChatWheelHandler::new);
+        MESSAGE_HANDLERS.put(CUserMsg_SayText2.class, SayText2S1Handler::new);
+        MESSAGE_HANDLERS.put(CUserMessageSayText2.class, SayText2S2Handler::new);
+        MESSAGE_HANDLERS.put(CDOTAUserMsg_LocationPing.class, LocationPingHandler::new);
+        MESSAGE_HANDLERS.put(CDOTAUserMsg_SpectatorPlayerUnitOrders.class, UnitOrdersHandler::new);
+    }
+
+    private final EntityClassFilter entityClassFilter;
+    private final List<Object> processors = new ArrayList<>();
+    private final List<Target<TickListener>> tickStartListeners = new ArrayList<>();
+    private final List<Target<TickListener>> tickEndListeners = new ArrayList<>();
+    private final List<Target<CombatLogListener>> combatLogListeners = new ArrayList<>();
+    private final List<Target<EntityListener>> entityCreatedListeners = new ArrayList<>();
+    private final List<Target<EntityListener>> entityUpdatedListeners = new ArrayList<>();
+    private final List<Target<EntityListener>> entityDeletedListeners = new ArrayList<>();
+    private final List<Target<EntityListener>> entityEnteredListeners = new ArrayList<>();
+    private final Map<Class<? extends GeneratedMessage>, List<Target<MessageListener>>> messageListeners = new LinkedHashMap<>();
+
+    /**
+     * @param entityClassFilter Entity classes read by the parse, the dispatcher drops
+     *                          updates and entries of all others
+     */
+    public ExtractorDispatcher(EntityClassFilter entityClassFilter) {
+        this.entityClassFilter = entityClassFilter;
+    }
+
+    /**
+     * @return The message classes extractors can listen to
+     */
+    public static Set<Class<? extends GeneratedMessage>> getMessageClasses() {
+        Set<Class<? extends GeneratedMessage>> classes = new HashSet<>(MESSAGE_HANDLERS.keySet());
+        classes.add(CDemoFileInfo.class);
+        return classes;
+    }
+
+    /**
+     * Registers the processor of an extractor for the listener interfaces it implements.
+     *
+     * @param stats Receives the events and the time of the calls to the processor
+     * @throws IllegalArgumentException if it listens to a message class with no handler
+     */
+    public void add(Object processor, ExtractorStats stats) {
+        processors.add(processor);
+        if (processor instanceof TickListener) {
+            Target<TickListener> target = new Target<>((TickListener) processor, stats);
+            if (overrides(processor, TickListener.class, "onTick", Context.class, TickState.class)) {
+                tickStartListeners.add(target);
+            }
+            if (overrides(processor, TickListener.class, "onTickEnd", Context.class, boolean.class)) {
+                tickEndListeners.add(target);
+            }
+        }
+        if (processor instanceof CombatLogListener) {
+            combatLogListeners.add(new Target<>((CombatLogListener) processor, stats));
+        }
+        if (processor instanceof EntityListener) {
+            Target<EntityListener> target = new Target<>((EntityListener) processor, stats);
+            if (overrides(processor, EntityListener.class, "onEntityCreated", Context.class, Entity.class)) {
+                entityCreatedListeners.add(target);
+            }
+            if (overrides(processor, EntityListener.class, "onEntityUpdated", Context.class, Entity.class, FieldPath[].class, int.class)) {
+                entityUpdatedListeners.add(target);
+            }
+            if (overrides(processor, EntityListener.class, "onEntityDeleted", Context.class, Entity.class)) {
+                entityDeletedListeners.add(target);
+            }
+            if (overrides(processor, EntityListener.class, "onEntityEntered", Context.class, Entity.class)) {
+                entityEnteredListeners.add(target);
+            }
+        }
+        if (processor instanceof MessageListener) {
+            Target<MessageListener> target = new Target<>((MessageListener) processor, stats);
+            for (Class<? extends GeneratedMessage> messageClass : target.listener.getMessageClasses()) {
+                if (messageClass != CDemoFileInfo.class && !MESSAGE_HANDLERS.containsKey(messageClass)) {
+                    throw new IllegalArgumentException("No handler for message " + messageClass.getSimpleName()
+                        + " of extractor " + stats.getName());
+                }
+                messageListeners.computeIfAbsent(messageClass, key -> new ArrayList<>()).add(target);
+            }
+        }
+    }
+
+    /**
+     * Only the events a processor overrides are dispatched to it, so the others neither
+     * cost a call nor make the runner raise them.
+     */
+    private static boolean overrides(Object processor, Class<?> listenerType, String name, Class<?>... parameterTypes) {
+        try {
+            return processor.getClass().getMethod(name, parameterTypes).getDeclaringClass() != listenerType;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return The processors of the extractors, for their own Clarity annotations such as
+     *         {@code @UsesStringTable}, and the handlers of the entity updates, entity
+     *         entries and user messages the extractors listen to
+     */
+    public List<Object> getProcessors() {
+        List<Object> result = new ArrayList<>(processors);
+        if (!entityUpdatedListeners.isEmpty()) {
+            result.add(new EntityUpdateHandler(this));
+        }
+        if (!entityEnteredListeners.isEmpty()) {
+            result.add(new EntityEnteredHandler(this));
+        }
+        for (Map.Entry<Class<? extends GeneratedMessage>, List<Target<MessageListener>>> entry : messageListeners.entrySet()) {
+            Function<List<Target<MessageListener>>, Object> handler = MESSAGE_HANDLERS.get(entry.getKey());
+            if (handler != null) {
+                result.add(handler.apply(entry.getValue()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return true if an extractor reads the state at tick start
+     */
+    public boolean hasTickListeners() {
+        return !tickStartListeners.isEmpty();
+    }
+
+    public void onTick(Context ctx, TickState tick) {
+        for (int i = 0; i < tickStartListeners.size(); i++) {
+            Target<TickListener> target = tickStartListeners.get(i);
+            long start = target.stats.start();
+            target.listener.onTick(ctx, tick);
+            target.stats.stop(start);
+        }
+    }
+
+    public void onTickEnd(Context ctx, boolean synthetic) {
+        for (int i = 0; i < tickEndListeners.size(); i++) {
+            Target<TickListener> target = tickEndListeners.get(i);
+            long start = target.stats.start();
+            target.listener.onTickEnd(ctx, synthetic);
+            target.stats.stop(start);
+        }
+    }
+
+    public void onCombatLogEntry(Context ctx, CombatLogEntry cle) {
+        for (int i = 0; i < combatLogListeners.size(); i++) {
+            Target<CombatLogListener> target = combatLogListeners.get(i);
+            long start = target.stats.start();
+            target.listener.onCombatLogEntry(ctx, cle);
+            target.stats.stop(start);
+        }
+    }
+
+    /**
+     * @param e Entity accepted by the entity class filter
+     */
+    public void onEntityCreated(Context ctx, Entity e) {
+        for (int i = 0; i < entityCreatedListeners.size(); i++) {
+            Target<EntityListener> target = entityCreatedListeners.get(i);
+            long start = target.stats.start();
+            target.listener.onEntityCreated(ctx, e);
+            target.stats.stop(start);
+        }
+    }
+
+    /**
+     * @param e Entity accepted by the entity class filter
+     */
+    public void onEntityDeleted(Context ctx, Entity e) {
+        for (int i = 0; i < entityDeletedListeners.size(); i++) {
+            Target<EntityListener> target = entityDeletedListeners.get(i);
+            long start = target.stats.start();
+            target.listener.onEntityDeleted(ctx, e);
+            target.stats.stop(start);
+        }
+    }
+
+    /**
+     * Passes on the file info at the end of the replay.
+     */
+    public void onFileInfo(Context ctx, CDemoFileInfo message) {
+        List<Target<MessageListener>> targets = messageListeners.get(CDemoFileInfo.class);
+        if (targets != null) {
+            dispatch(targets, ctx, message);
+        }
+    }
+
+    private void onEntityUpdated(Context ctx, Entity e, FieldPath[] fieldPaths, int num) {
+        if (!entityClassFilter.accepts(e)) return;
+        for (int i = 0; i < entityUpdatedListeners.size(); i++) {
+            Target<EntityListener> target = entityUpdatedListeners.get(i);
+            long start = target.stats.start();
+            target.listener.onEntityUpdated(ctx, e, fieldPaths, num);
+            target.stats.stop(start);
+        }
+    }
+
+    private void onEntityEntered(Context ctx, Entity e) {
+        if (!entityClassFilter.accepts(e)) return;
+        for (int i = 0; i < entityEnteredListeners.size(); i++) {
+            Target<EntityListener> target = entityEnteredListeners.get(i);
+            long start = target.stats.start();
+            target.listener.onEntityEntered(ctx, e);
+            target.stats.stop(start);
+        }
+    }
+
+    private static void dispatch(List<Target<MessageListener>> targets, Context ctx, GeneratedMessage message) {
+        for (int i = 0; i < targets.size(); i++) {
+            Target<MessageListener> target = targets.get(i);
+            long start = target.stats.start();
+            target.listener.onMessage(ctx, message);
+            target.stats.stop(start);
+        }
+    }
+
+    private static final class Target<L> {
+        private final L listener;
+        private final ExtractorStats stats;
+
+        Target(L listener, ExtractorStats stats) {
+            this.listener = listener;
+            this.stats = stats;
+        }
+    }
+
+    public static class EntityUpdateHandler {
+        private final ExtractorDispatcher dispatcher;
+
+        EntityUpdateHandler(ExtractorDispatcher dispatcher) {
+            this.dispatcher = dispatcher;
+        }
+
+        @OnEntityUpdated
+        public void onEntityUpdated(Context ctx, Entity e, FieldPath[] fieldPaths, int num) {
+            dispatcher.onEntityUpdated(ctx, e, fieldPaths, num);
+        }
+    }
+
+    public static class EntityEnteredHandler {
+        private final ExtractorDispatcher dispatcher;
+
+        EntityEnteredHandler(ExtractorDispatcher dispatcher) {
+            this.dispatcher = dispatcher;
+        }
+
+        @OnEntityEntered
+        public void onEntityEntered(Context ctx, Entity e) {
+            dispatcher.onEntityEntered(ctx, e);
+        }
+    }
+
+    // Clarity only decodes the message classes a handler is annotated with, one handler per class
+
+    public static class ChatEventHandler {
+        private final List<Target<MessageListener>> targets;
+
+        ChatEventHandler(List<Target<MessageListener>> targets) {
+            this.targets = targets;
+        }
+
+        @OnMessage(CDOTAUserMsg_ChatEvent.class)
+        public void onMessage(Context ctx, CDOTAUserMsg_ChatEvent message) {
+            dispatch(targets, ctx, message);
+        }
+    }
+
+    public static class ChatMessageHandler {
+        private final List<Target<MessageListener>> targets;
+
+        ChatMessageHandler(List<Target<MessageListener>> targets) {
+            this.targets = targets;
+        }
+
+        @OnMessage(CDOTAUserMsg_ChatMessage.class)
+        public void onMessage(Context ctx, CDOTAUserMsg_ChatMessage message) {
+            dispatch(targets, ctx, message);
+        }
+    }
+
+    public static class ChatWheelHandler {
+        private final List<Target<MessageListener>> targets;
+
+        ChatWheelHandler(List<Target<MessageListener>> targets) {
+            this.targets = targets;
+        }
+
+        @OnMessage(CDOTAUserMsg_ChatWheel.class)
+        public void onMessage(Context ctx, CDOTAUserMsg_ChatWheel message) {
+            dispatch(targets, ctx, message);
+        }
+    }
+
+    public static class SayText2S1Handler {
+        private final List<Target<MessageListener>> targets;
+
+        SayText2S1Handler(List<Target<MessageListener>> targets) {
+            this.targets = targets;
+        }
+
+        @OnMessage(CUserMsg_SayText2.class)
+        public void onMessage(Context ctx, CUserMsg_SayText2 message) {
+            dispatch(targets, ctx, message);
+        }
+    }
+
+    public static class SayText2S2Handler {
+        private final List<Target<MessageListener>> targets;
+
+        SayText2S2Handler(List<Target<MessageListener>> targets) {
+            this.targets = targets;
+        }
+
+        @OnMessage(CUserMessageSayText2.class)
+        public void onMessage(Context ctx, CUserMessageSayText2 message) {
+            dispatch(targets, ctx, message);
+        }
+    }
+
+    public static class LocationPingHandler {
+        private final List<Target<MessageListener>> targets;
+
+        LocationPingHandler(List<Target<MessageListener>> targets) {
+            this.targets = targets;
+        }
+
+        @OnMessage(CDOTAUserMsg_LocationPing.class)
+        public void onMessage(Context ctx, CDOTAUserMsg_LocationPing message) {
+            dispatch(targets, ctx, message);
+        }
+    }
+
+    public static class UnitOrdersHandler {
+        private final List<Target<MessageListener>> targets;
+
+        UnitOrdersHandler(List<Target<MessageListener>> targets) {
+            this.targets = targets;
+        }
+
+        @OnMessage(CDOTAUserMsg_SpectatorPlayerUnitOrders.class)
+        public void onMessage(Context ctx, CDOTAUserMsg_SpectatorPlayerUnitOrders message) {
+            dispatch(targets, ctx, message);
+        }
+    }
+}
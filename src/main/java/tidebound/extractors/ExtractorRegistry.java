@@ -0,0 +1,124 @@
+package tidebound.extractors;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+import tidebound.events.EventProjection;
+
+/**
+ * The extractors of this deployment, loaded once with {@link ServiceLoader}, and the
+ * cost each of them added up over all parses.
+ */
+public final class ExtractorRegistry {
+
+    public static final String ENV_DISABLED_EXTRACTORS = "DISABLED_EXTRACTORS";
+
+    private final List<Extractor> extractors;
+    private final Set<String> disabled;
+    private final Map<String, ExtractorStats> totals = new LinkedHashMap<>();
+
+    /**
+     * @param extractors All available extractors, in the order their processors are added
+     * @param disabled   Names of the extractors never run
+     */
+    public ExtractorRegistry(List<Extractor> extractors, Collection<String> disabled) {
+        Set<String> names = new HashSet<>();
+        for (Extractor extractor : extractors) {
+            if (!names.add(extractor.getName())) {
+                throw new IllegalArgumentException("Duplicate extractor name: " + extractor.getName());
+            }
+        }
+        for (String name : disabled) {
+            if (!names.contains(name)) {
+                System.err.println("Ignoring unknown extractor in " + ENV_DISABLED_EXTRACTORS + ": " + name);
+            }
+        }
+        this.extractors = List.copyOf(extractors);
+        this.disabled = Set.copyOf(disabled);
+        for (Extractor extractor : extractors) {
+            if (isEnabled(extractor)) {
+                totals.put(extractor.getName(), new ExtractorStats(extractor.getName()));
+            }
+        }
+    }
+
+    /**
+     * Loads the extractors on the class path, without the ones disabled by
+     * {@code DISABLED_EXTRACTORS} (comma separated names).
+     */
+    public static ExtractorRegistry load() {
+        List<Extractor> extractors = new ArrayList<>();
+        for (Extractor extractor : ServiceLoader.load(Extractor.class, Extractor.class.getClassLoader())) {
+            extractors.add(extractor);
+        }
+        return new ExtractorRegistry(extractors, parseNames(System.getenv(ENV_DISABLED_EXTRACTORS)));
+    }
+
+    /**
+     * @return All loaded extractors, also the disabled ones
+     */
+    public List<Extractor> getExtractors() {
+        return extractors;
+    }
+
+    public boolean isEnabled(Extractor extractor) {
+        return !disabled.contains(extractor.getName());
+    }
+
+    /**
+     * @return The enabled extractors writing at least one event type of the projection
+     */
+    public List<Extractor> select(EventProjection projection) {
+        List<Extractor> selected = new ArrayList<>();
+        for (Extractor extractor : extractors) {
+            if (isEnabled(extractor) && extractor.isRequiredBy(projection)) {
+                selected.add(extractor);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Adds the cost of a finished parse to the totals.
+     */
+    public synchronized void record(Collection<ExtractorStats> parseStats) {
+        for (ExtractorStats stats : parseStats) {
+            ExtractorStats total = totals.get(stats.getName());
+            if (total != null) {
+                total.add(stats);
+            }
+        }
+    }
+
+    /**
+     * @return Totals of the enabled extractors since the process started, most expensive first
+     */
+    public synchronized List<ExtractorStats> getTotals() {
+        List<ExtractorStats> snapshot = new ArrayList<>(totals.size());
+        for (ExtractorStats total : totals.values()) {
+            snapshot.add(total.copy());
+        }
+        snapshot.sort((a, b) -> Long.compare(b.getNanos(), a.getNanos()));
+        return snapshot;
+    }
+
+    static Set<String> parseNames(String value) {
+        if (value == null || value.isBlank()) {
+            return Collections.emptySet();
+        }
+        Set<String> names = new HashSet<>();
+        for (String name : value.split(",")) {
+            if (!name.isBlank()) {
+                names.add(name.trim());
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,75 @@
+package tidebound.extractors;
+
+/**
+ * Number of events an extractor handled and the time spent in its listeners, both
+ * accounted by the {@link ExtractorDispatcher}.
+ *
+ * Listeners run on the thread of the parse and do not block, so their elapsed time is
+ * their CPU time; it is measured with {@link System#nanoTime()}, the per-thread CPU
+ * clock costs a system call per event. Not thread safe; the totals of the engine are
+ * combined with {@link #add(ExtractorStats)} under a lock.
+ */
+public final class ExtractorStats {
+
+    private final String name;
+    private long parses;
+    private long events;
+    private long nanos;
+
+    public ExtractorStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Starts timing an event, pass the result to {@link #stop(long)} when it was handled.
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void stop(long start) {
+        nanos += System.nanoTime() - start;
+        events++;
+    }
+
+    /**
+     * Adds the counts of another instance, e.g. of a finished parse to the totals.
+     */
+    public void add(ExtractorStats other) {
+        parses += Math.max(1, other.parses);
+        events += other.events;
+        nanos += other.nanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Number of parses added, 0 for the stats of a single parse
+     */
+    public long getParses() {
+        return parses;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public ExtractorStats copy() {
+        ExtractorStats copy = new ExtractorStats(name);
+        copy.parses = parses;
+        copy.events = events;
+        copy.nanos = nanos;
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d events, %.1f ms", name, events, nanos / 1e6);
+    }
+}
@@ -0,0 +1,22 @@
+package tidebound.extractors;
+
+import java.util.Set;
+
+import com.google.protobuf.GeneratedMessage;
+
+import skadistats.clarity.processor.runner.Context;
+
+/**
+ * Implemented by extractor processors reading replay messages. The message classes must
+ * be among those of {@link ExtractorDispatcher#getMessageClasses()}; CDemoFileInfo at the
+ * end of the replay is passed on before the epilogue is written.
+ */
+public interface MessageListener {
+
+    /**
+     * @return Classes of the messages passed to {@link #onMessage}
+     */
+    Set<Class<? extends GeneratedMessage>> getMessageClasses();
+
+    void onMessage(Context ctx, GeneratedMessage message);
+}
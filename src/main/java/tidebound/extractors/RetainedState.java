@@ -0,0 +1,24 @@
+package tidebound.extractors;
+
+/**
+ * Implemented by extractor processors whose state grows with the replay, e.g. maps keyed
+ * by entity or hero, so it counts towards the memory budget of the parse. The estimate is
+ * read on the thread running the parse, between handler calls.
+ */
+public interface RetainedState {
+
+    /**
+     * Approximate size of a hash map entry holding a boxed key and a boxed value.
+     */
+    long MAP_ENTRY_BYTES = 64;
+
+    /**
+     * Approximate size of a queued reference to an object kept alive by the queue.
+     */
+    long QUEUE_ENTRY_BYTES = 40;
+
+    /**
+     * @return Approximate bytes held by the processor
+     */
+    long estimateRetainedBytes();
+}
@@ -0,0 +1,24 @@
+package tidebound.extractors;
+
+import skadistats.clarity.processor.runner.Context;
+
+/**
+ * Implemented by extractor processors that read the game state at the start or the end
+ * of a tick. The parse calls them in the order the extractors are loaded: at tick start
+ * after it updated the clock and the players, and not once the parse has stopped; at tick
+ * end before it sends the events of the tick.
+ */
+public interface TickListener {
+
+    /**
+     * @param tick State read by the parse for this tick
+     */
+    default void onTick(Context ctx, TickState tick) {
+    }
+
+    /**
+     * @param synthetic true for the end of a full tick, see {@code @OnTickEnd}
+     */
+    default void onTickEnd(Context ctx, boolean synthetic) {
+    }
+}
@@ -0,0 +1,130 @@
+package tidebound.extractors;
+
+import skadistats.clarity.model.Entity;
+
+/**
+ * State of the game at the start of a tick, read once by the parse and shared by the
+ * {@link TickListener}s. Only valid during {@link TickListener#onTick}.
+ */
+public final class TickState {
+
+    public static final int NUM_PLAYERS = 10;
+
+    private Entity gameRules;
+    private Entity playerResource;
+    private Entity dataRadiant;
+    private Entity dataDire;
+    private Integer gameState;
+    private int time;
+    private int gameStartTime;
+    private boolean intervalStart;
+    private final int[] playerIndices = new int[NUM_PLAYERS];
+    private final Entity[] heroes = new Entity[NUM_PLAYERS];
+    private final String[] heroNames = new String[NUM_PLAYERS];
+
+    /**
+     * Called by the parse at the start of every tick.
+     *
+     * @param gameRules Game rules proxy, null until it was created
+     * @param gameState Game state from the game rules, null if unknown
+     * @param time      Replay time in seconds
+     */
+    public void update(Entity gameRules, Entity playerResource, Entity dataRadiant, Entity dataDire,
+                       Integer gameState, int time, int gameStartTime) {
+        this.gameRules = gameRules;
+        this.playerResource = playerResource;
+        this.dataRadiant = dataRadiant;
+        this.dataDire = dataDire;
+        this.gameState = gameState;
+        this.time = time;
+        this.gameStartTime = gameStartTime;
+        this.intervalStart = false;
+    }
+
+    /**
+     * Called by the parse on the ticks starting an interval, once the players are known.
+     *
+     * @param playerIndices Index of each slot in the player resource arrays
+     * @param heroes        Hero entity of each slot, null if it has none
+     * @param heroNames     Combat log name of each slot's hero, null if no hero was picked
+     */
+    public void startInterval(int[] playerIndices, Entity[] heroes, String[] heroNames) {
+        System.arraycopy(playerIndices, 0, this.playerIndices, 0, NUM_PLAYERS);
+        System.arraycopy(heroes, 0, this.heroes, 0, NUM_PLAYERS);
+        System.arraycopy(heroNames, 0, this.heroNames, 0, NUM_PLAYERS);
+        this.intervalStart = true;
+    }
+
+    /**
+     * @return The game rules proxy, null until it was created
+     */
+    public Entity getGameRules() {
+        return gameRules;
+    }
+
+    /**
+     * @return The player resource, null until it was created
+     */
+    public Entity getPlayerResource() {
+        return playerResource;
+    }
+
+    /**
+     * @param radiant true for the radiant, false for the dire
+     * @return The team data entity, null until it was created
+     */
+    public Entity getDataTeam(boolean radiant) {
+        return radiant ? dataRadiant : dataDire;
+    }
+
+    /**
+     * @return Game state from the game rules, e.g. 2 while drafting, null if unknown
+     */
+    public Integer getGameState() {
+        return gameState;
+    }
+
+    /**
+     * @return Replay time in seconds
+     */
+    public int getTime() {
+        return time;
+    }
+
+    /**
+     * @return Replay time of the game start, 0 until it is known
+     */
+    public int getGameStartTime() {
+        return gameStartTime;
+    }
+
+    /**
+     * @return true on the first tick of every second of the game, once the players are
+     *         known and until the ancient was destroyed. The player and hero accessors
+     *         are only valid then.
+     */
+    public boolean isIntervalStart() {
+        return intervalStart;
+    }
+
+    /**
+     * @return Index of the slot in the arrays of the player resource
+     */
+    public int getPlayerIndex(int slot) {
+        return playerIndices[slot];
+    }
+
+    /**
+     * @return Hero entity of the slot, null if it has none
+     */
+    public Entity getHero(int slot) {
+        return heroes[slot];
+    }
+
+    /**
+     * @return Combat log name of the hero of the slot, null if no hero was picked
+     */
+    public String getHeroName(int slot) {
+        return heroNames[slot];
+    }
+}
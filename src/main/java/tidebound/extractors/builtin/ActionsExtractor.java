@@ -0,0 +1,70 @@
+package tidebound.extractors.builtin;
+
+import java.util.Set;
+
+import com.google.protobuf.GeneratedMessage;
+
+import skadistats.clarity.model.Entity;
+import skadistats.clarity.processor.entities.Entities;
+import skadistats.clarity.processor.runner.Context;
+import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.CDOTAUserMsg_SpectatorPlayerUnitOrders;
+import tidebound.events.EventField;
+import tidebound.events.EventProjection;
+import tidebound.events.EventRecord;
+import tidebound.extractors.Extractor;
+import tidebound.extractors.ExtractorContext;
+import tidebound.extractors.MessageListener;
+
+/**
+ * Unit orders given by players (actions).
+ */
+public class ActionsExtractor implements Extractor {
+
+    @Override
+    public String getName() {
+        return "actions";
+    }
+
+    @Override
+    public boolean isRequiredBy(EventProjection projection) {
+        return projection.includesType("actions");
+    }
+
+    @Override
+    public Class<?> getProcessorClass() {
+        return Processor.class;
+    }
+
+    @Override
+    public Object createProcessor(ExtractorContext context) {
+        return new Processor(context);
+    }
+
+    public static class Processor implements MessageListener {
+
+        private final ExtractorContext context;
+
+        Processor(ExtractorContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public Set<Class<? extends GeneratedMessage>> getMessageClasses() {
+            return Set.of(CDOTAUserMsg_SpectatorPlayerUnitOrders.class);
+        }
+
+        @Override
+        public void onMessage(Context ctx, GeneratedMessage message) {
+            CDOTAUserMsg_SpectatorPlayerUnitOrders orders = (CDOTAUserMsg_SpectatorPlayerUnitOrders) message;
+            EventRecord entry = context.newEntry(context.getTime());
+            entry.setType("actions");
+            // the entindex points to a CDOTAPlayer. This is probably the player that gave
+            // the order.
+            Entity e = ctx.getProcessor(Entities.class).getByIndex(orders.getEntindex());
+            entry.setInt(EventField.SLOT, context.getPlayerSlotFromEntity(ctx, e));
+            // break actions into types?
+            entry.setString(EventField.KEY, String.valueOf(orders.getOrderType()));
+            context.output(entry);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package tidebound.extractors.builtin;
+
+import java.util.Set;
+
+import com.google.protobuf.GeneratedMessage;
+
+import skadistats.clarity.model.Entity;
+import skadistats.clarity.processor.entities.Entities;
+import skadistats.clarity.processor.runner.Context;
+import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.CDOTAUserMsg_ChatEvent;
+import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.CDOTAUserMsg_ChatMessage;
+import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.CDOTAUserMsg_ChatWheel;
+import skadistats.clarity.wire.shared.s1.proto.S1UserMessages.CUserMsg_SayText2;
+import skadistats.clarity.wire.shared.s2.proto.S2UserMessages.CUserMessageSayText2;
+import tidebound.events.EventField;
+import tidebound.events.EventProjection;
+import tidebound.events.EventRecord;
+import tidebound.extractors.Extractor;
+import tidebound.extractors.ExtractorContext;
+import tidebound.extractors.MessageListener;
+
+/**
+ * All chat, chat wheel and chat events (chat, chatwheel, CHAT_MESSAGE_*).
+ */
+public class ChatExtractor implements Extractor {
+
+    private static final int CHAT_CHANNEL_TYPE_ALL_CHAT = 11;
+
+    @Override
+    public String getName() {
+        return "chat";
+    }
+
+    @Override
+    public boolean isRequiredBy(EventProjection projection) {
+        if (projection.includesAnyType("chat", "chatwheel") || projection.includesTypePrefix("CHAT_MESSAGE_")) {
+            return true;
+        }
+        // Chat channels other than all chat are emitted by their number
+        for (char digit = '0'; digit <= '9'; digit++) {
+            if (projection.includesTypePrefix(String.valueOf(digit))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Class<?> getProcessorClass() {
+        return Processor.class;
+    }
+
+    @Override
+    public Object createProcessor(ExtractorContext context) {
+        return new Processor(context);
+    }
+
+    public static class Processor implements MessageListener {
+
+        private final ExtractorContext context;
+
+        Processor(ExtractorContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public Set<Class<? extends GeneratedMessage>> getMessageClasses() {
+            return Set.of(CDOTAUserMsg_ChatEvent.class, CDOTAUserMsg_ChatMessage.class, CDOTAUserMsg_ChatWheel.class,
+                CUserMsg_SayText2.class, CUserMessageSayText2.class);
+        }
+
+        @Override
+        public void onMessage(Context ctx, GeneratedMessage message) {
+            if (message instanceof CDOTAUserMsg_ChatEvent) {
+                onChatEvent((CDOTAUserMsg_ChatEvent) message);
+            } else if (message instanceof CDOTAUserMsg_ChatMessage) {
+                onAllChatMessage((CDOTAUserMsg_ChatMessage) message);
+            } else if (message instanceof CDOTAUserMsg_ChatWheel) {
+                onChatWheel((CDOTAUserMsg_ChatWheel) message);
+            } else if (message instanceof CUserMsg_SayText2) {
+                onAllChatS1((CUserMsg_SayText2) message);
+            } else if (message instanceof CUserMessageSayText2) {
+                onAllChatS2(ctx, (CUserMessageSayText2) message);
+            }
+        }
+
+        private void onChatEvent(CDOTAUserMsg_ChatEvent message) {
+            EventRecord entry = context.newEntry(context.getTime());
+            entry.setType(String.valueOf(message.getType()));
+            entry.setInt(EventField.PLAYER1, message.getPlayerid1());
+            entry.setInt(EventField.PLAYER2, message.getPlayerid2());
+            entry.setInt(EventField.VALUE, message.getValue());
+            context.output(entry);
+        }
+
+        // New chat event
+        private void onAllChatMessage(CDOTAUserMsg_ChatMessage message) {
+            int channelType = message.getChannelType();
+            EventRecord entry = context.newEntry(context.getTime());
+            entry.setInt(EventField.SLOT, message.getSourcePlayerId());
+            entry.setType((channelType == CHAT_CHANNEL_TYPE_ALL_CHAT) ? "chat" : String.valueOf(channelType));
+            entry.setString(EventField.KEY, message.getMessageText());
+            context.output(entry);
+        }
+
+        private void onChatWheel(CDOTAUserMsg_ChatWheel message) {
+            EventRecord entry = context.newEntry(context.getTime());
+            entry.setType("chatwheel");
+            entry.setInt(EventField.SLOT, message.getPlayerId());
+            entry.setString(EventField.KEY, String.valueOf(message.getChatMessageId()));
+            context.output(entry);
+        }
+
+        private void onAllChatS1(CUserMsg_SayText2 message) {
+            EventRecord entry = context.newEntry(context.getTime());
+            entry.setString(EventField.UNIT, String.valueOf(message.getPrefix()));
+            entry.setString(EventField.KEY, String.valueOf(message.getText()));
+            entry.setType("chat");
+            context.output(entry);
+        }
+
+        private void onAllChatS2(Context ctx, CUserMessageSayText2 message) {
+            EventRecord entry = context.newEntry(context.getTime());
+            entry.setString(EventField.UNIT, String.valueOf(message.getParam1()));
+            entry.setString(EventField.KEY, String.valueOf(message.getParam2()));
+            Entity e = ctx.getProcessor(Entities.class).getByIndex(message.getEntityindex());
+            entry.setInt(EventField.SLOT, context.getPlayerSlotFromEntity(ctx, e));
+            entry.setType("chat");
+            context.output(entry);
+        }
+    }
+}
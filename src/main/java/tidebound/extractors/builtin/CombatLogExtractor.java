@@ -0,0 +1,125 @@
+package tidebound.extractors.builtin;
+
+import skadistats.clarity.model.CombatLogEntry;
+import skadistats.clarity.processor.runner.Context;
+import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.DOTA_COMBATLOG_TYPES;
+import tidebound.events.EventField;
+import tidebound.events.EventProjection;
+import tidebound.events.EventRecord;
+import tidebound.extractors.CombatLogListener;
+import tidebound.extractors.Extractor;
+import tidebound.extractors.ExtractorContext;
+import tidebound.extractors.RetainedState;
+
+/**
+ * Combat log entries (DOTA_COMBATLOG_*), with the Greevil's Greed stack of Alchemist
+ * last hits and the Track status of deaths collected by the combat log visitors.
+ */
+public class CombatLogExtractor implements Extractor {
+
+    private static final String TYPE_PREFIX = "DOTA_COMBATLOG_";
+    private static final int COMBAT_LOG_TYPE_THRESHOLD = 19;
+
+    @Override
+    public String getName() {
+        return "combatlog";
+    }
+
+    @Override
+    public boolean isRequiredBy(EventProjection projection) {
+        return projection.includesTypePrefix(TYPE_PREFIX);
+    }
+
+    @Override
+    public Class<?> getProcessorClass() {
+        return Processor.class;
+    }
+
+    @Override
+    public Object createProcessor(ExtractorContext context) {
+        return new Processor(context);
+    }
+
+    public static class Processor implements CombatLogListener, RetainedState {
+
+        private final ExtractorContext context;
+        private final EventProjection projection;
+        private final boolean emitsDeaths;
+        private final GreevilsGreedVisitor greevilsGreedVisitor;
+        private final TrackVisitor trackVisitor;
+
+        Processor(ExtractorContext context) {
+            this.context = context;
+            this.projection = context.getProjection();
+            this.emitsDeaths = projection.includesType(DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_DEATH.name());
+            this.greevilsGreedVisitor = new GreevilsGreedVisitor(context.getSymbols(), context.getSlotBySymbol());
+            this.trackVisitor = new TrackVisitor(context.getSymbols());
+        }
+
+        @Override
+        public long estimateRetainedBytes() {
+            return (greevilsGreedVisitor.getStateSize() + trackVisitor.getStateSize()) * MAP_ENTRY_BYTES;
+        }
+
+        @Override
+        public void onCombatLogEntry(Context ctx, CombatLogEntry cle) {
+            try {
+                int time = Math.round(cle.getTimestamp());
+                DOTA_COMBATLOG_TYPES type = cle.getType();
+
+                boolean emitted = type.ordinal() <= COMBAT_LOG_TYPE_THRESHOLD && projection.includesType(type.name());
+                if (!emitted) {
+                    // Death entries carry state the visitors collect from modifier entries
+                    if (emitsDeaths) {
+                        greevilsGreedVisitor.visit(time, cle);
+                        trackVisitor.visit(time, cle);
+                    }
+                    return;
+                }
+
+                // create a new entry
+                EventRecord combatLogEntry = context.newEntry(time);
+                combatLogEntry.setType(type.name());
+                // translate the fields using string tables if necessary (get*Name methods)
+                combatLogEntry.setString(EventField.ATTACKERNAME, cle.getAttackerName());
+                combatLogEntry.setString(EventField.TARGETNAME, cle.getTargetName());
+                combatLogEntry.setString(EventField.SOURCENAME, cle.getDamageSourceName());
+                combatLogEntry.setString(EventField.TARGETSOURCENAME, cle.getTargetSourceName());
+                combatLogEntry.setString(EventField.INFLICTOR, cle.getInflictorName());
+                combatLogEntry.setBoolean(EventField.ATTACKERHERO, cle.isAttackerHero());
+                combatLogEntry.setBoolean(EventField.TARGETHERO, cle.isTargetHero());
+                combatLogEntry.setBoolean(EventField.ATTACKERILLUSION, cle.isAttackerIllusion());
+                combatLogEntry.setBoolean(EventField.TARGETILLUSION, cle.isTargetIllusion());
+                combatLogEntry.setInt(EventField.VALUE, cle.getValue());
+                float stunDuration = cle.getStunDuration();
+                if (stunDuration > 0) {
+                    combatLogEntry.setFloat(EventField.STUN_DURATION, stunDuration);
+                }
+                float slowDuration = cle.getSlowDuration();
+                if (slowDuration > 0) {
+                    combatLogEntry.setFloat(EventField.SLOW_DURATION, slowDuration);
+                }
+                // value may be out of bounds in string table, we can only get valuename if a
+                // purchase (type 11)
+                if (type == DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_PURCHASE) {
+                    combatLogEntry.setString(EventField.VALUENAME, cle.getValueName());
+                } else if (type == DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_GOLD) {
+                    combatLogEntry.setInt(EventField.GOLD_REASON, cle.getGoldReason());
+                } else if (type == DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_XP) {
+                    combatLogEntry.setInt(EventField.XP_REASON, cle.getXpReason());
+                }
+
+                combatLogEntry.setInt(EventField.GREEVILS_GREED_STACK, greevilsGreedVisitor.visit(time, cle));
+                TrackVisitor.TrackStatus trackStatus = trackVisitor.visit(time, cle);
+                if (trackStatus != null) {
+                    combatLogEntry.setBoolean(EventField.TRACKED_DEATH, trackStatus.tracked);
+                    combatLogEntry.setString(EventField.TRACKED_SOURCENAME, trackStatus.inflictor);
+                }
+                context.output(combatLogEntry);
+            } catch (Exception e) {
+                System.err.println(e);
+                System.err.println(cle);
+            }
+        }
+    }
+}
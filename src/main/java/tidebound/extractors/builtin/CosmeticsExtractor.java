@@ -0,0 +1,104 @@
+package tidebound.extractors.builtin;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.gson.Gson;
+import com.google.protobuf.GeneratedMessage;
+
+import skadistats.clarity.model.Entity;
+import skadistats.clarity.processor.runner.Context;
+import skadistats.clarity.wire.shared.demo.proto.Demo.CDemoFileInfo;
+import tidebound.events.EventField;
+import tidebound.events.EventProjection;
+import tidebound.events.EventRecord;
+import tidebound.extractors.EntityListener;
+import tidebound.extractors.Extractor;
+import tidebound.extractors.ExtractorContext;
+import tidebound.extractors.MessageListener;
+import tidebound.extractors.RetainedState;
+
+/**
+ * Cosmetics worn by the players, from the CDOTAWearableItem entities, written once at the
+ * end of the replay (cosmetics).
+ */
+public class CosmeticsExtractor implements Extractor {
+
+    private static final String ENTITY_WEARABLE_ITEM = "CDOTAWearableItem";
+    private static final String PROPERTY_ACCOUNT_ID = "m_iAccountID";
+    private static final String PROPERTY_ITEM_DEFINITION_INDEX = "m_iItemDefinitionIndex";
+    private static final long STEAM_ID_OFFSET = 76561197960265728L;
+
+    private static final Gson GSON = new Gson();
+
+    @Override
+    public String getName() {
+        return "cosmetics";
+    }
+
+    @Override
+    public boolean isRequiredBy(EventProjection projection) {
+        return projection.includesType("cosmetics");
+    }
+
+    @Override
+    public Class<?> getProcessorClass() {
+        return Processor.class;
+    }
+
+    @Override
+    public Set<String> getEntityClasses() {
+        return Set.of(ENTITY_WEARABLE_ITEM);
+    }
+
+    @Override
+    public Object createProcessor(ExtractorContext context) {
+        return new Processor(context);
+    }
+
+    public static class Processor implements EntityListener, MessageListener, RetainedState {
+
+        private final ExtractorContext context;
+        // Player slot by item definition index
+        private final Map<Integer, Integer> cosmeticsMap = new HashMap<>();
+
+        Processor(ExtractorContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public long estimateRetainedBytes() {
+            return cosmeticsMap.size() * MAP_ENTRY_BYTES;
+        }
+
+        @Override
+        public void onEntityEntered(Context ctx, Entity entity) {
+            if (!ENTITY_WEARABLE_ITEM.equals(entity.getDtClass().getDtName())) {
+                return;
+            }
+            Integer accountId = context.getEntityProperty(entity, PROPERTY_ACCOUNT_ID, null);
+            Integer itemDefinitionIndex = context.getEntityProperty(entity, PROPERTY_ITEM_DEFINITION_INDEX, null);
+            if (accountId != null && accountId > 0 && itemDefinitionIndex != null) {
+                Long accountId64 = STEAM_ID_OFFSET + (long) accountId;
+                Integer playerSlot = context.getSteamIdToPlayerSlot().get(accountId64);
+                if (playerSlot != null) {
+                    cosmeticsMap.put(itemDefinitionIndex, playerSlot);
+                }
+            }
+        }
+
+        @Override
+        public Set<Class<? extends GeneratedMessage>> getMessageClasses() {
+            return Set.of(CDemoFileInfo.class);
+        }
+
+        @Override
+        public void onMessage(Context ctx, GeneratedMessage message) {
+            EventRecord entry = context.newEntry(0);
+            entry.setType("cosmetics");
+            entry.setString(EventField.KEY, GSON.toJson(cosmeticsMap));
+            context.output(entry);
+        }
+    }
+}
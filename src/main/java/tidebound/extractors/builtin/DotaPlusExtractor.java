@@ -0,0 +1,105 @@
+package tidebound.extractors.builtin;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.gson.Gson;
+import com.google.protobuf.GeneratedMessage;
+
+import skadistats.clarity.model.Entity;
+import skadistats.clarity.processor.runner.Context;
+import skadistats.clarity.wire.shared.demo.proto.Demo.CDemoFileInfo;
+import tidebound.events.EventField;
+import tidebound.events.EventProjection;
+import tidebound.events.EventRecord;
+import tidebound.extractors.Extractor;
+import tidebound.extractors.ExtractorContext;
+import tidebound.extractors.MessageListener;
+import tidebound.extractors.TickListener;
+import tidebound.extractors.TickState;
+
+/**
+ * Dota Plus hero levels of the players, read once the game is over and written at the end
+ * of the replay (dotaplus).
+ */
+public class DotaPlusExtractor implements Extractor {
+
+    private static final int NUM_PLAYERS = 10;
+    private static final String ENTITY_PLAYER_RESOURCE = "CDOTA_PlayerResource";
+
+    private static final Gson GSON = new Gson();
+
+    @Override
+    public String getName() {
+        return "dotaplus";
+    }
+
+    @Override
+    public boolean isRequiredBy(EventProjection projection) {
+        return projection.includesType("dotaplus");
+    }
+
+    @Override
+    public Class<?> getProcessorClass() {
+        return Processor.class;
+    }
+
+    @Override
+    public Set<String> getEntityClasses() {
+        return Set.of(ENTITY_PLAYER_RESOURCE);
+    }
+
+    @Override
+    public Object createProcessor(ExtractorContext context) {
+        return new Processor(context);
+    }
+
+    public static class Processor implements TickListener, MessageListener {
+
+        private final ExtractorContext context;
+        private final Map<Integer, Integer> dotaPlusXpMap = new HashMap<>(); // playerslot, xp
+        private boolean isDotaPlusProcessed = false;
+
+        Processor(ExtractorContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public void onTick(Context ctx, TickState tick) {
+            // When the game is over, get dota plus levels
+            if (isDotaPlusProcessed || !context.isPostGame()) {
+                return;
+            }
+            Entity playerResource = tick.getPlayerResource();
+            if (playerResource == null) {
+                return;
+            }
+            Map<Long, Integer> steamIdToPlayerSlot = context.getSteamIdToPlayerSlot();
+            for (int i = 0; i < NUM_PLAYERS; i++) {
+                Integer xp = context.getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_unSelectedHeroBadgeXP", i);
+                if (xp == null) {
+                    xp = 0;
+                }
+                Long steamId = context.getEntityProperty(playerResource, "m_vecPlayerData.%i.m_iPlayerSteamID", i);
+                if (steamId != null && steamIdToPlayerSlot.containsKey(steamId)) {
+                    dotaPlusXpMap.put(steamIdToPlayerSlot.get(steamId), xp);
+                }
+            }
+            isDotaPlusProcessed = true;
+        }
+
+        @Override
+        public Set<Class<? extends GeneratedMessage>> getMessageClasses() {
+            return Set.of(CDemoFileInfo.class);
+        }
+
+        @Override
+        public void onMessage(Context ctx, GeneratedMessage message) {
+            EventRecord entry = context.newEntry(0);
+            entry.setType("dotaplus");
+            entry.setString(EventField.KEY, GSON.toJson(dotaPlusXpMap));
+            context.output(entry);
+        }
+    }
+}
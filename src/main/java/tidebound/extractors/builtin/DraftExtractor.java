@@ -0,0 +1,162 @@
+package tidebound.extractors.builtin;
+
+import java.util.Set;
+
+import skadistats.clarity.model.Entity;
+import skadistats.clarity.model.FieldPath;
+import skadistats.clarity.processor.runner.Context;
+import tidebound.entities.PropertyAccessors;
+import tidebound.entities.PropertyWatch;
+import tidebound.events.EventField;
+import tidebound.events.EventProjection;
+import tidebound.events.EventRecord;
+import tidebound.extractors.EntityListener;
+import tidebound.extractors.Extractor;
+import tidebound.extractors.ExtractorContext;
+import tidebound.extractors.TickListener;
+import tidebound.extractors.TickState;
+
+/**
+ * Start of the draft and the time of every pick and ban, with the extra time left for
+ * both teams (draft_start, draft_timings).
+ */
+public class DraftExtractor implements Extractor {
+
+    private static final String ENTITY_GAMERULES_PROXY = "CDOTAGamerulesProxy";
+    private static final int DRAFT_STAGE = 2;
+    private static final int NUM_BANS = 14;
+    private static final int NUM_PICKS = 10;
+    private static final String PROPERTY_GAME_STATE = "m_pGameRules.m_nGameState";
+    private static final String PROPERTY_PLAYER_IDS_IN_CONTROL = "m_pGameRules.m_iPlayerIDsInControl";
+    private static final String PROPERTY_ACTIVE_TEAM = "m_pGameRules.m_iActiveTeam";
+    private static final String PROPERTY_EXTRA_TIME_REMAINING = "m_pGameRules.m_fExtraTimeRemaining.%i";
+    private static final String PROPERTY_BANNED_HEROES = "m_pGameRules.m_BannedHeroes.%i";
+    private static final String PROPERTY_SELECTED_HEROES = "m_pGameRules.m_SelectedHeroes.%i";
+
+    @Override
+    public String getName() {
+        return "draft";
+    }
+
+    @Override
+    public boolean isRequiredBy(EventProjection projection) {
+        return projection.includesAnyType("draft_start", "draft_timings");
+    }
+
+    @Override
+    public Class<?> getProcessorClass() {
+        return Processor.class;
+    }
+
+    @Override
+    public Set<String> getEntityClasses() {
+        return Set.of(ENTITY_GAMERULES_PROXY);
+    }
+
+    @Override
+    public Object createProcessor(ExtractorContext context) {
+        return new Processor(context);
+    }
+
+    public static class Processor implements EntityListener, TickListener {
+
+        private final ExtractorContext context;
+        private final PropertyAccessors properties;
+        // Picks and bans only need to be looked at when one of them changed
+        private final PropertyWatch draftWatch;
+        private final boolean[] draftOrderProcessed = new boolean[NUM_BANS + NUM_PICKS];
+        private int draftOrder = 1;
+        private boolean isDraftStartTimeProcessed = false;
+
+        Processor(ExtractorContext context) {
+            this.context = context;
+            this.properties = context.getProperties();
+            this.draftWatch = new PropertyWatch(properties);
+            draftWatch.add(PROPERTY_GAME_STATE);
+            draftWatch.add(PROPERTY_PLAYER_IDS_IN_CONTROL);
+            for (int i = 0; i < NUM_BANS; i++) {
+                draftWatch.add(PROPERTY_BANNED_HEROES, i);
+            }
+            for (int i = 0; i < NUM_PICKS; i++) {
+                draftWatch.add(PROPERTY_SELECTED_HEROES, i);
+            }
+        }
+
+        @Override
+        public void onEntityCreated(Context ctx, Entity e) {
+            if (ENTITY_GAMERULES_PROXY.equals(e.getDtClass().getDtName())) {
+                draftWatch.markAll();
+            }
+        }
+
+        @Override
+        public void onEntityUpdated(Context ctx, Entity e, FieldPath[] fieldPaths, int num) {
+            if (ENTITY_GAMERULES_PROXY.equals(e.getDtClass().getDtName())) {
+                draftWatch.collect(e, fieldPaths, num);
+            }
+        }
+
+        @Override
+        public void onTick(Context ctx, TickState tick) {
+            Entity gameRules = tick.getGameRules();
+            if (gameRules == null) {
+                return;
+            }
+            boolean draftChanged = draftWatch.hasChanged(0, draftWatch.size());
+            draftWatch.clear();
+            Integer gameState = tick.getGameState();
+            if (gameState == null || gameState != DRAFT_STAGE || !draftChanged) {
+                return;
+            }
+            handleDraftStage(gameRules, tick.getTime());
+        }
+
+        private void handleDraftStage(Entity gameRules, int time) {
+            // Determine the time the draftings start
+            if (!isDraftStartTimeProcessed) {
+                Long playerIdsInControl = context.getEntityProperty(gameRules, PROPERTY_PLAYER_IDS_IN_CONTROL, null);
+                boolean isDraftStarted = playerIdsInControl != null && playerIdsInControl.compareTo(0L) != 0;
+                if (isDraftStarted) {
+                    EventRecord draftStartEntry = context.newEntry(time);
+                    draftStartEntry.setType("draft_start");
+                    context.output(draftStartEntry);
+                    isDraftStartTimeProcessed = true;
+                }
+            }
+
+            // Picks and ban are not in order due to draft change rules changes between patches
+            // Need to listen for the picks and ban to change
+            int[] draftHeroes = loadDraftHeroes(gameRules);
+
+            // Once a pick or ban happens grab the time and extra time remaining for both teams
+            for (int i = 0; i < draftHeroes.length; i++) {
+                if (draftHeroes[i] > 0 && !draftOrderProcessed[i]) {
+                    draftOrderProcessed[i] = true;
+                    EventRecord draftTimingsEntry = context.newEntry(time);
+                    draftTimingsEntry.setType("draft_timings");
+                    draftTimingsEntry.setInt(EventField.DRAFT_ORDER, draftOrder);
+                    draftOrder++;
+                    draftTimingsEntry.setBoolean(EventField.PICK, i >= NUM_BANS); // First 14 are bans, rest are picks
+                    draftTimingsEntry.setInt(EventField.HERO_ID, draftHeroes[i] / 2);
+                    draftTimingsEntry.setInt(EventField.DRAFT_ACTIVE_TEAM, context.getEntityProperty(gameRules, PROPERTY_ACTIVE_TEAM, null));
+                    draftTimingsEntry.setInt(EventField.DRAFT_EXTIME0, Math.round((float) context.getEntityProperty(gameRules,
+                        PROPERTY_EXTRA_TIME_REMAINING, 0)));
+                    draftTimingsEntry.setInt(EventField.DRAFT_EXTIME1, Math.round((float) context.getEntityProperty(gameRules,
+                        PROPERTY_EXTRA_TIME_REMAINING, 1)));
+                    context.output(draftTimingsEntry);
+                }
+            }
+        }
+
+        private int[] loadDraftHeroes(Entity gameRules) {
+            int[] draftHeroes = new int[NUM_BANS + NUM_PICKS];
+            for (int i = 0; i < NUM_BANS; i++) {
+                draftHeroes[i] = properties.getInt(gameRules, PROPERTY_BANNED_HEROES, i, 0);
+            }
+            for (int i = 0; i < NUM_PICKS; i++) {
+                draftHeroes[NUM_BANS + i] = properties.getInt(gameRules, PROPERTY_SELECTED_HEROES, i, 0);
+            }
+            return draftHeroes;
+        }
+    }
+}
@@ -1,38 +1,47 @@
-package tidebound.combatlogvisitors;
+package tidebound.extractors.builtin;
 
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
 import skadistats.clarity.model.CombatLogEntry;
 import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.DOTA_COMBATLOG_TYPES;
+import tidebound.events.SymbolTable;
 
-public class GreevilsGreedVisitor implements Visitor<Integer> {
+class GreevilsGreedVisitor implements Visitor<Integer> {
 
     private static final int GREEVILS_GREED_WINDOW = 40;
+    private static final String ALCHEMIST = "npc_dota_hero_alchemist";
+    private static final String GOBLINS_GREED = "modifier_alchemist_goblins_greed";
     
 	private boolean greevilsGreedLearned = false;
     private Set<Integer> lastHitTimings = new HashSet<>();
     
-	private HashMap<String, Integer> nameToSlot; 
+	private final Map<Integer, Integer> slotBySymbol;
+	private final int alchemist;
     
-	public GreevilsGreedVisitor(HashMap<String, Integer> nameToSlot) {
-		this.nameToSlot = nameToSlot;
+	/**
+	 * @param symbols      Symbols of the parse
+	 * @param slotBySymbol Player slot by combat log hero name id
+	 */
+	public GreevilsGreedVisitor(SymbolTable symbols, Map<Integer, Integer> slotBySymbol) {
+		this.slotBySymbol = slotBySymbol;
+		this.alchemist = symbols.intern(ALCHEMIST);
 	}
 
 	@Override
 	public Integer visit(int time, CombatLogEntry cle) {
         if (cle.getType() == DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_MODIFIER_ADD
-        		&& cle.getAttackerName().equals("npc_dota_hero_alchemist")
-        		&& cle.getInflictorName().equals("modifier_alchemist_goblins_greed")
+        		&& ALCHEMIST.equals(cle.getAttackerName())
+        		&& GOBLINS_GREED.equals(cle.getInflictorName())
         		&& !cle.isAttackerIllusion()) {
         	greevilsGreedLearned = true;
         }
         
         if (greevilsGreedLearned
         		&& cle.getType() == DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_DEATH
-        		&& cle.getAttackerName().equals("npc_dota_hero_alchemist")
+        		&& ALCHEMIST.equals(cle.getAttackerName())
         		&& !cle.isAttackerIllusion()) {
 
         	if (isDeny(cle.getTargetName())) {
@@ -57,8 +66,15 @@ public class GreevilsGreedVisitor implements Visitor<Integer> {
         return null;
 	}
 	
+	/**
+	 * @return Number of last hits kept for the stack
+	 */
+	int getStateSize() {
+		return lastHitTimings.size();
+	}
+
 	private boolean isDeny(String targetName) {
-		String creepAllied = nameToSlot.get("npc_dota_hero_alchemist") < 5 ? "goodguys" : "badguys";
+		String creepAllied = slotBySymbol.get(alchemist) < 5 ? "goodguys" : "badguys";
 		return targetName.contains(creepAllied);
 	}
 
@@ -0,0 +1,576 @@
+package tidebound.extractors.builtin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import skadistats.clarity.model.Entity;
+import skadistats.clarity.model.FieldPath;
+import skadistats.clarity.model.StringTable;
+import skadistats.clarity.processor.entities.Entities;
+import skadistats.clarity.processor.runner.Context;
+import skadistats.clarity.processor.stringtables.StringTables;
+import skadistats.clarity.processor.stringtables.UsesStringTable;
+import tidebound.entities.PropertyAccessors;
+import tidebound.entities.PropertyWatch;
+import tidebound.events.EventField;
+import tidebound.events.EventProjection;
+import tidebound.events.EventRecord;
+import tidebound.events.SymbolTable;
+import tidebound.extractors.EntityListener;
+import tidebound.extractors.Extractor;
+import tidebound.extractors.ExtractorContext;
+import tidebound.extractors.RetainedState;
+import tidebound.extractors.TickListener;
+import tidebound.extractors.TickState;
+
+/**
+ * State of every player once per second (interval), with the ability levels, the starting
+ * items and the inventory changes of their heroes (DOTA_ABILITY_LEVEL, STARTING_ITEM,
+ * DOTA_COMBATLOG_PURCHASE, item_timeline).
+ */
+public class IntervalsExtractor implements Extractor {
+
+    private static final String[] EVENT_TYPES = {"interval", "DOTA_ABILITY_LEVEL", "STARTING_ITEM",
+        "DOTA_COMBATLOG_PURCHASE", "item_timeline"};
+    private static final String TYPE_ITEM_TIMELINE = "item_timeline";
+
+    private static final float CELL_SIZE = 128.0f;
+    private static final int NUM_PLAYERS = TickState.NUM_PLAYERS;
+    private static final int MAX_ABILITIES = 32;
+    private static final int MAX_INVENTORY_SLOTS = 8;
+    private static final int INVALID_HANDLE = 0xFFFFFF;
+    private static final int RADIANT_TEAM_ID = 2;
+    private static final int PLAYER_SLOT_OFFSET = 128;
+    private static final int FACET_KEY_HERO_ID_SHIFT = 32;
+    private static final int FACET_KEY_VARIANT_MASK = 0xFF;
+
+    private static final String ENTITY_PREFIX_HERO = "CDOTA_Unit_Hero_";
+    private static final String PROPERTY_CELL_X = "CBodyComponent.m_cellX";
+    private static final String PROPERTY_CELL_Y = "CBodyComponent.m_cellY";
+    private static final String PROPERTY_VEC_X = "CBodyComponent.m_vecX";
+    private static final String PROPERTY_VEC_Y = "CBodyComponent.m_vecY";
+    private static final String PROPERTY_LIFE_STATE = "m_lifeState";
+    private static final String PROPERTY_HERO_FACET_KEY = "m_iHeroFacetKey";
+    private static final String PROPERTY_ITEMS = "m_hItems.%i";
+    private static final String PROPERTY_ABILITIES = "m_hAbilities.%i";
+    private static final String PROPERTY_ABILITIES_VEC = "m_vecAbilities.%i";
+    private static final String PROPERTY_ENTITY_NAME_INDEX = "m_pEntity.m_nameStringableIndex";
+    private static final String PROPERTY_CURRENT_CHARGES = "m_iCurrentCharges";
+    private static final String PROPERTY_SECONDARY_CHARGES = "m_iSecondaryCharges";
+    private static final String PROPERTY_ABILITY_LEVEL = "m_iLevel";
+    private static final String STRING_TABLE_ENTITY_NAMES = "EntityNames";
+
+    @Override
+    public String getName() {
+        return "intervals";
+    }
+
+    @Override
+    public boolean isRequiredBy(EventProjection projection) {
+        return projection.includesAnyType(EVENT_TYPES);
+    }
+
+    @Override
+    public Class<?> getProcessorClass() {
+        return Processor.class;
+    }
+
+    @Override
+    public Set<String> getEntityClasses() {
+        // Abilities and items are let through once they were read
+        return Set.of("CDOTA_PlayerResource", "CDOTA_DataRadiant", "CDOTA_DataDire", ENTITY_PREFIX_HERO + "*");
+    }
+
+    @Override
+    public Object createProcessor(ExtractorContext context) {
+        return new Processor(context);
+    }
+
+    private static Float getPreciseLocation(Integer cell, Float vec) {
+        if (cell == null || vec == null) {
+            return null;
+        }
+        return (cell * CELL_SIZE + vec) / CELL_SIZE;
+    }
+
+    private static class Item {
+        String id;
+        int entityIndex;
+        // Charges can be used to determine how many items are stacked together on
+        // stackable items
+        Integer slot;
+        Integer num_charges;
+        // item_ward_dispenser uses num_charges for observer wards
+        // and num_secondary_charges for sentry wards count
+        // and is considered not stackable
+        Integer num_secondary_charges;
+    }
+
+    private static class Ability {
+        String id;
+        int entityIndex;
+        Integer abilityLevel;
+    }
+
+    private static class UnknownItemFoundException extends RuntimeException {
+        UnknownItemFoundException(String message) {
+            super(message);
+        }
+    }
+
+    private static class UnknownAbilityFoundException extends RuntimeException {
+        UnknownAbilityFoundException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Hero abilities and inventories are only re-read after their handles, ability levels
+     * or item charges changed.
+     */
+    @UsesStringTable(STRING_TABLE_ENTITY_NAMES)
+    public static class Processor implements EntityListener, TickListener, RetainedState {
+
+        private final ExtractorContext context;
+        private final PropertyAccessors properties;
+        private final boolean emitsItemTimeline;
+
+        private final PropertyWatch heroAbilitiesWatch;
+        private final PropertyWatch heroItemsWatch;
+        private final PropertyWatch abilityLevelWatch;
+        private final PropertyWatch itemChargesWatch;
+        private final int[] heroHandles = new int[NUM_PLAYERS];
+        private final boolean[] heroAbilitiesChanged = new boolean[NUM_PLAYERS];
+        private final boolean[] heroItemsChanged = new boolean[NUM_PLAYERS];
+        // Player slot by entity index of the heroes and of the abilities and items they own
+        private final Map<Integer, Integer> slotByHeroIndex = new HashMap<>();
+        private final Map<Integer, Integer> slotByAbilityIndex = new HashMap<>();
+        private final Map<Integer, Integer> slotByItemIndex = new HashMap<>();
+        // Ability level by combat log hero name id (high bits) and ability name id (low bits)
+        private final Map<Long, Integer> abilitiesTracking = new HashMap<>();
+        // Last written item_timeline per slot
+        private final String[] itemTimelines = new String[NUM_PLAYERS];
+        private final boolean[] isPlayerStartingItemsWritten = new boolean[NUM_PLAYERS];
+
+        Processor(ExtractorContext context) {
+            this.context = context;
+            this.properties = context.getProperties();
+            this.emitsItemTimeline = context.isItemTimeline() && context.getProjection().includesType(TYPE_ITEM_TIMELINE);
+
+            Arrays.fill(heroHandles, INVALID_HANDLE);
+            heroAbilitiesWatch = new PropertyWatch(properties);
+            for (int i = 0; i < MAX_ABILITIES; i++) {
+                heroAbilitiesWatch.add(PROPERTY_ABILITIES, i);
+                heroAbilitiesWatch.add(PROPERTY_ABILITIES_VEC, i);
+            }
+            heroItemsWatch = new PropertyWatch(properties);
+            for (int i = 0; i < MAX_INVENTORY_SLOTS; i++) {
+                heroItemsWatch.add(PROPERTY_ITEMS, i);
+            }
+            abilityLevelWatch = new PropertyWatch(properties);
+            abilityLevelWatch.add(PROPERTY_ABILITY_LEVEL);
+            itemChargesWatch = new PropertyWatch(properties);
+            itemChargesWatch.add(PROPERTY_CURRENT_CHARGES);
+            itemChargesWatch.add(PROPERTY_SECONDARY_CHARGES);
+        }
+
+        @Override
+        public long estimateRetainedBytes() {
+            long mapEntries = slotByHeroIndex.size() + slotByAbilityIndex.size() + slotByItemIndex.size()
+                + abilitiesTracking.size();
+            return mapEntries * MAP_ENTRY_BYTES;
+        }
+
+        @Override
+        public void onTick(Context ctx, TickState tick) {
+            if (!tick.isIntervalStart()) {
+                return;
+            }
+            processIntervalUpdate(ctx, tick);
+        }
+
+        @Override
+        public void onEntityUpdated(Context ctx, Entity e, FieldPath[] fieldPaths, int num) {
+            Integer slot = slotByHeroIndex.get(e.getIndex());
+            if (slot != null) {
+                // Heroes
+                if (heroHandles[slot] != e.getHandle()) return;
+                if (heroAbilitiesWatch.matches(e, fieldPaths, num)) {
+                    heroAbilitiesChanged[slot] = true;
+                }
+                if (heroItemsWatch.matches(e, fieldPaths, num)) {
+                    heroItemsChanged[slot] = true;
+                }
+                return;
+            }
+            // Abilities and items they own
+            slot = slotByAbilityIndex.get(e.getIndex());
+            if (slot != null && abilityLevelWatch.matches(e, fieldPaths, num)) {
+                heroAbilitiesChanged[slot] = true;
+            }
+            slot = slotByItemIndex.get(e.getIndex());
+            if (slot != null && itemChargesWatch.matches(e, fieldPaths, num)) {
+                heroItemsChanged[slot] = true;
+            }
+        }
+
+        @Override
+        public void onEntityDeleted(Context ctx, Entity e) {
+            slotByAbilityIndex.remove(e.getIndex());
+            slotByItemIndex.remove(e.getIndex());
+        }
+
+        private void processIntervalUpdate(Context ctx, TickState tick) {
+            Entity playerResource = tick.getPlayerResource();
+            int time = tick.getTime();
+            for (int i = 0; i < NUM_PLAYERS; i++) {
+                int index = tick.getPlayerIndex(i);
+                Integer hero = context.getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_nSelectedHeroID", index);
+                int playerTeam = properties.getInt(playerResource, "m_vecPlayerData.%i.m_iPlayerTeam", index, 0);
+                int teamSlot = properties.getInt(playerResource, "m_vecPlayerTeamData.%i.m_iTeamSlot", index, -1);
+
+                // Facet/variant format and key location changed in 7.39, leaving this as a fallback
+                Integer variant = context.getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_nSelectedHeroVariant", index);
+                Integer facetHeroId = null;
+
+                Entity dataTeam = tick.getDataTeam(playerTeam == RADIANT_TEAM_ID);
+
+                EventRecord entry = context.newEntry(time);
+                entry.setType("interval");
+                entry.setInt(EventField.SLOT, i);
+                entry.setBoolean(EventField.REPICKED, context.getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_bHasRepicked", index));
+                entry.setBoolean(EventField.RANDOMED, context.getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_bHasRandomed", index));
+                entry.setBoolean(EventField.PRED_VICT, context.getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_bHasPredictedVictory", index));
+                entry.setInt(EventField.FIRSTBLOOD_CLAIMED, context.getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_iFirstBloodClaimed", index));
+                entry.setFloat(EventField.TEAMFIGHT_PARTICIPATION, context.getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_flTeamFightParticipation", index));
+                entry.setInt(EventField.LEVEL, context.getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_iLevel", index));
+                entry.setInt(EventField.KILLS, context.getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_iKills", index));
+                entry.setInt(EventField.DEATHS, context.getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_iDeaths", index));
+                entry.setInt(EventField.ASSISTS, context.getEntityProperty(playerResource, "m_vecPlayerTeamData.%i.m_iAssists", index));
+                entry.setInt(EventField.DENIES, context.getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iDenyCount", teamSlot));
+                entry.setInt(EventField.OBS_PLACED, context.getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iObserverWardsPlaced", teamSlot));
+                entry.setInt(EventField.SEN_PLACED, context.getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iSentryWardsPlaced", teamSlot));
+                entry.setInt(EventField.CREEPS_STACKED, context.getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iCreepsStacked", teamSlot));
+                entry.setInt(EventField.CAMPS_STACKED, context.getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iCampsStacked", teamSlot));
+                entry.setInt(EventField.RUNE_PICKUPS, context.getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iRunePickups", teamSlot));
+                entry.setInt(EventField.TOWERS_KILLED, context.getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iTowerKills", teamSlot));
+                entry.setInt(EventField.ROSHANS_KILLED, context.getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iRoshanKills", teamSlot));
+                entry.setInt(EventField.OBSERVERS_PLACED, context.getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iObserverWardsPlaced", teamSlot));
+                entry.setInt(EventField.NETWORTH, context.getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iNetWorth", teamSlot));
+                entry.setInt(EventField.STAGE, tick.getGameState());
+
+                if (teamSlot >= 0) {
+                    entry.setInt(EventField.GOLD, context.getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iTotalEarnedGold", teamSlot));
+                    entry.setInt(EventField.LH, context.getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iLastHitCount", teamSlot));
+                    entry.setInt(EventField.XP, context.getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_iTotalEarnedXP", teamSlot));
+                    entry.setFloat(EventField.STUNS, context.getEntityProperty(dataTeam, "m_vecDataTeam.%i.m_fStuns", teamSlot));
+                }
+
+                // Get the player's hero entity
+                Entity heroEntity = tick.getHero(i);
+                if (heroEntity != null) {
+                    processHeroEntity(ctx, tick, heroEntity, entry, hero, variant, facetHeroId);
+                }
+
+                context.output(entry);
+            }
+        }
+
+        private void processHeroEntity(Context ctx, TickState tick, Entity heroEntity, EventRecord entry, Integer hero,
+                                       Integer variant, Integer facetHeroId) {
+            // Get the hero's coordinates
+            Integer cellX = context.getEntityProperty(heroEntity, PROPERTY_CELL_X, null);
+            Integer cellY = context.getEntityProperty(heroEntity, PROPERTY_CELL_Y, null);
+            Float vecX = context.getEntityProperty(heroEntity, PROPERTY_VEC_X, null);
+            Float vecY = context.getEntityProperty(heroEntity, PROPERTY_VEC_Y, null);
+
+            if (cellX != null && cellY != null) {
+                entry.setFloat(EventField.X, getPreciseLocation(cellX, vecX));
+                entry.setFloat(EventField.Y, getPreciseLocation(cellY, vecY));
+            }
+
+            // Post-7.39 format for facets is a 128bit number, where last 32 bits represent the variant
+            // and the first 32 bits represent the hero id, which acts as the source for the facet
+            // (same as hero_id in all cases, except ability draft)
+            // 0xHHHH00000000VVVV
+            Long facetKey = context.getEntityProperty(heroEntity, PROPERTY_HERO_FACET_KEY, null);
+            if (facetKey != null) {
+                facetHeroId = (int) (facetKey >> FACET_KEY_HERO_ID_SHIFT);
+                variant = (int) (facetKey & FACET_KEY_VARIANT_MASK);
+            }
+
+            entry.setString(EventField.UNIT, heroEntity.getDtClass().getDtName());
+            entry.setInt(EventField.HERO_ID, hero);
+            entry.setInt(EventField.VARIANT, variant);
+            entry.setInt(EventField.FACET_HERO_ID, facetHeroId);
+            entry.setInt(EventField.LIFE_STATE, context.getEntityProperty(heroEntity, PROPERTY_LIFE_STATE, null));
+
+            // Check if hero has been assigned to entity
+            String combatLogName = tick.getHeroName(entry.getInt(EventField.SLOT));
+            if (hero == null || hero <= 0 || combatLogName == null) {
+                return;
+            }
+            int slot = entry.getInt(EventField.SLOT);
+            int time = tick.getTime();
+            trackHeroEntity(heroEntity, slot);
+            if (heroAbilitiesChanged[slot]) {
+                SymbolTable symbols = context.getSymbols();
+                long heroKey = (long) symbols.intern(combatLogName) << 32;
+                for (Ability ability : getHeroAbilities(ctx, heroEntity, slot)) {
+                    // Only push ability updates when the level changes
+                    long abilityKey = heroKey | symbols.intern(ability.id);
+                    Integer currentLevel = abilitiesTracking.get(abilityKey);
+                    if (currentLevel == null || !currentLevel.equals(ability.abilityLevel)) {
+                        EventRecord abilitiesEntry = context.newEntry(time);
+                        abilitiesEntry.setType("DOTA_ABILITY_LEVEL");
+                        abilitiesEntry.setString(EventField.TARGETNAME, combatLogName);
+                        abilitiesEntry.setString(EventField.VALUENAME, ability.id);
+                        abilitiesEntry.setInt(EventField.ABILITYLEVEL, ability.abilityLevel);
+                        // We use the combatLogName & the ability id as some ability IDs are the same
+                        abilitiesTracking.put(abilityKey, ability.abilityLevel);
+                        context.output(abilitiesEntry);
+                    }
+                }
+            }
+
+            // The inventory is only needed for the starting items and the item timeline
+            boolean isStartingItemsTime = time - tick.getGameStartTime() - 1 == 0;
+            if (isStartingItemsTime || !isPlayerStartingItemsWritten[slot] || (emitsItemTimeline && heroItemsChanged[slot])) {
+                List<Item> heroInventory = getHeroInventory(ctx, heroEntity, slot);
+                processStartingItems(slot, time, isStartingItemsTime, heroInventory, combatLogName);
+                // Skip incomplete reads, they would show items disappearing for a second
+                if (emitsItemTimeline && !heroItemsChanged[slot]) {
+                    processItemTimeline(slot, time, heroInventory, combatLogName);
+                }
+            }
+        }
+
+        /**
+         * Marks the abilities and inventory of a slot for re-reading when its hero entity changed.
+         */
+        private void trackHeroEntity(Entity heroEntity, int slot) {
+            if (heroHandles[slot] != heroEntity.getHandle()) {
+                heroHandles[slot] = heroEntity.getHandle();
+                slotByHeroIndex.put(heroEntity.getIndex(), slot);
+                heroAbilitiesChanged[slot] = true;
+                heroItemsChanged[slot] = true;
+            }
+        }
+
+        /**
+         * Writes the inventory of a player if it differs from the last one written, as
+         * {@code <item slot>:<item>[:<charges>[:<secondary charges>]]} entries separated by commas.
+         */
+        private void processItemTimeline(int slot, int time, List<Item> heroInventory, String combatLogName) {
+            StringBuilder items = new StringBuilder();
+            for (Item item : heroInventory) {
+                if (items.length() > 0) {
+                    items.append(',');
+                }
+                items.append(item.slot).append(':').append(item.id);
+                if (item.num_charges != null || item.num_secondary_charges != null) {
+                    items.append(':').append(item.num_charges != null ? item.num_charges : 0);
+                }
+                if (item.num_secondary_charges != null) {
+                    items.append(':').append(item.num_secondary_charges);
+                }
+            }
+            String encoded = items.toString();
+            if (encoded.equals(itemTimelines[slot])) {
+                return;
+            }
+            itemTimelines[slot] = encoded;
+
+            EventRecord timelineEntry = context.newEntry(time);
+            timelineEntry.setType(TYPE_ITEM_TIMELINE);
+            timelineEntry.setInt(EventField.SLOT, slot);
+            timelineEntry.setString(EventField.TARGETNAME, combatLogName);
+            timelineEntry.setString(EventField.KEY, encoded);
+            context.output(timelineEntry);
+        }
+
+        private void processStartingItems(int slot, int time, boolean isStartingItemsTime, List<Item> heroInventory,
+                                          String combatLogName) {
+            if (isStartingItemsTime) {
+                for (Item item : heroInventory) {
+                    EventRecord startingItems = context.newEntry(time);
+                    startingItems.setType("STARTING_ITEM");
+                    startingItems.setString(EventField.TARGETNAME, combatLogName);
+                    startingItems.setString(EventField.VALUENAME, item.id);
+                    startingItems.setInt(EventField.SLOT, slot);
+                    startingItems.setInt(EventField.VALUE, (slot < 5 ? 0 : PLAYER_SLOT_OFFSET) + slot);
+                    startingItems.setInt(EventField.ITEMSLOT, item.slot);
+                    startingItems.setInt(EventField.CHARGES, item.num_charges);
+                    startingItems.setInt(EventField.SECONDARY_CHARGES, item.num_secondary_charges);
+                    context.output(startingItems);
+                }
+            }
+
+            if (!isPlayerStartingItemsWritten[slot]) {
+                // Making something similar to DOTA_COMBATLOG_PURCHASE for each item in the beginning of the game
+                isPlayerStartingItemsWritten[slot] = true;
+                for (Item item : heroInventory) {
+                    EventRecord startingItemsEntry = context.newEntry(time);
+                    startingItemsEntry.setType("DOTA_COMBATLOG_PURCHASE");
+                    startingItemsEntry.setInt(EventField.SLOT, slot);
+                    startingItemsEntry.setInt(EventField.VALUE, (slot < 5 ? 0 : PLAYER_SLOT_OFFSET) + slot);
+                    startingItemsEntry.setString(EventField.VALUENAME, item.id);
+                    startingItemsEntry.setString(EventField.TARGETNAME, combatLogName);
+                    startingItemsEntry.setInt(EventField.CHARGES, item.num_charges);
+                    context.output(startingItemsEntry);
+                }
+            }
+        }
+
+        /**
+         * Reads the inventory of a hero and registers its items for charge updates. The slot
+         * stays marked as changed if an item could not be read, so it is retried.
+         */
+        private List<Item> getHeroInventory(Context ctx, Entity heroEntity, int slot) {
+            StringTable entityNamesTable = ctx.getProcessor(StringTables.class).forName(STRING_TABLE_ENTITY_NAMES);
+            Entities entities = ctx.getProcessor(Entities.class);
+            List<Item> inventoryList = new ArrayList<>(6);
+            boolean complete = true;
+
+            for (int i = 0; i < MAX_INVENTORY_SLOTS; i++) {
+                try {
+                    Item item = getHeroItem(entityNamesTable, entities, heroEntity, i);
+                    if (item != null) {
+                        inventoryList.add(item);
+                        slotByItemIndex.put(item.entityIndex, slot);
+                        allowEntityClass(entities, item.entityIndex);
+                    }
+                } catch (Exception e) {
+                    // Silently skip invalid item slots
+                    complete = false;
+                }
+            }
+
+            heroItemsChanged[slot] = !complete;
+            return inventoryList;
+        }
+
+        /**
+         * Lets the updates of an ability or item of a hero through the entity class filter.
+         */
+        private void allowEntityClass(Entities entities, int entityIndex) {
+            Entity entity = entities.getByIndex(entityIndex);
+            if (entity != null) {
+                context.getEntityClassFilter().allow(entity.getDtClass());
+            }
+        }
+
+        /**
+         * Reads the abilities of a hero and registers them for level updates. The slot stays
+         * marked as changed if an ability could not be read, so it is retried.
+         */
+        private List<Ability> getHeroAbilities(Context ctx, Entity heroEntity, int slot) {
+            StringTable entityNamesTable = ctx.getProcessor(StringTables.class).forName(STRING_TABLE_ENTITY_NAMES);
+            Entities entities = ctx.getProcessor(Entities.class);
+            List<Ability> abilityList = new ArrayList<>(MAX_ABILITIES);
+            boolean complete = true;
+
+            for (int i = 0; i < MAX_ABILITIES; i++) {
+                try {
+                    Ability ability = getHeroAbility(entityNamesTable, entities, heroEntity, i);
+                    if (ability != null) {
+                        abilityList.add(ability);
+                        slotByAbilityIndex.put(ability.entityIndex, slot);
+                        allowEntityClass(entities, ability.entityIndex);
+                    }
+                } catch (Exception e) {
+                    // Silently skip invalid ability slots
+                    complete = false;
+                }
+            }
+
+            heroAbilitiesChanged[slot] = !complete;
+            return abilityList;
+        }
+
+        /**
+         * Uses "EntityNames" string table and Entities processor
+         *
+         * @param entityNamesTable "EntityNames" string table
+         * @param entities         Entities processor
+         * @param heroEntity       Hero entity
+         * @param idx              0-5 - inventory, 6-8 - backpack, 9-16 - stash
+         * @return {@code null} - empty slot. Throws {@link UnknownItemFoundException}
+         *         if item information can't be extracted
+         */
+        private Item getHeroItem(StringTable entityNamesTable, Entities entities, Entity heroEntity, int idx) throws UnknownItemFoundException {
+            int itemHandle = properties.getInt(heroEntity, PROPERTY_ITEMS, idx, INVALID_HANDLE);
+            if (itemHandle == INVALID_HANDLE) {
+                return null;
+            }
+
+            Entity itemEntity = entities.getByHandle(itemHandle);
+            if (itemEntity == null) {
+                throw new UnknownItemFoundException(String.format("Can't find item by its handle (%d)", itemHandle));
+            }
+
+            String itemName = entityNamesTable.getNameByIndex(properties.getInt(itemEntity, PROPERTY_ENTITY_NAME_INDEX, -1));
+            if (itemName == null) {
+                throw new UnknownItemFoundException("Can't get item name from EntityName string table");
+            }
+
+            Item item = new Item();
+            item.id = itemName;
+            item.entityIndex = itemEntity.getIndex();
+            item.slot = idx;
+            int numCharges = properties.getInt(itemEntity, PROPERTY_CURRENT_CHARGES, 0);
+            if (numCharges != 0) {
+                item.num_charges = numCharges;
+            }
+            int numSecondaryCharges = properties.getInt(itemEntity, PROPERTY_SECONDARY_CHARGES, 0);
+            if (numSecondaryCharges != 0) {
+                item.num_secondary_charges = numSecondaryCharges;
+            }
+            return item;
+        }
+
+        /**
+         * Uses "EntityNames" string table and Entities processor
+         *
+         * @param entityNamesTable "EntityNames" string table
+         * @param entities         Entities processor
+         * @param heroEntity       Hero entity
+         * @param idx              0-31 = Hero abilities including talents and special event items
+         * @return {@code null} - empty slot. Throws {@link UnknownAbilityFoundException}
+         *         if ability information can't be extracted
+         */
+        private Ability getHeroAbility(StringTable entityNamesTable, Entities entities, Entity heroEntity, int idx) throws UnknownAbilityFoundException {
+            int abilityHandle;
+            if (properties.resolve(heroEntity, PROPERTY_ABILITIES, idx) != null) {
+                abilityHandle = properties.getInt(heroEntity, PROPERTY_ABILITIES, idx, INVALID_HANDLE);
+            } else {
+                abilityHandle = properties.getInt(heroEntity, PROPERTY_ABILITIES_VEC, idx, INVALID_HANDLE);
+            }
+
+            if (abilityHandle == INVALID_HANDLE) {
+                return null;
+            }
+
+            Entity abilityEntity = entities.getByHandle(abilityHandle);
+            if (abilityEntity == null) {
+                throw new UnknownAbilityFoundException(String.format("Can't find ability by its handle (%d)", abilityHandle));
+            }
+
+            String abilityName = entityNamesTable.getNameByIndex(properties.getInt(abilityEntity, PROPERTY_ENTITY_NAME_INDEX, -1));
+            if (abilityName == null) {
+                throw new UnknownAbilityFoundException("Can't get ability name from EntityName string table");
+            }
+
+            Ability ability = new Ability();
+            ability.id = abilityName;
+            ability.entityIndex = abilityEntity.getIndex();
+            ability.abilityLevel = properties.get(abilityEntity, PROPERTY_ABILITY_LEVEL);
+
+            return ability;
+        }
+    }
+}
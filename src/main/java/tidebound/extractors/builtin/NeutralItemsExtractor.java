@@ -0,0 +1,97 @@
+package tidebound.extractors.builtin;
+
+import java.util.Set;
+
+import skadistats.clarity.model.Entity;
+import skadistats.clarity.processor.runner.Context;
+import tidebound.events.EventField;
+import tidebound.events.EventProjection;
+import tidebound.events.EventRecord;
+import tidebound.extractors.EntityListener;
+import tidebound.extractors.Extractor;
+import tidebound.extractors.ExtractorContext;
+
+/**
+ * Neutral items found by the players (neutral_token, neutral_item_history).
+ */
+public class NeutralItemsExtractor implements Extractor {
+
+    private static final String ENTITY_PREFIX_ITEM = "CDOTA_Item_";
+    private static final String PROPERTY_NEUTRAL_ACTIVE_DROP = "m_bIsNeutralActiveDrop";
+    private static final String PROPERTY_NEUTRAL_PASSIVE_DROP = "m_bIsNeutralPassiveDrop";
+    private static final String PROPERTY_NEUTRAL_DROP_TEAM = "m_nNeutralDropTeam";
+
+    @Override
+    public String getName() {
+        return "neutral_items";
+    }
+
+    @Override
+    public boolean isRequiredBy(EventProjection projection) {
+        return projection.includesAnyType("neutral_token", "neutral_item_history");
+    }
+
+    @Override
+    public Class<?> getProcessorClass() {
+        return Processor.class;
+    }
+
+    @Override
+    public Set<String> getEntityClasses() {
+        return Set.of(ENTITY_PREFIX_ITEM + "*");
+    }
+
+    @Override
+    public Object createProcessor(ExtractorContext context) {
+        return new Processor(context);
+    }
+
+    public static class Processor implements EntityListener {
+
+        private final ExtractorContext context;
+
+        Processor(ExtractorContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public void onEntityEntered(Context ctx, Entity entity) {
+            String entityName = entity.getDtClass().getDtName();
+            if (!entityName.startsWith(ENTITY_PREFIX_ITEM)) {
+                return;
+            }
+            if (entityName.startsWith(ENTITY_PREFIX_ITEM + "Tier") && entityName.endsWith("Token")) {
+                handleNeutralToken(ctx, entity, entityName);
+            } else {
+                handleNeutralItem(ctx, entity, entityName);
+            }
+        }
+
+        private void handleNeutralToken(Context ctx, Entity entity, String entityName) {
+            EventRecord entry = context.newEntry(context.getTime());
+            entry.setType("neutral_token");
+            entry.setInt(EventField.SLOT, context.getPlayerSlotFromEntity(ctx, entity));
+            entry.setString(EventField.KEY, entityName.substring(ENTITY_PREFIX_ITEM.length()));
+            context.output(entry);
+        }
+
+        private void handleNeutralItem(Context ctx, Entity entity, String entityName) {
+            Boolean isNeutralActiveDrop = context.getEntityProperty(entity, PROPERTY_NEUTRAL_ACTIVE_DROP, null);
+            Boolean isNeutralPassiveDrop = context.getEntityProperty(entity, PROPERTY_NEUTRAL_PASSIVE_DROP, null);
+            Integer neutralDropTeam = context.getEntityProperty(entity, PROPERTY_NEUTRAL_DROP_TEAM, null);
+
+            boolean isNeutralDrop = (isNeutralActiveDrop != null && isNeutralActiveDrop)
+                || (isNeutralPassiveDrop != null && isNeutralPassiveDrop);
+
+            if (neutralDropTeam != null && neutralDropTeam != 0 && isNeutralDrop) {
+                EventRecord entry = context.newEntry(context.getTime());
+                entry.setType("neutral_item_history");
+                entry.setInt(EventField.SLOT, context.getPlayerSlotFromEntity(ctx, entity));
+                entry.setString(EventField.KEY, entityName.substring(ENTITY_PREFIX_ITEM.length()));
+                entry.setBoolean(EventField.IS_NEUTRAL_ACTIVE_DROP, isNeutralActiveDrop);
+                entry.setBoolean(EventField.IS_NEUTRAL_PASSIVE_DROP, isNeutralPassiveDrop);
+                context.output(entry);
+            }
+        }
+    }
+}
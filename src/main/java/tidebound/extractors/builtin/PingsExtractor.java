@@ -0,0 +1,72 @@
+package tidebound.extractors.builtin;
+
+import java.util.Set;
+
+import com.google.protobuf.GeneratedMessage;
+
+import skadistats.clarity.processor.runner.Context;
+import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.CDOTAUserMsg_LocationPing;
+import tidebound.events.EventField;
+import tidebound.events.EventProjection;
+import tidebound.events.EventRecord;
+import tidebound.extractors.Extractor;
+import tidebound.extractors.ExtractorContext;
+import tidebound.extractors.MessageListener;
+
+/**
+ * Map pings (pings), capped at MAX_PING_COUNT per replay.
+ */
+public class PingsExtractor implements Extractor {
+
+    private static final int MAX_PING_COUNT = 10000;
+
+    @Override
+    public String getName() {
+        return "pings";
+    }
+
+    @Override
+    public boolean isRequiredBy(EventProjection projection) {
+        return projection.includesType("pings");
+    }
+
+    @Override
+    public Class<?> getProcessorClass() {
+        return Processor.class;
+    }
+
+    @Override
+    public Object createProcessor(ExtractorContext context) {
+        return new Processor(context);
+    }
+
+    public static class Processor implements MessageListener {
+
+        private final ExtractorContext context;
+        private int pingCount = 0;
+
+        Processor(ExtractorContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public Set<Class<? extends GeneratedMessage>> getMessageClasses() {
+            return Set.of(CDOTAUserMsg_LocationPing.class);
+        }
+
+        @Override
+        public void onMessage(Context ctx, GeneratedMessage message) {
+            CDOTAUserMsg_LocationPing ping = (CDOTAUserMsg_LocationPing) message;
+            pingCount++;
+            if (pingCount > MAX_PING_COUNT) {
+                return;
+            }
+
+            EventRecord entry = context.newEntry(context.getTime());
+            entry.setType("pings");
+            entry.setInt(EventField.SLOT, ping.getPlayerId());
+            // Could get the ping coordinates/type if needed
+            context.output(entry);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package tidebound.extractors.builtin;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import skadistats.clarity.model.CombatLogEntry;
+import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.DOTA_COMBATLOG_TYPES;
+import tidebound.events.SymbolTable;
+
+class TrackVisitor implements Visitor<TrackVisitor.TrackStatus> {
+
+	public static class TrackStatus {
+		public String inflictor;
+		public boolean tracked;
+		
+		public TrackStatus() {
+			inflictor = null;
+			tracked = false;
+		}
+		
+		public TrackStatus(String inflictor, boolean tracked) {
+			this.inflictor = inflictor;
+			this.tracked = tracked;
+		}
+		
+	}
+	
+	private static final String BH_TRACK = "modifier_bounty_hunter_track";
+
+	private final SymbolTable symbols;
+	// Keyed by target name id, only tracked targets are interned
+	Map<Integer, TrackStatus> trackStatus = new HashMap<>();
+
+	public TrackVisitor(SymbolTable symbols) {
+		this.symbols = symbols;
+	}
+
+	@Override
+	public TrackStatus visit(int time, CombatLogEntry cle) {
+		DOTA_COMBATLOG_TYPES type = cle.getType();
+
+		if (type == DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_MODIFIER_ADD && BH_TRACK.equals(cle.getInflictorName())) {
+			trackStatus.put(symbols.intern(cle.getTargetName()), new TrackStatus(cle.getAttackerName(), true));
+		}
+
+		if (type == DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_MODIFIER_REMOVE && BH_TRACK.equals(cle.getInflictorName())) {
+			trackStatus.remove(symbols.find(cle.getTargetName()));
+		}
+
+		if (type == DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_DEATH && !trackStatus.isEmpty()) {
+			TrackStatus status = trackStatus.get(symbols.find(cle.getTargetName()));
+			if (status != null && status.tracked) {
+				return status;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * @return Number of tracked heroes kept
+	 */
+	int getStateSize() {
+		return trackStatus.size();
+	}
+}
@@ -1,8 +1,8 @@
-package tidebound.combatlogvisitors;
+package tidebound.extractors.builtin;
 
 import skadistats.clarity.model.CombatLogEntry;
 
-public interface Visitor<T> {
+interface Visitor<T> {
 
 	T visit(int time, CombatLogEntry cle);
 }
@@ -0,0 +1,246 @@
+package tidebound.extractors.builtin;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import skadistats.clarity.model.CombatLogEntry;
+import skadistats.clarity.model.Entity;
+import skadistats.clarity.model.FieldPath;
+import skadistats.clarity.processor.entities.Entities;
+import skadistats.clarity.processor.runner.Context;
+import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.DOTA_COMBATLOG_TYPES;
+import tidebound.events.EventField;
+import tidebound.events.EventProjection;
+import tidebound.events.EventRecord;
+import tidebound.extractors.CombatLogListener;
+import tidebound.extractors.EntityListener;
+import tidebound.extractors.Extractor;
+import tidebound.extractors.ExtractorContext;
+import tidebound.extractors.RetainedState;
+import tidebound.extractors.TickListener;
+
+/**
+ * Ward placement and removal events (obs, sen, obs_left, sen_left), with the hero that
+ * killed the ward from the combat log.
+ */
+public class WardsExtractor implements Extractor {
+
+    private static final String TARGET_NAME_OBSERVER = "npc_dota_observer_wards";
+    private static final String TARGET_NAME_SENTRY = "npc_dota_sentry_wards";
+    private static final Map<String, String> WARDS_TARGET_NAME_BY_DT_CLASS = Map.of(
+        "DT_DOTA_NPC_Observer_Ward", TARGET_NAME_OBSERVER,
+        "CDOTA_NPC_Observer_Ward", TARGET_NAME_OBSERVER,
+        "DT_DOTA_NPC_Observer_Ward_TrueSight", TARGET_NAME_SENTRY,
+        "CDOTA_NPC_Observer_Ward_TrueSight", TARGET_NAME_SENTRY);
+    private static final Set<String> WARDS_TARGET_NAMES = Set.of(TARGET_NAME_OBSERVER, TARGET_NAME_SENTRY);
+
+    private static final String GROUP_WARDS = "wards";
+    private static final float CELL_SIZE = 128.0f;
+    private static final int LIFE_STATE_DEAD = 1;
+    private static final String PROPERTY_CELL_X = "CBodyComponent.m_cellX";
+    private static final String PROPERTY_CELL_Y = "CBodyComponent.m_cellY";
+    private static final String PROPERTY_CELL_Z = "CBodyComponent.m_cellZ";
+    private static final String PROPERTY_VEC_X = "CBodyComponent.m_vecX";
+    private static final String PROPERTY_VEC_Y = "CBodyComponent.m_vecY";
+    private static final String PROPERTY_VEC_Z = "CBodyComponent.m_vecZ";
+    private static final String PROPERTY_LIFE_STATE = "m_lifeState";
+    private static final String PROPERTY_OWNER_ENTITY = "m_hOwnerEntity";
+
+    @Override
+    public String getName() {
+        return "wards";
+    }
+
+    @Override
+    public boolean isRequiredBy(EventProjection projection) {
+        return projection.includesAnyType("obs", "sen", "obs_left", "sen_left");
+    }
+
+    @Override
+    public Class<?> getProcessorClass() {
+        return Processor.class;
+    }
+
+    @Override
+    public Set<String> getEntityClasses() {
+        return WARDS_TARGET_NAME_BY_DT_CLASS.keySet();
+    }
+
+    @Override
+    public Object createProcessor(ExtractorContext context) {
+        return new Processor(context);
+    }
+
+    public static class Processor implements CombatLogListener, EntityListener, TickListener, RetainedState {
+
+        private final ExtractorContext context;
+
+        private final Map<Integer, FieldPath> wardLifeStatePaths = new HashMap<>();
+        private final Map<Integer, Integer> wardCurrentLifeState = new HashMap<>();
+        private final Map<String, Queue<String>> wardKillersByWardClass = new HashMap<>();
+        private final Queue<WardProcessEntityCommand> wardToProcess = new ArrayDeque<>();
+
+        Processor(ExtractorContext context) {
+            this.context = context;
+            for (String targetName : WARDS_TARGET_NAMES) {
+                wardKillersByWardClass.put(targetName, new ArrayDeque<>());
+            }
+            context.getEntityTracker().trackGroup(GROUP_WARDS, WARDS_TARGET_NAME_BY_DT_CLASS::containsKey);
+        }
+
+        @Override
+        public long estimateRetainedBytes() {
+            // Killers of wards whose removal was not read yet queue up
+            long queued = wardToProcess.size();
+            for (Queue<String> killers : wardKillersByWardClass.values()) {
+                queued += killers.size();
+            }
+            return (wardLifeStatePaths.size() + wardCurrentLifeState.size()) * MAP_ENTRY_BYTES + queued * QUEUE_ENTRY_BYTES;
+        }
+
+        @Override
+        public void onCombatLogEntry(Context ctx, CombatLogEntry cle) {
+            if (cle.getType() != DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_DEATH || !WARDS_TARGET_NAMES.contains(cle.getTargetName())) {
+                return;
+            }
+            String killer;
+            if ((killer = cle.getDamageSourceName()) != null) {
+                wardKillersByWardClass.get(cle.getTargetName()).add(killer);
+            }
+        }
+
+        @Override
+        public void onEntityCreated(Context ctx, Entity e) {
+            if (!isWard(e)) return;
+            FieldPath lifeStatePath;
+
+            clearWardCachedState(e);
+            ensureWardFieldPathForEntityInitialized(e);
+            if ((lifeStatePath = getWardFieldPathForEntity(e)) != null) {
+                processWardLifeStateChange(ctx, e, lifeStatePath);
+            }
+        }
+
+        @Override
+        public void onEntityUpdated(Context ctx, Entity e, FieldPath[] fieldPaths, int num) {
+            if (!isWard(e)) return;
+            FieldPath p;
+            if ((p = getWardFieldPathForEntity(e)) != null) {
+                for (int i = 0; i < num; i++) {
+                    if (fieldPaths[i].equals(p)) {
+                        wardToProcess.add(new WardProcessEntityCommand(e, p));
+                        break;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void onEntityDeleted(Context ctx, Entity e) {
+            if (!isWard(e)) return;
+            clearWardCachedState(e);
+        }
+
+        @Override
+        public void onTickEnd(Context ctx, boolean synthetic) {
+            if (!synthetic || wardToProcess.isEmpty()) return;
+            WardProcessEntityCommand cmd;
+            while ((cmd = wardToProcess.poll()) != null) {
+                processWardLifeStateChange(ctx, cmd.entity, cmd.fieldPath);
+            }
+        }
+
+        private boolean isWard(Entity e) {
+            return context.getEntityTracker().isInGroup(e, GROUP_WARDS);
+        }
+
+        private FieldPath getWardFieldPathForEntity(Entity e) {
+            return wardLifeStatePaths.get(e.getDtClass().getClassId());
+        }
+
+        private void clearWardCachedState(Entity e) {
+            wardCurrentLifeState.remove(e.getIndex());
+        }
+
+        private void ensureWardFieldPathForEntityInitialized(Entity e) {
+            Integer cid = e.getDtClass().getClassId();
+            if (!wardLifeStatePaths.containsKey(cid)) {
+                wardLifeStatePaths.put(cid, e.getDtClass().getFieldPathForName(PROPERTY_LIFE_STATE));
+            }
+        }
+
+        private void processWardLifeStateChange(Context ctx, Entity e, FieldPath p) {
+            int oldState = wardCurrentLifeState.containsKey(e.getIndex()) ? wardCurrentLifeState.get(e.getIndex()) : 2;
+            int newState = e.getPropertyForFieldPath(p);
+            if (oldState != newState) {
+                switch (newState) {
+                    case 0:
+                        context.output(buildWardEntry(ctx, e));
+                        break;
+                    case 1:
+                        String killer;
+                        EventRecord wardEntry = buildWardEntry(ctx, e);
+                        if ((killer = wardKillersByWardClass.get(WARDS_TARGET_NAME_BY_DT_CLASS.get(e.getDtClass().getDtName())).poll()) != null) {
+                            wardEntry.setString(EventField.ATTACKERNAME, killer);
+                        }
+                        context.output(wardEntry);
+                        break;
+                }
+            }
+
+            wardCurrentLifeState.put(e.getIndex(), newState);
+        }
+
+        private EventRecord buildWardEntry(Context ctx, Entity wardEntity) {
+            EventRecord entry = context.newEntry(context.getTime());
+            boolean isObserver = !wardEntity.getDtClass().getDtName().contains("TrueSight");
+
+            Integer cellX = context.getEntityProperty(wardEntity, PROPERTY_CELL_X, null);
+            Integer cellY = context.getEntityProperty(wardEntity, PROPERTY_CELL_Y, null);
+            Integer cellZ = context.getEntityProperty(wardEntity, PROPERTY_CELL_Z, null);
+
+            Float vecX = context.getEntityProperty(wardEntity, PROPERTY_VEC_X, null);
+            Float vecY = context.getEntityProperty(wardEntity, PROPERTY_VEC_Y, null);
+            Float vecZ = context.getEntityProperty(wardEntity, PROPERTY_VEC_Z, null);
+
+            Integer lifeState = context.getEntityProperty(wardEntity, PROPERTY_LIFE_STATE, null);
+
+            if (cellX != null && cellY != null && cellZ != null) {
+                entry.setFloat(EventField.X, getPreciseLocation(cellX, vecX));
+                entry.setFloat(EventField.Y, getPreciseLocation(cellY, vecY));
+                entry.setFloat(EventField.Z, getPreciseLocation(cellZ, vecZ));
+            }
+
+            boolean entityLeft = lifeState != null && lifeState == LIFE_STATE_DEAD;
+            entry.setType(isObserver ? (entityLeft ? "obs_left" : "obs") : (entityLeft ? "sen_left" : "sen"));
+            entry.setBoolean(EventField.ENTITYLEFT, entityLeft);
+            entry.setInt(EventField.EHANDLE, wardEntity.getHandle());
+
+            Integer ownerHandle = context.getEntityProperty(wardEntity, PROPERTY_OWNER_ENTITY, null);
+            Entity ownerEntity = ctx.getProcessor(Entities.class).getByHandle(ownerHandle);
+            entry.setInt(EventField.SLOT, context.getPlayerSlotFromEntity(ctx, ownerEntity));
+
+            return entry;
+        }
+
+        private static Float getPreciseLocation(Integer cell, Float vec) {
+            if (cell == null || vec == null) {
+                return null;
+            }
+            return (cell * CELL_SIZE + vec) / CELL_SIZE;
+        }
+    }
+
+    private static class WardProcessEntityCommand {
+        private final Entity entity;
+        private final FieldPath fieldPath;
+
+        WardProcessEntityCommand(Entity e, FieldPath p) {
+            entity = e;
+            fieldPath = p;
+        }
+    }
+}
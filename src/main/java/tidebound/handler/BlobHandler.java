@@ -11,6 +11,7 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import tidebound.S3Service;
+import tidebound.ParseOptions;
 import tidebound.util.HttpUtil;
 
 /**
@@ -33,12 +34,19 @@ public class BlobHandler implements HttpHandler {
                 return;
             }
             
+            // createParsedDataBlob.mjs reads names, not symbol ids
+            ParseOptions options = ParseOptions.fromParameters(query::get).withSymbols(false);
+            
             // Check if it's an S3 URL
             if (S3Service.isS3Url(replayUrl)) {
-                handleS3Replay(exchange, replayUrl);
+                handleS3Replay(exchange, replayUrl, options);
             } else {
-                handleHttpReplay(exchange, replayUrl);
+                handleHttpReplay(exchange, replayUrl, options);
             }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid parse options: " + e.getMessage());
+            exchange.sendResponseHeaders(400, 0);
+            exchange.getResponseBody().close();
         } catch (InterruptedException e) {
             System.err.println("Interrupted while processing replay: " + e.getMessage());
             e.printStackTrace();
@@ -52,7 +60,7 @@ public class BlobHandler implements HttpHandler {
         }
     }
 
-    private void handleS3Replay(HttpExchange exchange, String s3Url) throws IOException, InterruptedException {
+    private void handleS3Replay(HttpExchange exchange, String s3Url, ParseOptions options) throws IOException, InterruptedException {
         System.err.println("Processing S3 replay: " + s3Url);
         
         try {
@@ -64,8 +72,8 @@ public class BlobHandler implements HttpHandler {
             String decompressCmd = isBz2 ? "bunzip2" : "cat";
             
             // Create the processing pipeline: decompress | parse | aggregate
-            String cmd = String.format("%s | curl -X POST -T - localhost:%d | node processors/createParsedDataBlob.mjs", 
-                decompressCmd, SERVER_PORT);
+            String cmd = String.format("%s | curl -X POST -T - 'localhost:%d/%s' | node processors/createParsedDataBlob.mjs", 
+                decompressCmd, SERVER_PORT, options.toQueryString());
             System.err.println("S3 processing command: " + cmd);
             
             Process proc = new ProcessBuilder("bash", "-c", cmd).start();
@@ -94,13 +102,14 @@ public class BlobHandler implements HttpHandler {
         }
     }
 
-    private void handleHttpReplay(HttpExchange exchange, String replayUrl) throws IOException, InterruptedException {
+    private void handleHttpReplay(HttpExchange exchange, String replayUrl, ParseOptions options) throws IOException, InterruptedException {
         System.err.println("Processing HTTP replay: " + replayUrl);
         URL url = new URL(replayUrl);
-        String cmd = String.format("curl --max-time 145 --fail -L %s | %s | curl -X POST -T - localhost:%d | node processors/createParsedDataBlob.mjs",
+        String cmd = String.format("curl --max-time 145 --fail -L %s | %s | curl -X POST -T - 'localhost:%d/%s' | node processors/createParsedDataBlob.mjs",
             url, 
             url.toString().endsWith(".bz2") ? "bunzip2" : "cat",
-            SERVER_PORT
+            SERVER_PORT,
+            options.toQueryString()
         );
         System.err.println(cmd);
         
@@ -0,0 +1,62 @@
+package tidebound.handler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import tidebound.ParserEngine;
+import tidebound.extractors.Extractor;
+import tidebound.extractors.ExtractorRegistry;
+import tidebound.extractors.ExtractorStats;
+
+/**
+ * Handler listing the extractors of this deployment and the events and handler time
+ * each of them accounted for since startup, most expensive first.
+ */
+public class ExtractorsHandler implements HttpHandler {
+
+    private final Gson gson = new Gson();
+    private final ParserEngine engine;
+
+    public ExtractorsHandler(ParserEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        ExtractorRegistry registry = engine.getExtractors();
+        List<Map<String, Object>> extractors = new ArrayList<>();
+        for (ExtractorStats total : registry.getTotals()) {
+            Map<String, Object> extractor = new LinkedHashMap<>();
+            extractor.put("name", total.getName());
+            extractor.put("enabled", true);
+            extractor.put("parses", total.getParses());
+            extractor.put("events", total.getEvents());
+            extractor.put("time_ms", total.getNanos() / 1_000_000);
+            extractors.add(extractor);
+        }
+        for (Extractor disabled : registry.getExtractors()) {
+            if (!registry.isEnabled(disabled)) {
+                Map<String, Object> extractor = new LinkedHashMap<>();
+                extractor.put("name", disabled.getName());
+                extractor.put("enabled", false);
+                extractors.add(extractor);
+            }
+        }
+
+        byte[] body = gson.toJson(extractors).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+}
@@ -7,18 +7,36 @@ import java.nio.charset.StandardCharsets;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
+import tidebound.ParserEngine;
+
 /**
- * Handler for health check endpoint.
+ * Handler for health check endpoint. Reports 503 while the parser is warming up.
  */
 public class HealthHandler implements HttpHandler {
     
     private static final byte[] OK_RESPONSE = "ok".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] WARMING_UP_RESPONSE = "warming up".getBytes(StandardCharsets.UTF_8);
+
+    private final ParserEngine engine;
+
+    public HealthHandler() {
+        this(null);
+    }
+
+    /**
+     * @param engine Engine whose warm-up is awaited, null to always report healthy
+     */
+    public HealthHandler(ParserEngine engine) {
+        this.engine = engine;
+    }
     
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-        exchange.sendResponseHeaders(200, OK_RESPONSE.length);
+        boolean ready = engine == null || engine.isReady();
+        byte[] response = ready ? OK_RESPONSE : WARMING_UP_RESPONSE;
+        exchange.sendResponseHeaders(ready ? 200 : 503, response.length);
         try (OutputStream outputStream = exchange.getResponseBody()) {
-            outputStream.write(OK_RESPONSE);
+            outputStream.write(response);
         }
     }
 }
@@ -4,13 +4,21 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
+import tidebound.ParseBudgetExceededException;
+import tidebound.ParseOptions;
+import tidebound.ParserEngine;
 import tidebound.util.HttpUtil;
+import tidebound.util.TailInputStream;
+import tidebound.worker.ParseWorkerPool;
 
 /**
  * Handler for processing local replay files.
@@ -18,6 +26,35 @@ import tidebound.util.HttpUtil;
 public class LocalReplayHandler implements HttpHandler {
     
     private static final int SERVER_PORT = 5600;
+    // Status of a replay whose parse was aborted over its memory budget, like on a job
+    private static final int STATUS_OVER_BUDGET = 413;
+    private static final List<String> BLOB_COMMAND = List.of("node", "processors/createParsedDataBlob.mjs");
+
+    private final ParserEngine engine;
+    private final ParseWorkerPool workers;
+    // Aggregates the NDJSON events of a parse into the blob
+    private final List<String> blobCommand;
+
+    public LocalReplayHandler(ParserEngine engine) {
+        this(engine, null, BLOB_COMMAND);
+    }
+
+    /**
+     * @param workers Pool of worker JVMs that parse the replays, null to parse in this process
+     */
+    public LocalReplayHandler(ParserEngine engine, ParseWorkerPool workers) {
+        this(engine, workers, BLOB_COMMAND);
+    }
+
+    LocalReplayHandler(ParserEngine engine, List<String> blobCommand) {
+        this(engine, null, blobCommand);
+    }
+
+    LocalReplayHandler(ParserEngine engine, ParseWorkerPool workers, List<String> blobCommand) {
+        this.engine = engine;
+        this.workers = workers;
+        this.blobCommand = blobCommand;
+    }
     
     @Override
     public void handle(HttpExchange exchange) throws IOException {
@@ -32,7 +69,16 @@ public class LocalReplayHandler implements HttpHandler {
                 return;
             }
             
-            handleLocalReplay(exchange, filePath);
+            ParseOptions options = ParseOptions.fromParameters(query::get);
+            if (!options.isTail()) {
+                // createParsedDataBlob.mjs reads names, not symbol ids
+                options = options.withSymbols(false);
+            }
+            handleLocalReplay(exchange, filePath, options);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid parse options: " + e.getMessage());
+            exchange.sendResponseHeaders(400, 0);
+            exchange.getResponseBody().close();
         } catch (InterruptedException e) {
             System.err.println("Interrupted while processing local replay: " + e.getMessage());
             e.printStackTrace();
@@ -46,7 +92,7 @@ public class LocalReplayHandler implements HttpHandler {
         }
     }
 
-    private void handleLocalReplay(HttpExchange exchange, String filePath) throws IOException, InterruptedException {
+    private void handleLocalReplay(HttpExchange exchange, String filePath, ParseOptions options) throws IOException, InterruptedException {
         System.err.println("Processing local replay: " + filePath);
         
         File replayFile = new File(filePath);
@@ -65,22 +111,52 @@ public class LocalReplayHandler implements HttpHandler {
             exchange.getResponseBody().close();
             return;
         }
+
+        if (options.isTail()) {
+            handleTail(exchange, replayFile, options);
+            return;
+        }
         
+        boolean isBz2 = filePath.endsWith(".bz2");
+        if (!isBz2 && !options.isWholeGame()) {
+            handleEvents(exchange, replayFile, options);
+            return;
+        }
+
+        Process proc = null;
         try (FileInputStream fileStream = new FileInputStream(replayFile)) {
-            // Determine if we need to decompress
-            boolean isBz2 = filePath.endsWith(".bz2");
-            String decompressCmd = isBz2 ? "bunzip2" : "cat";
-            
-            // Create the processing pipeline: decompress | parse | aggregate
-            String cmd = String.format("%s | curl -X POST -T - localhost:%d | node processors/createParsedDataBlob.mjs", 
-                decompressCmd, SERVER_PORT);
-            System.err.println("Local processing command: " + cmd);
-            
-            Process proc = new ProcessBuilder("bash", "-c", cmd).start();
-            
-            // Pipe file stream to the process
-            try (OutputStream procInput = proc.getOutputStream()) {
-                HttpUtil.copy(fileStream, procInput);
+            if (!isBz2) {
+                // Parse the file rather than a stream, so the parser can seek to the start of a
+                // time window, split a long replay into segments and write the seek index
+                System.err.println("Parsing local replay file with window " + options.getWindow());
+                proc = new ProcessBuilder(blobCommand).start();
+                try (OutputStream procInput = proc.getOutputStream()) {
+                    parseFile(replayFile, options, procInput);
+                } catch (ParseBudgetExceededException e) {
+                    System.err.println("Aborted parsing replay: " + e.getMessage());
+                    exchange.sendResponseHeaders(STATUS_OVER_BUDGET, 0);
+                    exchange.getResponseBody().close();
+                    return;
+                }
+            } else {
+                // Create the processing pipeline: decompress | parse | aggregate, without the
+                // aggregation for a parse that does not cover the whole game
+                String cmd = String.format("bunzip2 | curl -X POST -T - 'localhost:%d/%s'%s",
+                    SERVER_PORT, options.toQueryString(),
+                    options.isWholeGame() ? " | " + String.join(" ", blobCommand) : "");
+                System.err.println("Local processing command: " + cmd);
+                
+                proc = new ProcessBuilder("bash", "-c", cmd).start();
+                
+                // Pipe file stream to the process
+                try (OutputStream procInput = proc.getOutputStream()) {
+                    HttpUtil.copy(fileStream, procInput);
+                } catch (IOException e) {
+                    // A parse with a time window stops reading once the window has passed
+                    if (!options.getWindow().hasEnd()) {
+                        throw e;
+                    }
+                }
             }
             
             // Collect output and errors
@@ -91,6 +167,18 @@ public class LocalReplayHandler implements HttpHandler {
             System.err.println(error.toString());
             
             int exitCode = proc.waitFor();
+            if (exitCode == ParseBudgetExceededException.BLOB_EXIT_CODE && options.isWholeGame()) {
+                // The aggregation read the event ending the output of an aborted parse
+                System.err.println("Aborted parsing replay, it exceeded its memory budget");
+                exchange.sendResponseHeaders(STATUS_OVER_BUDGET, 0);
+                exchange.getResponseBody().close();
+                return;
+            }
+            if (exitCode != 0 && options.getWindow().hasEnd() && !options.isWholeGame()
+                    && error.toString().contains("curl: (55)") && output.size() > 0) {
+                // The parse stopped reading once the window had ended, the upload of the rest failed
+                exitCode = 0;
+            }
             handleProcessResult(exchange, exitCode, output, error);
             
         } catch (IOException e) {
@@ -98,6 +186,85 @@ public class LocalReplayHandler implements HttpHandler {
             e.printStackTrace();
             exchange.sendResponseHeaders(500, 0);
             exchange.getResponseBody().close();
+        } finally {
+            // Stops the pipeline of a failed parse, a no-op once it exited
+            if (proc != null) {
+                proc.destroy();
+            }
+        }
+    }
+
+    /**
+     * Streams the events of a parse that does not cover the whole game as NDJSON, as they
+     * cannot be aggregated into a blob.
+     */
+    private void handleEvents(HttpExchange exchange, File replayFile, ParseOptions options) throws IOException {
+        System.err.println("Parsing local replay file with window " + options.getWindow());
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            parseEvents(outputStream, () -> parseFile(replayFile, options, outputStream));
+        } catch (Exception e) {
+            // The status was already sent
+            System.err.println("Error parsing replay: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Streams the events of a replay that is still being recorded as NDJSON, tick by tick,
+     * until the recording is finished. The events are not aggregated into a blob.
+     */
+    private void handleTail(HttpExchange exchange, File replayFile, ParseOptions options) throws IOException {
+        if (replayFile.getName().endsWith(".bz2")) {
+            System.err.println("Error: Tail mode needs an uncompressed replay: " + replayFile);
+            exchange.sendResponseHeaders(400, 0);
+            exchange.getResponseBody().close();
+            return;
+        }
+
+        System.err.println("Tailing local replay: " + replayFile);
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            parseEvents(outputStream, () -> parseFile(replayFile, options, outputStream));
+        } catch (Exception e) {
+            // The status was already sent
+            System.err.println("Error tailing replay: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Parses or tails a replay file, in a worker when parses run in the worker pool; the
+     * worker reads the file itself.
+     */
+    private void parseFile(File replayFile, ParseOptions options, OutputStream output) throws IOException {
+        if (workers != null) {
+            workers.parse(options, replayFile, output);
+        } else if (options.isTail()) {
+            try (InputStream replayStream = new TailInputStream(replayFile.toPath(), TailInputStream.DEFAULT_IDLE_TIMEOUT)) {
+                engine.newSession(options).parse(replayStream, output);
+            }
+        } else {
+            engine.newSession(options).parse(replayFile, output);
+        }
+    }
+
+    private interface EventParse {
+        void run() throws IOException;
+    }
+
+    /**
+     * Runs a parse streaming its events. The status was sent before, so the output of a
+     * parse aborted over its memory budget ends with an event saying so.
+     */
+    private static void parseEvents(OutputStream outputStream, EventParse parse) throws IOException {
+        try {
+            parse.run();
+        } catch (ParseBudgetExceededException e) {
+            System.err.println("Aborted parsing replay: " + e.getMessage());
+            outputStream.write(e.toEventLine().getBytes(StandardCharsets.UTF_8));
         }
     }
 
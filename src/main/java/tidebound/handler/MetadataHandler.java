@@ -0,0 +1,84 @@
+package tidebound.handler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Map;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import tidebound.ParserEngine;
+import tidebound.metadata.GameInfo;
+import tidebound.metadata.ReplayMetadata;
+import tidebound.util.HttpUtil;
+
+/**
+ * Handler for the metadata-only mode: returns (and stores) the game info of a local
+ * replay file without parsing it.
+ */
+public class MetadataHandler implements HttpHandler {
+
+    private final ParserEngine engine;
+
+    public MetadataHandler(ParserEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        Map<String, String> query = HttpUtil.splitQuery(exchange.getRequestURI());
+        String filePath = query.get("file_path");
+
+        if (filePath == null || filePath.isEmpty()) {
+            System.err.println("Error: file_path parameter is required");
+            sendStatus(exchange, 400);
+            return;
+        }
+
+        File replayFile = new File(filePath);
+        if (!replayFile.exists()) {
+            System.err.println("Error: File not found: " + filePath);
+            sendStatus(exchange, 404);
+            return;
+        }
+        if (!replayFile.canRead()) {
+            System.err.println("Error: File not readable: " + filePath);
+            sendStatus(exchange, 403);
+            return;
+        }
+        if (filePath.endsWith(".bz2")) {
+            // The file info offset is only known for the uncompressed replay
+            System.err.println("Error: Metadata mode needs an uncompressed replay: " + filePath);
+            sendStatus(exchange, 400);
+            return;
+        }
+
+        GameInfo gameInfo;
+        try {
+            gameInfo = ReplayMetadata.extract(engine, replayFile.toPath());
+        } catch (IOException e) {
+            System.err.println("Error reading replay metadata: " + e.getMessage());
+            sendStatus(exchange, 400);
+            return;
+        } catch (SQLException e) {
+            System.err.println("Error saving game info to database: " + e.getMessage());
+            sendStatus(exchange, 500);
+            return;
+        }
+
+        byte[] body = gameInfo.toJson().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private void sendStatus(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, 0);
+        exchange.getResponseBody().close();
+    }
+}
@@ -3,23 +3,65 @@ package tidebound.handler;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
-import tidebound.Parse;
+import tidebound.ParseBudgetExceededException;
+import tidebound.ParseOptions;
+import tidebound.ParserEngine;
+import tidebound.util.HttpUtil;
+import tidebound.worker.ParseWorkerPool;
 
 /**
  * Handler for parsing replay files.
  */
 public class ParseHandler implements HttpHandler {
+
+    private final ParserEngine engine;
+    private final ParseWorkerPool workers;
+
+    public ParseHandler(ParserEngine engine) {
+        this(engine, null);
+    }
+
+    /**
+     * @param workers Pool of worker JVMs that parse the replays, null to parse in this process
+     */
+    public ParseHandler(ParserEngine engine, ParseWorkerPool workers) {
+        this.engine = engine;
+        this.workers = workers;
+    }
     
     @Override
     public void handle(HttpExchange exchange) throws IOException {
+        ParseOptions options;
+        try {
+            // Optional ?types=...&slots=... projection of the output
+            options = ParseOptions.fromParameters(HttpUtil.splitQuery(exchange.getRequestURI())::get);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid parse options: " + e.getMessage());
+            exchange.sendResponseHeaders(400, 0);
+            exchange.getResponseBody().close();
+            return;
+        }
+
         exchange.sendResponseHeaders(200, 0);
         try (InputStream inputStream = exchange.getRequestBody();
              OutputStream outputStream = exchange.getResponseBody()) {
-            new Parse(inputStream, outputStream);
+            try {
+                if (workers != null) {
+                    workers.parse(options, inputStream, outputStream);
+                } else {
+                    engine.newSession(options).parse(inputStream, outputStream);
+                }
+            } catch (ParseBudgetExceededException e) {
+                // The response is already started, it ends with the events parsed so far and
+                // the event telling the client that the parse was aborted
+                System.err.println("Aborted parsing replay: " + e.getMessage());
+                outputStream.write(e.toEventLine().getBytes(StandardCharsets.UTF_8));
+            }
         } catch (Exception e) {
             System.err.println("Error parsing replay: " + e.getMessage());
             e.printStackTrace();
@@ -0,0 +1,125 @@
+package tidebound.handler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import tidebound.StateSnapshots;
+import tidebound.util.HttpUtil;
+import tidebound.worker.ParseWorkerPool;
+
+/**
+ * Handler returning the state of the game at one moment of a local replay file, e.g.
+ * {@code /snapshot?file_path=/replays/match.dem&time=23:40}.
+ */
+public class SnapshotHandler implements HttpHandler {
+
+    private final StateSnapshots snapshots;
+
+    /**
+     * @param snapshots Snapshots of the replays, null when parses run in worker JVMs; a
+     *                  snapshot parse hands its events over in process, so it is refused
+     *                  rather than run in the server
+     */
+    public SnapshotHandler(StateSnapshots snapshots) {
+        this.snapshots = snapshots;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (snapshots == null) {
+            System.err.println("Error: Snapshots are not available with " + ParseWorkerPool.ENV_WORKERS);
+            sendStatus(exchange, 503);
+            return;
+        }
+        Map<String, String> query = HttpUtil.splitQuery(exchange.getRequestURI());
+        String filePath = query.get("file_path");
+
+        if (filePath == null || filePath.isEmpty()) {
+            System.err.println("Error: file_path parameter is required");
+            sendStatus(exchange, 400);
+            return;
+        }
+        Integer gameTime;
+        try {
+            gameTime = parseGameTime(query.get("time"));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            sendStatus(exchange, 400);
+            return;
+        }
+
+        File replayFile = new File(filePath);
+        if (!replayFile.exists()) {
+            System.err.println("Error: File not found: " + filePath);
+            sendStatus(exchange, 404);
+            return;
+        }
+        if (!replayFile.canRead()) {
+            System.err.println("Error: File not readable: " + filePath);
+            sendStatus(exchange, 403);
+            return;
+        }
+        if (filePath.endsWith(".bz2")) {
+            // Only an uncompressed replay can be seeked
+            System.err.println("Error: Snapshots need an uncompressed replay: " + filePath);
+            sendStatus(exchange, 400);
+            return;
+        }
+
+        String snapshot;
+        try {
+            snapshot = snapshots.getSnapshot(replayFile, gameTime);
+        } catch (IOException e) {
+            System.err.println("Error reading replay snapshot: " + e.getMessage());
+            sendStatus(exchange, 500);
+            return;
+        }
+
+        byte[] body = snapshot.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    /**
+     * @param value Game time in seconds ({@code 1420}) or minutes and seconds ({@code 23:40}),
+     *              negative before the horn
+     * @return The game time in seconds
+     * @throws IllegalArgumentException if the value is missing or invalid
+     */
+    static int parseGameTime(String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("time parameter is required");
+        }
+        String trimmed = value.trim();
+        try {
+            int separator = trimmed.indexOf(':');
+            if (separator < 0) {
+                return Integer.parseInt(trimmed);
+            }
+            boolean negative = trimmed.startsWith("-");
+            int minutes = Integer.parseInt(trimmed.substring(negative ? 1 : 0, separator));
+            int seconds = Integer.parseInt(trimmed.substring(separator + 1));
+            if (minutes < 0 || seconds < 0 || seconds >= 60) {
+                throw new NumberFormatException();
+            }
+            int time = minutes * 60 + seconds;
+            return negative ? -time : time;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid time: " + value);
+        }
+    }
+
+    private void sendStatus(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, 0);
+        exchange.getResponseBody().close();
+    }
+}
@@ -0,0 +1,101 @@
+package tidebound.metadata;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.xerial.snappy.Snappy;
+
+import skadistats.clarity.wire.shared.demo.proto.Demo;
+import skadistats.clarity.wire.shared.demo.proto.Demo.CDemoFileInfo;
+
+/**
+ * Reads the {@link CDemoFileInfo} of a Source 2 replay without parsing it.
+ *
+ * The replay header holds the offset of the file info packet, which is written after
+ * the last tick. Only that packet is read and decoded.
+ */
+public final class DemoFileInfoReader {
+
+    private static final byte[] SOURCE2_MAGIC = "PBDEMS2\0".getBytes(StandardCharsets.US_ASCII);
+    // Magic, file info offset and spawn groups offset
+    private static final int HEADER_SIZE = 16;
+    private static final int FILE_INFO_OFFSET_POSITION = 8;
+    // Command, tick and size varints
+    private static final int MAX_PACKET_HEADER_SIZE = 15;
+
+    private DemoFileInfoReader() {
+    }
+
+    /**
+     * @param replay Uncompressed replay file
+     * @return The file info of the replay
+     * @throws IOException if the file is not a Source 2 replay or has no file info,
+     *                     e.g. because it is truncated
+     */
+    public static CDemoFileInfo read(Path replay) throws IOException {
+        try (FileChannel channel = FileChannel.open(replay, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+            byte[] magic = new byte[SOURCE2_MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, SOURCE2_MAGIC)) {
+                throw new IOException("Not a Source 2 replay: " + replay);
+            }
+
+            long offset = Integer.toUnsignedLong(header.order(ByteOrder.LITTLE_ENDIAN).getInt(FILE_INFO_OFFSET_POSITION));
+            if (offset < HEADER_SIZE || offset >= channel.size()) {
+                throw new IOException("Replay has no file info, it may be truncated: " + replay);
+            }
+
+            ByteBuffer packetHeader = readFully(channel, offset, (int) Math.min(MAX_PACKET_HEADER_SIZE, channel.size() - offset));
+            int command = readVarint(packetHeader);
+            readVarint(packetHeader); // tick
+            int size = readVarint(packetHeader);
+            if ((command & ~Demo.EDemoCommands.DEM_IsCompressed_VALUE) != Demo.EDemoCommands.DEM_FileInfo_VALUE) {
+                throw new IOException("Unexpected packet " + command + " at the file info offset of " + replay);
+            }
+
+            long dataOffset = offset + packetHeader.position();
+            if (size < 0 || dataOffset + size > channel.size()) {
+                throw new IOException("File info of " + replay + " is truncated");
+            }
+            byte[] data = readFully(channel, dataOffset, size).array();
+            if ((command & Demo.EDemoCommands.DEM_IsCompressed_VALUE) != 0) {
+                data = Snappy.uncompress(data);
+            }
+            return CDemoFileInfo.parseFrom(data);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of replay");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static int readVarint(ByteBuffer buffer) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                throw new EOFException("Unexpected end of replay");
+            }
+            byte b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in replay");
+    }
+}
@@ -0,0 +1,271 @@
+package tidebound.metadata;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+
+import skadistats.clarity.wire.shared.demo.proto.Demo;
+import skadistats.clarity.wire.shared.demo.proto.Demo.CDemoFileInfo;
+import tidebound.database.GameInfoDAO;
+import tidebound.database.GameInfoDAO.PickBanInfo;
+import tidebound.database.GameInfoDAO.PlayerInfo;
+
+/**
+ * Match metadata from a replay's {@link CDemoFileInfo}, as stored in {@code game_info},
+ * {@code game_players} and {@code game_picks_bans}.
+ */
+public final class GameInfo {
+
+    private static final Gson GSON = new Gson();
+    private static final int RADIANT_TEAM_ID = 2;
+    private static final int DIRE_TEAM_ID = 3;
+    private static final int PLAYER_SLOT_OFFSET = 128;
+
+    private Long sourceMatchId;
+    private Float playbackTime;
+    private Integer playbackTicks;
+    private Integer playbackFrames;
+    private Integer gameMode;
+    private Integer gameWinner;
+    private Integer leagueId;
+    private Integer radiantTeamId;
+    private Integer direTeamId;
+    private String radiantTeamTag;
+    private String direTeamTag;
+    private Integer endTime;
+    private String playersJson;
+    private String picksBansJson;
+    private String rawFileInfoJson;
+    private List<PlayerInfo> playersList;
+    private List<PickBanInfo> picksBansList;
+
+    private GameInfo() {
+    }
+
+    /**
+     * @param message              File info of the replay
+     * @param playerSlotsBySteamId Player slots seen in the replay, empty if the replay was
+     *                             not parsed; slots are then derived from the player order
+     * @return The game info
+     */
+    public static GameInfo from(CDemoFileInfo message, Map<Long, Integer> playerSlotsBySteamId) {
+        GameInfo payload = new GameInfo();
+        Map<String, Object> rawInfo = new LinkedHashMap<>();
+        
+        if (message.hasPlaybackTime()) {
+            payload.playbackTime = message.getPlaybackTime();
+            rawInfo.put("playback_time", payload.playbackTime);
+        }
+        if (message.hasPlaybackTicks()) {
+            payload.playbackTicks = message.getPlaybackTicks();
+            rawInfo.put("playback_ticks", payload.playbackTicks);
+        }
+        if (message.hasPlaybackFrames()) {
+            payload.playbackFrames = message.getPlaybackFrames();
+            rawInfo.put("playback_frames", payload.playbackFrames);
+        }
+        
+        if (message.hasGameInfo()) {
+            Map<String, Object> gameInfoMap = new LinkedHashMap<>();
+            Demo.CGameInfo gameInfo = message.getGameInfo();
+            if (gameInfo.hasDota()) {
+                Map<String, Object> dotaMap = new LinkedHashMap<>();
+                Demo.CGameInfo.CDotaGameInfo dotaInfo = gameInfo.getDota();
+                if (dotaInfo.hasMatchId()) {
+                    payload.sourceMatchId = dotaInfo.getMatchId();
+                    dotaMap.put("match_id", payload.sourceMatchId);
+                }
+                if (dotaInfo.hasGameMode()) {
+                    payload.gameMode = dotaInfo.getGameMode();
+                    dotaMap.put("game_mode", payload.gameMode);
+                }
+                if (dotaInfo.hasGameWinner()) {
+                    payload.gameWinner = dotaInfo.getGameWinner();
+                    dotaMap.put("game_winner", payload.gameWinner);
+                }
+                if (dotaInfo.hasLeagueid()) {
+                    payload.leagueId = dotaInfo.getLeagueid();
+                    dotaMap.put("league_id", payload.leagueId);
+                }
+                if (dotaInfo.hasRadiantTeamId()) {
+                    payload.radiantTeamId = dotaInfo.getRadiantTeamId();
+                    dotaMap.put("radiant_team_id", payload.radiantTeamId);
+                }
+                if (dotaInfo.hasDireTeamId()) {
+                    payload.direTeamId = dotaInfo.getDireTeamId();
+                    dotaMap.put("dire_team_id", payload.direTeamId);
+                }
+                if (dotaInfo.hasRadiantTeamTag()) {
+                    payload.radiantTeamTag = dotaInfo.getRadiantTeamTag();
+                    dotaMap.put("radiant_team_tag", payload.radiantTeamTag);
+                }
+                if (dotaInfo.hasDireTeamTag()) {
+                    payload.direTeamTag = dotaInfo.getDireTeamTag();
+                    dotaMap.put("dire_team_tag", payload.direTeamTag);
+                }
+                if (dotaInfo.hasEndTime()) {
+                    payload.endTime = dotaInfo.getEndTime();
+                    dotaMap.put("end_time", payload.endTime);
+                }
+                
+                List<Map<String, Object>> playerEntries = new ArrayList<>();
+                List<PlayerInfo> playersList = new ArrayList<>();
+                for (Demo.CGameInfo.CDotaGameInfo.CPlayerInfo playerInfo : dotaInfo.getPlayerInfoList()) {
+                    Map<String, Object> playerData = new LinkedHashMap<>();
+                    PlayerInfo normalizedPlayer = new PlayerInfo();
+                    
+                    if (playerInfo.hasSteamid()) {
+                        playerData.put("steam_id", playerInfo.getSteamid());
+                        normalizedPlayer.steamId = playerInfo.getSteamid();
+                        // Use steamId to get the correct player_slot from the mapping created during initialization
+                        Integer mappedPlayerSlot = playerSlotsBySteamId.get(playerInfo.getSteamid());
+                        if (mappedPlayerSlot != null) {
+                            normalizedPlayer.playerSlot = mappedPlayerSlot;
+                        }
+                    }
+                    if (playerInfo.hasPlayerName()) {
+                        playerData.put("player_name", playerInfo.getPlayerName());
+                        normalizedPlayer.playerName = playerInfo.getPlayerName();
+                    }
+                    if (playerInfo.hasHeroName()) {
+                        playerData.put("hero_name", playerInfo.getHeroName());
+                        normalizedPlayer.heroName = playerInfo.getHeroName();
+                    }
+                    if (playerInfo.hasGameTeam()) {
+                        playerData.put("game_team", playerInfo.getGameTeam());
+                        normalizedPlayer.gameTeam = playerInfo.getGameTeam();
+                        
+                        // If player_slot wasn't set from steamId mapping, calculate based on team
+                        // This is a fallback - ideally steamId matching should work
+                        if (normalizedPlayer.playerSlot == null) {
+                            // Use a simple counter-based approach as fallback
+                            // Note: This may not match slot order perfectly, but it's better than null
+                            int[] radiantCount = {0};
+                            int[] direCount = {0};
+                            for (PlayerInfo p : playersList) {
+                                if (p.gameTeam != null) {
+                                    if (p.gameTeam == RADIANT_TEAM_ID) {
+                                        radiantCount[0]++;
+                                    } else if (p.gameTeam == DIRE_TEAM_ID) {
+                                        direCount[0]++;
+                                    }
+                                }
+                            }
+                            if (normalizedPlayer.gameTeam == RADIANT_TEAM_ID) {
+                                normalizedPlayer.playerSlot = radiantCount[0];
+                            } else if (normalizedPlayer.gameTeam == DIRE_TEAM_ID) {
+                                normalizedPlayer.playerSlot = PLAYER_SLOT_OFFSET + direCount[0];
+                            }
+                        }
+                    }
+                    if (playerInfo.hasIsFakeClient()) {
+                        playerData.put("is_fake_client", playerInfo.getIsFakeClient());
+                        normalizedPlayer.isFakeClient = playerInfo.getIsFakeClient();
+                    }
+                    
+                    if (!playerData.isEmpty()) {
+                        playerEntries.add(playerData);
+                        playersList.add(normalizedPlayer);
+                    }
+                }
+                if (!playerEntries.isEmpty()) {
+                    payload.playersJson = GSON.toJson(playerEntries);
+                    payload.playersList = playersList;
+                    dotaMap.put("players", playerEntries);
+                }
+                
+                List<Map<String, Object>> picksBansEntries = new ArrayList<>();
+                List<PickBanInfo> picksBansList = new ArrayList<>();
+                for (Demo.CGameInfo.CDotaGameInfo.CHeroSelectEvent event : dotaInfo.getPicksBansList()) {
+                    Map<String, Object> pickBanData = new LinkedHashMap<>();
+                    PickBanInfo normalizedPickBan = new PickBanInfo();
+                    
+                    if (event.hasIsPick()) {
+                        pickBanData.put("is_pick", event.getIsPick());
+                        normalizedPickBan.isPick = event.getIsPick();
+                    }
+                    if (event.hasTeam()) {
+                        pickBanData.put("team", event.getTeam());
+                        normalizedPickBan.team = event.getTeam();
+                    }
+                    if (event.hasHeroId()) {
+                        pickBanData.put("hero_id", event.getHeroId());
+                        normalizedPickBan.heroId = event.getHeroId();
+                    }
+                    if (!pickBanData.isEmpty()) {
+                        picksBansEntries.add(pickBanData);
+                        picksBansList.add(normalizedPickBan);
+                    }
+                }
+                if (!picksBansEntries.isEmpty()) {
+                    payload.picksBansJson = GSON.toJson(picksBansEntries);
+                    payload.picksBansList = picksBansList;
+                    dotaMap.put("picks_bans", picksBansEntries);
+                }
+                
+                if (!dotaMap.isEmpty()) {
+                    gameInfoMap.put("dota", dotaMap);
+                }
+            }
+            if (!gameInfoMap.isEmpty()) {
+                rawInfo.put("game_info", gameInfoMap);
+            }
+        }
+        
+        rawInfo.put("raw_text", message.toString());
+        payload.rawFileInfoJson = GSON.toJson(rawInfo);
+        
+        return payload;
+    }
+
+    /**
+     * @return The match id of the replay, null if unknown
+     */
+    public Long getMatchId() {
+        return sourceMatchId;
+    }
+
+    /**
+     * @return The file info as JSON, as stored in the raw file info column
+     */
+    public String toJson() {
+        return rawFileInfoJson;
+    }
+
+    /**
+     * Upserts the game info and its normalized players and picks/bans.
+     */
+    public void persist(GameInfoDAO gameInfoDAO, long matchId) throws SQLException {
+        gameInfoDAO.upsertGameInfo(
+            matchId,
+            playbackTime,
+            playbackTicks,
+            playbackFrames,
+            gameMode,
+            gameWinner,
+            leagueId,
+            radiantTeamId,
+            direTeamId,
+            radiantTeamTag,
+            direTeamTag,
+            endTime,
+            playersJson,
+            picksBansJson,
+            rawFileInfoJson
+        );
+        
+        // Insert normalized players data
+        if (playersList != null && !playersList.isEmpty()) {
+            gameInfoDAO.insertPlayers(matchId, playersList);
+        }
+        
+        // Insert normalized picks_bans data
+        if (picksBansList != null && !picksBansList.isEmpty()) {
+            gameInfoDAO.insertPicksBans(matchId, picksBansList);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package tidebound.metadata;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Collections;
+
+import tidebound.ParserEngine;
+import tidebound.database.GameInfoDAO;
+
+/**
+ * Metadata-only mode: reads the game info of a replay from its file info packet and
+ * upserts it, without parsing the replay.
+ */
+public final class ReplayMetadata {
+
+    private ReplayMetadata() {
+    }
+
+    /**
+     * Reads the game info of an uncompressed replay and, if the database of the engine is
+     * enabled, upserts {@code game_info}, {@code game_players} and {@code game_picks_bans}.
+     *
+     * @param engine Engine whose bootstrap initialized the schema
+     * @param replay Uncompressed replay file
+     * @return The game info
+     * @throws IOException  if the file info can't be read
+     * @throws SQLException if the game info can't be stored
+     */
+    public static GameInfo extract(ParserEngine engine, Path replay) throws IOException, SQLException {
+        // The player resource is not read, so player slots follow the file info order
+        GameInfo gameInfo = GameInfo.from(DemoFileInfoReader.read(replay), Collections.emptyMap());
+        if (engine.isDatabaseEnabled()) {
+            persist(gameInfo);
+        }
+        return gameInfo;
+    }
+
+    private static void persist(GameInfo gameInfo) throws SQLException {
+        if (gameInfo.getMatchId() == null) {
+            System.err.println("Replay match ID not available; skipping game info persistence.");
+            return;
+        }
+        GameInfoDAO gameInfoDAO = new GameInfoDAO();
+        try {
+            gameInfo.persist(gameInfoDAO, gameInfo.getMatchId());
+        } finally {
+            gameInfoDAO.close();
+        }
+    }
+}
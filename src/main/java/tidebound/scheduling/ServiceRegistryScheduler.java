@@ -3,7 +3,9 @@ package tidebound.scheduling;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.util.Timer;
+import tidebound.ParserEngine;
 import tidebound.RegisterTask;
+import tidebound.ReplayWarmUp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -13,12 +15,19 @@ public class ServiceRegistryScheduler {
 
     private static final Logger log = LoggerFactory.getLogger(ServiceRegistryScheduler.class);
     private final Timer timer = new Timer("service-registry", true);
+    private final ParserEngine parserEngine;
+
+    public ServiceRegistryScheduler(ParserEngine parserEngine) {
+        this.parserEngine = parserEngine;
+    }
 
     @PostConstruct
     public void scheduleRegistration() {
+        // Registration starts once the warm-up is done
+        ReplayWarmUp.fromEnvironment(parserEngine).runInBackground();
         if (System.getenv().containsKey("SERVICE_REGISTRY_HOST")) {
             log.info("Scheduling service registry updates");
-            timer.scheduleAtFixedRate(new RegisterTask(), 0, 5000);
+            timer.scheduleAtFixedRate(new RegisterTask(parserEngine), 0, 5000);
         } else {
             log.info("SERVICE_REGISTRY_HOST not set. Skipping registry scheduling.");
         }
@@ -29,4 +38,3 @@ public class ServiceRegistryScheduler {
         timer.cancel();
     }
 }
-
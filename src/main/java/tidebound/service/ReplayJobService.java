@@ -18,6 +18,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import tidebound.ParseOptions;
 import tidebound.service.ReplayProcessingService.ReplayResponse;
 
 @Service
@@ -45,6 +46,18 @@ public class ReplayJobService {
         return submitJob(JobType.LOCAL_FILE, filePath, () -> replayProcessingService.processLocalReplay(filePath));
     }
 
+    public ReplayJobSnapshot submitRemoteJob(String replayUrl, ParseOptions options) {
+        return submitJob(JobType.REMOTE_URL, replayUrl, () -> replayProcessingService.processRemoteReplay(replayUrl, options));
+    }
+
+    public ReplayJobSnapshot submitLocalJob(String filePath, ParseOptions options) {
+        return submitJob(JobType.LOCAL_FILE, filePath, () -> replayProcessingService.processLocalReplay(filePath, options));
+    }
+
+    public ReplayJobSnapshot submitMetadataJob(String filePath) {
+        return submitJob(JobType.METADATA, filePath, () -> replayProcessingService.processReplayMetadata(filePath));
+    }
+
     public Optional<ReplayJobSnapshot> findJob(UUID jobId) {
         return Optional.ofNullable(jobs.get(jobId)).map(ReplayJob::snapshot);
     }
@@ -68,6 +81,9 @@ public class ReplayJobService {
                 ReplayResponse response = taskSupplier.get();
                 if (response.status() == 200) {
                     job.markSucceeded(response.status(), response.body());
+                } else if (response.status() == ReplayProcessingService.STATUS_OVER_BUDGET) {
+                    // Only this replay is given up, the parse stopped before exhausting the heap
+                    job.markAborted(response.status(), "Replay parse exceeded its memory budget");
                 } else {
                     job.markFailed(response.status(), "Replay processing failed with status %d".formatted(response.status()));
                 }
@@ -92,12 +108,14 @@ public class ReplayJobService {
         PENDING,
         RUNNING,
         SUCCEEDED,
-        FAILED
+        FAILED,
+        ABORTED
     }
 
     public enum JobType {
         REMOTE_URL,
-        LOCAL_FILE
+        LOCAL_FILE,
+        METADATA
     }
 
     public record ReplayJobSnapshot(
@@ -148,7 +166,15 @@ public class ReplayJobService {
         }
 
         private synchronized void markFailed(int parserStatus, String errorMessage) {
-            this.status = JobStatus.FAILED;
+            markFinished(JobStatus.FAILED, parserStatus, errorMessage);
+        }
+
+        private synchronized void markAborted(int parserStatus, String errorMessage) {
+            markFinished(JobStatus.ABORTED, parserStatus, errorMessage);
+        }
+
+        private void markFinished(JobStatus status, int parserStatus, String errorMessage) {
+            this.status = status;
             this.parserStatus = parserStatus;
             this.result = null;
             this.errorMessage = errorMessage;
@@ -7,7 +7,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import tidebound.ParseBudgetExceededException;
+import tidebound.ParseOptions;
+import tidebound.ParserEngine;
 import tidebound.S3Service;
+import tidebound.metadata.ReplayMetadata;
+import tidebound.util.TailInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -17,19 +23,30 @@ public class ReplayProcessingService {
 
     private static final Logger log = LoggerFactory.getLogger(ReplayProcessingService.class);
     private static final int BUFFER_SIZE = 8192;
+    private static final String BLOB_COMMAND = "node processors/createParsedDataBlob.mjs";
+    /**
+     * Status of a replay whose parse was aborted for exceeding its memory budget.
+     */
+    public static final int STATUS_OVER_BUDGET = 413;
 
     private final S3Service s3Service;
+    private final ParserEngine parserEngine;
 
-    public ReplayProcessingService(S3Service s3Service) {
+    public ReplayProcessingService(S3Service s3Service, ParserEngine parserEngine) {
         this.s3Service = s3Service;
+        this.parserEngine = parserEngine;
     }
 
     public ReplayResponse processRemoteReplay(String replayUrl) {
+        return processRemoteReplay(replayUrl, ParseOptions.defaults());
+    }
+
+    public ReplayResponse processRemoteReplay(String replayUrl, ParseOptions options) {
         try {
             if (S3Service.isS3Url(replayUrl)) {
-                return handleS3Replay(replayUrl);
+                return handleS3Replay(replayUrl, options);
             }
-            return handleHttpReplay(replayUrl);
+            return handleHttpReplay(replayUrl, options);
         } catch (IOException ex) {
             log.error("Failed to process remote replay {}", replayUrl, ex);
             return new ReplayResponse(500, new byte[0]);
@@ -37,44 +54,83 @@ public class ReplayProcessingService {
     }
 
     public ReplayResponse processLocalReplay(String filePath) {
+        return processLocalReplay(filePath, ParseOptions.defaults());
+    }
+
+    public ReplayResponse processLocalReplay(String filePath, ParseOptions options) {
         try {
-            return handleLocalReplay(filePath);
+            return handleLocalReplay(filePath, options);
+        } catch (ParseBudgetExceededException ex) {
+            log.error("Aborted parse of local replay {}: {}", filePath, ex.getMessage());
+            return new ReplayResponse(STATUS_OVER_BUDGET, new byte[0]);
         } catch (IOException ex) {
             log.error("Failed to process local replay {}", filePath, ex);
             return new ReplayResponse(500, new byte[0]);
         }
     }
 
-    private ReplayResponse handleS3Replay(String s3Url) throws IOException {
+    /**
+     * Reads the game info of a local replay from its file info packet, without a parse.
+     */
+    public ReplayResponse processReplayMetadata(String filePath) {
+        File replayFile = new File(filePath);
+        if (!replayFile.exists()) {
+            log.error("File not found: {}", filePath);
+            return new ReplayResponse(404, new byte[0]);
+        }
+        if (!replayFile.canRead()) {
+            log.error("File not readable: {}", filePath);
+            return new ReplayResponse(403, new byte[0]);
+        }
+        if (filePath.endsWith(".bz2")) {
+            log.error("Metadata mode needs an uncompressed replay: {}", filePath);
+            return new ReplayResponse(400, new byte[0]);
+        }
+        try {
+            String gameInfo = ReplayMetadata.extract(parserEngine, replayFile.toPath()).toJson();
+            return new ReplayResponse(200, gameInfo.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            log.error("Failed to read metadata of {}", filePath, ex);
+            return new ReplayResponse(400, new byte[0]);
+        } catch (SQLException ex) {
+            log.error("Failed to store metadata of {}", filePath, ex);
+            return new ReplayResponse(500, new byte[0]);
+        }
+    }
+
+    private ReplayResponse handleS3Replay(String s3Url, ParseOptions options) throws IOException {
         log.warn("Processing S3 replay: {}", s3Url);
         String decompressCmd = s3Url.endsWith(".bz2") ? "bunzip2" : "cat";
         String command = String.format(
-                "%s | curl -X POST -T - localhost:5600 | node processors/createParsedDataBlob.mjs",
-                decompressCmd);
+                "%s | curl -X POST -T - 'localhost:5600/%s'%s",
+                decompressCmd,
+                options.toQueryString(),
+                aggregation(options));
 
         Process process = new ProcessBuilder("bash", "-c", command).start();
 
-        try (InputStream s3Stream = s3Service.downloadFromS3(s3Url);
-             OutputStream processInput = process.getOutputStream()) {
-            copy(s3Stream, processInput);
+        try (InputStream s3Stream = s3Service.downloadFromS3(s3Url)) {
+            copyToProcess(s3Stream, process);
         }
 
-        return buildReplayResponse(process);
+        return buildReplayResponse(process, options);
     }
 
-    private ReplayResponse handleHttpReplay(String replayUrl) throws IOException {
+    private ReplayResponse handleHttpReplay(String replayUrl, ParseOptions options) throws IOException {
         log.warn("Processing HTTP replay: {}", replayUrl);
         String decompressCmd = replayUrl.endsWith(".bz2") ? "bunzip2" : "cat";
         String command = String.format(
-                "curl --max-time 145 --fail -L %s | %s | curl -X POST -T - localhost:5600 | node processors/createParsedDataBlob.mjs",
+                "curl --max-time 145 --fail -L %s | %s | curl -X POST -T - 'localhost:5600/%s'%s",
                 replayUrl,
-                decompressCmd);
+                decompressCmd,
+                options.toQueryString(),
+                aggregation(options));
 
         Process process = new ProcessBuilder("bash", "-c", command).start();
-        return buildReplayResponse(process);
+        return buildReplayResponse(process, options);
     }
 
-    private ReplayResponse handleLocalReplay(String filePath) throws IOException {
+    private ReplayResponse handleLocalReplay(String filePath, ParseOptions options) throws IOException {
         log.warn("Processing local replay: {}", filePath);
         File replayFile = new File(filePath);
         if (!replayFile.exists()) {
@@ -86,22 +142,96 @@ public class ReplayProcessingService {
             return new ReplayResponse(403, new byte[0]);
         }
 
-        String decompressCmd = filePath.endsWith(".bz2") ? "bunzip2" : "cat";
+        boolean isBz2 = filePath.endsWith(".bz2");
+        if (options.isTail()) {
+            if (isBz2) {
+                log.error("Tail mode needs an uncompressed replay: {}", filePath);
+                return new ReplayResponse(400, new byte[0]);
+            }
+            return handleTailedReplay(replayFile, options);
+        }
+        if (!isBz2) {
+            return handleSeekableReplay(replayFile, options);
+        }
+
         String command = String.format(
-                "%s | curl -X POST -T - localhost:5600 | node processors/createParsedDataBlob.mjs",
-                decompressCmd);
+                "bunzip2 | curl -X POST -T - 'localhost:5600/%s'%s",
+                options.toQueryString(),
+                aggregation(options));
 
         Process process = new ProcessBuilder("bash", "-c", command).start();
+        try {
+            try (InputStream fileStream = new FileInputStream(replayFile)) {
+                copyToProcess(fileStream, process);
+            }
+            return buildReplayResponse(process, options);
+        } finally {
+            // Stops the pipeline of a failed parse, a no-op once it exited
+            process.destroy();
+        }
+    }
 
-        try (InputStream fileStream = new FileInputStream(replayFile);
-             OutputStream processInput = process.getOutputStream()) {
-            copy(fileStream, processInput);
+    /**
+     * Parses an uncompressed replay file in this process, so the parse can seek to the start
+     * of the time window instead of reading the replay from the beginning, a long replay can
+     * be parsed in segments, and a full parse writes the seek index beside the file.
+     */
+    private ReplayResponse handleSeekableReplay(File replayFile, ParseOptions options) throws IOException {
+        log.warn("Parsing local replay {} with window {}", replayFile, options.getWindow());
+        if (!options.isWholeGame()) {
+            ByteArrayOutputStream events = new ByteArrayOutputStream();
+            parserEngine.newSession(options).parse(replayFile, events);
+            return new ReplayResponse(200, events.toByteArray());
         }
+        Process process = new ProcessBuilder("node", "processors/createParsedDataBlob.mjs").start();
+        try {
+            try (OutputStream processInput = process.getOutputStream()) {
+                // createParsedDataBlob.mjs reads names, not symbol ids
+                parserEngine.newSession(options.withSymbols(false)).parse(replayFile, processInput);
+            }
+            return buildReplayResponse(process, options);
+        } finally {
+            // Stops the aggregation of a failed parse, a no-op once it exited
+            process.destroy();
+        }
+    }
+
+    /**
+     * Parses a replay that is still being recorded, following the file until the recording
+     * is finished, so the job completes shortly after the game ends.
+     */
+    private ReplayResponse handleTailedReplay(File replayFile, ParseOptions options) throws IOException {
+        log.warn("Tailing local replay: {}", replayFile);
+        if (!options.isWholeGame()) {
+            ByteArrayOutputStream events = new ByteArrayOutputStream();
+            try (InputStream replayStream = new TailInputStream(replayFile.toPath(), TailInputStream.DEFAULT_IDLE_TIMEOUT)) {
+                parserEngine.newSession(options).parse(replayStream, events);
+            }
+            return new ReplayResponse(200, events.toByteArray());
+        }
+        Process process = new ProcessBuilder("node", "processors/createParsedDataBlob.mjs").start();
+        try {
+            try (InputStream replayStream = new TailInputStream(replayFile.toPath(), TailInputStream.DEFAULT_IDLE_TIMEOUT);
+                 OutputStream processInput = process.getOutputStream()) {
+                // createParsedDataBlob.mjs reads names, not symbol ids
+                parserEngine.newSession(options.withSymbols(false)).parse(replayStream, processInput);
+            }
+            return buildReplayResponse(process, options);
+        } finally {
+            // Stops the aggregation of a failed parse, a no-op once it exited
+            process.destroy();
+        }
+    }
 
-        return buildReplayResponse(process);
+    /**
+     * @return The pipeline stage aggregating the NDJSON events into the blob, none for a
+     *         parse that does not cover the whole game: the job result is then the NDJSON
+     */
+    private static String aggregation(ParseOptions options) {
+        return options.isWholeGame() ? " | " + BLOB_COMMAND : "";
     }
 
-    private ReplayResponse buildReplayResponse(Process process) throws IOException {
+    private ReplayResponse buildReplayResponse(Process process, ParseOptions options) throws IOException {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         ByteArrayOutputStream errorStream = new ByteArrayOutputStream();
 
@@ -125,6 +255,20 @@ public class ReplayProcessingService {
             log.warn("Replay processing stderr: {}", error);
         }
 
+        // Without aggregation the upload is the last command. The parse of a time window
+        // stops reading once the window has ended, and the upload of the rest fails.
+        if (exitCode != 0 && !options.isWholeGame() && options.getWindow().hasEnd()
+                && error.contains("curl: (55)") && outputStream.size() > 0) {
+            exitCode = 0;
+        }
+
+        // The output of a parse aborted over its budget ends with an event saying so
+        if ((exitCode == ParseBudgetExceededException.BLOB_EXIT_CODE && options.isWholeGame())
+                || (exitCode == 0 && !options.isWholeGame() && ParseBudgetExceededException.endsAborted(outputStream.toByteArray()))) {
+            log.error("Aborted parse of replay, it exceeded its memory budget");
+            return new ReplayResponse(STATUS_OVER_BUDGET, new byte[0]);
+        }
+
         if (exitCode != 0) {
             int status = 500;
 
@@ -146,6 +290,32 @@ public class ReplayProcessingService {
         return new ReplayResponse(200, outputStream.toByteArray());
     }
 
+    /**
+     * Writes a replay into the processing pipeline. A parse with a time window stops reading
+     * once the window has passed, which closes the pipe before the whole replay is written.
+     */
+    private void copyToProcess(InputStream source, Process process) throws IOException {
+        OutputStream processInput = process.getOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        try {
+            while ((read = source.read(buffer)) != -1) {
+                try {
+                    processInput.write(buffer, 0, read);
+                } catch (IOException ex) {
+                    log.debug("Replay pipeline stopped reading: {}", ex.getMessage());
+                    return;
+                }
+            }
+        } finally {
+            try {
+                processInput.close();
+            } catch (IOException ex) {
+                log.debug("Replay pipeline closed early: {}", ex.getMessage());
+            }
+        }
+    }
+
     private void copy(InputStream source, OutputStream sink) throws IOException {
         byte[] buffer = new byte[BUFFER_SIZE];
         int read;
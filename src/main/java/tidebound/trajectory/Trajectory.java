@@ -0,0 +1,175 @@
+package tidebound.trajectory;
+
+import java.util.Arrays;
+
+/**
+ * Path of a single unit, simplified while it is being recorded.
+ *
+ * Positions are added once per tick. A point is only kept when leaving it out would move
+ * the position interpolated at its tick (between the neighbouring kept points) further
+ * than the tolerance away from where the unit really was. This is the time synchronized
+ * variant of Douglas-Peucker, applied to an opening window so the path never has to be
+ * held in memory: the window is capped at {@code maxWindow} points and kept points are
+ * handed out with {@link #size()} / {@link #clear()} by the caller.
+ *
+ * Coordinates are quantized with {@link #quantize(float)}, ticks are game time ticks.
+ */
+public final class Trajectory {
+
+    /**
+     * Resolution of the quantized coordinates, 16 units per map cell (8 world units).
+     */
+    public static final int UNITS_PER_CELL = 16;
+    public static final int DEFAULT_MAX_WINDOW = 150;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final double toleranceSquared;
+    private final int maxWindow;
+
+    // Kept points not yet taken by the caller
+    private int[] ticks = new int[INITIAL_CAPACITY];
+    private int[] xs = new int[INITIAL_CAPACITY];
+    private int[] ys = new int[INITIAL_CAPACITY];
+    private int size;
+
+    // Last kept point, the start of the current segment
+    private boolean hasAnchor;
+    private int anchorTick;
+    private int anchorX;
+    private int anchorY;
+
+    // Points after the anchor that are still covered by the current segment
+    private final int[] windowTicks;
+    private final int[] windowXs;
+    private final int[] windowYs;
+    private int windowSize;
+
+    private int lastTick = Integer.MIN_VALUE;
+
+    /**
+     * @param tolerance Maximum error of the simplified path, in quantized units
+     */
+    public Trajectory(float tolerance) {
+        this(tolerance, DEFAULT_MAX_WINDOW);
+    }
+
+    /**
+     * @param tolerance Maximum error of the simplified path, in quantized units
+     * @param maxWindow Maximum number of points between two kept points
+     */
+    public Trajectory(float tolerance, int maxWindow) {
+        if (tolerance < 0 || Float.isNaN(tolerance)) {
+            throw new IllegalArgumentException("tolerance must not be negative: " + tolerance);
+        }
+        if (maxWindow <= 0) {
+            throw new IllegalArgumentException("maxWindow must be positive: " + maxWindow);
+        }
+        this.toleranceSquared = (double) tolerance * tolerance;
+        this.maxWindow = maxWindow;
+        this.windowTicks = new int[maxWindow];
+        this.windowXs = new int[maxWindow];
+        this.windowYs = new int[maxWindow];
+    }
+
+    /**
+     * Converts a location in map cells, as written in the interval events, to quantized units.
+     */
+    public static int quantize(float cells) {
+        return Math.round(cells * UNITS_PER_CELL);
+    }
+
+    /**
+     * Adds the position of the unit at a tick. Positions at a tick that is not after the
+     * previous one (e.g. while the game is paused) are ignored.
+     */
+    public void add(int tick, int x, int y) {
+        if (tick <= lastTick) {
+            return;
+        }
+        lastTick = tick;
+
+        if (!hasAnchor) {
+            keep(tick, x, y);
+            return;
+        }
+        if (windowSize == maxWindow || !coversWindow(tick, x, y)) {
+            // The previous point is the last one the current segment can represent
+            int last = windowSize - 1;
+            keep(windowTicks[last], windowXs[last], windowYs[last]);
+            windowSize = 0;
+        }
+        windowTicks[windowSize] = tick;
+        windowXs[windowSize] = x;
+        windowYs[windowSize] = y;
+        windowSize++;
+    }
+
+    /**
+     * Keeps the last added position, to be called when the unit is no longer recorded.
+     */
+    public void finish() {
+        if (windowSize > 0) {
+            int last = windowSize - 1;
+            keep(windowTicks[last], windowXs[last], windowYs[last]);
+            windowSize = 0;
+        }
+    }
+
+    /**
+     * @return Number of kept points not yet cleared
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getTick(int index) {
+        return ticks[index];
+    }
+
+    public int getX(int index) {
+        return xs[index];
+    }
+
+    public int getY(int index) {
+        return ys[index];
+    }
+
+    /**
+     * Drops the kept points once they were written; the path continues from the last one.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    private boolean coversWindow(int tick, int x, int y) {
+        double duration = tick - anchorTick;
+        for (int i = 0; i < windowSize; i++) {
+            double ratio = (windowTicks[i] - anchorTick) / duration;
+            double dx = windowXs[i] - (anchorX + (x - anchorX) * ratio);
+            double dy = windowYs[i] - (anchorY + (y - anchorY) * ratio);
+            if (dx * dx + dy * dy > toleranceSquared) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void keep(int tick, int x, int y) {
+        if (size == ticks.length) {
+            int capacity = size * 2;
+            ticks = Arrays.copyOf(ticks, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+        }
+        ticks[size] = tick;
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+
+        hasAnchor = true;
+        anchorTick = tick;
+        anchorX = x;
+        anchorY = y;
+    }
+}
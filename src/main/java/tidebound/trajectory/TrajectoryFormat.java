@@ -0,0 +1,148 @@
+package tidebound.trajectory;
+
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Encoding of the points of a {@link Trajectory} in a {@code trajectory} event.
+ *
+ * Ticks are written relative to a base tick (the event time in ticks), so that the
+ * event time can still be shifted to the game start like for any other event.
+ */
+public enum TrajectoryFormat {
+
+    /**
+     * JSON array of {@code [tick, x, y]} triples.
+     */
+    JSON("json") {
+        @Override
+        public String encode(Trajectory trajectory, int baseTick) {
+            StringBuilder json = new StringBuilder(trajectory.size() * 16);
+            json.append('[');
+            for (int i = 0; i < trajectory.size(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append('[')
+                    .append(trajectory.getTick(i) - baseTick).append(',')
+                    .append(trajectory.getX(i)).append(',')
+                    .append(trajectory.getY(i)).append(']');
+            }
+            return json.append(']').toString();
+        }
+
+        @Override
+        public int[] decode(String data) {
+            String[] numbers = data.replaceAll("[\\[\\]\\s]", "").split(",");
+            if (numbers.length == 1 && numbers[0].isEmpty()) {
+                return new int[0];
+            }
+            int[] points = new int[numbers.length];
+            for (int i = 0; i < numbers.length; i++) {
+                points[i] = Integer.parseInt(numbers[i]);
+            }
+            return points;
+        }
+    },
+
+    /**
+     * Base64 of the zigzag varint encoded differences of tick, x and y to the previous
+     * point (the first point is relative to 0, 0, 0).
+     */
+    BINARY("binary") {
+        @Override
+        public String encode(Trajectory trajectory, int baseTick) {
+            byte[] bytes = new byte[trajectory.size() * 3 * MAX_VARINT_BYTES];
+            int position = 0;
+            int tick = baseTick;
+            int x = 0;
+            int y = 0;
+            for (int i = 0; i < trajectory.size(); i++) {
+                position = writeVarint(bytes, position, trajectory.getTick(i) - tick);
+                position = writeVarint(bytes, position, trajectory.getX(i) - x);
+                position = writeVarint(bytes, position, trajectory.getY(i) - y);
+                tick = trajectory.getTick(i);
+                x = trajectory.getX(i);
+                y = trajectory.getY(i);
+            }
+            return Base64.getEncoder().encodeToString(Arrays.copyOf(bytes, position));
+        }
+
+        @Override
+        public int[] decode(String data) {
+            byte[] bytes = Base64.getDecoder().decode(data);
+            int[] points = new int[bytes.length];
+            int count = 0;
+            int value = 0;
+            int shift = 0;
+            for (byte b : bytes) {
+                value |= (b & 0x7f) << shift;
+                shift += 7;
+                if ((b & 0x80) == 0) {
+                    int delta = (value >>> 1) ^ -(value & 1);
+                    // Values are stored as differences to the same coordinate of the previous point
+                    points[count] = count >= 3 ? points[count - 3] + delta : delta;
+                    count++;
+                    value = 0;
+                    shift = 0;
+                }
+            }
+            if (shift != 0 || count % 3 != 0) {
+                throw new IllegalArgumentException("Truncated trajectory data");
+            }
+            return Arrays.copyOf(points, count);
+        }
+    };
+
+    private static final int MAX_VARINT_BYTES = 5;
+
+    private final String name;
+
+    TrajectoryFormat(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param trajectory Trajectory whose kept points are encoded
+     * @param baseTick   Tick the point ticks are written relative to
+     * @return The encoded points
+     */
+    public abstract String encode(Trajectory trajectory, int baseTick);
+
+    /**
+     * @return The points as consecutive tick (relative to the base tick), x and y values
+     * @throws IllegalArgumentException if the data is not valid for this format
+     */
+    public abstract int[] decode(String data);
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param value {@code json} or {@code binary}, null or empty if no trajectories are requested
+     * @return The format, null if none
+     * @throws IllegalArgumentException if the value is not a known format
+     */
+    public static TrajectoryFormat parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        for (TrajectoryFormat format : values()) {
+            if (format.name.equalsIgnoreCase(value.trim())) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Invalid trajectory format: " + value);
+    }
+
+    private static int writeVarint(byte[] bytes, int position, int value) {
+        int zigzag = (value << 1) ^ (value >> 31);
+        while ((zigzag & ~0x7f) != 0) {
+            bytes[position++] = (byte) ((zigzag & 0x7f) | 0x80);
+            zigzag >>>= 7;
+        }
+        bytes[position++] = (byte) zigzag;
+        return position;
+    }
+}
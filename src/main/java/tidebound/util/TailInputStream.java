@@ -0,0 +1,194 @@
+package tidebound.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a replay that is still being recorded, blocking at the end of the file until
+ * more data is written.
+ *
+ * The game writes the offset of the file info packet into the replay header once the
+ * recording is finished, so the stream ends when that offset is set and everything up
+ * to the end of the file was read. A recording that stops growing for longer than the
+ * idle timeout is treated as truncated and ends as well.
+ *
+ * Data is read ahead in large blocks; at the end of the file the stream waits for a
+ * modification event of the directory instead of re-reading the file.
+ */
+public class TailInputStream extends InputStream {
+
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(5);
+
+    // Magic, file info offset and spawn groups offset
+    private static final int HEADER_SIZE = 16;
+    private static final int FILE_INFO_OFFSET_POSITION = 8;
+    private static final int READ_AHEAD_SIZE = 1024 * 1024;
+    // Also checked without an event, watch services of some file systems miss writes
+    private static final long WAIT_MILLIS = 1000;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final WatchService watchService;
+    private final long idleTimeoutNanos;
+    private final ByteBuffer buffer = ByteBuffer.allocate(READ_AHEAD_SIZE);
+    private final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    private long position;
+    private boolean recordingFinished;
+
+    /**
+     * @param file        Replay file, may still be growing
+     * @param idleTimeout Time without new data after which the recording is considered
+     *                    interrupted
+     */
+    public TailInputStream(Path file, Duration idleTimeout) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.watchService = openWatchService(file);
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        buffer.limit(0);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int count = Math.min(len, buffer.remaining());
+        buffer.get(b, off, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    /**
+     * @return true if the recording was finished when the stream reached the end of it
+     */
+    public boolean isRecordingFinished() {
+        return recordingFinished;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            if (watchService != null) {
+                watchService.close();
+            }
+        }
+    }
+
+    /**
+     * @return false at the end of a finished (or abandoned) recording
+     */
+    private boolean fill() throws IOException {
+        if (buffer.hasRemaining()) {
+            return true;
+        }
+        long idleSince = System.nanoTime();
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            buffer.flip();
+            if (read > 0) {
+                position += read;
+                return true;
+            }
+            if (recordingFinished) {
+                return false;
+            }
+            if (hasFileInfoOffset()) {
+                // Read whatever was written before the header was updated
+                recordingFinished = true;
+                continue;
+            }
+            if (System.nanoTime() - idleSince > idleTimeoutNanos) {
+                System.err.println("Replay stopped growing, ending tail of " + file);
+                return false;
+            }
+            awaitModification();
+        }
+    }
+
+    private boolean hasFileInfoOffset() throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            return false;
+        }
+        header.clear();
+        while (header.hasRemaining()) {
+            if (channel.read(header, FILE_INFO_OFFSET_POSITION + header.position()) < 0) {
+                return false;
+            }
+        }
+        return header.getInt(0) != 0;
+    }
+
+    private void awaitModification() throws IOException {
+        try {
+            if (watchService == null) {
+                Thread.sleep(WAIT_MILLIS);
+                return;
+            }
+            WatchKey key = watchService.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            if (key != null) {
+                // Any change in the directory is a reason to look, no need to match the file name
+                key.pollEvents();
+                key.reset();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + file + " to grow");
+        } catch (ClosedWatchServiceException ex) {
+            throw new IOException("Stream closed", ex);
+        }
+    }
+
+    private static WatchService openWatchService(Path file) {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory == null) {
+            return null;
+        }
+        WatchService watchService = null;
+        try {
+            watchService = file.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_MODIFY);
+            return watchService;
+        } catch (IOException | UnsupportedOperationException ex) {
+            System.err.println("Watching " + directory + " is not supported, checking for new data every second: " + ex.getMessage());
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException ignored) {
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package tidebound.worker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.URI;
+import java.util.Map;
+
+import tidebound.ParseBudgetExceededException;
+import tidebound.ParseOptions;
+import tidebound.ParserEngine;
+import tidebound.ReplayWarmUp;
+import tidebound.util.HttpUtil;
+import tidebound.util.TailInputStream;
+
+/**
+ * Entry point of a parser worker JVM, see {@link ParseWorkerPool}.
+ *
+ * The worker bootstraps a {@link ParserEngine} and runs the {@link ReplayWarmUp} once, and
+ * then parses one replay after the other, reading them from stdin and writing their output to stdout in
+ * {@link WorkerFrames}. A replay file on a disk shared with the server is read by the
+ * worker itself. Logs go to stderr. The worker exits when stdin is closed.
+ */
+public final class ParseWorker {
+
+    /**
+     * Parses a replay stream, like {@link tidebound.ParseSession#parse(InputStream, OutputStream)}.
+     */
+    interface ParseTask {
+        void parse(ParseOptions options, InputStream replay, OutputStream output) throws IOException;
+
+        /**
+         * Parses a replay file, like {@link tidebound.ParseSession#parse(File, OutputStream)},
+         * or tails it if the options ask for it.
+         */
+        default void parse(ParseOptions options, File replay, OutputStream output) throws IOException {
+            throw new IOException("File parses are not supported");
+        }
+    }
+
+    /**
+     * Parses with the engine of the worker.
+     */
+    private static final class EngineParseTask implements ParseTask {
+
+        private final ParserEngine engine;
+
+        EngineParseTask(ParserEngine engine) {
+            this.engine = engine;
+        }
+
+        @Override
+        public void parse(ParseOptions options, InputStream replay, OutputStream output) throws IOException {
+            engine.newSession(options).parse(replay, output);
+        }
+
+        @Override
+        public void parse(ParseOptions options, File replay, OutputStream output) throws IOException {
+            if (!options.isTail()) {
+                engine.newSession(options).parse(replay, output);
+                return;
+            }
+            try (InputStream replayStream = new TailInputStream(replay.toPath(), TailInputStream.DEFAULT_IDLE_TIMEOUT)) {
+                engine.newSession(options).parse(replayStream, output);
+            }
+        }
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ParseTask task;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    ParseWorker(ParseTask task, InputStream in, OutputStream out) {
+        this.task = task;
+        this.in = new DataInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+        this.out = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+    }
+
+    public static void main(String[] args) throws IOException {
+        OutputStream frames = new FileOutputStream(FileDescriptor.out);
+        // stdout carries the frames, anything printed goes to stderr
+        System.setOut(System.err);
+        ParserEngine engine = ParserEngine.getInstance();
+        if (engine.getBootstrapFailure() != null) {
+            throw new IllegalStateException("Failed to bootstrap parser engine", engine.getBootstrapFailure());
+        }
+        ReplayWarmUp.fromEnvironment(engine).run();
+        new ParseWorker(new EngineParseTask(engine), new FileInputStream(FileDescriptor.in), frames).run();
+    }
+
+    /**
+     * Parses the replays sent until the input is closed.
+     */
+    void run() throws IOException {
+        WorkerFrames.write(out, WorkerFrames.READY);
+        out.flush();
+        WorkerFrames.Frame frame = new WorkerFrames.Frame();
+        while (WorkerFrames.read(in, frame) != null) {
+            if (frame.type == WorkerFrames.PARSE) {
+                parse(frame.payloadString(), null);
+            } else if (frame.type == WorkerFrames.PARSE_FILE) {
+                String payload = frame.payloadString();
+                int split = payload.indexOf('\n');
+                if (split < 0) {
+                    throw new IOException("Invalid file parse " + payload);
+                }
+                parse(payload.substring(split + 1), new File(payload.substring(0, split)));
+            } else {
+                throw new IOException("Expected a parse, got frame " + (char) frame.type);
+            }
+        }
+    }
+
+    /**
+     * @param file Replay file to parse, null to read the replay from the DATA frames
+     */
+    private void parse(String query, File file) throws IOException {
+        WorkerFrames.ReplayInputStream replay = file == null ? new WorkerFrames.ReplayInputStream(in) : null;
+        WorkerFrames.OutputFrameStream output = new WorkerFrames.OutputFrameStream(out);
+        byte result;
+        String message = null;
+        try {
+            Map<String, String> parameters = HttpUtil.splitQuery(URI.create("/" + query));
+            ParseOptions options = ParseOptions.fromParameters(parameters::get);
+            if (file != null) {
+                task.parse(options, file, output);
+            } else {
+                task.parse(options, replay, output);
+            }
+            result = WorkerFrames.DONE;
+        } catch (ParseBudgetExceededException ex) {
+            result = WorkerFrames.ABORTED;
+            message = ex.getMessage();
+        } catch (Exception ex) {
+            System.err.println("Error parsing replay in worker: " + ex.getMessage());
+            result = WorkerFrames.FAILED;
+            message = String.valueOf(ex.getMessage());
+        }
+        // A parse that stopped early leaves the rest of the replay in the pipe
+        if (replay != null) {
+            replay.skipRest();
+        }
+        if (result == WorkerFrames.DONE) {
+            WorkerFrames.write(out, WorkerFrames.DONE, retainedHeapBytes());
+        } else {
+            WorkerFrames.write(out, result, message);
+        }
+        out.flush();
+    }
+
+    /**
+     * @return Heap in use after the last garbage collection of each heap pool, which grows
+     *         with what the worker retains between parses
+     */
+    static long retainedHeapBytes() {
+        long retained = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP) {
+                continue;
+            }
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null) {
+                retained += usage.getUsed();
+            }
+        }
+        return retained;
+    }
+}
@@ -0,0 +1,247 @@
+package tidebound.worker;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import tidebound.ParseOptions;
+
+/**
+ * Pool of parser worker JVMs, so replays are parsed outside of the server process: the
+ * garbage collection of a large parse does not pause the server and a crashing parse
+ * only takes down its worker.
+ *
+ * Workers are started ahead of time and parse one replay at a time, so they stay warm
+ * across parses. A parse waits a bounded time for an idle worker. A worker is replaced after
+ * {@value #ENV_MAX_PARSES} parses, once it retains more than
+ * {@value #ENV_MAX_RETAINED_HEAP_MB} of heap after a parse, or when it exits. Replacements
+ * are started in the background.
+ */
+public final class ParseWorkerPool implements Closeable {
+
+    public static final String ENV_WORKERS = "PARSE_WORKERS";
+    public static final String ENV_MAX_PARSES = "PARSE_WORKER_MAX_PARSES";
+    public static final String ENV_MAX_RETAINED_HEAP_MB = "PARSE_WORKER_MAX_RETAINED_HEAP_MB";
+    public static final String ENV_JVM_OPTIONS = "PARSE_WORKER_JVM_OPTIONS";
+    public static final String ENV_START_TIMEOUT_SECONDS = "PARSE_WORKER_START_TIMEOUT_SECONDS";
+    public static final String ENV_WAIT_TIMEOUT_SECONDS = "PARSE_WORKER_WAIT_TIMEOUT_SECONDS";
+
+    static final int DEFAULT_MAX_PARSES = 200;
+    // Covers the JVM start and the warm-up parses of a worker
+    static final int DEFAULT_START_TIMEOUT_SECONDS = 300;
+    static final int DEFAULT_WAIT_TIMEOUT_SECONDS = 600;
+    // Wait before starting a worker again after a failed start
+    private static final long RESTART_DELAY_SECONDS = 5;
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    /**
+     * Starts a worker and waits until it is ready.
+     */
+    interface WorkerLauncher {
+        WorkerProcess launch() throws IOException;
+    }
+
+    private final int size;
+    private final int maxParses;
+    private final long maxRetainedHeap;
+    private final long startTimeoutSeconds;
+    private final long waitTimeoutSeconds;
+    private final WorkerLauncher launcher;
+    private final BlockingQueue<WorkerProcess> idle = new LinkedBlockingQueue<>();
+    private final CountDownLatch started;
+    private final ExecutorService feeders = Executors.newCachedThreadPool(daemonThreads("parse-worker-feeder"));
+    private final ScheduledExecutorService starter = Executors.newSingleThreadScheduledExecutor(daemonThreads("parse-worker-starter"));
+    private volatile boolean closed;
+
+    /**
+     * @param size            Number of workers
+     * @param maxParses       Parses of a worker before it is replaced
+     * @param maxRetainedHeap Retained heap in bytes after which a worker is replaced, 0 for unlimited
+     */
+    ParseWorkerPool(int size, int maxParses, long maxRetainedHeap, WorkerLauncher launcher) {
+        this(size, maxParses, maxRetainedHeap, DEFAULT_START_TIMEOUT_SECONDS, DEFAULT_WAIT_TIMEOUT_SECONDS, launcher);
+    }
+
+    /**
+     * @param startTimeoutSeconds Wait of {@link #awaitWorkers()} for the workers to start
+     * @param waitTimeoutSeconds  Wait of a parse for an idle worker
+     */
+    ParseWorkerPool(int size, int maxParses, long maxRetainedHeap, long startTimeoutSeconds, long waitTimeoutSeconds,
+                    WorkerLauncher launcher) {
+        this.size = size;
+        this.maxParses = maxParses;
+        this.maxRetainedHeap = maxRetainedHeap;
+        this.startTimeoutSeconds = startTimeoutSeconds;
+        this.waitTimeoutSeconds = waitTimeoutSeconds;
+        this.launcher = launcher;
+        this.started = new CountDownLatch(size);
+        for (int i = 0; i < size; i++) {
+            starter.execute(this::startWorker);
+        }
+    }
+
+    /**
+     * @return A pool of the configured number of workers, null to parse in the server
+     *         process ({@value #ENV_WORKERS} unset or 0)
+     */
+    public static ParseWorkerPool fromEnvironment() {
+        int size = readInt(ENV_WORKERS, 0);
+        if (size <= 0) {
+            return null;
+        }
+        List<String> jvmOptions = new ArrayList<>();
+        String options = System.getenv(ENV_JVM_OPTIONS);
+        if (options != null && !options.isBlank()) {
+            jvmOptions.addAll(List.of(options.trim().split("\\s+")));
+        }
+        System.err.format("Starting %d parse workers\n", size);
+        return new ParseWorkerPool(size, Math.max(1, readInt(ENV_MAX_PARSES, DEFAULT_MAX_PARSES)),
+            Math.max(0, readInt(ENV_MAX_RETAINED_HEAP_MB, 0)) * BYTES_PER_MB,
+            Math.max(1, readInt(ENV_START_TIMEOUT_SECONDS, DEFAULT_START_TIMEOUT_SECONDS)),
+            Math.max(1, readInt(ENV_WAIT_TIMEOUT_SECONDS, DEFAULT_WAIT_TIMEOUT_SECONDS)),
+            () -> WorkerProcess.launch(jvmOptions));
+    }
+
+    /**
+     * Parses a replay stream in an idle worker, waiting up to
+     * {@value #ENV_WAIT_TIMEOUT_SECONDS} for one if all are busy or being replaced.
+     *
+     * @throws IOException if no worker became idle in time
+     * @throws tidebound.ParseBudgetExceededException if the worker aborted the parse
+     */
+    public void parse(ParseOptions options, InputStream replay, OutputStream output) throws IOException {
+        WorkerProcess worker = acquire();
+        try {
+            worker.parse(options, replay, output, feeders);
+        } finally {
+            release(worker);
+        }
+    }
+
+    /**
+     * Parses a replay file in an idle worker, which reads the file itself: an
+     * uncompressed replay is seeked to the time window and split into segments, and a
+     * replay that is still being recorded is tailed, as in the server process.
+     *
+     * @param replay File the workers can read at the same path
+     * @throws IOException if no worker became idle in time
+     * @throws tidebound.ParseBudgetExceededException if the worker aborted the parse
+     */
+    public void parse(ParseOptions options, File replay, OutputStream output) throws IOException {
+        WorkerProcess worker = acquire();
+        try {
+            worker.parse(options, replay, output);
+        } finally {
+            release(worker);
+        }
+    }
+
+    private WorkerProcess acquire() throws IOException {
+        WorkerProcess worker;
+        try {
+            worker = idle.poll(waitTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a parse worker", ex);
+        }
+        if (worker == null) {
+            throw new IOException("No parse worker became idle within " + waitTimeoutSeconds + " s");
+        }
+        return worker;
+    }
+
+    /**
+     * Waits until as many workers were started as the pool holds, at most
+     * {@value #ENV_START_TIMEOUT_SECONDS}. A worker that fails to start is retried in the
+     * background, so without a bound a broken worker command would block forever.
+     *
+     * @return false if not all workers started in time
+     */
+    public boolean awaitWorkers() throws InterruptedException {
+        if (started.await(startTimeoutSeconds, TimeUnit.SECONDS)) {
+            return true;
+        }
+        System.err.format("Only %d of %d parse workers started within %d s\n", size - started.getCount(), size, startTimeoutSeconds);
+        return false;
+    }
+
+    public int getIdleWorkers() {
+        return idle.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        starter.shutdownNow();
+        feeders.shutdownNow();
+        WorkerProcess worker;
+        while ((worker = idle.poll()) != null) {
+            worker.close();
+        }
+    }
+
+    private void release(WorkerProcess worker) {
+        String reason = null;
+        if (worker.isBroken()) {
+            reason = "it exited";
+        } else if (worker.getParses() >= maxParses) {
+            reason = "after " + worker.getParses() + " parses";
+        } else if (maxRetainedHeap > 0 && worker.getRetainedHeap() > maxRetainedHeap) {
+            reason = "it retains " + worker.getRetainedHeap() / BYTES_PER_MB + " MiB of heap";
+        }
+        if (reason == null && !closed) {
+            idle.add(worker);
+            return;
+        }
+        worker.close();
+        if (!closed) {
+            System.err.println("Replacing parse worker, " + reason);
+            starter.execute(this::startWorker);
+        }
+    }
+
+    private void startWorker() {
+        if (closed) {
+            return;
+        }
+        try {
+            idle.add(launcher.launch());
+            started.countDown();
+        } catch (IOException ex) {
+            System.err.println("Error starting parse worker, retrying in " + RESTART_DELAY_SECONDS + " s: " + ex.getMessage());
+            starter.schedule(this::startWorker, RESTART_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private static java.util.concurrent.ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static int readInt(String name, int defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            System.err.println("Invalid " + name + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package tidebound.worker;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Framing of the pipes between the server and a {@link ParseWorker}: a frame is a type
+ * byte, the payload length as an int and the payload.
+ *
+ * A parse is a PARSE frame with the query string of its options, the replay in DATA
+ * frames and an END frame. A parse of a file the worker reads itself is a single
+ * PARSE_FILE frame with the path of the file, a newline and the query string. The worker answers with the NDJSON output in OUTPUT frames
+ * and one of DONE (with the heap the worker retains as a long), FAILED or ABORTED (with
+ * the error message). A worker sends READY once it is started and warmed up.
+ */
+final class WorkerFrames {
+
+    // Server to worker
+    static final byte PARSE = 'P';
+    static final byte PARSE_FILE = 'L';
+    static final byte DATA = 'D';
+    static final byte END = 'E';
+
+    // Worker to server
+    static final byte READY = 'R';
+    static final byte OUTPUT = 'O';
+    static final byte DONE = 'K';
+    static final byte FAILED = 'F';
+    static final byte ABORTED = 'A';
+
+    static final int MAX_PAYLOAD = 64 * 1024;
+
+    private WorkerFrames() {
+    }
+
+    /**
+     * A received frame; the payload buffer is reused by the next {@link #read}.
+     */
+    static final class Frame {
+        byte type;
+        byte[] payload = new byte[MAX_PAYLOAD];
+        int length;
+
+        String payloadString() {
+            return new String(payload, 0, length, StandardCharsets.UTF_8);
+        }
+
+        long payloadLong() throws IOException {
+            if (length != Long.BYTES) {
+                throw new IOException("Invalid frame payload of " + length + " bytes");
+            }
+            long value = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                value = (value << 8) | (payload[i] & 0xff);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * @return The frame, null at the end of the stream
+     */
+    static Frame read(DataInputStream in, Frame frame) throws IOException {
+        int type = in.read();
+        if (type < 0) {
+            return null;
+        }
+        int length = in.readInt();
+        if (length < 0 || length > MAX_PAYLOAD) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        frame.type = (byte) type;
+        frame.length = length;
+        in.readFully(frame.payload, 0, length);
+        return frame;
+    }
+
+    static void write(DataOutputStream out, byte type, byte[] payload, int offset, int length) throws IOException {
+        out.writeByte(type);
+        out.writeInt(length);
+        out.write(payload, offset, length);
+    }
+
+    static void write(DataOutputStream out, byte type) throws IOException {
+        out.writeByte(type);
+        out.writeInt(0);
+    }
+
+    static void write(DataOutputStream out, byte type, String payload) throws IOException {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        write(out, type, bytes, 0, Math.min(bytes.length, MAX_PAYLOAD));
+    }
+
+    static void write(DataOutputStream out, byte type, long payload) throws IOException {
+        out.writeByte(type);
+        out.writeInt(Long.BYTES);
+        out.writeLong(payload);
+    }
+
+    /**
+     * The replay of a parse, read from its DATA frames up to the END frame.
+     */
+    static final class ReplayInputStream extends InputStream {
+
+        private final DataInputStream in;
+        private final Frame frame = new Frame();
+        private int position;
+        private boolean ended;
+
+        ReplayInputStream(DataInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return frame.payload[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int count = Math.min(length, frame.length - position);
+            System.arraycopy(frame.payload, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        /**
+         * Reads the rest of the replay, so the next frame is the start of the next parse.
+         */
+        void skipRest() throws IOException {
+            while (fill()) {
+                position = frame.length;
+            }
+        }
+
+        /**
+         * Leaves the pipe open; a parse that stops early closes its input.
+         */
+        @Override
+        public void close() {
+        }
+
+        private boolean fill() throws IOException {
+            while (!ended && position == frame.length) {
+                if (WorkerFrames.read(in, frame) == null) {
+                    throw new EOFException("Replay ended without END frame");
+                }
+                position = 0;
+                if (frame.type == END) {
+                    frame.length = 0;
+                    ended = true;
+                } else if (frame.type != DATA) {
+                    throw new IOException("Unexpected frame " + (char) frame.type + " in replay");
+                }
+            }
+            return !ended;
+        }
+    }
+
+    /**
+     * The output of a parse, written as OUTPUT frames.
+     */
+    static final class OutputFrameStream extends OutputStream {
+
+        private final DataOutputStream out;
+
+        OutputFrameStream(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            while (length > 0) {
+                int count = Math.min(length, MAX_PAYLOAD);
+                WorkerFrames.write(out, OUTPUT, buffer, offset, count);
+                offset += count;
+                length -= count;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        /**
+         * Leaves the pipe open for the next parse.
+         */
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package tidebound.worker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import tidebound.ParseBudgetExceededException;
+import tidebound.ParseOptions;
+
+/**
+ * Server side of a {@link ParseWorker}: sends it replays and reads back their output.
+ * Used by one parse at a time.
+ */
+final class WorkerProcess implements Closeable {
+
+    // Launcher of a Spring Boot jar that runs another main class of the jar
+    private static final String BOOT_LAUNCHER = "org.springframework.boot.loader.launch.PropertiesLauncher";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DataInputStream fromWorker;
+    private final DataOutputStream toWorker;
+    private final Runnable destroy;
+    private final WorkerFrames.Frame frame = new WorkerFrames.Frame();
+    private int parses;
+    private long retainedHeap;
+    // The pipes are out of sync or the worker is gone, also set by the feeder thread
+    private volatile boolean broken;
+
+    WorkerProcess(InputStream fromWorker, OutputStream toWorker, Runnable destroy) {
+        this.fromWorker = new DataInputStream(new BufferedInputStream(fromWorker, BUFFER_SIZE));
+        this.toWorker = new DataOutputStream(new BufferedOutputStream(toWorker, BUFFER_SIZE));
+        this.destroy = destroy;
+    }
+
+    /**
+     * Starts a worker JVM with the class path of this one and waits until it is ready.
+     *
+     * @param jvmOptions Options of the worker JVM, like its heap size
+     */
+    static WorkerProcess launch(List<String> jvmOptions) throws IOException {
+        Process process = new ProcessBuilder(command(jvmOptions))
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+        WorkerProcess worker = new WorkerProcess(process.getInputStream(), process.getOutputStream(), process::destroy);
+        try {
+            worker.awaitReady();
+        } catch (IOException ex) {
+            worker.close();
+            throw ex;
+        }
+        return worker;
+    }
+
+    static List<String> command(List<String> jvmOptions) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        if (ClassLoader.getSystemClassLoader().getResource(BOOT_LAUNCHER.replace('.', '/') + ".class") != null) {
+            // Running from the Boot jar, whose application classes are not on the class path
+            command.add("-Dloader.main=" + ParseWorker.class.getName());
+            command.add(BOOT_LAUNCHER);
+        } else {
+            command.add(ParseWorker.class.getName());
+        }
+        return command;
+    }
+
+    void awaitReady() throws IOException {
+        if (WorkerFrames.read(fromWorker, frame) == null || frame.type != WorkerFrames.READY) {
+            broken = true;
+            throw new IOException("Parse worker exited during startup");
+        }
+    }
+
+    /**
+     * Parses a replay in the worker. The replay is sent by a feeder thread while this
+     * thread copies the output, so neither side waits on a full pipe.
+     *
+     * @throws ParseBudgetExceededException if the worker aborted the parse
+     * @throws IOException                  if the parse failed or the worker exited
+     */
+    void parse(ParseOptions options, InputStream replay, OutputStream output, ExecutorService feeders) throws IOException {
+        parses++;
+        send(WorkerFrames.PARSE, options.toQueryString());
+        Future<?> feeder = feeders.submit(() -> feed(replay));
+        IOException failure;
+        try {
+            failure = readOutput(output);
+        } finally {
+            if (broken) {
+                feeder.cancel(true);
+            }
+        }
+        awaitFeeder(feeder);
+        if (failure != null) {
+            throw failure;
+        }
+        output.flush();
+    }
+
+    /**
+     * Parses a replay file the worker reads itself, so it can seek in it, split it into
+     * segments or tail it like a parse in this process.
+     *
+     * @throws ParseBudgetExceededException if the worker aborted the parse
+     * @throws IOException                  if the parse failed or the worker exited
+     */
+    void parse(ParseOptions options, File replay, OutputStream output) throws IOException {
+        parses++;
+        send(WorkerFrames.PARSE_FILE, replay.getAbsolutePath() + "\n" + options.toQueryString());
+        IOException failure = readOutput(output);
+        if (failure != null) {
+            throw failure;
+        }
+        output.flush();
+    }
+
+    private void send(byte type, String payload) throws IOException {
+        try {
+            WorkerFrames.write(toWorker, type, payload);
+            toWorker.flush();
+        } catch (IOException ex) {
+            broken = true;
+            throw ex;
+        }
+    }
+
+    /**
+     * Copies the output of a parse up to its result.
+     *
+     * @return The failure of the parse or of writing its output, null if it succeeded
+     * @throws IOException if the worker exited or is out of sync
+     */
+    private IOException readOutput(OutputStream output) throws IOException {
+        IOException failure = null;
+        boolean outputFailed = false;
+        while (true) {
+            if (WorkerFrames.read(fromWorker, frame) == null) {
+                broken = true;
+                throw new IOException("Parse worker exited during a parse");
+            }
+            if (frame.type == WorkerFrames.OUTPUT) {
+                if (!outputFailed) {
+                    try {
+                        output.write(frame.payload, 0, frame.length);
+                    } catch (IOException ex) {
+                        // The worker keeps parsing into the pipe, its output is dropped
+                        outputFailed = true;
+                        failure = ex;
+                    }
+                }
+            } else if (frame.type == WorkerFrames.DONE) {
+                retainedHeap = frame.payloadLong();
+                return failure;
+            } else if (frame.type == WorkerFrames.ABORTED) {
+                return new ParseBudgetExceededException(frame.payloadString());
+            } else if (frame.type == WorkerFrames.FAILED) {
+                return new IOException("Parse worker failed: " + frame.payloadString());
+            } else {
+                broken = true;
+                throw new IOException("Unexpected frame " + (char) frame.type + " from parse worker");
+            }
+        }
+    }
+
+    /**
+     * Sends the replay as DATA frames and the END frame; a replay that cannot be read is
+     * ended early, the worker then reports the truncated replay.
+     */
+    private Void feed(InputStream replay) throws IOException {
+        byte[] buffer = new byte[WorkerFrames.MAX_PAYLOAD];
+        try {
+            int read;
+            while (true) {
+                try {
+                    read = replay.read(buffer);
+                } catch (IOException ex) {
+                    System.err.println("Error reading replay for parse worker: " + ex.getMessage());
+                    break;
+                }
+                if (read < 0) {
+                    break;
+                }
+                WorkerFrames.write(toWorker, WorkerFrames.DATA, buffer, 0, read);
+            }
+            WorkerFrames.write(toWorker, WorkerFrames.END);
+            toWorker.flush();
+        } catch (IOException ex) {
+            broken = true;
+            throw ex;
+        }
+        return null;
+    }
+
+    private void awaitFeeder(Future<?> feeder) throws IOException {
+        try {
+            feeder.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            broken = true;
+            throw new IOException("Interrupted while sending replay to parse worker", ex);
+        } catch (ExecutionException ex) {
+            broken = true;
+            throw new IOException("Error sending replay to parse worker: " + ex.getCause().getMessage(), ex.getCause());
+        } catch (CancellationException ex) {
+            // Cancelled after the worker exited, already reported
+        }
+    }
+
+    int getParses() {
+        return parses;
+    }
+
+    /**
+     * @return Heap the worker retained after its last parse, in bytes
+     */
+    long getRetainedHeap() {
+        return retainedHeap;
+    }
+
+    boolean isBroken() {
+        return broken;
+    }
+
+    /**
+     * Closes the input of the worker, which makes it exit, and kills it.
+     */
+    @Override
+    public void close() {
+        try {
+            toWorker.close();
+        } catch (IOException ex) {
+            // Already gone
+        }
+        destroy.run();
+    }
+}
@@ -0,0 +1,18 @@
+-- Simplified hero paths, written when a parse is run with a trajectory format
+-- Each row holds a chunk of points of one player, encoded as given in format
+
+CREATE SCHEMA IF NOT EXISTS replay_raw;
+
+CREATE TABLE IF NOT EXISTS replay_raw.trajectory_events (
+    id BIGSERIAL PRIMARY KEY,
+    match_id BIGINT NOT NULL,
+    time INTEGER NOT NULL,
+    slot INTEGER,
+    unit VARCHAR(100),
+    point_count INTEGER,
+    format VARCHAR(10),
+    data TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_trajectory_events_match_id ON replay_raw.trajectory_events(match_id);
@@ -0,0 +1,16 @@
+-- Hero inventories, written when a parse is run with item_timeline=true
+-- Each row holds the inventory of one player after it changed
+
+CREATE SCHEMA IF NOT EXISTS replay_raw;
+
+CREATE TABLE IF NOT EXISTS replay_raw.item_timeline_events (
+    id BIGSERIAL PRIMARY KEY,
+    match_id BIGINT NOT NULL,
+    time INTEGER NOT NULL,
+    slot INTEGER,
+    targetname VARCHAR(100),
+    items TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_item_timeline_events_match_id ON replay_raw.item_timeline_events(match_id);
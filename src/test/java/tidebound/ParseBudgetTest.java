@@ -0,0 +1,60 @@
+package tidebound;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseBudgetTest {
+
+    private static final long MB = 1024L * 1024L;
+
+    @Test
+    void testExceedsMemory_OnlyAboveLimit() {
+        ParseBudget budget = new ParseBudget(64 * MB, 0);
+
+        assertFalse(budget.isUnlimited());
+        assertFalse(budget.exceedsMemory(64 * MB));
+        assertTrue(budget.exceedsMemory(64 * MB + 1));
+        assertFalse(budget.exceedsAllocation());
+    }
+
+    @Test
+    void testExceedsAllocation_CountsFromFirstCheck() {
+        ParseBudget budget = new ParseBudget(0, MB);
+        if (budget.getAllocationLimit() == 0) {
+            // The JVM does not measure thread allocation
+            return;
+        }
+
+        assertFalse(budget.exceedsAllocation());
+        byte[][] garbage = new byte[64][];
+        for (int i = 0; i < garbage.length; i++) {
+            garbage[i] = new byte[64 * 1024];
+        }
+        assertEquals(64, garbage.length);
+
+        assertTrue(budget.exceedsAllocation());
+    }
+
+    @Test
+    void testUnlimited_ByDefault() {
+        ParseBudget budget = new ParseBudget(0, 0);
+
+        assertTrue(budget.isUnlimited());
+        assertFalse(budget.exceedsMemory(Long.MAX_VALUE));
+        assertFalse(budget.exceedsAllocation());
+    }
+
+    @Test
+    void testEventLine_MarksEndOfAbortedOutput() {
+        ParseBudgetExceededException aborted = new ParseBudgetExceededException("Parse aborted, it retains \"600\" MiB");
+        String output = "{\"time\":10,\"type\":\"interval\"}\n" + aborted.toEventLine();
+
+        assertTrue(ParseBudgetExceededException.endsAborted(output.getBytes(StandardCharsets.UTF_8)));
+        assertFalse(ParseBudgetExceededException.endsAborted("{\"time\":10,\"type\":\"interval\"}\n".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(ParseBudgetExceededException.endsAborted(new byte[0]));
+        assertTrue(aborted.toEventLine().endsWith("\n"));
+    }
+}
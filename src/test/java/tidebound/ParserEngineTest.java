@@ -0,0 +1,59 @@
+package tidebound;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParserEngineTest {
+
+    @Test
+    void testBootstrap_WithoutDatabase() {
+        ParserEngine engine = new ParserEngine(false, 2);
+        engine.bootstrap();
+
+        assertFalse(engine.isDatabaseEnabled());
+        assertNull(engine.getBootstrapFailure());
+        assertEquals(2, engine.getMaxConcurrentParses());
+    }
+
+    @Test
+    void testParseSlots() throws Exception {
+        ParserEngine engine = new ParserEngine(false, 2);
+
+        engine.acquireParseSlot();
+        engine.acquireParseSlot();
+        assertEquals(0, engine.getAvailableParseSlots());
+
+        engine.releaseParseSlot();
+        assertEquals(1, engine.getAvailableParseSlots());
+    }
+
+    @Test
+    void testTryAcquireParseSlots_TakesOnlyFreeSlots() throws Exception {
+        ParserEngine engine = new ParserEngine(false, 4);
+        engine.acquireParseSlot();
+
+        // The extra segments of a parse get what is left
+        assertEquals(3, engine.tryAcquireParseSlots(7));
+        assertEquals(0, engine.tryAcquireParseSlots(1));
+
+        engine.releaseParseSlots(3);
+        assertEquals(3, engine.getAvailableParseSlots());
+    }
+
+    @Test
+    void testNewSession() {
+        ParserEngine engine = new ParserEngine(false, 1);
+        ParseOptions options = ParseOptions.defaults().withSymbols(true);
+
+        assertSame(options, engine.newSession(options).getOptions());
+        assertSame(ParseOptions.defaults(), engine.newSession(null).getOptions());
+        // Sessions only hold a slot while parsing
+        assertEquals(1, engine.getAvailableParseSlots());
+    }
+
+    @Test
+    void testRequiresOneParse() {
+        assertThrows(IllegalArgumentException.class, () -> new ParserEngine(false, 0));
+    }
+}
@@ -0,0 +1,201 @@
+package tidebound;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+import tidebound.events.EventRecord;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayEventPublisherTest {
+
+    @Test
+    void testSubscribe_ParsesOnlyRequestedEvents() throws Exception {
+        AtomicInteger produced = new AtomicInteger();
+        ReplayEventPublisher publisher = new ReplayEventPublisher(consumer -> {
+            for (int time = 0; time < 100 && !consumer.isCancelled(); time++) {
+                consumer.accept(event(time));
+                produced.incrementAndGet();
+            }
+        });
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        publisher.subscribe(subscriber);
+        assertTrue(subscriber.subscribed.await(5, TimeUnit.SECONDS));
+        subscriber.subscription.request(3);
+        waitFor(() -> subscriber.events.size() == 3);
+        Thread.sleep(50);
+
+        // The parse waits for demand instead of running ahead
+        assertEquals(3, subscriber.events.size());
+        assertTrue(produced.get() <= 3);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertEquals(100, subscriber.events.size());
+        assertEquals(99, subscriber.events.get(99).getTime());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    void testSubscribe_HandsOutCopies() throws Exception {
+        ReplayEventPublisher publisher = new ReplayEventPublisher(consumer -> {
+            EventRecord reused = new EventRecord();
+            for (int time = 0; time < 3; time++) {
+                reused.setTime(time);
+                consumer.accept(reused);
+            }
+        });
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+
+        publisher.subscribe(subscriber);
+
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(0, 1, 2), subscriber.events.stream().map(EventRecord::getTime).toList());
+    }
+
+    @Test
+    void testCancel_StopsParseWithoutSignals() throws Exception {
+        CountDownLatch stopped = new CountDownLatch(1);
+        ReplayEventPublisher publisher = new ReplayEventPublisher(consumer -> {
+            while (!consumer.isCancelled()) {
+                consumer.accept(event(0));
+            }
+            stopped.countDown();
+        });
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        publisher.subscribe(subscriber);
+        assertTrue(subscriber.subscribed.await(5, TimeUnit.SECONDS));
+        subscriber.subscription.request(1);
+        subscriber.subscription.cancel();
+
+        assertTrue(stopped.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.failure);
+    }
+
+    @Test
+    void testSubscribe_ReportsParseFailureAndSecondSubscriber() throws Exception {
+        ReplayEventPublisher publisher = new ReplayEventPublisher(consumer -> {
+            throw new IOException("Truncated replay");
+        });
+        RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        RecordingSubscriber second = new RecordingSubscriber(1);
+
+        publisher.subscribe(subscriber);
+        publisher.subscribe(second);
+
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertEquals("Truncated replay", subscriber.failure.getMessage());
+        assertInstanceOf(IllegalStateException.class, second.failure);
+    }
+
+    @Test
+    void testIterator_IteratesInOrderAndRethrowsFailure() {
+        ReplayEventIterator iterator = new ReplayEventIterator(new ReplayEventPublisher(consumer -> {
+            for (int time = 0; time < 50; time++) {
+                consumer.accept(event(time));
+            }
+            throw new IOException("Truncated replay");
+        }), 4);
+
+        List<Integer> times = new ArrayList<>();
+        UncheckedIOException failure = assertThrows(UncheckedIOException.class, () -> {
+            while (iterator.hasNext()) {
+                times.add(iterator.next().getTime());
+            }
+        });
+
+        assertEquals("Truncated replay", failure.getCause().getMessage());
+        assertEquals(50, times.size());
+        assertEquals(49, times.get(49).intValue());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void testIterator_CloseStopsParse() throws Exception {
+        CountDownLatch stopped = new CountDownLatch(1);
+        ReplayEventIterator iterator = new ReplayEventIterator(new ReplayEventPublisher(consumer -> {
+            while (!consumer.isCancelled()) {
+                consumer.accept(event(0));
+            }
+            stopped.countDown();
+        }), 4);
+
+        assertTrue(iterator.hasNext());
+        iterator.close();
+
+        assertTrue(stopped.await(5, TimeUnit.SECONDS));
+        assertFalse(iterator.hasNext());
+    }
+
+    private static EventRecord event(int time) {
+        EventRecord record = new EventRecord(time);
+        record.setType("interval");
+        return record;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(5);
+        }
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<EventRecord> {
+
+        private final long initialRequest;
+        final List<EventRecord> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch subscribed = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Flow.Subscription subscription;
+        volatile boolean completed;
+        volatile Throwable failure;
+
+        RecordingSubscriber() {
+            this(0);
+        }
+
+        RecordingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+            subscribed.countDown();
+        }
+
+        @Override
+        public void onNext(EventRecord item) {
+            events.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            failure = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package tidebound;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayWarmUpTest {
+
+    @Test
+    void testRun_ParsesSampleReplayBeforeReady() {
+        ParserEngine engine = new ParserEngine(false, 1);
+        AtomicInteger parses = new AtomicInteger();
+        ReplayWarmUp warmUp = new ReplayWarmUp(engine, 3, () -> {
+            // Not advertised while the warm-up runs
+            assertFalse(engine.isReady());
+            parses.incrementAndGet();
+        });
+
+        assertFalse(engine.isReady());
+        warmUp.run();
+
+        assertEquals(3, parses.get());
+        assertTrue(engine.isReady());
+    }
+
+    @Test
+    void testRun_ReadyWithoutSampleReplay() {
+        ParserEngine engine = new ParserEngine(false, 1);
+
+        new ReplayWarmUp(engine, 3, null).run();
+
+        assertTrue(engine.isReady());
+    }
+
+    @Test
+    void testRun_FailedParseEndsWarmUp() {
+        ParserEngine engine = new ParserEngine(false, 1);
+        AtomicInteger parses = new AtomicInteger();
+
+        new ReplayWarmUp(engine, 3, () -> {
+            parses.incrementAndGet();
+            throw new IOException("Truncated replay");
+        }).run();
+
+        assertEquals(1, parses.get());
+        assertTrue(engine.isReady());
+    }
+
+    @Test
+    void testRun_OncePerEngine() {
+        ParserEngine engine = new ParserEngine(false, 1);
+        AtomicInteger parses = new AtomicInteger();
+
+        new ReplayWarmUp(engine, 2, parses::incrementAndGet).run();
+        new ReplayWarmUp(engine, 2, parses::incrementAndGet).run();
+
+        assertEquals(2, parses.get());
+    }
+
+    @Test
+    void testDryRun_NotPassedInQueryString() {
+        ParseOptions options = ParseOptions.defaults().withSymbols(true).withDryRun(true);
+
+        assertTrue(options.isDryRun());
+        assertTrue(options.withTail(true).isDryRun());
+        assertEquals("?symbols=true", options.toQueryString());
+    }
+}
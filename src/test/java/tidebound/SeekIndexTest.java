@@ -0,0 +1,115 @@
+package tidebound;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tidebound.events.TimeWindow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeekIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testFindTick_ReturnsTickBeforeGameTime() {
+        SeekIndex index = build(-60, 120);
+
+        // Entries at -59, -29, 1, 31... (the first tick is not known to start its second)
+        assertEquals(0, index.findTick(-90));
+        assertEquals(tickOf(-59), index.findTick(-59));
+        assertEquals(tickOf(-59), index.findTick(-30));
+        assertEquals(tickOf(31), index.findTick(45));
+        assertEquals(tickOf(91), index.findTick(500));
+        assertEquals(120, index.getLastGameTime());
+    }
+
+    @Test
+    void testRecord_PausedTicksAreSkipped() {
+        SeekIndex.Builder builder = new SeekIndex.Builder();
+        int tick = 0;
+        for (int time = 0; time < 100; time++) {
+            builder.record(time, tick);
+            tick += 30;
+            if (time == 40) {
+                // Paused for a minute
+                for (int paused = 0; paused < 60 * 30; paused++) {
+                    builder.record(time, tick++);
+                }
+            }
+        }
+        SeekIndex index = builder.build();
+
+        assertEquals(61 * 30 + 60 * 30, index.findTick(61));
+    }
+
+    @Test
+    void testAddAll_MergesOverlappingSegments() {
+        SeekIndex.Builder first = new SeekIndex.Builder();
+        SeekIndex.Builder second = new SeekIndex.Builder();
+        for (int time = 0; time <= 100; time++) {
+            first.record(time, tickOf(time));
+        }
+        for (int time = 80; time <= 200; time++) {
+            second.record(time, tickOf(time));
+        }
+
+        SeekIndex.Builder merged = new SeekIndex.Builder();
+        merged.addAll(first);
+        merged.addAll(second);
+        SeekIndex index = merged.build();
+
+        assertEquals(tickOf(91), index.findTick(100));
+        assertEquals(tickOf(91), index.findTick(125));
+        assertEquals(tickOf(141), index.findTick(150));
+        assertEquals(200, index.getLastGameTime());
+    }
+
+    @Test
+    void testRead_RoundTripAndStaleIndex() throws Exception {
+        File replay = tempDir.resolve("match.dem").toFile();
+        Files.write(replay.toPath(), new byte[] {1, 2, 3});
+        assertNull(SeekIndex.read(replay));
+
+        build(0, 300).write(replay);
+        SeekIndex read = SeekIndex.read(replay);
+        assertNotNull(read);
+        assertEquals(10, read.size());
+        assertEquals(tickOf(241), read.findTick(250));
+
+        // A replaced replay invalidates the index
+        Files.write(replay.toPath(), new byte[] {1, 2, 3, 4});
+        assertNull(SeekIndex.read(replay));
+    }
+
+    @Test
+    void testRecordsSeekIndex_OnlyFullParseOfUnindexedFile() throws Exception {
+        File replay = tempDir.resolve("match.dem").toFile();
+        Files.write(replay.toPath(), new byte[] {1, 2, 3});
+
+        // The options of a default /local parse or local job
+        assertTrue(Parse.recordsSeekIndex(replay, ParseOptions.defaults().withSymbols(false)));
+        assertFalse(Parse.recordsSeekIndex(null, ParseOptions.defaults()));
+        assertFalse(Parse.recordsSeekIndex(replay, ParseOptions.defaults().withTail(true)));
+        assertFalse(Parse.recordsSeekIndex(replay, ParseOptions.defaults().withWindow(TimeWindow.of(600, null))));
+
+        build(0, 300).write(replay);
+        assertFalse(Parse.recordsSeekIndex(replay, ParseOptions.defaults()));
+    }
+
+    private static SeekIndex build(int from, int to) {
+        SeekIndex.Builder builder = new SeekIndex.Builder();
+        for (int time = from; time <= to; time++) {
+            builder.record(time, tickOf(time));
+        }
+        return builder.build();
+    }
+
+    private static int tickOf(int gameTime) {
+        return (gameTime + 100) * 30;
+    }
+}
@@ -0,0 +1,55 @@
+package tidebound;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import tidebound.events.TimeWindow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedParseTest {
+
+    // Horn at 120 s of the replay, last tick at 60 minutes of game time
+    private final ReplayTimeline timeline = new ReplayTimeline(120f, (120 + 3600) * ReplayTimeline.TICKS_PER_SECOND);
+
+    @Test
+    void testSplit_CoversWholeReplayWithAdjacentWindows() {
+        List<SegmentedParse.Segment> segments = SegmentedParse.split(TimeWindow.all(), timeline, 4);
+
+        assertEquals(4, segments.size());
+        SegmentedParse.Segment first = segments.get(0);
+        assertTrue(first.isFirst());
+        assertFalse(first.getWindow().hasStart());
+        assertEquals(0, first.getSeekTick());
+        assertEquals(899, first.getWindow().getEnd());
+
+        for (int i = 1; i < segments.size(); i++) {
+            TimeWindow previous = segments.get(i - 1).getWindow();
+            TimeWindow window = segments.get(i).getWindow();
+            assertEquals(previous.getEnd() + 1, window.getStart());
+            // Reads the warm-up before the window
+            int expectedTick = (120 + window.getStart() - SegmentedParse.WARMUP_SECONDS) * ReplayTimeline.TICKS_PER_SECOND;
+            assertEquals(expectedTick, segments.get(i).getSeekTick());
+        }
+        assertFalse(segments.get(3).getWindow().hasEnd());
+    }
+
+    @Test
+    void testSplit_KeepsBoundsOfWindow() {
+        List<SegmentedParse.Segment> segments = SegmentedParse.split(TimeWindow.of(600, 1800), timeline, 8);
+
+        assertEquals(2, segments.size());
+        assertEquals(600, segments.get(0).getWindow().getStart());
+        assertEquals(1199, segments.get(0).getWindow().getEnd());
+        assertEquals(1200, segments.get(1).getWindow().getStart());
+        assertEquals(1800, segments.get(1).getWindow().getEnd());
+    }
+
+    @Test
+    void testSplit_ShortReplayIsNotSplit() {
+        ReplayTimeline shortGame = new ReplayTimeline(120f, (120 + 1000) * ReplayTimeline.TICKS_PER_SECOND);
+
+        assertTrue(SegmentedParse.split(TimeWindow.all(), shortGame, 8).isEmpty());
+        assertTrue(SegmentedParse.split(TimeWindow.all(), timeline, 1).isEmpty());
+    }
+}
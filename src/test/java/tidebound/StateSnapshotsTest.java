@@ -0,0 +1,92 @@
+package tidebound;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import tidebound.events.EventField;
+import tidebound.events.EventRecord;
+import tidebound.events.TimeWindow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateSnapshotsTest {
+
+    @Test
+    void testOptions_KeepSnapshotParseOutOfDatabase() {
+        ParseOptions options = StateSnapshots.options(TimeWindow.of(null, 600));
+
+        assertFalse(options.isDatabase());
+        assertTrue(ParseOptions.defaults().isDatabase());
+        // Not a client option
+        assertFalse(options.toQueryString().contains("database"));
+    }
+
+    @Test
+    void testState_KeepsLatestStateOfEveryHero() {
+        StateSnapshots.State state = new StateSnapshots.State();
+        state.accept(interval(1418, 1, 14, 9000));
+        state.accept(event(1418, "item_timeline", EventField.SLOT, 1, "0:item_tango:3"));
+        state.accept(interval(1419, 0, 12, 7000));
+        state.accept(interval(1420, 1, 15, 9500));
+
+        JsonObject snapshot = JsonParser.parseString(state.toJson(1420)).getAsJsonObject();
+
+        assertEquals(1420, snapshot.get("time").getAsInt());
+        JsonArray players = snapshot.getAsJsonArray("players");
+        assertEquals(2, players.size());
+        JsonObject first = players.get(0).getAsJsonObject();
+        assertEquals(0, first.get("slot").getAsInt());
+        assertEquals("", first.get("items").getAsString());
+        JsonObject second = players.get(1).getAsJsonObject();
+        assertEquals(15, second.get("level").getAsInt());
+        assertEquals("0:item_tango:3", second.get("items").getAsString());
+        assertFalse(second.has("type"));
+    }
+
+    @Test
+    void testState_KeepsWardsInPlace() {
+        StateSnapshots.State state = new StateSnapshots.State();
+        state.accept(event(1100, "obs", EventField.EHANDLE, 11, null));
+        state.accept(event(1150, "sen", EventField.EHANDLE, 12, null));
+        state.accept(event(1300, "sen_left", EventField.EHANDLE, 12, null));
+        state.accept(event(1400, "obs", EventField.EHANDLE, 13, null));
+
+        JsonObject snapshot = JsonParser.parseString(state.toJson(1420)).getAsJsonObject();
+
+        JsonArray wards = snapshot.getAsJsonArray("wards");
+        assertEquals(2, wards.size());
+        assertEquals(11, wards.get(0).getAsJsonObject().get("ehandle").getAsInt());
+        assertEquals(13, wards.get(1).getAsJsonObject().get("ehandle").getAsInt());
+    }
+
+    @Test
+    void testState_CopiesReusedRecords() {
+        StateSnapshots.State state = new StateSnapshots.State();
+        EventRecord record = interval(1418, 2, 10, 5000);
+        state.accept(record);
+        // The parse reuses its records once handed over
+        record.clear();
+
+        JsonObject snapshot = JsonParser.parseString(state.toJson(1420)).getAsJsonObject();
+
+        assertEquals(10, snapshot.getAsJsonArray("players").get(0).getAsJsonObject().get("level").getAsInt());
+    }
+
+    private static EventRecord interval(int time, int slot, int level, int networth) {
+        EventRecord record = new EventRecord(time);
+        record.setType("interval");
+        record.setInt(EventField.SLOT, slot);
+        record.setInt(EventField.LEVEL, level);
+        record.setInt(EventField.NETWORTH, networth);
+        return record;
+    }
+
+    private static EventRecord event(int time, String type, EventField intField, int value, String key) {
+        EventRecord record = new EventRecord(time);
+        record.setType(type);
+        record.setInt(intField, value);
+        record.setString(EventField.KEY, key);
+        return record;
+    }
+}
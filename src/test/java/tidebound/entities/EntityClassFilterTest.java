@@ -0,0 +1,63 @@
+package tidebound.entities;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import skadistats.clarity.model.DTClass;
+import skadistats.clarity.model.Entity;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EntityClassFilterTest {
+
+    private static DTClass dtClass(int classId, String dtName) {
+        DTClass dtClass = mock(DTClass.class);
+        when(dtClass.getClassId()).thenReturn(classId);
+        when(dtClass.getDtName()).thenReturn(dtName);
+        return dtClass;
+    }
+
+    @Test
+    void testAccepts_MatchesNamesAndPrefixes() {
+        EntityClassFilter filter = new EntityClassFilter(List.of("CDOTA_PlayerResource", "CDOTA_Unit_Hero_*"));
+
+        assertTrue(filter.accepts(dtClass(1, "CDOTA_PlayerResource")));
+        assertTrue(filter.accepts(dtClass(2, "CDOTA_Unit_Hero_Axe")));
+        assertFalse(filter.accepts(dtClass(3, "CDOTA_BaseNPC_Creep_Lane")));
+        assertFalse(filter.accepts(dtClass(4, "CDOTA_PlayerResourceX")));
+    }
+
+    @Test
+    void testAccepts_CachesDecisionByClassId() {
+        EntityClassFilter filter = new EntityClassFilter(List.of("CDOTA_Unit_Hero_*"));
+        DTClass hero = dtClass(5000, "CDOTA_Unit_Hero_Axe");
+        Entity entity = mock(Entity.class);
+        when(entity.getDtClass()).thenReturn(hero);
+
+        assertTrue(filter.accepts(entity));
+        assertTrue(filter.accepts(entity));
+        verify(hero, times(1)).getDtName();
+    }
+
+    @Test
+    void testAllow_AcceptsPreviouslyRejectedClass() {
+        EntityClassFilter filter = new EntityClassFilter(List.of());
+        DTClass ability = dtClass(7, "CDOTA_Ability_Axe_BerserkersCall");
+
+        assertFalse(filter.accepts(ability));
+        filter.allow(ability);
+        assertTrue(filter.accepts(ability));
+    }
+
+    @Test
+    void testAddAll_ExtendsPatterns() {
+        EntityClassFilter filter = new EntityClassFilter(List.of("CDOTAGamerulesProxy"));
+        filter.addAll(List.of("CDOTAWearableItem"));
+
+        assertTrue(filter.matches("CDOTAWearableItem"));
+        assertTrue(filter.matches("CDOTAGamerulesProxy"));
+        assertFalse(filter.matches("CDOTA_Item_Tango"));
+    }
+}
@@ -0,0 +1,100 @@
+package tidebound.entities;
+
+import org.junit.jupiter.api.Test;
+
+import skadistats.clarity.model.DTClass;
+import skadistats.clarity.model.Entity;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EntityTrackerTest {
+
+    private static DTClass dtClass(String dtName) {
+        DTClass dtClass = mock(DTClass.class);
+        when(dtClass.getDtName()).thenReturn(dtName);
+        return dtClass;
+    }
+
+    private static Entity entity(DTClass dtClass) {
+        Entity entity = mock(Entity.class);
+        when(entity.getDtClass()).thenReturn(dtClass);
+        return entity;
+    }
+
+    @Test
+    void testSingleton_FollowsCreateAndDelete() {
+        EntityTracker tracker = new EntityTracker();
+        tracker.trackSingleton("CDOTAGamerulesProxy");
+        Entity proxy = entity(dtClass("CDOTAGamerulesProxy"));
+
+        assertNull(tracker.getSingleton("CDOTAGamerulesProxy"));
+        tracker.onCreated(proxy);
+        assertSame(proxy, tracker.getSingleton("CDOTAGamerulesProxy"));
+        tracker.onDeleted(proxy);
+        assertNull(tracker.getSingleton("CDOTAGamerulesProxy"));
+    }
+
+    @Test
+    void testSingleton_KeepsReplacementWhenOldEntityDeleted() {
+        EntityTracker tracker = new EntityTracker();
+        tracker.trackSingleton("CDOTA_PlayerResource");
+        DTClass dtClass = dtClass("CDOTA_PlayerResource");
+        Entity old = entity(dtClass);
+        Entity replacement = entity(dtClass);
+
+        tracker.onCreated(old);
+        tracker.onCreated(replacement);
+        tracker.onDeleted(old);
+
+        assertSame(replacement, tracker.getSingleton("CDOTA_PlayerResource"));
+    }
+
+    @Test
+    void testSingleton_IgnoresUntrackedClasses() {
+        EntityTracker tracker = new EntityTracker();
+        tracker.trackSingleton("CDOTAGamerulesProxy");
+
+        tracker.onCreated(entity(dtClass("CDOTA_DataRadiant")));
+
+        assertNull(tracker.getSingleton("CDOTA_DataRadiant"));
+        assertNull(tracker.getSingleton("CDOTAGamerulesProxy"));
+    }
+
+    @Test
+    void testIsInGroup_MatchesClassNames() {
+        EntityTracker tracker = new EntityTracker();
+        tracker.trackGroup("wards", dtName -> dtName.startsWith("CDOTA_NPC_Observer_Ward"));
+        DTClass observer = dtClass("CDOTA_NPC_Observer_Ward");
+        DTClass sentry = dtClass("CDOTA_NPC_Observer_Ward_TrueSight");
+        DTClass creep = dtClass("CDOTA_BaseNPC_Creep_Lane");
+
+        assertTrue(tracker.isInGroup(entity(observer), "wards"));
+        assertTrue(tracker.isInGroup(entity(sentry), "wards"));
+        assertFalse(tracker.isInGroup(entity(creep), "wards"));
+        assertFalse(tracker.isInGroup(entity(observer), "heroes"));
+    }
+
+    @Test
+    void testIsInGroup_CachesMembershipByClass() {
+        EntityTracker tracker = new EntityTracker();
+        tracker.trackGroup("wards", dtName -> dtName.startsWith("CDOTA_NPC_Observer_Ward"));
+        DTClass observer = dtClass("CDOTA_NPC_Observer_Ward");
+        Entity ward = entity(observer);
+
+        assertTrue(tracker.isInGroup(ward, "wards"));
+        assertTrue(tracker.isInGroup(ward, "wards"));
+        verify(observer, times(1)).getDtName();
+    }
+
+    @Test
+    void testTrackGroup_AppliesToClassesSeenBefore() {
+        EntityTracker tracker = new EntityTracker();
+        DTClass observer = dtClass("CDOTA_NPC_Observer_Ward");
+        Entity ward = entity(observer);
+
+        assertFalse(tracker.isInGroup(ward, "wards"));
+        tracker.trackGroup("wards", dtName -> dtName.startsWith("CDOTA_NPC_Observer_Ward"));
+        assertTrue(tracker.isInGroup(ward, "wards"));
+    }
+}
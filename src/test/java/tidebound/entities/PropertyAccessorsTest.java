@@ -0,0 +1,130 @@
+package tidebound.entities;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import skadistats.clarity.model.DTClass;
+import skadistats.clarity.model.Entity;
+import skadistats.clarity.model.FieldPath;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PropertyAccessorsTest {
+
+    @Mock
+    private DTClass dtClass;
+
+    @Mock
+    private Entity entity;
+
+    @Mock
+    private FieldPath levelPath;
+
+    @Mock
+    private FieldPath killsPath;
+
+    @BeforeEach
+    void setUp() {
+        when(entity.getDtClass()).thenReturn(dtClass);
+        when(dtClass.getDtName()).thenReturn("CDOTA_PlayerResource");
+        when(dtClass.getFieldPathForName("m_iLevel")).thenReturn(levelPath);
+        when(dtClass.getFieldPathForName("m_vecPlayerTeamData.0003.m_iKills")).thenReturn(killsPath);
+    }
+
+    @Test
+    void testGet_ResolvesFieldPathOnlyOnce() {
+        when(entity.getPropertyForFieldPath(levelPath)).thenReturn(7);
+        PropertyAccessors accessors = new PropertyAccessors();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Integer.valueOf(7), accessors.get(entity, "m_iLevel"));
+        }
+
+        verify(dtClass, times(1)).getFieldPathForName("m_iLevel");
+    }
+
+    @Test
+    void testGet_ReplacesIndexPlaceholder() {
+        when(entity.getPropertyForFieldPath(killsPath)).thenReturn(12);
+        PropertyAccessors accessors = new PropertyAccessors();
+
+        assertEquals(12, accessors.getInt(entity, "m_vecPlayerTeamData.%i.m_iKills", 3, -1));
+        assertEquals(12, accessors.getInt(entity, "m_vecPlayerTeamData.%i.m_iKills", 3, -1));
+
+        verify(dtClass, times(1)).getFieldPathForName("m_vecPlayerTeamData.0003.m_iKills");
+    }
+
+    @Test
+    void testGet_ReturnsNullForMissingProperty() {
+        PropertyAccessors accessors = new PropertyAccessors();
+
+        assertNull(accessors.get(entity, "m_iMissing"));
+        assertNull(accessors.get(entity, "m_iMissing"));
+
+        verify(dtClass, times(1)).getFieldPathForName("m_iMissing");
+    }
+
+    @Test
+    void testGet_TreatsResolutionErrorsAsMissing() {
+        when(dtClass.getFieldPathForName("m_broken")).thenThrow(new IllegalStateException("bad name"));
+        PropertyAccessors accessors = new PropertyAccessors();
+
+        assertNull(accessors.get(entity, "m_broken"));
+        assertEquals(-1, accessors.getInt(entity, "m_broken", -1));
+    }
+
+    @Test
+    void testGet_ReturnsNullForNullEntity() {
+        PropertyAccessors accessors = new PropertyAccessors();
+
+        assertNull(accessors.get(null, "m_iLevel"));
+        assertEquals(4, accessors.getInt(null, "m_iLevel", 4));
+        assertEquals(1.5f, accessors.getFloat(null, "m_iLevel", 1.5f));
+    }
+
+    @Test
+    void testTypedGetters_ConvertNumbers() {
+        when(entity.getPropertyForFieldPath(levelPath)).thenReturn(25);
+        PropertyAccessors accessors = new PropertyAccessors();
+
+        assertEquals(25, accessors.getInt(entity, "m_iLevel", 0));
+        assertEquals(25L, accessors.getLong(entity, "m_iLevel", 0L));
+        assertEquals(25.0f, accessors.getFloat(entity, "m_iLevel", 0f));
+    }
+
+    @Test
+    void testBindBuild_SharesResolutionsAcrossReplays() {
+        DTClass otherReplayClass = mock(DTClass.class);
+        Entity otherReplayEntity = mock(Entity.class);
+        when(otherReplayEntity.getDtClass()).thenReturn(otherReplayClass);
+        when(otherReplayClass.getDtName()).thenReturn("CDOTA_PlayerResource");
+        when(otherReplayEntity.getPropertyForFieldPath(levelPath)).thenReturn(3);
+
+        PropertyAccessors first = new PropertyAccessors();
+        first.bindBuild(901001);
+        first.get(entity, "m_iLevel");
+
+        PropertyAccessors second = new PropertyAccessors();
+        second.bindBuild(901001);
+        assertEquals(Integer.valueOf(3), second.get(otherReplayEntity, "m_iLevel"));
+
+        verify(otherReplayClass, never()).getFieldPathForName(anyString());
+    }
+
+    @Test
+    void testBindBuild_IgnoresUnknownBuild() {
+        PropertyAccessors accessors = new PropertyAccessors();
+        accessors.bindBuild(0);
+
+        assertEquals(-1, accessors.getBuildNumber());
+    }
+}
@@ -0,0 +1,97 @@
+package tidebound.entities;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import skadistats.clarity.model.DTClass;
+import skadistats.clarity.model.Entity;
+import skadistats.clarity.model.FieldPath;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PropertyWatchTest {
+
+    @Mock
+    private DTClass dtClass;
+
+    @Mock
+    private Entity entity;
+
+    @Mock
+    private FieldPath statePath;
+
+    @Mock
+    private FieldPath heroPath;
+
+    @Mock
+    private FieldPath otherPath;
+
+    private PropertyWatch watch;
+
+    @BeforeEach
+    void setUp() {
+        when(entity.getDtClass()).thenReturn(dtClass);
+        when(dtClass.getDtName()).thenReturn("CDOTAGamerulesProxy");
+        when(dtClass.getFieldPathForName("m_pGameRules.m_nGameState")).thenReturn(statePath);
+        when(dtClass.getFieldPathForName("m_pGameRules.m_SelectedHeroes.0002")).thenReturn(heroPath);
+
+        watch = new PropertyWatch(new PropertyAccessors());
+        assertEquals(0, watch.add("m_pGameRules.m_nGameState"));
+        assertEquals(1, watch.add("m_pGameRules.m_SelectedHeroes.%i", 2));
+        assertEquals(2, watch.add("m_pGameRules.m_missing"));
+    }
+
+    @Test
+    void testCollect_MarksOnlyWatchedProperties() {
+        watch.collect(entity, new FieldPath[] {otherPath, heroPath, statePath}, 2);
+
+        assertFalse(watch.hasChanged(0));
+        assertTrue(watch.hasChanged(1));
+        assertFalse(watch.hasChanged(2));
+        assertTrue(watch.hasChanged(1, 3));
+        assertFalse(watch.hasChanged(2, 3));
+    }
+
+    @Test
+    void testCollect_ResolvesFieldPathsOnce() {
+        for (int i = 0; i < 5; i++) {
+            watch.collect(entity, new FieldPath[] {statePath}, 1);
+        }
+
+        assertTrue(watch.hasChanged(0));
+        verify(dtClass, times(1)).getFieldPathForName("m_pGameRules.m_nGameState");
+    }
+
+    @Test
+    void testMatches_ResolvesEachClass(@Mock DTClass otherClass, @Mock Entity otherEntity) {
+        when(otherEntity.getDtClass()).thenReturn(otherClass);
+        when(otherClass.getDtName()).thenReturn("CDOTA_Unit_Hero_Axe");
+        when(otherClass.getFieldPathForName("m_pGameRules.m_nGameState")).thenReturn(otherPath);
+
+        assertTrue(watch.matches(otherEntity, new FieldPath[] {otherPath}, 1));
+        assertFalse(watch.matches(entity, new FieldPath[] {otherPath}, 1));
+        assertTrue(watch.matches(otherEntity, new FieldPath[] {heroPath, otherPath}, 2));
+
+        // Matching does not mark anything
+        assertFalse(watch.hasChanged(0, watch.size()));
+        verify(otherClass, times(1)).getFieldPathForName("m_pGameRules.m_nGameState");
+    }
+
+    @Test
+    void testClear_ResetsChanges() {
+        watch.markAll();
+        assertTrue(watch.hasChanged(0, watch.size()));
+
+        watch.clear();
+
+        assertFalse(watch.hasChanged(0, watch.size()));
+    }
+}
@@ -0,0 +1,122 @@
+package tidebound.events;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventPipelineTest {
+
+    @Test
+    void testPublish_EveryStageSeesAllEventsInOrder() throws Exception {
+        RecordingStage first = new RecordingStage();
+        RecordingStage second = new RecordingStage();
+
+        EventPipeline pipeline = new EventPipeline(8, "test", List.of(first, second));
+        EventRecord record = new EventRecord();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            record.clear();
+            record.setTime(i);
+            record.setType("event");
+            // The caller may reuse the record once published
+            pipeline.publish(record);
+            expected.add(i + ":event");
+            if (i % 10 == 9) {
+                pipeline.endTick();
+                expected.add("tick");
+            }
+        }
+        pipeline.close();
+
+        assertEquals(expected, first.seen);
+        assertEquals(expected, second.seen);
+        assertTrue(first.finished);
+        assertTrue(second.finished);
+    }
+
+    @Test
+    void testPublish_WaitsForSlowestStage() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        EventPipeline.Stage blocked = record -> {
+            release.await();
+            accepted.incrementAndGet();
+        };
+
+        EventPipeline pipeline = new EventPipeline(4, "test", List.of(blocked));
+        AtomicInteger published = new AtomicInteger();
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 10; i++) {
+                    pipeline.publish(new EventRecord(i));
+                    published.incrementAndGet();
+                }
+                pipeline.close();
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        producer.start();
+
+        // The event the stage is blocked on keeps its slot until the batch is released
+        Thread.sleep(200);
+        assertEquals(4, published.get());
+
+        release.countDown();
+        producer.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(producer.isAlive());
+        assertEquals(10, accepted.get());
+    }
+
+    @Test
+    void testClose_RethrowsStageFailure() throws Exception {
+        RecordingStage healthy = new RecordingStage();
+        EventPipeline.Stage failing = record -> {
+            throw new IllegalStateException("broken");
+        };
+
+        EventPipeline pipeline = new EventPipeline(2, "test", List.of(failing, healthy));
+        for (int i = 0; i < 10; i++) {
+            pipeline.publish(new EventRecord(i));
+        }
+
+        IOException ex = assertThrows(IOException.class, pipeline::close);
+        assertInstanceOf(IllegalStateException.class, ex.getCause());
+        assertEquals(10, healthy.seen.size());
+        assertTrue(healthy.finished);
+    }
+
+    @Test
+    void testConstructor_RejectsCapacityNotPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new EventPipeline(6, "test", List.of(new RecordingStage())));
+    }
+
+    private static class RecordingStage implements EventPipeline.Stage {
+        final List<String> seen = Collections.synchronizedList(new ArrayList<>());
+        volatile boolean finished;
+
+        @Override
+        public void accept(EventRecord record) {
+            seen.add(record.getTime() + ":" + record.getType());
+        }
+
+        @Override
+        public void endTick() {
+            seen.add("tick");
+        }
+
+        @Override
+        public void finish() {
+            finished = true;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package tidebound.events;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventProjectionTest {
+
+    @Test
+    void testParse_EmptyParametersIncludeEverything() {
+        EventProjection projection = EventProjection.parse(null, " ");
+
+        assertTrue(projection.isAll());
+        assertSame(EventProjection.all(), projection);
+        assertTrue(projection.includesType("anything"));
+        assertTrue(projection.includesSlot(9));
+    }
+
+    @Test
+    void testIncludesType_MatchesExactTypesAndPrefixes() {
+        EventProjection projection = EventProjection.parse("interval, DOTA_COMBATLOG_*", null);
+
+        assertTrue(projection.includesType("interval"));
+        assertTrue(projection.includesType("DOTA_COMBATLOG_DEATH"));
+        assertFalse(projection.includesType("obs"));
+        assertFalse(projection.includesType("DOTA_ABILITY_LEVEL"));
+        assertTrue(projection.includesAnyType("obs", "interval"));
+    }
+
+    @Test
+    void testIncludesTypePrefix() {
+        EventProjection projection = EventProjection.parse("CHAT_MESSAGE_AEGIS,DOTA_*", null);
+
+        assertTrue(projection.includesTypePrefix("CHAT_MESSAGE_"));
+        assertTrue(projection.includesTypePrefix("DOTA_COMBATLOG_"));
+        assertFalse(projection.includesTypePrefix("1"));
+    }
+
+    @Test
+    void testAccepts_SlotFilterOnlyAppliesToEventsWithSlot() {
+        EventProjection projection = EventProjection.of(List.of("interval", "DOTA_COMBATLOG_DEATH"), List.of(0, 5));
+
+        EventRecord own = new EventRecord(0);
+        own.setType("interval");
+        own.setInt(EventField.SLOT, 5);
+        EventRecord other = new EventRecord(0);
+        other.setType("interval");
+        other.setInt(EventField.SLOT, 3);
+        EventRecord combatLog = new EventRecord(0);
+        combatLog.setType("DOTA_COMBATLOG_DEATH");
+        EventRecord ward = new EventRecord(0);
+        ward.setType("obs");
+        ward.setInt(EventField.SLOT, 0);
+
+        assertTrue(projection.accepts(own));
+        assertFalse(projection.accepts(other));
+        assertTrue(projection.accepts(combatLog));
+        assertFalse(projection.accepts(ward));
+    }
+
+    @Test
+    void testParse_RejectsInvalidSlots() {
+        assertThrows(IllegalArgumentException.class, () -> EventProjection.parse(null, "10"));
+        assertThrows(IllegalArgumentException.class, () -> EventProjection.parse(null, "-1"));
+        assertThrows(IllegalArgumentException.class, () -> EventProjection.parse(null, "radiant"));
+    }
+
+    @Test
+    void testParameters_RoundTrip() {
+        EventProjection projection = EventProjection.parse("obs,sen,DOTA_COMBATLOG_*", "5,0");
+
+        assertEquals("obs,sen,DOTA_COMBATLOG_*", projection.getTypesParameter());
+        assertEquals("0,5", projection.getSlotsParameter());
+        EventProjection parsed = EventProjection.parse(projection.getTypesParameter(), projection.getSlotsParameter());
+        assertEquals(projection.toString(), parsed.toString());
+        assertNull(EventProjection.all().getTypesParameter());
+    }
+}
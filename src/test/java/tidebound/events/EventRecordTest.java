@@ -0,0 +1,99 @@
+package tidebound.events;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventRecordTest {
+
+    private final Gson gson = new GsonBuilder()
+        .registerTypeAdapter(EventRecord.class, new EventRecordTypeAdapter())
+        .create();
+
+    // Same field names and order as the events written before EventRecord existed
+    static class PlainEvent {
+        Integer time = 12;
+        String type = "obs_left";
+        Integer slot = 3;
+        String attackername = "npc_dota_hero_<axe>";
+        Float x = 1.0f / 3;
+        Float y = 128f;
+        Integer level = null;
+        Boolean entityleft = true;
+        Integer ehandle = 1234567;
+    }
+
+    @Test
+    void testToJson_MatchesPlainObjectSerialization() {
+        EventRecord record = new EventRecord(12);
+        record.setType("obs_left");
+        // Set out of order on purpose, output follows EventField order
+        record.setInt(EventField.EHANDLE, 1234567);
+        record.setBoolean(EventField.ENTITYLEFT, true);
+        record.setFloat(EventField.Y, 128f);
+        record.setFloat(EventField.X, 1.0f / 3);
+        record.setString(EventField.ATTACKERNAME, "npc_dota_hero_<axe>");
+        record.setInt(EventField.SLOT, 3);
+        record.setInt(EventField.LEVEL, (Integer) null);
+
+        assertEquals(new Gson().toJson(new PlainEvent()), gson.toJson(record));
+    }
+
+    @Test
+    void testToJson_RejectsNaN() {
+        EventRecord record = new EventRecord(0);
+        record.setFloat(EventField.STUNS, Float.NaN);
+
+        assertThrows(IllegalArgumentException.class, () -> gson.toJson(record));
+    }
+
+    @Test
+    void testSetters_NullRemovesField() {
+        EventRecord record = new EventRecord(0);
+        record.setString(EventField.KEY, "pause_duration");
+        record.setString(EventField.KEY, null);
+        record.setBoolean(EventField.PICK, (Boolean) null);
+
+        assertFalse(record.has(EventField.KEY));
+        assertFalse(record.has(EventField.PICK));
+        assertEquals("{\"time\":0}", gson.toJson(record));
+    }
+
+    @Test
+    void testSetters_RejectWrongKind() {
+        EventRecord record = new EventRecord(0);
+
+        assertThrows(IllegalArgumentException.class, () -> record.setInt(EventField.X, 1));
+        assertThrows(IllegalArgumentException.class, () -> record.setString(EventField.SLOT, "1"));
+    }
+
+    @Test
+    void testPool_ReturnsClearedRecords() {
+        EventRecordPool pool = new EventRecordPool(1);
+        EventRecord record = pool.acquire(5);
+        record.setType("interval");
+        record.setBoolean(EventField.RANDOMED, true);
+        pool.release(record);
+
+        EventRecord reused = pool.acquire(9);
+
+        assertSame(record, reused);
+        assertEquals(9, reused.getTime());
+        assertNull(reused.getType());
+        assertFalse(reused.has(EventField.RANDOMED));
+    }
+
+    @Test
+    void testCopy_IsIndependent() {
+        EventRecord record = new EventRecord(1);
+        record.setInt(EventField.GOLD, 600);
+
+        EventRecord copy = record.copy();
+        record.setInt(EventField.GOLD, 700);
+
+        assertEquals(600, copy.getInt(EventField.GOLD));
+        assertEquals(1, copy.getTime());
+    }
+}
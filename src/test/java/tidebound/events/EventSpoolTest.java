@@ -0,0 +1,130 @@
+package tidebound.events;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventSpoolTest {
+
+    private final Gson gson = new GsonBuilder()
+        .registerTypeAdapter(EventRecord.class, new EventRecordTypeAdapter())
+        .create();
+
+    @Test
+    void testDrain_KeepsOrderAcrossSpill() throws Exception {
+        EventRecordPool pool = new EventRecordPool();
+        List<String> expected = new ArrayList<>();
+        List<String> drained = new ArrayList<>();
+
+        try (EventSpool spool = new EventSpool(2)) {
+            for (int i = 0; i < 5; i++) {
+                EventRecord record = event(i);
+                expected.add(gson.toJson(record));
+                boolean retained = spool.add(record);
+                assertEquals(i < 2, retained);
+            }
+            assertEquals(5, spool.size());
+            assertTrue(spool.hasSpilled());
+
+            spool.drain(pool, record -> drained.add(gson.toJson(record)));
+
+            assertTrue(spool.isEmpty());
+            assertFalse(spool.hasSpilled());
+        }
+        assertEquals(expected, drained);
+    }
+
+    @Test
+    void testDrain_CanBeReused() throws Exception {
+        EventRecordPool pool = new EventRecordPool();
+        List<Integer> times = new ArrayList<>();
+
+        try (EventSpool spool = new EventSpool(0)) {
+            spool.add(event(1));
+            spool.drain(pool, record -> times.add(record.getTime()));
+            spool.add(event(2));
+            spool.drain(pool, record -> times.add(record.getTime()));
+        }
+        assertEquals(List.of(1, 2), times);
+    }
+
+    @Test
+    void testSpillMemory_MovesRecordsToDiskInOrder() throws Exception {
+        EventRecordPool pool = new EventRecordPool();
+        List<Integer> times = new ArrayList<>();
+
+        try (EventSpool spool = new EventSpool(4)) {
+            spool.add(event(1));
+            spool.add(event(2));
+            spool.spillMemory(pool);
+            assertEquals(0, spool.memorySize());
+            assertTrue(spool.hasSpilled());
+            // Later records follow the spilled ones
+            assertFalse(spool.add(event(3)));
+
+            spool.drain(pool, record -> times.add(record.getTime()));
+        }
+        assertEquals(List.of(1, 2, 3), times);
+    }
+
+    @Test
+    void testSpill_RoundTripsLongStrings() throws Exception {
+        EventRecord record = new EventRecord(-90);
+        record.setType("trajectory");
+        record.setString(EventField.KEY, "x".repeat(100_000));
+        List<EventRecord> drained = new ArrayList<>();
+
+        try (EventSpool spool = new EventSpool(0)) {
+            spool.add(record);
+            spool.drain(new EventRecordPool(), drained::add);
+        }
+        assertEquals(gson.toJson(record), gson.toJson(drained.get(0)));
+    }
+
+    @Test
+    void testDrain_KeepsRecordsAfterConsumerFailure() throws Exception {
+        EventRecordPool pool = new EventRecordPool();
+        List<Integer> times = new ArrayList<>();
+
+        try (EventSpool spool = new EventSpool(2)) {
+            for (int i = 0; i < 6; i++) {
+                spool.add(event(i));
+            }
+
+            // Fails on a record kept in memory, then on a spilled one
+            for (int failAt : new int[] {1, 4}) {
+                IOException failure = assertThrows(IOException.class, () -> spool.drain(pool, record -> {
+                    if (record.getTime() == failAt) {
+                        throw new IOException("Connection reset");
+                    }
+                    times.add(record.getTime());
+                }));
+                assertEquals("Connection reset", failure.getMessage());
+                assertEquals(6 - times.size(), spool.size());
+            }
+            // Added after the failures, still drained last
+            spool.add(event(6));
+
+            spool.drain(pool, record -> times.add(record.getTime()));
+
+            assertTrue(spool.isEmpty());
+        }
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6), times);
+    }
+
+    private static EventRecord event(int time) {
+        EventRecord record = new EventRecord(time);
+        record.setType("DOTA_COMBATLOG_DAMAGE");
+        record.setString(EventField.ATTACKERNAME, "npc_dota_hero_axe");
+        record.setInt(EventField.SLOT, time % 10);
+        record.setFloat(EventField.X, time + 0.5f);
+        record.setBoolean(EventField.ATTACKERHERO, time % 2 == 0);
+        return record;
+    }
+}
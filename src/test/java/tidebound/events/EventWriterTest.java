@@ -0,0 +1,178 @@
+package tidebound.events;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventWriterTest {
+
+    private final Gson gson = new GsonBuilder()
+        .registerTypeAdapter(EventRecord.class, new EventRecordTypeAdapter())
+        .create();
+
+    /**
+     * Counts flushes separately from writes.
+     */
+    static class CountingOutputStream extends ByteArrayOutputStream {
+        int flushes;
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+
+    @Test
+    void testWrite_MatchesGsonOutput() throws IOException {
+        Random random = new Random(7);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        EventWriter writer = new EventWriter(actual, EventWriter.FlushPolicy.atEnd(), 512);
+
+        for (int i = 0; i < 2000; i++) {
+            EventRecord record = randomRecord(random);
+            expected.write((gson.toJson(record) + "\n").getBytes(StandardCharsets.UTF_8));
+            writer.write(record);
+        }
+        writer.flush();
+
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+    }
+
+    @Test
+    void testWrite_EscapesLikeGson() throws IOException {
+        EventRecord record = new EventRecord(-3);
+        record.setType("chat");
+        record.setString(EventField.KEY, "<b>\"gg\" & 'wp'</b>\t\u0001 \u2028\u2029 h\u00e9ros \u82f1\u96c4 \uD83D\uDE00 \uD800");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EventWriter writer = new EventWriter(out);
+
+        writer.write(record);
+        writer.flush();
+
+        assertEquals(gson.toJson(record) + "\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testWrite_RejectsNaNWithoutWritingPartialLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EventWriter writer = new EventWriter(out);
+        EventRecord valid = new EventRecord(1);
+        EventRecord invalid = new EventRecord(2);
+        invalid.setType("interval");
+        invalid.setFloat(EventField.X, Float.POSITIVE_INFINITY);
+
+        writer.write(valid);
+        assertThrows(IllegalArgumentException.class, () -> writer.write(invalid));
+        writer.flush();
+
+        assertEquals("{\"time\":1}\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testFlushPolicy_EveryEvents() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        EventWriter writer = new EventWriter(out, EventWriter.FlushPolicy.everyEvents(2));
+
+        writer.write(new EventRecord(1));
+        assertEquals(0, out.size());
+        writer.write(new EventRecord(2));
+
+        assertEquals(1, out.flushes);
+        assertEquals("{\"time\":1}\n{\"time\":2}\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testFlushPolicy_PerTick() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        EventWriter writer = new EventWriter(out, EventWriter.FlushPolicy.perTick());
+
+        writer.endTick();
+        assertEquals(0, out.flushes);
+        writer.write(new EventRecord(1));
+        writer.endTick();
+
+        assertEquals(1, out.flushes);
+        assertEquals("{\"time\":1}\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testFlushPolicy_AtEndWritesFullChunks() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        EventWriter writer = new EventWriter(out, EventWriter.FlushPolicy.atEnd(), 16);
+
+        writer.write(new EventRecord(1));
+        assertEquals(0, out.size());
+        writer.write(new EventRecord(2));
+
+        assertEquals(22, out.size());
+        assertEquals(0, out.flushes);
+    }
+
+    @Test
+    void testFlushPolicy_Parse() {
+        assertEquals(EventWriter.FlushPolicy.Mode.AT_END, EventWriter.FlushPolicy.parse(null).getMode());
+        assertEquals(EventWriter.FlushPolicy.Mode.PER_TICK, EventWriter.FlushPolicy.parse("tick").getMode());
+        assertEquals(500, EventWriter.FlushPolicy.parse("events:500").getEvents());
+        assertThrows(IllegalArgumentException.class, () -> EventWriter.FlushPolicy.parse("events:0"));
+        assertThrows(IllegalArgumentException.class, () -> EventWriter.FlushPolicy.parse("sometimes"));
+    }
+
+    @Test
+    void testWrite_SymbolsAreDefinedBeforeFirstUse() throws IOException {
+        SymbolTable symbols = new SymbolTable();
+        // Interned by the parse but never written, so never defined
+        symbols.intern("npc_dota_hero_alchemist");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EventWriter writer = new EventWriter(out, EventWriter.FlushPolicy.atEnd(), 512, symbols);
+        EventRecord record = new EventRecord(5);
+        record.setType("DOTA_COMBATLOG_DAMAGE");
+        record.setString(EventField.ATTACKERNAME, "npc_dota_hero_axe");
+        record.setString(EventField.TARGETNAME, "npc_dota_hero_axe");
+        record.setString(EventField.INFLICTOR, "axe_<battle>_hunger");
+        record.setInt(EventField.VALUE, 12);
+
+        writer.write(record);
+        writer.write(record);
+        writer.flush();
+
+        String event = "{\"time\":5,\"type\":\"DOTA_COMBATLOG_DAMAGE\",\"value\":12,\"attackername\":1,\"targetname\":1,\"inflictor\":2}\n";
+        assertEquals(
+            "{\"time\":0,\"type\":\"symbol\",\"key\":\"npc_dota_hero_axe\",\"value\":1}\n"
+                + "{\"time\":0,\"type\":\"symbol\",\"key\":\"axe_\\u003cbattle\\u003e_hunger\",\"value\":2}\n"
+                + event + event,
+            out.toString(StandardCharsets.UTF_8));
+        assertEquals("axe_<battle>_hunger", symbols.get(2));
+        assertEquals(SymbolTable.NONE, symbols.find("npc_dota_hero_lina"));
+    }
+
+    private static EventRecord randomRecord(Random random) {
+        EventRecord record = new EventRecord(random.nextInt(5000) - 100);
+        for (EventField field : EventField.values()) {
+            if (field == EventField.TIME || random.nextInt(3) != 0) {
+                continue;
+            }
+            switch (field.getKind()) {
+                case INT:
+                    record.setInt(field, random.nextInt() >> random.nextInt(32));
+                    break;
+                case FLOAT:
+                    record.setFloat(field, random.nextFloat() * 20000f - 10000f);
+                    break;
+                case BOOLEAN:
+                    record.setBoolean(field, random.nextBoolean());
+                    break;
+                case STRING:
+                    record.setString(field, "npc_dota_hero_" + Integer.toHexString(random.nextInt()));
+                    break;
+            }
+        }
+        return record;
+    }
+}
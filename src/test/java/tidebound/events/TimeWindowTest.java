@@ -0,0 +1,47 @@
+package tidebound.events;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeWindowTest {
+
+    @Test
+    void testAll() {
+        TimeWindow window = TimeWindow.of(null, null);
+
+        assertTrue(window.isAll());
+        assertTrue(window.contains(-90));
+        assertTrue(window.contains(5000));
+        assertFalse(window.isPassed(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void testContains_IncludesBounds() {
+        TimeWindow window = TimeWindow.of(0, 600);
+
+        assertFalse(window.contains(-1));
+        assertTrue(window.contains(0));
+        assertTrue(window.contains(600));
+        assertFalse(window.contains(601));
+        assertFalse(window.isPassed(600));
+        assertTrue(window.isPassed(601));
+    }
+
+    @Test
+    void testOpenBounds() {
+        TimeWindow draft = TimeWindow.of(null, 0);
+        assertTrue(draft.contains(-300));
+        assertFalse(draft.hasStart());
+
+        TimeWindow lateGame = TimeWindow.of(2400, null);
+        assertFalse(lateGame.contains(2399));
+        assertTrue(lateGame.contains(4000));
+        assertFalse(lateGame.isPassed(100000));
+    }
+
+    @Test
+    void testOf_RejectsEndBeforeStart() {
+        assertThrows(IllegalArgumentException.class, () -> TimeWindow.of(600, 0));
+    }
+}
@@ -0,0 +1,106 @@
+package tidebound.extractors;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.protobuf.GeneratedMessage;
+
+import skadistats.clarity.model.Entity;
+import skadistats.clarity.processor.runner.Context;
+import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.CDOTAUserMsg_LocationPing;
+import skadistats.clarity.wire.shared.demo.proto.Demo.CDemoFileInfo;
+import skadistats.clarity.wire.shared.demo.proto.Demo.CDemoSendTables;
+import tidebound.entities.EntityClassFilter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExtractorDispatcherTest {
+
+    private static class TickCounter implements TickListener {
+        private int ticks;
+
+        @Override
+        public void onTick(Context ctx, TickState tick) {
+            ticks++;
+        }
+    }
+
+    private static class CreatedListener implements EntityListener {
+        @Override
+        public void onEntityCreated(Context ctx, Entity e) {
+        }
+    }
+
+    private static class MessageCounter implements MessageListener {
+        private final Set<Class<? extends GeneratedMessage>> messageClasses;
+        private int messages;
+
+        MessageCounter(Set<Class<? extends GeneratedMessage>> messageClasses) {
+            this.messageClasses = messageClasses;
+        }
+
+        @Override
+        public Set<Class<? extends GeneratedMessage>> getMessageClasses() {
+            return messageClasses;
+        }
+
+        @Override
+        public void onMessage(Context ctx, GeneratedMessage message) {
+            messages++;
+        }
+    }
+
+    private final ExtractorDispatcher dispatcher = new ExtractorDispatcher(new EntityClassFilter(List.of()));
+
+    @Test
+    void testOnTick_CountsCallsInStatsOfExtractor() {
+        TickCounter listener = new TickCounter();
+        ExtractorStats stats = new ExtractorStats("ticks");
+        dispatcher.add(listener, stats);
+
+        dispatcher.onTick(null, new TickState());
+        dispatcher.onTick(null, new TickState());
+        // Not overridden, neither called nor counted
+        dispatcher.onTickEnd(null, true);
+
+        assertTrue(dispatcher.hasTickListeners());
+        assertEquals(2, listener.ticks);
+        assertEquals(2, stats.getEvents());
+    }
+
+    @Test
+    void testGetProcessors_AddsHandlersOnlyForEventsListenedTo() {
+        CreatedListener created = new CreatedListener();
+        dispatcher.add(created, new ExtractorStats("created"));
+        assertEquals(List.of(created), dispatcher.getProcessors());
+
+        MessageCounter pings = new MessageCounter(Set.of(CDOTAUserMsg_LocationPing.class));
+        dispatcher.add(pings, new ExtractorStats("pings"));
+        List<Object> processors = dispatcher.getProcessors();
+        assertEquals(3, processors.size());
+        assertTrue(processors.get(2) instanceof ExtractorDispatcher.LocationPingHandler);
+        assertFalse(dispatcher.hasTickListeners());
+    }
+
+    @Test
+    void testOnFileInfo_PassesFileInfoToListeners() {
+        MessageCounter listener = new MessageCounter(Set.of(CDemoFileInfo.class));
+        ExtractorStats stats = new ExtractorStats("fileinfo");
+        dispatcher.add(listener, stats);
+
+        dispatcher.onFileInfo(null, CDemoFileInfo.getDefaultInstance());
+
+        assertEquals(1, listener.messages);
+        assertEquals(1, stats.getEvents());
+        assertEquals(1, dispatcher.getProcessors().size());
+    }
+
+    @Test
+    void testAdd_RejectsMessageWithoutHandler() {
+        MessageCounter listener = new MessageCounter(Set.of(CDemoSendTables.class));
+
+        assertThrows(IllegalArgumentException.class, () -> dispatcher.add(listener, new ExtractorStats("sendtables")));
+    }
+}
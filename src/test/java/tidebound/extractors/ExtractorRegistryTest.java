@@ -0,0 +1,103 @@
+package tidebound.extractors;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import tidebound.events.EventProjection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExtractorRegistryTest {
+
+    private static class TestExtractor implements Extractor {
+        private final String name;
+
+        TestExtractor(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean isRequiredBy(EventProjection projection) {
+            return projection.includesType(name);
+        }
+
+        @Override
+        public Class<?> getProcessorClass() {
+            return Object.class;
+        }
+
+        @Override
+        public Object createProcessor(ExtractorContext context) {
+            return new Object();
+        }
+    }
+
+    @Test
+    void testLoad_FindsBuiltInExtractors() {
+        List<String> names = ExtractorRegistry.load().getExtractors().stream()
+            .map(Extractor::getName)
+            .collect(Collectors.toList());
+
+        assertTrue(names.containsAll(List.of(
+            "draft", "intervals", "actions", "pings", "chat", "combatlog", "neutral_items", "cosmetics", "wards",
+            "dotaplus")));
+    }
+
+    @Test
+    void testSelect_SkipsDisabledAndUnrequestedExtractors() {
+        ExtractorRegistry registry = new ExtractorRegistry(
+            List.of(new TestExtractor("chat"), new TestExtractor("pings"), new TestExtractor("wards")),
+            Set.of("pings"));
+
+        List<Extractor> all = registry.select(EventProjection.all());
+        assertEquals(List.of("chat", "wards"), all.stream().map(Extractor::getName).collect(Collectors.toList()));
+
+        List<Extractor> wards = registry.select(EventProjection.parse("wards,pings", null));
+        assertEquals(1, wards.size());
+        assertEquals("wards", wards.get(0).getName());
+    }
+
+    @Test
+    void testRecord_AddsParsesToTotalsMostExpensiveFirst() {
+        ExtractorRegistry registry = new ExtractorRegistry(
+            List.of(new TestExtractor("chat"), new TestExtractor("wards")), Set.of());
+
+        ExtractorStats chat = new ExtractorStats("chat");
+        chat.stop(chat.start());
+        ExtractorStats wards = new ExtractorStats("wards");
+        for (int i = 0; i < 3; i++) {
+            wards.stop(wards.start() - 1_000_000);
+        }
+        registry.record(List.of(chat, wards));
+        registry.record(List.of(wards));
+
+        List<ExtractorStats> totals = registry.getTotals();
+        assertEquals("wards", totals.get(0).getName());
+        assertEquals(2, totals.get(0).getParses());
+        assertEquals(6, totals.get(0).getEvents());
+        assertTrue(totals.get(0).getNanos() >= 6_000_000);
+        assertEquals("chat", totals.get(1).getName());
+        assertEquals(1, totals.get(1).getParses());
+        assertEquals(1, totals.get(1).getEvents());
+    }
+
+    @Test
+    void testConstructor_RejectsDuplicateNames() {
+        assertThrows(IllegalArgumentException.class, () -> new ExtractorRegistry(
+            List.of(new TestExtractor("chat"), new TestExtractor("chat")), Set.of()));
+    }
+
+    @Test
+    void testParseNames() {
+        assertEquals(Set.of(), ExtractorRegistry.parseNames(null));
+        assertEquals(Set.of("chat", "pings"), ExtractorRegistry.parseNames(" chat, ,pings "));
+    }
+}
@@ -0,0 +1,80 @@
+package tidebound.extractors.builtin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import skadistats.clarity.model.DTClass;
+import skadistats.clarity.model.Entity;
+import tidebound.entities.PropertyAccessors;
+import tidebound.events.EventField;
+import tidebound.events.EventRecord;
+import tidebound.extractors.ExtractorContext;
+import tidebound.extractors.TickState;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DraftExtractorTest {
+
+    private final List<EventRecord> written = new ArrayList<>();
+    private final PropertyAccessors properties = mock(PropertyAccessors.class);
+    private final ExtractorContext context = mock(ExtractorContext.class);
+    private final Entity gameRules = mock(Entity.class);
+
+    @BeforeEach
+    void setUp() {
+        DTClass gameRulesClass = mock(DTClass.class);
+        when(gameRulesClass.getDtName()).thenReturn("CDOTAGamerulesProxy");
+        when(gameRules.getDtClass()).thenReturn(gameRulesClass);
+        when(context.getProperties()).thenReturn(properties);
+        when(context.newEntry(anyInt())).thenAnswer(invocation -> new EventRecord(invocation.getArgument(0, Integer.class)));
+        doAnswer(invocation -> written.add(invocation.getArgument(0))).when(context).output(any(EventRecord.class));
+        when(context.getEntityProperty(gameRules, "m_pGameRules.m_iPlayerIDsInControl", null)).thenReturn(1L);
+        when(context.getEntityProperty(gameRules, "m_pGameRules.m_iActiveTeam", null)).thenReturn(2);
+        when(context.getEntityProperty(eq(gameRules), eq("m_pGameRules.m_fExtraTimeRemaining.%i"), anyInt())).thenReturn(130.4f);
+    }
+
+    private static TickState tick(Entity gameRules, int gameState, int time) {
+        TickState tick = new TickState();
+        tick.update(gameRules, null, null, null, gameState, time, 0);
+        return tick;
+    }
+
+    @Test
+    void testOnTick_WritesDraftStartAndEachPickOrBanOnce() {
+        DraftExtractor.Processor processor = new DraftExtractor.Processor(context);
+        when(properties.getInt(gameRules, "m_pGameRules.m_BannedHeroes.%i", 0, 0)).thenReturn(10);
+
+        processor.onEntityCreated(null, gameRules);
+        processor.onTick(null, tick(gameRules, 2, 100));
+
+        assertEquals(2, written.size());
+        assertEquals("draft_start", written.get(0).getType());
+        EventRecord ban = written.get(1);
+        assertEquals("draft_timings", ban.getType());
+        assertEquals(100, ban.getTime());
+        assertEquals(1, ban.getInt(EventField.DRAFT_ORDER));
+        assertFalse(ban.getBoolean(EventField.PICK));
+        assertEquals(5, ban.getInt(EventField.HERO_ID));
+        assertEquals(130, ban.getInt(EventField.DRAFT_EXTIME0));
+
+        // Nothing changed since, the picks and bans are not read again
+        processor.onTick(null, tick(gameRules, 2, 101));
+        assertEquals(2, written.size());
+        verify(properties, times(1)).getInt(gameRules, "m_pGameRules.m_BannedHeroes.%i", 0, 0);
+    }
+
+    @Test
+    void testOnTick_IgnoresGameRulesOutsideDraft() {
+        DraftExtractor.Processor processor = new DraftExtractor.Processor(context);
+
+        processor.onEntityCreated(null, gameRules);
+        processor.onTick(null, tick(gameRules, 5, 100));
+
+        assertTrue(written.isEmpty());
+    }
+}
@@ -0,0 +1,52 @@
+package tidebound.extractors.builtin;
+
+import org.junit.jupiter.api.Test;
+
+import skadistats.clarity.model.CombatLogEntry;
+import skadistats.clarity.wire.dota.common.proto.DOTAUserMessages.DOTA_COMBATLOG_TYPES;
+import tidebound.events.SymbolTable;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TrackVisitorTest {
+
+    private static CombatLogEntry entry(DOTA_COMBATLOG_TYPES type, String attacker, String target, String inflictor) {
+        CombatLogEntry cle = mock(CombatLogEntry.class);
+        when(cle.getType()).thenReturn(type);
+        lenient().when(cle.getAttackerName()).thenReturn(attacker);
+        lenient().when(cle.getTargetName()).thenReturn(target);
+        lenient().when(cle.getInflictorName()).thenReturn(inflictor);
+        return cle;
+    }
+
+    @Test
+    void testVisit_ReportsTrackedDeathAndForgetsRemovedTrack() {
+        TrackVisitor visitor = new TrackVisitor(new SymbolTable());
+
+        visitor.visit(100, entry(DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_MODIFIER_ADD,
+            "npc_dota_hero_bounty_hunter", "npc_dota_hero_axe", "modifier_bounty_hunter_track"));
+        assertEquals(1, visitor.getStateSize());
+
+        TrackVisitor.TrackStatus status = visitor.visit(110, entry(DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_DEATH,
+            "npc_dota_hero_lina", "npc_dota_hero_axe", null));
+        assertNotNull(status);
+        assertEquals("npc_dota_hero_bounty_hunter", status.inflictor);
+
+        visitor.visit(120, entry(DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_MODIFIER_REMOVE,
+            "npc_dota_hero_bounty_hunter", "npc_dota_hero_axe", "modifier_bounty_hunter_track"));
+        assertEquals(0, visitor.getStateSize());
+        assertNull(visitor.visit(130, entry(DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_DEATH,
+            "npc_dota_hero_lina", "npc_dota_hero_axe", null)));
+    }
+
+    @Test
+    void testVisit_KeepsNoStateForOtherModifiers() {
+        TrackVisitor visitor = new TrackVisitor(new SymbolTable());
+
+        visitor.visit(100, entry(DOTA_COMBATLOG_TYPES.DOTA_COMBATLOG_MODIFIER_ADD,
+            "npc_dota_hero_lina", "npc_dota_hero_axe", "modifier_lina_fiery_soul"));
+
+        assertEquals(0, visitor.getStateSize());
+    }
+}
@@ -46,6 +46,20 @@ class BlobHandlerTest {
         verify(responseBody).close();
     }
 
+    @Test
+    void testHandle_Returns400_WhenPlayerSlotInvalid() throws IOException {
+        URI uri = URI.create("http://localhost:5600/blob?replay_url=http://example.com/replay.dem&slots=10");
+        when(exchange.getRequestURI()).thenReturn(uri);
+        
+        OutputStream responseBody = mock(OutputStream.class);
+        when(exchange.getResponseBody()).thenReturn(responseBody);
+        
+        blobHandler.handle(exchange);
+        
+        verify(exchange).sendResponseHeaders(400, 0);
+        verify(responseBody).close();
+    }
+
     @Test
     void testHandle_Returns400_WhenReplayUrlEmpty() throws IOException {
         URI uri = URI.create("http://localhost:5600/blob?replay_url=");
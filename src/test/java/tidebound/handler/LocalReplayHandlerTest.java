@@ -0,0 +1,120 @@
+package tidebound.handler;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tidebound.ParseBudgetExceededException;
+import tidebound.ParseOptions;
+import tidebound.ParseSession;
+import tidebound.ParserEngine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LocalReplayHandlerTest {
+
+    @Mock
+    private HttpExchange exchange;
+
+    @Mock
+    private ParserEngine engine;
+
+    @Mock
+    private ParseSession session;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testHandle_ParsesUncompressedReplayFileInProcess() throws Exception {
+        File replay = tempDir.resolve("match.dem").toFile();
+        Files.write(replay.toPath(), new byte[] {1, 2, 3});
+        when(exchange.getRequestURI()).thenReturn(URI.create("http://localhost:5600/local?file_path=" + replay.getPath()));
+        ByteArrayOutputStream responseBody = new ByteArrayOutputStream();
+        when(exchange.getResponseBody()).thenReturn(responseBody);
+        ArgumentCaptor<ParseOptions> options = ArgumentCaptor.forClass(ParseOptions.class);
+        when(engine.newSession(options.capture())).thenReturn(session);
+        doAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write("{\"type\":\"epilogue\"}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(session).parse(any(File.class), any(OutputStream.class));
+
+        // cat in place of the blob aggregation
+        new LocalReplayHandler(engine, List.of("cat")).handle(exchange);
+
+        // The file parse is the one that writes the seek index and splits long replays
+        verify(session).parse(eq(replay), any(OutputStream.class));
+        verify(session, never()).parse(any(InputStream.class), any(OutputStream.class));
+        assertTrue(options.getValue().getWindow().isAll());
+        assertFalse(options.getValue().isTail());
+        assertEquals("{\"type\":\"epilogue\"}\n", responseBody.toString(StandardCharsets.UTF_8));
+        verify(exchange).sendResponseHeaders(200, responseBody.size());
+    }
+
+    @Test
+    void testHandle_StreamsEventsOfTimeWindow() throws Exception {
+        File replay = tempDir.resolve("match.dem").toFile();
+        Files.write(replay.toPath(), new byte[] {1, 2, 3});
+        when(exchange.getRequestURI()).thenReturn(URI.create("http://localhost:5600/local?end_time=600&file_path=" + replay.getPath()));
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        ByteArrayOutputStream responseBody = new ByteArrayOutputStream();
+        when(exchange.getResponseBody()).thenReturn(responseBody);
+        when(engine.newSession(any(ParseOptions.class))).thenReturn(session);
+        doAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write("{\"type\":\"interval\"}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(session).parse(any(File.class), any(OutputStream.class));
+
+        // A command that fails, the events of a window are not aggregated
+        new LocalReplayHandler(engine, List.of("false")).handle(exchange);
+
+        verify(session).parse(eq(replay), any(OutputStream.class));
+        verify(exchange).sendResponseHeaders(200, 0);
+        assertEquals("{\"type\":\"interval\"}\n", responseBody.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testHandle_Returns413_WhenParseOverBudget() throws Exception {
+        File replay = tempDir.resolve("match.dem").toFile();
+        Files.write(replay.toPath(), new byte[] {1, 2, 3});
+        when(exchange.getRequestURI()).thenReturn(URI.create("http://localhost:5600/local?file_path=" + replay.getPath()));
+        when(exchange.getResponseBody()).thenReturn(new ByteArrayOutputStream());
+        when(engine.newSession(any(ParseOptions.class))).thenReturn(session);
+        doThrow(new ParseBudgetExceededException("Parse aborted, it retains about 600 MiB"))
+            .when(session).parse(any(File.class), any(OutputStream.class));
+
+        new LocalReplayHandler(engine, List.of("cat")).handle(exchange);
+
+        verify(exchange).sendResponseHeaders(413, 0);
+    }
+
+    @Test
+    void testHandle_Returns404_WhenReplayMissing() throws Exception {
+        File replay = tempDir.resolve("missing.dem").toFile();
+        when(exchange.getRequestURI()).thenReturn(URI.create("http://localhost:5600/local?file_path=" + replay.getPath()));
+        OutputStream responseBody = mock(OutputStream.class);
+        when(exchange.getResponseBody()).thenReturn(responseBody);
+
+        new LocalReplayHandler(engine, List.of("cat")).handle(exchange);
+
+        verify(exchange).sendResponseHeaders(404, 0);
+        verifyNoInteractions(engine);
+    }
+}
@@ -0,0 +1,79 @@
+package tidebound.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tidebound.ParseBudgetExceededException;
+import tidebound.ParseOptions;
+import tidebound.ParseSession;
+import tidebound.ParserEngine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ParseHandlerTest {
+
+    @Mock
+    private HttpExchange exchange;
+
+    @Mock
+    private ParserEngine engine;
+
+    @Mock
+    private ParseSession session;
+
+    @Test
+    void testHandle_StreamsEvents() throws Exception {
+        ByteArrayOutputStream responseBody = stubExchange();
+        doAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write("{\"type\":\"epilogue\"}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(session).parse(any(InputStream.class), any(OutputStream.class));
+
+        new ParseHandler(engine).handle(exchange);
+
+        verify(exchange).sendResponseHeaders(200, 0);
+        assertEquals("{\"type\":\"epilogue\"}\n", responseBody.toString(StandardCharsets.UTF_8));
+        assertFalse(ParseBudgetExceededException.endsAborted(responseBody.toByteArray()));
+    }
+
+    @Test
+    void testHandle_EndsOutputOfAbortedParseWithEvent() throws Exception {
+        ByteArrayOutputStream responseBody = stubExchange();
+        doAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write("{\"type\":\"interval\"}\n".getBytes(StandardCharsets.UTF_8));
+            throw new ParseBudgetExceededException("Parse aborted, it retains about 600 MiB");
+        }).when(session).parse(any(InputStream.class), any(OutputStream.class));
+
+        new ParseHandler(engine).handle(exchange);
+
+        // The status was sent before the parse, the client learns about the abort from the output
+        verify(exchange).sendResponseHeaders(200, 0);
+        String[] lines = responseBody.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"type\":\"interval\"}", lines[0]);
+        assertTrue(lines[1].contains("\"type\":\"parse_aborted\""));
+        assertTrue(lines[1].contains("retains about 600 MiB"));
+        assertTrue(ParseBudgetExceededException.endsAborted(responseBody.toByteArray()));
+    }
+
+    private ByteArrayOutputStream stubExchange() {
+        when(exchange.getRequestURI()).thenReturn(URI.create("http://localhost:5600/"));
+        when(exchange.getRequestBody()).thenReturn(new ByteArrayInputStream(new byte[] {1, 2, 3}));
+        ByteArrayOutputStream responseBody = new ByteArrayOutputStream();
+        when(exchange.getResponseBody()).thenReturn(responseBody);
+        when(engine.newSession(any(ParseOptions.class))).thenReturn(session);
+        return responseBody;
+    }
+}
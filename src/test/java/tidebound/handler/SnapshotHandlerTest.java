@@ -0,0 +1,23 @@
+package tidebound.handler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotHandlerTest {
+
+    @Test
+    void testParseGameTime_SecondsAndMinutes() {
+        assertEquals(1420, SnapshotHandler.parseGameTime("1420"));
+        assertEquals(1420, SnapshotHandler.parseGameTime("23:40"));
+        assertEquals(-90, SnapshotHandler.parseGameTime("-1:30"));
+        assertEquals(-90, SnapshotHandler.parseGameTime("-90"));
+    }
+
+    @Test
+    void testParseGameTime_RejectsInvalidValues() {
+        assertThrows(IllegalArgumentException.class, () -> SnapshotHandler.parseGameTime(null));
+        assertThrows(IllegalArgumentException.class, () -> SnapshotHandler.parseGameTime("23:75"));
+        assertThrows(IllegalArgumentException.class, () -> SnapshotHandler.parseGameTime("noon"));
+    }
+}
@@ -0,0 +1,84 @@
+package tidebound.metadata;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xerial.snappy.Snappy;
+
+import skadistats.clarity.wire.shared.demo.proto.Demo;
+import skadistats.clarity.wire.shared.demo.proto.Demo.CDemoFileInfo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DemoFileInfoReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRead() throws IOException {
+        CDemoFileInfo fileInfo = CDemoFileInfo.newBuilder().setPlaybackTicks(54321).build();
+        Path replay = writeReplay(fileInfo.toByteArray(), Demo.EDemoCommands.DEM_FileInfo_VALUE);
+
+        assertEquals(54321, DemoFileInfoReader.read(replay).getPlaybackTicks());
+    }
+
+    @Test
+    void testRead_Compressed() throws IOException {
+        CDemoFileInfo fileInfo = CDemoFileInfo.newBuilder().setPlaybackTicks(12345).build();
+        Path replay = writeReplay(Snappy.compress(fileInfo.toByteArray()),
+            Demo.EDemoCommands.DEM_FileInfo_VALUE | Demo.EDemoCommands.DEM_IsCompressed_VALUE);
+
+        assertEquals(12345, DemoFileInfoReader.read(replay).getPlaybackTicks());
+    }
+
+    @Test
+    void testRead_RejectsOtherFiles() throws IOException {
+        Path notReplay = tempDir.resolve("replay.dem");
+        Files.write(notReplay, "PBUFDEM\0\0\0\0\0\0\0\0\0".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IOException.class, () -> DemoFileInfoReader.read(notReplay));
+
+        // A replay whose recording was interrupted has no file info offset
+        Path truncated = tempDir.resolve("truncated.dem");
+        Files.write(truncated, header(0));
+        assertThrows(IOException.class, () -> DemoFileInfoReader.read(truncated));
+    }
+
+    private Path writeReplay(byte[] data, int command) throws IOException {
+        byte[] padding = new byte[100];
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(header(16 + padding.length));
+        out.write(padding);
+        writeVarint(out, command);
+        writeVarint(out, 54321);
+        writeVarint(out, data.length);
+        out.write(data);
+        Path replay = tempDir.resolve("replay.dem");
+        Files.write(replay, out.toByteArray());
+        return replay;
+    }
+
+    private static byte[] header(int fileInfoOffset) {
+        return ByteBuffer.allocate(16)
+            .order(ByteOrder.LITTLE_ENDIAN)
+            .put("PBDEMS2\0".getBytes(StandardCharsets.US_ASCII))
+            .putInt(fileInfoOffset)
+            .putInt(0)
+            .array();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
@@ -3,9 +3,22 @@ package tidebound.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import tidebound.ParseOptions;
+import tidebound.ParseSession;
+import tidebound.ParserEngine;
+import tidebound.S3Service;
+import tidebound.events.EventProjection;
+import tidebound.events.TimeWindow;
 
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
@@ -14,6 +27,7 @@ import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -202,6 +216,78 @@ class ReplayJobServiceTest {
         }
     }
 
+    @Test
+    void testJobStatus_TransitionsToAborted_OverBudget() throws InterruptedException {
+        String filePath = "/replays/huge.dem";
+        ReplayProcessingService.ReplayResponse response =
+            new ReplayProcessingService.ReplayResponse(ReplayProcessingService.STATUS_OVER_BUDGET, new byte[0]);
+
+        when(replayProcessingService.processLocalReplay(filePath)).thenReturn(response);
+
+        ReplayJobService.ReplayJobSnapshot submitted = replayJobService.submitLocalJob(filePath);
+
+        // Wait for job to complete
+        Thread.sleep(500);
+
+        Optional<ReplayJobService.ReplayJobSnapshot> aborted = replayJobService.findJob(submitted.id());
+        assertTrue(aborted.isPresent());
+        assertEquals(ReplayJobService.JobStatus.ABORTED, aborted.get().status());
+        assertEquals(ReplayProcessingService.STATUS_OVER_BUDGET, aborted.get().parserStatus());
+        assertNotNull(aborted.get().errorMessage());
+    }
+
+    @Test
+    void testLocalJob_SucceedsWithEventsOfTimeWindow(@TempDir Path tempDir) throws Exception {
+        File replay = tempDir.resolve("match.dem").toFile();
+        Files.write(replay.toPath(), new byte[] {1, 2, 3});
+        ParserEngine engine = mock(ParserEngine.class);
+        ParseSession session = mock(ParseSession.class);
+        ArgumentCaptor<ParseOptions> options = ArgumentCaptor.forClass(ParseOptions.class);
+        when(engine.newSession(options.capture())).thenReturn(session);
+        // The parse stops at the window end, before the epilogue
+        String events = "{\"time\":0,\"type\":\"interval\",\"slot\":0}\n{\"time\":900,\"type\":\"interval\",\"slot\":0}\n";
+        doAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write(events.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(session).parse(eq(replay), any(OutputStream.class));
+        ReplayJobService service = new ReplayJobService(new ReplayProcessingService(mock(S3Service.class), engine), 1);
+
+        ReplayJobService.ReplayJobSnapshot submitted = service.submitLocalJob(replay.getPath(),
+            ParseOptions.defaults().withWindow(TimeWindow.of(0, 900)));
+        ReplayJobService.ReplayJobSnapshot finished = awaitFinished(service, submitted.id());
+
+        // The events of the window are the result, they are not aggregated into a blob
+        assertEquals(ReplayJobService.JobStatus.SUCCEEDED, finished.status());
+        assertEquals(200, finished.parserStatus());
+        assertEquals(events, new String(finished.result(), StandardCharsets.UTF_8));
+        assertTrue(options.getValue().getWindow().hasEnd());
+        service.shutdown();
+    }
+
+    @Test
+    void testLocalJob_SucceedsWithSelectedEvents(@TempDir Path tempDir) throws Exception {
+        File replay = tempDir.resolve("match.dem").toFile();
+        Files.write(replay.toPath(), new byte[] {1, 2, 3});
+        ParserEngine engine = mock(ParserEngine.class);
+        ParseSession session = mock(ParseSession.class);
+        when(engine.newSession(any(ParseOptions.class))).thenReturn(session);
+        // No epilogue, it is not selected
+        String events = "{\"time\":-90,\"type\":\"obs\",\"slot\":3}\n";
+        doAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write(events.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(session).parse(eq(replay), any(OutputStream.class));
+        ReplayJobService service = new ReplayJobService(new ReplayProcessingService(mock(S3Service.class), engine), 1);
+
+        ReplayJobService.ReplayJobSnapshot submitted = service.submitLocalJob(replay.getPath(),
+            ParseOptions.defaults().withProjection(EventProjection.of(List.of("obs", "sen"), null)));
+        ReplayJobService.ReplayJobSnapshot finished = awaitFinished(service, submitted.id());
+
+        assertEquals(ReplayJobService.JobStatus.SUCCEEDED, finished.status());
+        assertEquals(events, new String(finished.result(), StandardCharsets.UTF_8));
+        service.shutdown();
+    }
+
     @Test
     void testShutdown_ClosesExecutorService() {
         ReplayJobService service = new ReplayJobService(replayProcessingService, 1);
@@ -231,5 +317,16 @@ class ReplayJobServiceTest {
         assertNotNull(snapshot.createdAt());
         assertNotNull(snapshot.updatedAt());
     }
-}
 
+    private static ReplayJobService.ReplayJobSnapshot awaitFinished(ReplayJobService service, UUID jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (true) {
+            ReplayJobService.ReplayJobSnapshot job = service.findJob(jobId).orElseThrow();
+            if (job.status() != ReplayJobService.JobStatus.PENDING && job.status() != ReplayJobService.JobStatus.RUNNING) {
+                return job;
+            }
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package tidebound.trajectory;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrajectoryTest {
+
+    @Test
+    void testAdd_KeepsOnlyCorners() {
+        Trajectory trajectory = new Trajectory(4f);
+        for (int i = 0; i <= 100; i++) {
+            trajectory.add(1000 + i, i * 5, 0);
+        }
+        for (int i = 1; i <= 100; i++) {
+            trajectory.add(1100 + i, 500, i * 5);
+        }
+        trajectory.finish();
+
+        assertEquals(3, trajectory.size());
+        assertArrayEquals(new int[] {1000, 1100, 1200}, ticks(trajectory));
+        assertEquals(500, trajectory.getX(1));
+        assertEquals(500, trajectory.getY(2));
+    }
+
+    @Test
+    void testAdd_KeepsWhenUnitStartsMoving() {
+        Trajectory trajectory = new Trajectory(4f);
+        for (int tick = 0; tick < 60; tick++) {
+            trajectory.add(tick, 10, 10);
+        }
+        for (int tick = 60; tick < 90; tick++) {
+            trajectory.add(tick, 10 + (tick - 60) * 3, 10);
+        }
+        trajectory.finish();
+
+        // Without time in the error the stop would be merged into the movement
+        assertEquals(3, trajectory.size());
+        assertTrue(Math.abs(trajectory.getTick(1) - 60) <= 2);
+    }
+
+    @Test
+    void testAdd_WindowIsBounded() {
+        Trajectory trajectory = new Trajectory(4f, 10);
+        for (int tick = 0; tick <= 100; tick++) {
+            trajectory.add(tick, tick, tick);
+        }
+        trajectory.finish();
+
+        assertEquals(11, trajectory.size());
+    }
+
+    @Test
+    void testAdd_IgnoresRepeatedTicks() {
+        Trajectory trajectory = new Trajectory(0f);
+        trajectory.add(10, 0, 0);
+        trajectory.add(10, 50, 50);
+        trajectory.add(9, 50, 50);
+        trajectory.finish();
+
+        assertEquals(1, trajectory.size());
+        assertEquals(0, trajectory.getX(0));
+    }
+
+    @Test
+    void testClear_ContinuesFromLastKeptPoint() {
+        Trajectory trajectory = new Trajectory(1f);
+        trajectory.add(0, 0, 0);
+        trajectory.clear();
+        trajectory.add(1, 10, 0);
+        trajectory.add(2, 10, 10);
+        trajectory.finish();
+
+        assertArrayEquals(new int[] {1, 2}, ticks(trajectory));
+    }
+
+    @Test
+    void testFormats_RoundTrip() {
+        Trajectory trajectory = new Trajectory(0f);
+        trajectory.add(95, -3, -700);
+        trajectory.add(96, 1200, 15000);
+        trajectory.add(130, 1201, 14990);
+        trajectory.finish();
+
+        int[] expected = {5, -3, -700, 6, 1200, 15000, 40, 1201, 14990};
+        String json = TrajectoryFormat.JSON.encode(trajectory, 90);
+        assertEquals("[[5,-3,-700],[6,1200,15000],[40,1201,14990]]", json);
+        assertArrayEquals(expected, TrajectoryFormat.JSON.decode(json));
+        assertArrayEquals(expected, TrajectoryFormat.BINARY.decode(TrajectoryFormat.BINARY.encode(trajectory, 90)));
+    }
+
+    @Test
+    void testParse() {
+        assertNull(TrajectoryFormat.parse(null));
+        assertNull(TrajectoryFormat.parse(""));
+        assertEquals(TrajectoryFormat.JSON, TrajectoryFormat.parse("json"));
+        assertEquals(TrajectoryFormat.BINARY, TrajectoryFormat.parse("BINARY"));
+        assertThrows(IllegalArgumentException.class, () -> TrajectoryFormat.parse("csv"));
+    }
+
+    private static int[] ticks(Trajectory trajectory) {
+        int[] ticks = new int[trajectory.size()];
+        for (int i = 0; i < ticks.length; i++) {
+            ticks[i] = trajectory.getTick(i);
+        }
+        return ticks;
+    }
+}
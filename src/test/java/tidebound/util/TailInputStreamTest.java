@@ -0,0 +1,82 @@
+package tidebound.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TailInputStreamTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRead_FinishedRecording() throws Exception {
+        Path replay = tempDir.resolve("replay.dem");
+        Files.write(replay, replay(16, 100));
+
+        try (TailInputStream stream = new TailInputStream(replay, Duration.ofSeconds(10))) {
+            assertArrayEquals(replay(16, 100), stream.readAllBytes());
+            assertTrue(stream.isRecordingFinished());
+        }
+    }
+
+    @Test
+    void testRead_FollowsGrowingFile() throws Exception {
+        Path replay = tempDir.resolve("replay.dem");
+        Files.write(replay, replay(0, 50));
+
+        CompletableFuture<Void> recorder = CompletableFuture.runAsync(() -> {
+            try {
+                Thread.sleep(300);
+                Files.write(replay, new byte[50], StandardOpenOption.APPEND);
+                Thread.sleep(300);
+                // Finishing the recording sets the file info offset
+                try (RandomAccessFile file = new RandomAccessFile(replay.toFile(), "rw")) {
+                    file.seek(8);
+                    file.write(new byte[] {16, 0, 0, 0});
+                }
+            } catch (IOException | InterruptedException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            try (TailInputStream stream = new TailInputStream(replay, Duration.ofSeconds(10))) {
+                ByteArrayOutputStream read = new ByteArrayOutputStream();
+                stream.transferTo(read);
+                assertEquals(116, read.size());
+                assertTrue(stream.isRecordingFinished());
+            }
+        });
+        recorder.join();
+    }
+
+    @Test
+    void testRead_EndsWhenRecordingStopsGrowing() throws Exception {
+        Path replay = tempDir.resolve("replay.dem");
+        Files.write(replay, replay(0, 20));
+
+        try (TailInputStream stream = new TailInputStream(replay, Duration.ofMillis(200))) {
+            assertEquals(36, stream.readAllBytes().length);
+            assertFalse(stream.isRecordingFinished());
+        }
+    }
+
+    private static byte[] replay(int fileInfoOffset, int packetBytes) {
+        byte[] replay = new byte[16 + packetBytes];
+        System.arraycopy("PBDEMS2\0".getBytes(), 0, replay, 0, 8);
+        replay[8] = (byte) fileInfoOffset;
+        Arrays.fill(replay, 16, replay.length, (byte) 7);
+        return replay;
+    }
+}
@@ -0,0 +1,248 @@
+package tidebound.worker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+import tidebound.ParseBudgetExceededException;
+import tidebound.ParseOptions;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseWorkerPoolTest {
+
+    // Echoes the replay in upper case, prefixed with the types option
+    private static final ParseWorker.ParseTask ECHO = (options, replay, output) -> {
+        output.write((options.toQueryString() + ":").getBytes(StandardCharsets.UTF_8));
+        String text = new String(replay.readAllBytes(), StandardCharsets.UTF_8);
+        output.write(text.toUpperCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+    };
+
+    @Test
+    void testParse_StreamsReplayAndOutputThroughWorker() throws Exception {
+        ExecutorService feeders = Executors.newCachedThreadPool();
+        try (WorkerProcess worker = startWorker(ECHO)) {
+            // Larger than a frame in both directions
+            String replay = "replay".repeat(30000);
+
+            String output = parse(worker, feeders, options("chat"), replay);
+
+            assertEquals("?types=chat:" + replay.toUpperCase(Locale.ROOT), output);
+            assertEquals("?types=chat:SECOND", parse(worker, feeders, options("chat"), "second"));
+            assertEquals(2, worker.getParses());
+            assertFalse(worker.isBroken());
+        } finally {
+            feeders.shutdownNow();
+        }
+    }
+
+    @Test
+    void testParse_WorkerStaysUsableAfterFailedAndPartialParses() throws Exception {
+        ExecutorService feeders = Executors.newCachedThreadPool();
+        AtomicInteger calls = new AtomicInteger();
+        ParseWorker.ParseTask task = (options, replay, output) -> {
+            switch (calls.incrementAndGet()) {
+                case 1 -> throw new ParseBudgetExceededException("Parse aborted, it retains 600 MiB");
+                case 2 -> throw new IOException("Truncated replay");
+                // Stops after the first byte, like a parse that reached its window end
+                case 3 -> output.write(replay.read());
+                default -> ECHO.parse(options, replay, output);
+            }
+        };
+        try (WorkerProcess worker = startWorker(task)) {
+            ParseBudgetExceededException aborted = assertThrows(ParseBudgetExceededException.class,
+                () -> parse(worker, feeders, options("chat"), "first"));
+            IOException failed = assertThrows(IOException.class,
+                () -> parse(worker, feeders, options("chat"), "second"));
+
+            assertEquals("Parse aborted, it retains 600 MiB", aborted.getMessage());
+            assertTrue(failed.getMessage().contains("Truncated replay"));
+            assertEquals("t", parse(worker, feeders, options("chat"), "third".repeat(20000)));
+            assertEquals("?types=chat:FOURTH", parse(worker, feeders, options("chat"), "fourth"));
+            assertFalse(worker.isBroken());
+        } finally {
+            feeders.shutdownNow();
+        }
+    }
+
+    @Test
+    void testParse_ParsesFileReadByWorker() throws Exception {
+        ExecutorService feeders = Executors.newCachedThreadPool();
+        ParseWorker.ParseTask task = new ParseWorker.ParseTask() {
+            @Override
+            public void parse(ParseOptions options, InputStream replay, OutputStream output) throws IOException {
+                ECHO.parse(options, replay, output);
+            }
+
+            @Override
+            public void parse(ParseOptions options, File replay, OutputStream output) throws IOException {
+                output.write((options.toQueryString() + ":" + replay.getName()).getBytes(StandardCharsets.UTF_8));
+            }
+        };
+        try (WorkerProcess worker = startWorker(task)) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            worker.parse(options("chat"), new File("/replays/match.dem"), output);
+
+            assertEquals("?types=chat:match.dem", output.toString(StandardCharsets.UTF_8));
+            // The next parse of a stream reads its own replay
+            assertEquals("?types=chat:NEXT", parse(worker, feeders, options("chat"), "next"));
+            assertFalse(worker.isBroken());
+        } finally {
+            feeders.shutdownNow();
+        }
+    }
+
+    @Test
+    void testParse_ReplacesWorkerAfterMaxParses() throws Exception {
+        AtomicInteger launched = new AtomicInteger();
+        ParseWorkerPool pool = new ParseWorkerPool(1, 2, 0, () -> {
+            launched.incrementAndGet();
+            return startWorker(ECHO);
+        });
+        try {
+            for (int i = 0; i < 5; i++) {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                pool.parse(options("chat"), replay("replay"), output);
+                assertEquals("?types=chat:REPLAY", output.toString(StandardCharsets.UTF_8));
+            }
+
+            // Replaced after the second and the fourth parse
+            waitFor(() -> pool.getIdleWorkers() == 1);
+            assertEquals(3, launched.get());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    void testParse_ReplacesWorkerThatExited() throws Exception {
+        AtomicInteger launched = new AtomicInteger();
+        ParseWorkerPool pool = new ParseWorkerPool(1, 100, 0, () -> {
+            if (launched.incrementAndGet() == 1) {
+                return startWorker((options, replay, output) -> {
+                    throw new OutOfMemoryError("Java heap space");
+                });
+            }
+            return startWorker(ECHO);
+        });
+        try {
+            assertThrows(IOException.class, () -> pool.parse(options("chat"), replay("replay"), new ByteArrayOutputStream()));
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            pool.parse(options("chat"), replay("replay"), output);
+
+            assertEquals("?types=chat:REPLAY", output.toString(StandardCharsets.UTF_8));
+            assertEquals(2, launched.get());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    void testParse_FailsWithoutIdleWorkerInTime() throws Exception {
+        ParseWorkerPool pool = new ParseWorkerPool(1, 100, 0, 1, 1, () -> {
+            throw new IOException("Cannot run program \"java\"");
+        });
+        try {
+            IOException failed = assertThrows(IOException.class,
+                () -> pool.parse(options("chat"), replay("replay"), new ByteArrayOutputStream()));
+
+            assertEquals("No parse worker became idle within 1 s", failed.getMessage());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    void testAwaitWorkers_GivesUpOnWorkerThatNeverStarts() throws Exception {
+        AtomicInteger launched = new AtomicInteger();
+        ParseWorkerPool pool = new ParseWorkerPool(1, 100, 0, 1, 1, () -> {
+            launched.incrementAndGet();
+            throw new IOException("Cannot run program \"java\"");
+        });
+        try {
+            assertFalse(pool.awaitWorkers());
+            assertEquals(0, pool.getIdleWorkers());
+            assertEquals(1, launched.get());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    void testAwaitWorkers_ReturnsOnceWorkersStarted() throws Exception {
+        ParseWorkerPool pool = new ParseWorkerPool(2, 100, 0, 5, 5, () -> startWorker(ECHO));
+        try {
+            assertTrue(pool.awaitWorkers());
+            assertEquals(2, pool.getIdleWorkers());
+        } finally {
+            pool.close();
+        }
+    }
+
+    /**
+     * Runs a worker in a thread of this JVM, connected over a loopback socket.
+     */
+    private static WorkerProcess startWorker(ParseWorker.ParseTask task) throws IOException {
+        Socket client;
+        Socket server;
+        try (ServerSocket listener = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            client = new Socket(InetAddress.getLoopbackAddress(), listener.getLocalPort());
+            server = listener.accept();
+        }
+        Thread thread = new Thread(() -> {
+            try (server) {
+                new ParseWorker(task, server.getInputStream(), server.getOutputStream()).run();
+            } catch (IOException | Error ex) {
+                // The worker is gone, like a crashed worker JVM
+            }
+        }, "parse-worker-test");
+        thread.setDaemon(true);
+        thread.start();
+        WorkerProcess worker = new WorkerProcess(client.getInputStream(), client.getOutputStream(), () -> {
+            try {
+                client.close();
+            } catch (IOException ex) {
+                // Already closed
+            }
+        });
+        worker.awaitReady();
+        return worker;
+    }
+
+    private static String parse(WorkerProcess worker, ExecutorService feeders, ParseOptions options, String replay) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        worker.parse(options, replay(replay), output, feeders);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private static ParseOptions options(String types) {
+        return ParseOptions.fromParameters(name -> "types".equals(name) ? types : null);
+    }
+
+    private static InputStream replay(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(5);
+        }
+    }
+}